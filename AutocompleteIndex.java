@@ -0,0 +1,352 @@
+import java.util.Arrays;
+
+/**
+ * Prefix autocomplete over game names, ranked by review score.
+ *
+ * <p>Rows are kept sorted by their lower-cased name, so the games sharing a prefix form one contiguous
+ * range found with two binary searches. A sparse table stores, for every position and power of two,
+ * the position of the best review score in that window, so the best game of any range is found in
+ * constant time. The top {@code k} completions are then extracted with a small heap of ranges: pop
+ * the range whose best game is highest, emit it, and push the two sub-ranges on either side of it.
+ * A query costs {@code O(log n + k log k)} and allocates only the result and the {@code O(k)} heap.
+ */
+public final class AutocompleteIndex {
+
+    /** Row ids in ascending lower-cased name order. */
+    private final int[] rows;
+
+    /** Lower-cased name of {@code rows[i]} is {@code keyChars[keyOffsets[i] .. keyOffsets[i + 1])}. */
+    private final int[] keyOffsets;
+    private final char[] keyChars;
+
+    /** Review score of {@code rows[i]}. */
+    private final double[] scores;
+
+    /** {@code best[j][i]} is the position of the best score in {@code [i, i + 2^j)}. */
+    private final int[][] best;
+
+    /**
+     * Builds the index for every row of a table.
+     *
+     * @param table the table to index
+     */
+    public AutocompleteIndex(GameTable table) {
+        int n = table.size();
+
+        String[] keys = new String[n];
+        rows = new int[n];
+        for (int row = 0; row < n; row++) {
+            keys[row] = new String(lowerCase(table.getName(row)));
+            rows[row] = row;
+        }
+        TopKIndex.sort(rows, (a, b) -> {
+            int c = keys[a].compareTo(keys[b]);
+            return c != 0 ? c : Integer.compare(a, b);
+        });
+
+        keyOffsets = new int[n + 1];
+        int length = 0;
+        for (int i = 0; i < n; i++) {
+            length += keys[rows[i]].length();
+            keyOffsets[i + 1] = length;
+        }
+        keyChars = new char[length];
+        for (int i = 0; i < n; i++) {
+            String key = keys[rows[i]];
+            key.getChars(0, key.length(), keyChars, keyOffsets[i]);
+        }
+        scores = scores(table, rows);
+        best = sparseTable(scores);
+    }
+
+    private AutocompleteIndex(GameTable table, int[] rows, int[] keyOffsets, char[] keyChars) {
+        this.rows = rows;
+        this.keyOffsets = keyOffsets;
+        this.keyChars = keyChars;
+        scores = scores(table, rows);
+        best = sparseTable(scores);
+    }
+
+    /**
+     * Returns the index after rows were removed from the table and others appended to it, leaving
+     * this index untouched. Only the appended names are sorted; they are merged with the kept keys
+     * in one linear pass, and the sparse table is rebuilt over the merged order.
+     *
+     * @param table the table after the change
+     * @param removed the rows to drop from the index
+     * @param firstAdded the first appended row; rows from here to the end of the table are added
+     * @return the updated index
+     */
+    public AutocompleteIndex withChanges(GameTable table, RowBitmap removed, int firstAdded) {
+        int[] added = new int[table.size() - firstAdded];
+        char[][] addedKeys = new char[added.length][];
+        int addedLength = 0;
+        for (int i = 0; i < added.length; i++) {
+            added[i] = firstAdded + i;
+            addedKeys[i] = lowerCase(table.getName(added[i]));
+            addedLength += addedKeys[i].length;
+        }
+        TopKIndex.sort(added, (a, b) -> {
+            int c = Arrays.compare(addedKeys[a - firstAdded], addedKeys[b - firstAdded]);
+            return c != 0 ? c : Integer.compare(a, b);
+        });
+
+        int[] mergedRows = new int[rows.length + added.length];
+        int[] mergedOffsets = new int[mergedRows.length + 1];
+        char[] mergedChars = new char[keyChars.length + addedLength];
+        int n = 0;
+        int j = 0;
+        for (int i = 0; i <= rows.length; i++) {
+            if (i < rows.length && removed.contains(rows[i])) {
+                continue;
+            }
+            // Appended rows have larger ids, so on equal keys they go after the kept row
+            while (j < added.length && (i == rows.length || Arrays.compare(addedKeys[added[j] - firstAdded], 0,
+                    addedKeys[added[j] - firstAdded].length, keyChars, keyOffsets[i], keyOffsets[i + 1]) < 0)) {
+                char[] key = addedKeys[added[j] - firstAdded];
+                System.arraycopy(key, 0, mergedChars, mergedOffsets[n], key.length);
+                mergedOffsets[n + 1] = mergedOffsets[n] + key.length;
+                mergedRows[n++] = added[j++];
+            }
+            if (i < rows.length) {
+                int length = keyOffsets[i + 1] - keyOffsets[i];
+                System.arraycopy(keyChars, keyOffsets[i], mergedChars, mergedOffsets[n], length);
+                mergedOffsets[n + 1] = mergedOffsets[n] + length;
+                mergedRows[n++] = rows[i];
+            }
+        }
+        return new AutocompleteIndex(table, Arrays.copyOf(mergedRows, n), Arrays.copyOf(mergedOffsets, n + 1),
+                Arrays.copyOf(mergedChars, mergedOffsets[n]));
+    }
+
+    /** Returns the review score of every row, by position. */
+    private static double[] scores(GameTable table, int[] rows) {
+        double[] scores = new double[rows.length];
+        for (int i = 0; i < rows.length; i++) {
+            scores[i] = table.getReviewScore(rows[i]);
+        }
+        return scores;
+    }
+
+    /** Builds the sparse table of best-score positions over every power-of-two window. */
+    private static int[][] sparseTable(double[] scores) {
+        int n = scores.length;
+        int levels = n == 0 ? 0 : 32 - Integer.numberOfLeadingZeros(n);
+        int[][] best = new int[levels][];
+        if (levels > 0) {
+            best[0] = new int[n];
+            for (int i = 0; i < n; i++) {
+                best[0][i] = i;
+            }
+        }
+        for (int j = 1; j < levels; j++) {
+            int half = 1 << (j - 1);
+            best[j] = new int[n - (1 << j) + 1];
+            for (int i = 0; i < best[j].length; i++) {
+                best[j][i] = better(scores, best[j - 1][i], best[j - 1][i + half]);
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Returns the best-reviewed rows whose name starts with a prefix (case-insensitive).
+     *
+     * @param prefix the name prefix
+     * @param k the maximum number of completions
+     * @return the row ids, best review score first (ties in name order)
+     */
+    public int[] complete(String prefix, int k) {
+        char[] key = lowerCase(prefix);
+        int from = lowerBound(key);
+        int to = upperBound(key, from);
+        int count = Math.max(0, Math.min(k, to - from));
+        int[] result = new int[count];
+        if (count == 0) {
+            return result;
+        }
+
+        // Max-heap of disjoint position ranges, keyed by the position of each range's best score
+        int[] heapFrom = new int[2 * count + 1];
+        int[] heapTo = new int[heapFrom.length];
+        int[] heapBest = new int[heapFrom.length];
+        int size = push(heapFrom, heapTo, heapBest, 0, from, to - 1);
+
+        for (int emitted = 0; emitted < count; emitted++) {
+            int rangeFrom = heapFrom[0];
+            int rangeTo = heapTo[0];
+            int position = heapBest[0];
+            size = pop(heapFrom, heapTo, heapBest, size);
+
+            result[emitted] = rows[position];
+            if (rangeFrom < position) {
+                size = push(heapFrom, heapTo, heapBest, size, rangeFrom, position - 1);
+            }
+            if (position < rangeTo) {
+                size = push(heapFrom, heapTo, heapBest, size, position + 1, rangeTo);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Counts the rows whose name starts with a prefix (case-insensitive) with two binary searches.
+     *
+     * @param prefix the name prefix
+     * @return the number of rows
+     */
+    public int countPrefix(String prefix) {
+        char[] key = lowerCase(prefix);
+        int from = lowerBound(key);
+        return upperBound(key, from) - from;
+    }
+
+    /**
+     * Returns the rows whose name starts with a prefix (case-insensitive).
+     *
+     * @param prefix the name prefix
+     * @return the row ids in name order
+     */
+    public IntArrayList findPrefix(String prefix) {
+        char[] key = lowerCase(prefix);
+        int from = lowerBound(key);
+        int to = upperBound(key, from);
+        IntArrayList result = new IntArrayList(Math.max(1, to - from));
+        for (int i = from; i < to; i++) {
+            result.add(rows[i]);
+        }
+        return result;
+    }
+
+    /**
+     * Estimates the heap footprint of the sorted keys, scores and sparse table.
+     *
+     * @return the size in bytes
+     */
+    public long memoryBytes() {
+        long bytes = MemoryReport.objectBytes(6 * MemoryReport.REFERENCE_BYTES)
+                + MemoryReport.arrayBytes(rows.length, 4)
+                + MemoryReport.arrayBytes(keyOffsets.length, 4) + MemoryReport.arrayBytes(keyChars.length, 2)
+                + MemoryReport.arrayBytes(scores.length, 8)
+                + MemoryReport.arrayBytes(best.length, MemoryReport.REFERENCE_BYTES);
+        for (int[] level : best) {
+            bytes += MemoryReport.arrayBytes(level.length, 4);
+        }
+        return bytes;
+    }
+
+    /** Returns the position of the best score in {@code [from, to]}. */
+    private int bestIn(int from, int to) {
+        int level = 31 - Integer.numberOfLeadingZeros(to - from + 1);
+        return better(best[level][from], best[level][to - (1 << level) + 1]);
+    }
+
+    private int better(int a, int b) {
+        return better(scores, a, b);
+    }
+
+    /** Returns the better of two positions: higher score, then earlier in name order. */
+    private static int better(double[] scores, int a, int b) {
+        int c = Double.compare(scores[a], scores[b]);
+        return c > 0 || (c == 0 && a < b) ? a : b;
+    }
+
+    private int push(int[] heapFrom, int[] heapTo, int[] heapBest, int size, int from, int to) {
+        int position = bestIn(from, to);
+        int child = size;
+        while (child > 0) {
+            int parent = (child - 1) / 2;
+            if (better(heapBest[parent], position) == heapBest[parent]) {
+                break;
+            }
+            heapFrom[child] = heapFrom[parent];
+            heapTo[child] = heapTo[parent];
+            heapBest[child] = heapBest[parent];
+            child = parent;
+        }
+        heapFrom[child] = from;
+        heapTo[child] = to;
+        heapBest[child] = position;
+        return size + 1;
+    }
+
+    private int pop(int[] heapFrom, int[] heapTo, int[] heapBest, int size) {
+        size--;
+        int from = heapFrom[size];
+        int to = heapTo[size];
+        int position = heapBest[size];
+        int parent = 0;
+        while (true) {
+            int child = 2 * parent + 1;
+            if (child >= size) {
+                break;
+            }
+            if (child + 1 < size && better(heapBest[child + 1], heapBest[child]) == heapBest[child + 1]) {
+                child++;
+            }
+            if (better(position, heapBest[child]) == position) {
+                break;
+            }
+            heapFrom[parent] = heapFrom[child];
+            heapTo[parent] = heapTo[child];
+            heapBest[parent] = heapBest[child];
+            parent = child;
+        }
+        heapFrom[parent] = from;
+        heapTo[parent] = to;
+        heapBest[parent] = position;
+        return size;
+    }
+
+    /** Returns the first position whose key is not less than {@code key}. */
+    private int lowerBound(char[] key) {
+        int low = 0;
+        int high = rows.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (Arrays.compare(keyChars, keyOffsets[mid], keyOffsets[mid + 1], key, 0, key.length) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /** Returns the first position at or after {@code from} whose key does not start with {@code prefix}. */
+    private int upperBound(char[] prefix, int from) {
+        int low = from;
+        int high = rows.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (startsWith(mid, prefix)) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private boolean startsWith(int position, char[] prefix) {
+        int start = keyOffsets[position];
+        if (keyOffsets[position + 1] - start < prefix.length) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length; i++) {
+            if (keyChars[start + i] != prefix[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /** Lower-cases char by char, so keys keep the length of the original name. */
+    private static char[] lowerCase(String text) {
+        char[] chars = text.toCharArray();
+        for (int i = 0; i < chars.length; i++) {
+            chars[i] = Character.toLowerCase(chars[i]);
+        }
+        return chars;
+    }
+}
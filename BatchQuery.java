@@ -0,0 +1,173 @@
+import java.util.Date;
+import java.util.Objects;
+
+/**
+ * One query of a batch run with {@link SteamGamesDatasetQuery#executeBatch(java.util.List)}: either a
+ * release date range lookup or an average price, for a tag and a window of release dates.
+ *
+ * <pre>
+ *   List&lt;List&lt;String&gt;&gt; results = engine.executeBatch(List.of(
+ *           BatchQuery.releaseDate("indie", lower, upper),
+ *           BatchQuery.averagePrice(start, end, "indie")));
+ * </pre>
+ *
+ * <p>Each query answers exactly what the matching single call would. The dates are turned into
+ * epoch days when the query is created, so queries are immutable and compare equal when they
+ * select the same games.
+ */
+public final class BatchQuery {
+
+    /** What a batch query computes. */
+    public enum Kind {
+        /** The names of the tag's games in the window, like {@code findGamesByReleaseDate}. */
+        RELEASE_DATE,
+        /** The formatted average price in the window, like {@code calculateAverageGamePrice}. */
+        AVERAGE_PRICE
+    }
+
+    private final Kind kind;
+    private final String tag;
+    private final int lowerDay;
+    private final int upperDay;
+
+    private BatchQuery(Kind kind, String tag, int lowerDay, int upperDay) {
+        this.kind = kind;
+        this.tag = tag;
+        this.lowerDay = lowerDay;
+        this.upperDay = upperDay;
+    }
+
+    /**
+     * Creates the batch form of {@link SteamGamesDatasetQuery#findGamesByReleaseDate(String, Date, Date)}.
+     *
+     * @param tag the tag to filter by
+     * @param lowerBound the start date (inclusive)
+     * @param upperBound the end date (inclusive)
+     * @return the query; it matches nothing if an argument is null or the tag is blank
+     */
+    public static BatchQuery releaseDate(String tag, Date lowerBound, Date upperBound) {
+        if (tag == null || tag.isBlank() || lowerBound == null || upperBound == null) {
+            return new BatchQuery(Kind.RELEASE_DATE, null, 1, 0);
+        }
+        return new BatchQuery(Kind.RELEASE_DATE, tag, EpochDays.ceil(lowerBound), EpochDays.floor(upperBound));
+    }
+
+    /**
+     * Creates the batch form of {@link SteamGamesDatasetQuery#findGamesByReleaseDate(String, Date)}.
+     *
+     * @param tag the tag to filter by
+     * @param upperBound the end date (inclusive)
+     * @return the query; it matches nothing if an argument is null or the tag is blank
+     */
+    public static BatchQuery releaseDate(String tag, Date upperBound) {
+        if (tag == null || tag.isBlank() || upperBound == null) {
+            return new BatchQuery(Kind.RELEASE_DATE, null, 1, 0);
+        }
+        return new BatchQuery(Kind.RELEASE_DATE, tag, Integer.MIN_VALUE, EpochDays.floor(upperBound));
+    }
+
+    /**
+     * Creates the batch form of {@link SteamGamesDatasetQuery#calculateAverageGamePrice(Date, Date, String)}.
+     *
+     * @param startTime the start date (inclusive)
+     * @param endTime the end date (inclusive)
+     * @param tag the tag to filter by
+     * @return the query
+     * @throws NullPointerException if an argument is null, as the single call does
+     */
+    public static BatchQuery averagePrice(Date startTime, Date endTime, String tag) {
+        if (startTime == null || endTime == null || tag == null) {
+            throw new NullPointerException("Start time, end time, or tag is null.");
+        }
+        return new BatchQuery(Kind.AVERAGE_PRICE, tag, EpochDays.ceil(startTime), EpochDays.floor(endTime));
+    }
+
+    /**
+     * Creates the batch form of {@link SteamGamesDatasetQuery#calculateAverageGamePrice(Date, Date)}.
+     *
+     * @param startTime the start date (inclusive)
+     * @param endTime the end date (inclusive)
+     * @return the query
+     * @throws NullPointerException if an argument is null, as the single call does
+     */
+    public static BatchQuery averagePrice(Date startTime, Date endTime) {
+        if (startTime == null || endTime == null) {
+            throw new NullPointerException("Start time or end time is null.");
+        }
+        return new BatchQuery(Kind.AVERAGE_PRICE, null, EpochDays.ceil(startTime), EpochDays.floor(endTime));
+    }
+
+    /**
+     * Returns what the query computes.
+     *
+     * @return the kind
+     */
+    public Kind getKind() {
+        return kind;
+    }
+
+    /**
+     * Returns the tag, as given.
+     *
+     * @return the tag, or null for an average over all games or a query that matches nothing
+     */
+    public String getTag() {
+        return tag;
+    }
+
+    /**
+     * Returns the first epoch day of the window.
+     *
+     * @return the lower day, or {@link Integer#MIN_VALUE} if the window has no start
+     */
+    public int getLowerDay() {
+        return lowerDay;
+    }
+
+    /**
+     * Returns the last epoch day of the window.
+     *
+     * @return the upper day
+     */
+    public int getUpperDay() {
+        return upperDay;
+    }
+
+    /**
+     * Returns whether the query selects no games whatever the dataset, because its window is
+     * empty or, for a release date query, an argument was missing.
+     *
+     * @return true if the result is always empty
+     */
+    public boolean matchesNothing() {
+        return lowerDay > upperDay;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof BatchQuery other)) {
+            return false;
+        }
+        return kind == other.kind && lowerDay == other.lowerDay && upperDay == other.upperDay
+                && Objects.equals(normalizedTag(), other.normalizedTag());
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(kind, normalizedTag(), lowerDay, upperDay);
+    }
+
+    /** Returns the tag as the tag dictionary looks it up, so equal keys give equal answers. */
+    private String normalizedTag() {
+        return tag == null ? null : TagDictionary.normalize(tag);
+    }
+
+    @Override
+    public String toString() {
+        return "BatchQuery[" + kind + (tag != null ? ", tag=" + tag : "")
+                + (lowerDay != Integer.MIN_VALUE ? ", lowerDay=" + lowerDay : "") + ", upperDay=" + upperDay + "]";
+    }
+}
@@ -0,0 +1,102 @@
+/**
+ * Counters of a {@link CachingSteamGamesQuery} at one point in time.
+ */
+public final class CacheStats {
+
+    private final long hitCount;
+    private final long missCount;
+    private final long evictionCount;
+    private final long invalidationCount;
+    private final int entryCount;
+    private final long weight;
+
+    /**
+     * Constructs the statistics from their components.
+     *
+     * @param hitCount the number of queries answered from the cache
+     * @param missCount the number of queries passed on to the dataset
+     * @param evictionCount the number of entries evicted to stay within the weight bound
+     * @param invalidationCount the number of times the cache was cleared for a new dataset version
+     * @param entryCount the number of cached results
+     * @param weight the total weight of the cached results
+     */
+    public CacheStats(long hitCount, long missCount, long evictionCount, long invalidationCount, int entryCount,
+                      long weight) {
+        this.hitCount = hitCount;
+        this.missCount = missCount;
+        this.evictionCount = evictionCount;
+        this.invalidationCount = invalidationCount;
+        this.entryCount = entryCount;
+        this.weight = weight;
+    }
+
+    /**
+     * Returns the number of queries answered from the cache.
+     *
+     * @return the hit count
+     */
+    public long getHitCount() {
+        return hitCount;
+    }
+
+    /**
+     * Returns the number of queries passed on to the dataset.
+     *
+     * @return the miss count
+     */
+    public long getMissCount() {
+        return missCount;
+    }
+
+    /**
+     * Returns the fraction of queries answered from the cache.
+     *
+     * @return the hit rate, or 0 if no query has been made
+     */
+    public double getHitRate() {
+        long total = hitCount + missCount;
+        return total == 0 ? 0.0 : (double) hitCount / total;
+    }
+
+    /**
+     * Returns the number of entries evicted to stay within the weight bound.
+     *
+     * @return the eviction count
+     */
+    public long getEvictionCount() {
+        return evictionCount;
+    }
+
+    /**
+     * Returns the number of times the cache was cleared because the dataset changed.
+     *
+     * @return the invalidation count
+     */
+    public long getInvalidationCount() {
+        return invalidationCount;
+    }
+
+    /**
+     * Returns the number of cached results.
+     *
+     * @return the entry count
+     */
+    public int getEntryCount() {
+        return entryCount;
+    }
+
+    /**
+     * Returns the total weight of the cached results.
+     *
+     * @return the weight
+     */
+    public long getWeight() {
+        return weight;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("hits=%d misses=%d hitRate=%.3f evictions=%d invalidations=%d entries=%d weight=%d",
+                hitCount, missCount, getHitRate(), evictionCount, invalidationCount, entryCount, weight);
+    }
+}
@@ -0,0 +1,372 @@
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * A {@link SteamGamesDatasetQuery} that answers repeated queries from a bounded cache of results
+ * in front of a {@link SteamGamesImpl}.
+ *
+ * <p>Results are keyed on the query parameters after the same normalization the dataset applies:
+ * tags are trimmed and lower-cased and dates are reduced to the epoch days (or year) the query
+ * actually uses, so {@code "Indie"} and {@code " indie"}, or two timestamps on the same day, share
+ * an entry. Each entry weighs one unit plus one per returned element; once the total weight
+ * exceeds the bound, least recently used entries are evicted.
+ *
+ * <p>Every entry belongs to the {@link IndexSnapshot} it was computed against. When the dataset
+ * publishes a new snapshot, through {@link #loadDataset(String)} or any load, reload or edit of the
+ * underlying {@link SteamGamesImpl}, the cache is cleared on the next query, so a cached result is
+ * never older than the dataset. Results are only stored if the snapshot did not change while they
+ * were computed.
+ *
+ * <p>Cached lists are unmodifiable. Streaming and paged queries, and top-k queries with an
+ * arbitrary comparator, are passed through uncached. The cache is thread-safe; concurrent misses
+ * on the same key may both compute the result.
+ */
+public final class CachingSteamGamesQuery implements SteamGamesDatasetQuery {
+
+    private final SteamGamesImpl delegate;
+    private final long maxWeight;
+
+    /** Cached results in access order, least recently used first. Guarded by {@code this}. */
+    private final LinkedHashMap<List<Object>, Entry> entries = new LinkedHashMap<>(64, 0.75f, true);
+    private IndexSnapshot version;
+    private long weight;
+    private long hitCount;
+    private long missCount;
+    private long evictionCount;
+    private long invalidationCount;
+
+    /** A cached result and its weight. */
+    private static final class Entry {
+        final Object value;
+        final int weight;
+
+        Entry(Object value, int weight) {
+            this.value = value;
+            this.weight = weight;
+        }
+    }
+
+    /**
+     * Wraps a dataset with a result cache.
+     *
+     * @param delegate The dataset to query on a miss.
+     * @param maxWeight The maximum total weight of cached results (one unit per entry plus one per
+     *                  returned element).
+     * @throws IllegalArgumentException If {@code maxWeight} is not positive.
+     */
+    public CachingSteamGamesQuery(SteamGamesImpl delegate, long maxWeight) {
+        if (maxWeight <= 0) {
+            throw new IllegalArgumentException("maxWeight must be positive: " + maxWeight);
+        }
+        this.delegate = delegate;
+        this.maxWeight = maxWeight;
+        this.version = delegate.getSnapshot();
+    }
+
+    /**
+     * Returns the current hit, miss, eviction and invalidation counters.
+     *
+     * @return The statistics.
+     */
+    public synchronized CacheStats getStats() {
+        return new CacheStats(hitCount, missCount, evictionCount, invalidationCount, entries.size(), weight);
+    }
+
+    /** Removes every cached result. */
+    public synchronized void clear() {
+        entries.clear();
+        weight = 0;
+    }
+
+    /**
+     * Loads a dataset into the underlying dataset. The cache is invalidated by the new snapshot.
+     *
+     * @param filePath The path to the CSV file.
+     * @return The number of games in the dataset.
+     */
+    @Override
+    public int loadDataset(String filePath) {
+        return delegate.loadDataset(filePath);
+    }
+
+    @Override
+    public List<String> findGamesByExactQuery(Date year, String tag) {
+        if (year == null || tag == null) {
+            return delegate.findGamesByExactQuery(year, tag);
+        }
+        int targetYear = EpochDays.yearOf(EpochDays.floor(year));
+        return cached(key("exact", targetYear, normalizeTag(tag)),
+                () -> delegate.findGamesByExactQuery(year, tag));
+    }
+
+    @Override
+    public List<String> findGamesByReleaseDate(String tag, Date lowerBound, Date upperBound) {
+        if (tag == null || lowerBound == null || upperBound == null) {
+            return delegate.findGamesByReleaseDate(tag, lowerBound, upperBound);
+        }
+        return cached(key("range", normalizeTag(tag), EpochDays.ceil(lowerBound), EpochDays.floor(upperBound)),
+                () -> delegate.findGamesByReleaseDate(tag, lowerBound, upperBound));
+    }
+
+    @Override
+    public List<String> findGamesByReleaseDate(String tag, Date upperBound) {
+        if (tag == null || upperBound == null) {
+            return delegate.findGamesByReleaseDate(tag, upperBound);
+        }
+        return cached(key("upTo", normalizeTag(tag), EpochDays.floor(upperBound)),
+                () -> delegate.findGamesByReleaseDate(tag, upperBound));
+    }
+
+    @Override
+    public List<String> findGamesByTagExpression(String expression) {
+        if (expression == null) {
+            return delegate.findGamesByTagExpression(expression);
+        }
+        // Operators are case-sensitive, so the expression is only trimmed
+        return cached(key("expr", expression.trim()), () -> delegate.findGamesByTagExpression(expression));
+    }
+
+    @Override
+    public List<String> findGamesByTagExpression(String expression, Date lowerBound, Date upperBound) {
+        if (expression == null || lowerBound == null || upperBound == null) {
+            return delegate.findGamesByTagExpression(expression, lowerBound, upperBound);
+        }
+        return cached(key("exprRange", expression.trim(), EpochDays.ceil(lowerBound), EpochDays.floor(upperBound)),
+                () -> delegate.findGamesByTagExpression(expression, lowerBound, upperBound));
+    }
+
+    @Override
+    public List<String> findGamesByPrice(String tag, double minPrice, double maxPrice, Date lowerBound,
+                                         Date upperBound) {
+        String normalizedTag = tag == null || tag.isBlank() ? null : normalizeTag(tag);
+        return cached(key("price", normalizedTag, minPrice, maxPrice, lowerDay(lowerBound), upperDay(upperBound)),
+                () -> delegate.findGamesByPrice(tag, minPrice, maxPrice, lowerBound, upperBound));
+    }
+
+    @Override
+    public Stream<String> streamGamesByReleaseDate(String tag, Date lowerBound, Date upperBound) {
+        return delegate.streamGamesByReleaseDate(tag, lowerBound, upperBound);
+    }
+
+    @Override
+    public GamePage findGamesByReleaseDate(String tag, Date lowerBound, Date upperBound, int limit,
+                                           String pageToken) {
+        return delegate.findGamesByReleaseDate(tag, lowerBound, upperBound, limit, pageToken);
+    }
+
+    @Override
+    public GamePage findGamesByTagExpression(String expression, Date lowerBound, Date upperBound, int limit,
+                                             String pageToken) {
+        return delegate.findGamesByTagExpression(expression, lowerBound, upperBound, limit, pageToken);
+    }
+
+    @Override
+    public Stream<String> streamGamesByTagExpression(String expression, Date lowerBound, Date upperBound) {
+        return delegate.streamGamesByTagExpression(expression, lowerBound, upperBound);
+    }
+
+    @Override
+    public List<String> searchGames(String query, String tagExpression, Date lowerBound, Date upperBound) {
+        if (query == null) {
+            return delegate.searchGames(query, tagExpression, lowerBound, upperBound);
+        }
+        String expression = tagExpression == null || tagExpression.isBlank() ? null : tagExpression.trim();
+        return cached(key("search", query, expression, lowerDay(lowerBound), upperDay(upperBound)),
+                () -> delegate.searchGames(query, tagExpression, lowerBound, upperBound));
+    }
+
+    @Override
+    public List<String> autocompleteGames(String prefix, int k) {
+        if (prefix == null) {
+            return delegate.autocompleteGames(prefix, k);
+        }
+        return cached(key("autocomplete", prefix, k), () -> delegate.autocompleteGames(prefix, k));
+    }
+
+    @Override
+    public List<String> calculateAverageGamePrice(Date startTime, Date endTime) {
+        if (startTime == null || endTime == null) {
+            return delegate.calculateAverageGamePrice(startTime, endTime);
+        }
+        return cached(key("avg", EpochDays.ceil(startTime), EpochDays.floor(endTime)),
+                () -> delegate.calculateAverageGamePrice(startTime, endTime));
+    }
+
+    @Override
+    public List<String> calculateAverageGamePrice(Date startTime, Date endTime, String tag) {
+        if (startTime == null || endTime == null || tag == null) {
+            return delegate.calculateAverageGamePrice(startTime, endTime, tag);
+        }
+        return cached(key("avgTag", EpochDays.ceil(startTime), EpochDays.floor(endTime), normalizeTag(tag)),
+                () -> delegate.calculateAverageGamePrice(startTime, endTime, tag));
+    }
+
+    @Override
+    public PriceSummary calculatePriceSummary(Date startTime, Date endTime) {
+        if (startTime == null || endTime == null) {
+            return delegate.calculatePriceSummary(startTime, endTime);
+        }
+        return cached(key("summary", EpochDays.ceil(startTime), EpochDays.floor(endTime)),
+                () -> delegate.calculatePriceSummary(startTime, endTime));
+    }
+
+    @Override
+    public PriceSummary calculatePriceSummary(Date startTime, Date endTime, String tag) {
+        if (startTime == null || endTime == null || tag == null) {
+            return delegate.calculatePriceSummary(startTime, endTime, tag);
+        }
+        return cached(key("summaryTag", EpochDays.ceil(startTime), EpochDays.floor(endTime), normalizeTag(tag)),
+                () -> delegate.calculatePriceSummary(startTime, endTime, tag));
+    }
+
+    @Override
+    public PriceDistribution calculatePriceDistribution(Date startTime, Date endTime, double[] bucketBounds) {
+        if (startTime == null || endTime == null) {
+            return delegate.calculatePriceDistribution(startTime, endTime, bucketBounds);
+        }
+        return cached(key("distribution", EpochDays.ceil(startTime), EpochDays.floor(endTime),
+                        boundsKey(bucketBounds)),
+                () -> delegate.calculatePriceDistribution(startTime, endTime, bucketBounds));
+    }
+
+    @Override
+    public PriceDistribution calculatePriceDistribution(Date startTime, Date endTime, String tag,
+                                                        double[] bucketBounds) {
+        if (startTime == null || endTime == null || tag == null) {
+            return delegate.calculatePriceDistribution(startTime, endTime, tag, bucketBounds);
+        }
+        return cached(key("distributionTag", EpochDays.ceil(startTime), EpochDays.floor(endTime), normalizeTag(tag),
+                        boundsKey(bucketBounds)),
+                () -> delegate.calculatePriceDistribution(startTime, endTime, tag, bucketBounds));
+    }
+
+    @Override
+    public Map<String, PriceDistribution> calculatePriceDistributions(Date startTime, Date endTime,
+                                                                      Collection<String> tags, double[] bucketBounds) {
+        // Many-tag reports rarely repeat exactly, so they go straight to the delegate
+        return delegate.calculatePriceDistributions(startTime, endTime, tags, bucketBounds);
+    }
+
+    @Override
+    public List<List<String>> executeBatch(List<BatchQuery> queries) {
+        // A batch shares index walks across its queries, which per-query cache lookups would undo
+        return delegate.executeBatch(queries);
+    }
+
+    @Override
+    public List<SteamGame> findTopGamesByAttribute(String attribute, int k) {
+        if (attribute == null) {
+            return delegate.findTopGamesByAttribute(attribute, k);
+        }
+        return cached(key("top", attribute.toLowerCase(), k), () -> delegate.findTopGamesByAttribute(attribute, k));
+    }
+
+    @Override
+    public List<SteamGame> findTopGamesByAttribute(String attribute, int k, String tag, Date lowerBound,
+                                                   Date upperBound) {
+        if (attribute == null) {
+            return delegate.findTopGamesByAttribute(attribute, k, tag, lowerBound, upperBound);
+        }
+        String normalizedTag = tag == null || tag.isBlank() ? null : normalizeTag(tag);
+        return cached(key("topFiltered", attribute.toLowerCase(), k, normalizedTag, lowerDay(lowerBound),
+                        upperDay(upperBound)),
+                () -> delegate.findTopGamesByAttribute(attribute, k, tag, lowerBound, upperBound));
+    }
+
+    @Override
+    public List<SteamGame> findTopGames(Comparator<SteamGame> comparator, int k) {
+        return delegate.findTopGames(comparator, k);
+    }
+
+    @Override
+    public List<SteamGame> findGames(GameQuery query) {
+        if (query == null) {
+            return delegate.findGames(query);
+        }
+        return cached(key("games", query), () -> delegate.findGames(query));
+    }
+
+    /**
+     * Returns the cached result for a key, computing and caching it on a miss.
+     *
+     * @param key The normalized query parameters.
+     * @param query Computes the result against the underlying dataset.
+     * @return The result; lists are unmodifiable.
+     */
+    @SuppressWarnings("unchecked")
+    private <T> T cached(List<Object> key, Supplier<T> query) {
+        IndexSnapshot snapshot = delegate.getSnapshot();
+        synchronized (this) {
+            invalidateIfChanged(snapshot);
+            Entry entry = entries.get(key);
+            if (entry != null) {
+                hitCount++;
+                return (T) entry.value;
+            }
+            missCount++;
+        }
+
+        T value = query.get();
+        int entryWeight = 1;
+        if (value instanceof List<?> list) {
+            value = (T) List.copyOf(list);
+            entryWeight += list.size();
+        }
+
+        synchronized (this) {
+            // A result computed while the snapshot changed may belong to either version
+            if (delegate.getSnapshot() != snapshot || snapshot != version || entryWeight > maxWeight) {
+                return value;
+            }
+            Entry previous = entries.put(key, new Entry(value, entryWeight));
+            weight += entryWeight - (previous == null ? 0 : previous.weight);
+            Iterator<Map.Entry<List<Object>, Entry>> eldest = entries.entrySet().iterator();
+            while (weight > maxWeight) {
+                weight -= eldest.next().getValue().weight;
+                eldest.remove();
+                evictionCount++;
+            }
+        }
+        return value;
+    }
+
+    /** Clears the cache if the dataset published a new snapshot since it was filled. */
+    private void invalidateIfChanged(IndexSnapshot snapshot) {
+        if (snapshot != version) {
+            version = snapshot;
+            if (!entries.isEmpty()) {
+                entries.clear();
+                weight = 0;
+                invalidationCount++;
+            }
+        }
+    }
+
+    private static List<Object> key(Object... parts) {
+        return Arrays.asList(parts);
+    }
+
+    private static List<Double> boundsKey(double[] bucketBounds) {
+        return bucketBounds == null ? List.of() : Arrays.stream(bucketBounds).boxed().toList();
+    }
+
+    private static String normalizeTag(String tag) {
+        return TagDictionary.normalize(tag);
+    }
+
+    private static int lowerDay(Date lowerBound) {
+        return lowerBound == null ? Integer.MIN_VALUE : EpochDays.ceil(lowerBound);
+    }
+
+    private static int upperDay(Date upperBound) {
+        return upperBound == null ? Integer.MAX_VALUE : EpochDays.floor(upperBound);
+    }
+}
@@ -0,0 +1,226 @@
+import java.util.Arrays;
+
+/**
+ * The rows of one tag grouped by release day, stored in three primitive arrays instead of a
+ * {@code TreeMap} of per-day lists.
+ *
+ * <p>{@code rows} holds the row ids sorted by (release day, row id); the directory {@code days}
+ * holds the distinct release days in ascending order, and day {@code days[i]}'s rows are
+ * {@code rows[offsets[i] .. offsets[i + 1])}. A date window is a binary search over the directory
+ * followed by one contiguous slice of {@code rows}, and the whole structure costs three array
+ * headers plus 4 bytes per row and 8 bytes per distinct day.
+ */
+public final class CompactDateIndex {
+
+    private static final int[] NO_INTS = new int[0];
+
+    /** Postings with no rows. */
+    public static final CompactDateIndex EMPTY = new CompactDateIndex(NO_INTS, new int[1], NO_INTS);
+
+    private final int[] days;
+    private final int[] offsets;
+    private final int[] rows;
+
+    private CompactDateIndex(int[] days, int[] offsets, int[] rows) {
+        this.days = days;
+        this.offsets = offsets;
+        this.rows = rows;
+    }
+
+    /**
+     * Builds the postings of a set of rows.
+     *
+     * @param table the table holding the rows' release days
+     * @param rows the row ids, in any order and without duplicates
+     * @return the postings
+     */
+    public static CompactDateIndex of(GameTable table, IntArrayList rows) {
+        long[] keys = new long[rows.size()];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = key(table.getReleaseDay(rows.get(i)), rows.get(i));
+        }
+        Arrays.sort(keys);
+        return fromSortedKeys(keys, keys.length);
+    }
+
+    /**
+     * Returns the postings after rows were removed from the table and others appended to it,
+     * leaving these postings untouched. The added rows are sorted and merged with the kept ones in
+     * one pass.
+     *
+     * @param table the table after the change
+     * @param changed the changed rows of this tag: removed rows, then added rows
+     * @param removed every removed row
+     * @param firstAdded the first added row
+     * @return the updated postings
+     */
+    public CompactDateIndex withChanges(GameTable table, IntArrayList changed, RowBitmap removed, int firstAdded) {
+        IntArrayList addedRows = new IntArrayList();
+        for (int i = 0; i < changed.size(); i++) {
+            if (changed.get(i) >= firstAdded) {
+                addedRows.add(changed.get(i));
+            }
+        }
+        long[] added = new long[addedRows.size()];
+        for (int i = 0; i < added.length; i++) {
+            added[i] = key(table.getReleaseDay(addedRows.get(i)), addedRows.get(i));
+        }
+        Arrays.sort(added);
+
+        long[] merged = new long[rows.length + added.length];
+        int n = 0;
+        int j = 0;
+        for (int d = 0; d < days.length; d++) {
+            for (int i = offsets[d]; i < offsets[d + 1]; i++) {
+                if (removed.contains(rows[i])) {
+                    continue;
+                }
+                long existing = key(days[d], rows[i]);
+                while (j < added.length && added[j] < existing) {
+                    merged[n++] = added[j++];
+                }
+                merged[n++] = existing;
+            }
+        }
+        while (j < added.length) {
+            merged[n++] = added[j++];
+        }
+        return fromSortedKeys(merged, n);
+    }
+
+    /** Packs a (day, row) pair into a long that sorts by day, then row. */
+    private static long key(int day, int row) {
+        return ((long) day << 32) | row;
+    }
+
+    private static CompactDateIndex fromSortedKeys(long[] keys, int count) {
+        int[] rows = new int[count];
+        int dayCount = 0;
+        for (int i = 0; i < count; i++) {
+            rows[i] = (int) keys[i];
+            if (i == 0 || (int) (keys[i] >> 32) != (int) (keys[i - 1] >> 32)) {
+                dayCount++;
+            }
+        }
+        int[] days = new int[dayCount];
+        int[] offsets = new int[dayCount + 1];
+        int d = -1;
+        for (int i = 0; i < count; i++) {
+            int day = (int) (keys[i] >> 32);
+            if (d < 0 || day != days[d]) {
+                days[++d] = day;
+                offsets[d] = i;
+            }
+        }
+        offsets[dayCount] = count;
+        return new CompactDateIndex(days, offsets, rows);
+    }
+
+    /**
+     * Returns the number of rows.
+     *
+     * @return the row count
+     */
+    public int size() {
+        return rows.length;
+    }
+
+    /**
+     * Returns the number of distinct release days.
+     *
+     * @return the day count
+     */
+    public int dayCount() {
+        return days.length;
+    }
+
+    /**
+     * Returns a release day of the directory.
+     *
+     * @param index the directory index, in {@code [0, dayCount())}
+     * @return the epoch day
+     */
+    public int getDay(int index) {
+        return days[index];
+    }
+
+    /**
+     * Returns the position in the row array of the first row released on a directory day;
+     * {@code getStart(dayCount())} is the total row count.
+     *
+     * @param index the directory index, in {@code [0, dayCount()]}
+     * @return the row position
+     */
+    public int getStart(int index) {
+        return offsets[index];
+    }
+
+    /**
+     * Returns the row at a position of the row array.
+     *
+     * @param position the position, in {@code [0, size())}
+     * @return the row id
+     */
+    public int getRow(int position) {
+        return rows[position];
+    }
+
+    /**
+     * Returns the first directory index whose day is at or after a day.
+     *
+     * @param day the epoch day
+     * @return the index, {@code dayCount()} if every day is earlier
+     */
+    public int firstDayAtOrAfter(long day) {
+        int low = 0;
+        int high = days.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (days[mid] < day) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Returns the first row position after a (day, row) position, within the rows of its day.
+     *
+     * @param index the directory index of the day
+     * @param row the row id
+     * @return the position of the first row of the day greater than {@code row}
+     */
+    int firstPositionAfter(int index, int row) {
+        int position = Arrays.binarySearch(rows, offsets[index], offsets[index + 1], row);
+        return position >= 0 ? position + 1 : -position - 1;
+    }
+
+    /**
+     * Copies the rows released between two epoch days (inclusive), in (day, row) order.
+     *
+     * @param lowerDay the first day of the window
+     * @param upperDay the last day of the window
+     * @return the rows
+     */
+    public IntArrayList rowsBetween(int lowerDay, int upperDay) {
+        int from = offsets[firstDayAtOrAfter(lowerDay)];
+        int to = offsets[firstDayAtOrAfter(upperDay + 1L)];
+        IntArrayList result = new IntArrayList(Math.max(1, to - from));
+        for (int i = from; i < to; i++) {
+            result.add(rows[i]);
+        }
+        return result;
+    }
+
+    /**
+     * Estimates the heap footprint of the postings.
+     *
+     * @return the size in bytes
+     */
+    public long memoryBytes() {
+        return MemoryReport.objectBytes(3 * MemoryReport.REFERENCE_BYTES) + MemoryReport.arrayBytes(days.length, 4)
+                + MemoryReport.arrayBytes(offsets.length, 4) + MemoryReport.arrayBytes(rows.length, 4);
+    }
+}
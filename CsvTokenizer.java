@@ -0,0 +1,290 @@
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A reusable, allocation-free CSV record scanner over a UTF-8 byte buffer.
+ *
+ * <p>{@link #next()} advances to the next record and records the byte offsets of its fields; it does
+ * not copy or decode anything. Callers then materialize only the fields they keep with
+ * {@link #getString(int)}, or read values straight from the buffer with {@link #parsePrice(int)},
+ * {@link #parseReleaseDay(int, ReleaseDateParser)} and {@link #equalsIgnoreCase(int, String)}.
+ * Quoting follows {@link ParallelCsvLoader#parseLine(String)}: a double quote toggles quoted mode,
+ * {@code ""} inside quotes is a literal quote, and commas and line breaks inside quotes are part of
+ * the field.
+ */
+public final class CsvTokenizer {
+
+    private static final double[] POWERS_OF_TEN = {
+        1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+        1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    private final ByteBuffer buffer;
+    private final int limit;
+    private int position;
+
+    /** Raw byte span {@code [fieldStarts[i], fieldEnds[i])} of each field, delimiters excluded. */
+    private int[] fieldStarts = new int[32];
+    private int[] fieldEnds = new int[32];
+    /** Whether each field contains a quote character and needs unquoting. */
+    private boolean[] fieldQuoted = new boolean[32];
+    private int fieldCount;
+
+    /** Scratch space for decoding quoted fields. */
+    private byte[] scratch = new byte[256];
+
+    /**
+     * Creates a tokenizer over the bytes {@code [0, buffer.limit())} of a buffer.
+     *
+     * @param buffer the buffer to scan (not modified; absolute reads only)
+     */
+    public CsvTokenizer(ByteBuffer buffer) {
+        this.buffer = buffer;
+        this.limit = buffer.limit();
+    }
+
+    /**
+     * Advances to the next record. Records end at an unquoted line feed, and the carriage return of a
+     * {@code "\r\n"} line ending is dropped. A blank line is a record of one empty field, so callers
+     * report it like any other short record; a line feed at the very end of the buffer does not
+     * start another record.
+     *
+     * @return {@code true} if a record was found, {@code false} at the end of the buffer
+     */
+    public boolean next() {
+        if (position < limit) {
+            fieldCount = 0;
+            int fieldStart = position;
+            boolean inQuotes = false;
+            boolean quoted = false;
+            int i = position;
+            for (; i < limit; i++) {
+                byte b = buffer.get(i);
+                if (b == '"') {
+                    inQuotes = !inQuotes;
+                    quoted = true;
+                } else if (!inQuotes) {
+                    if (b == ',') {
+                        addField(fieldStart, i, quoted);
+                        fieldStart = i + 1;
+                        quoted = false;
+                    } else if (b == '\n') {
+                        break;
+                    }
+                }
+            }
+            position = i + 1;
+
+            // Drop the '\r' of a "\r\n" line ending
+            int recordEnd = i;
+            if (recordEnd > fieldStart && buffer.get(recordEnd - 1) == '\r') {
+                recordEnd--;
+            }
+            addField(fieldStart, recordEnd, quoted);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Returns the number of fields in the current record.
+     *
+     * @return the field count
+     */
+    public int fieldCount() {
+        return fieldCount;
+    }
+
+    /**
+     * Decodes a field of the current record, removing quoting.
+     *
+     * @param field the field index
+     * @return the field value
+     */
+    public String getString(int field) {
+        int start = fieldStarts[field];
+        int end = fieldEnds[field];
+        if (!fieldQuoted[field]) {
+            return decode(start, end - start);
+        }
+        if (isSimplyQuoted(field)) {
+            return decode(start + 1, end - start - 2);
+        }
+        return new String(scratch, 0, unquote(start, end), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Returns whether a field's value equals an ASCII string, ignoring case.
+     *
+     * @param field the field index
+     * @param ascii the ASCII string to compare to
+     * @return {@code true} if the values match
+     */
+    public boolean equalsIgnoreCase(int field, String ascii) {
+        int start = contentStart(field);
+        int end = contentEnd(field);
+        if (start < 0) {
+            return getString(field).equalsIgnoreCase(ascii);
+        }
+        if (end - start != ascii.length()) {
+            return false;
+        }
+        for (int i = 0; i < ascii.length(); i++) {
+            if (Character.toLowerCase((char) buffer.get(start + i)) != Character.toLowerCase(ascii.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Parses a price field such as {@code $29.99} directly from the buffer. Values that are not a plain
+     * decimal number (e.g. "Free to Play", "NaN") fall back to {@link ParallelCsvLoader#parsePrice(String)}.
+     *
+     * @param field the field index
+     * @return the price
+     */
+    public double parsePrice(int field) {
+        int start = contentStart(field);
+        int end = contentEnd(field);
+        if (start >= 0) {
+            while (start < end && buffer.get(start) == ' ') {
+                start++;
+            }
+            while (end > start && buffer.get(end - 1) == ' ') {
+                end--;
+            }
+            if (start < end && buffer.get(start) == '$') {
+                start++;
+            }
+
+            // Fast path: digits with an optional fractional part, exact as long as it fits in a double
+            long mantissa = 0;
+            int digits = 0;
+            int fractionDigits = -1;
+            boolean plain = start < end;
+            for (int i = start; i < end && plain; i++) {
+                byte b = buffer.get(i);
+                if (b >= '0' && b <= '9') {
+                    mantissa = mantissa * 10 + (b - '0');
+                    digits++;
+                    if (fractionDigits >= 0) {
+                        fractionDigits++;
+                    }
+                } else if (b == '.' && fractionDigits < 0) {
+                    fractionDigits = 0;
+                } else {
+                    plain = false;
+                }
+            }
+            if (plain && digits > 0 && digits <= 15) {
+                return fractionDigits <= 0 ? mantissa : mantissa / POWERS_OF_TEN[fractionDigits];
+            }
+        }
+        return ParallelCsvLoader.parsePrice(getString(field));
+    }
+
+    /**
+     * Parses a release date field directly from the buffer.
+     *
+     * @param field the field index
+     * @param parser the (memoizing) date parser to use
+     * @return the epoch day, or {@link ReleaseDateParser#INVALID}
+     */
+    public int parseReleaseDay(int field, ReleaseDateParser parser) {
+        int start = contentStart(field);
+        if (start < 0) {
+            return parser.parse(getString(field));
+        }
+        return parser.parse(buffer, start, contentEnd(field));
+    }
+
+    /**
+     * Materializes every field of the current record, e.g. for error messages.
+     *
+     * @return the field values
+     */
+    public List<String> toList() {
+        List<String> values = new ArrayList<>(fieldCount);
+        for (int i = 0; i < fieldCount; i++) {
+            values.add(getString(i));
+        }
+        return values;
+    }
+
+    private void addField(int start, int end, boolean quoted) {
+        if (fieldCount == fieldStarts.length) {
+            fieldStarts = Arrays.copyOf(fieldStarts, fieldCount * 2);
+            fieldEnds = Arrays.copyOf(fieldEnds, fieldCount * 2);
+            fieldQuoted = Arrays.copyOf(fieldQuoted, fieldCount * 2);
+        }
+        fieldStarts[fieldCount] = start;
+        fieldEnds[fieldCount] = end;
+        fieldQuoted[fieldCount] = quoted;
+        fieldCount++;
+    }
+
+    /** Whether a quoted field is exactly {@code "..."} with no quotes inside. */
+    private boolean isSimplyQuoted(int field) {
+        int start = fieldStarts[field];
+        int end = fieldEnds[field];
+        if (end - start < 2 || buffer.get(start) != '"' || buffer.get(end - 1) != '"') {
+            return false;
+        }
+        for (int i = start + 1; i < end - 1; i++) {
+            if (buffer.get(i) == '"') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /** Start of the field's value in the buffer, or -1 if it needs unquoting. */
+    private int contentStart(int field) {
+        if (!fieldQuoted[field]) {
+            return fieldStarts[field];
+        }
+        return isSimplyQuoted(field) ? fieldStarts[field] + 1 : -1;
+    }
+
+    /** End of the field's value in the buffer (only meaningful if {@link #contentStart} is not -1). */
+    private int contentEnd(int field) {
+        return fieldQuoted[field] ? fieldEnds[field] - 1 : fieldEnds[field];
+    }
+
+    private String decode(int start, int length) {
+        ensureScratch(length);
+        buffer.get(start, scratch, 0, length);
+        return new String(scratch, 0, length, StandardCharsets.UTF_8);
+    }
+
+    /** Copies a field into the scratch buffer with quoting removed and returns its length. */
+    private int unquote(int start, int end) {
+        ensureScratch(end - start);
+        int length = 0;
+        boolean inQuotes = false;
+        for (int i = start; i < end; i++) {
+            byte b = buffer.get(i);
+            if (b == '"') {
+                if (inQuotes && i + 1 < end && buffer.get(i + 1) == '"') {
+                    scratch[length++] = '"'; // Escaped quote
+                    i++;
+                } else {
+                    inQuotes = !inQuotes;
+                }
+            } else {
+                scratch[length++] = b;
+            }
+        }
+        return length;
+    }
+
+    private void ensureScratch(int length) {
+        if (length > scratch.length) {
+            scratch = new byte[Math.max(length, scratch.length * 2)];
+        }
+    }
+}
@@ -0,0 +1,202 @@
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A batch of game additions, updates and removals against one {@link IndexSnapshot}, applied as a
+ * single new snapshot by {@link #apply()}.
+ *
+ * <p>Changes are resolved in the order they are made: a game added earlier in the batch can be
+ * updated or removed later in the same batch. Games are identified by their exact name. Removing a
+ * game from the base snapshot records its row for {@link IndexSnapshot#withChanges}; removing a game
+ * added in this batch simply drops it from the batch.
+ *
+ * <p>A delta CSV (see {@link #applyCsv(Path)}) has the dataset's columns, but its first column, which
+ * holds the row number in the dataset, holds the change instead: {@code add}, {@code update} or
+ * {@code delete}. Delete rows only need the name column.
+ */
+public final class DatasetEdit {
+
+    private final IndexSnapshot base;
+
+    /** Games added in this batch; some may have been dropped again. */
+    private final GameTable added = new GameTable();
+    private final RowBitmap addedLive = new RowBitmap();
+
+    /** Rows of the base snapshot removed in this batch. */
+    private final RowBitmap removed = new RowBitmap();
+
+    private int changes;
+
+    /** Delta CSV rows that could not be applied, each with the reason. */
+    private final List<String> skippedRows = new ArrayList<>();
+
+    /**
+     * Starts a batch of changes.
+     *
+     * @param base The snapshot the changes apply to.
+     */
+    public DatasetEdit(IndexSnapshot base) {
+        this.base = base;
+    }
+
+    /**
+     * Adds a game.
+     *
+     * @param name The name of the game.
+     * @param releaseDay The release date as an epoch day.
+     * @param allReviews The raw all reviews field.
+     * @param originalPrice The original price.
+     * @param popularTags Comma-separated list of popular tags.
+     */
+    public void add(String name, int releaseDay, String allReviews, double originalPrice, String popularTags) {
+        addedLive.add(added.addRow(name, releaseDay, allReviews, originalPrice, popularTags));
+        changes++;
+    }
+
+    /**
+     * Replaces every current game with the given name by a game with the given values. Nothing is
+     * added if no game has the name.
+     *
+     * @param name The name of the game.
+     * @param releaseDay The release date as an epoch day.
+     * @param allReviews The raw all reviews field.
+     * @param originalPrice The original price.
+     * @param popularTags Comma-separated list of popular tags.
+     * @return The number of games replaced.
+     */
+    public int update(String name, int releaseDay, String allReviews, double originalPrice, String popularTags) {
+        int count = remove(name);
+        if (count > 0) {
+            // Counted as one change with the removal
+            addedLive.add(added.addRow(name, releaseDay, allReviews, originalPrice, popularTags));
+        }
+        return count;
+    }
+
+    /**
+     * Removes every current game with the given name.
+     *
+     * @param name The name of the game.
+     * @return The number of games removed.
+     */
+    public int remove(String name) {
+        int count = 0;
+        IntArrayList rows = base.findRowsByName(name);
+        for (int i = 0; i < rows.size(); i++) {
+            if (!removed.contains(rows.get(i))) {
+                removed.add(rows.get(i));
+                count++;
+            }
+        }
+        // Collect first: removing from the bitmap while iterating it skips rows
+        IntArrayList addedRows = new IntArrayList();
+        addedLive.forEach(row -> {
+            if (added.getName(row).equals(name)) {
+                addedRows.add(row);
+            }
+        });
+        for (int i = 0; i < addedRows.size(); i++) {
+            addedLive.remove(addedRows.get(i));
+        }
+        count += addedRows.size();
+        if (count > 0) {
+            changes++;
+        }
+        return count;
+    }
+
+    /**
+     * Applies the changes listed in a delta CSV, in file order. Rows with an unknown change, too few
+     * columns or an invalid release date, and updates or deletes of unknown games, are skipped and
+     * listed by {@link #getSkippedRows()}.
+     *
+     * @param deltaFile The path to the delta CSV.
+     * @return The number of changes applied.
+     * @throws IOException If the file cannot be read.
+     */
+    public int applyCsv(Path deltaFile) throws IOException {
+        int before = changes;
+        try (FileChannel channel = FileChannel.open(deltaFile, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            CsvTokenizer record = new CsvTokenizer(buffer);
+            ReleaseDateParser dates = new ReleaseDateParser();
+
+            // The first record is the header
+            if (!record.next()) {
+                return 0;
+            }
+            while (record.next()) {
+                String change = record.getString(0).trim().toLowerCase();
+                if (change.equals("delete") && record.fieldCount() >= 2) {
+                    if (remove(record.getString(1)) == 0) {
+                        skippedRows.add("Unknown game '" + record.getString(1) + "': " + record.toList());
+                    }
+                    continue;
+                }
+                if (!(change.equals("add") || change.equals("update")) || record.fieldCount() < 6) {
+                    skippedRows.add("Malformed row: " + record.toList());
+                    continue;
+                }
+
+                int releaseDay = record.parseReleaseDay(3, dates);
+                if (releaseDay == ReleaseDateParser.INVALID) {
+                    skippedRows.add("Unparseable date \"" + record.getString(3) + "\": " + record.toList());
+                    continue;
+                }
+                String name = record.getString(1);
+                if (change.equals("add")) {
+                    add(name, releaseDay, record.getString(2), record.parsePrice(5), record.getString(4));
+                } else if (update(name, releaseDay, record.getString(2), record.parsePrice(5),
+                        record.getString(4)) == 0) {
+                    skippedRows.add("Unknown game '" + name + "': " + record.toList());
+                }
+            }
+        }
+        return changes - before;
+    }
+
+    /**
+     * Returns the number of changes made so far.
+     *
+     * @return The change count.
+     */
+    public int getChangeCount() {
+        return changes;
+    }
+
+    /**
+     * Returns the delta CSV rows skipped so far, each described with the reason it was skipped.
+     *
+     * @return The skipped rows in file order.
+     */
+    public List<String> getSkippedRows() {
+        return Collections.unmodifiableList(skippedRows);
+    }
+
+    /**
+     * Builds the snapshot with every change of this batch applied. If rows of removed games then
+     * make up too much of the table, the snapshot is rebuilt without them (see
+     * {@link IndexSnapshot#withoutRemovedRows()}), so the table does not grow without bound under
+     * a stream of updates.
+     *
+     * @return The new snapshot, or the base snapshot if nothing changed.
+     */
+    public IndexSnapshot apply() {
+        if (changes == 0) {
+            return base;
+        }
+        GameTable kept = added;
+        if (addedLive.cardinality() < added.size()) {
+            kept = new GameTable(addedLive.cardinality());
+            kept.appendRows(added, addedLive);
+        }
+        IndexSnapshot next = base.withChanges(kept, removed);
+        return next.hasManyRemovedRows() ? next.withoutRemovedRows() : next;
+    }
+}
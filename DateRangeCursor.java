@@ -0,0 +1,171 @@
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+
+/**
+ * Lazily walks the rows of a tag's date map, or of its {@link CompactDateIndex}, in
+ * (release day, row id) order.
+ *
+ * <p>Over a date map, the cursor iterates a {@code subMap} view bucket by bucket; over compact
+ * postings, it walks the contiguous slice of the window. It never copies rows, so a caller that
+ * stops after one page only touches the rows on that page. It can start right after a known
+ * (day, row) position, which is how keyset page tokens are resumed.
+ */
+public final class DateRangeCursor implements PrimitiveIterator.OfInt {
+
+    /** Date map mode: the remaining buckets and the current one. */
+    private final Iterator<Map.Entry<Integer, IntArrayList>> buckets;
+    private IntArrayList bucket;
+    private int bucketDay;
+    private int index;
+
+    /** Compact mode: the current position in the row array, the end of the window and the current day. */
+    private final CompactDateIndex postings;
+    private int position;
+    private int end;
+    private int dayIndex;
+
+    private int lastDay;
+
+    /**
+     * Creates a cursor over the rows released between two epoch days (inclusive).
+     *
+     * @param dateMap rows grouped by release epoch day, each bucket in ascending row order
+     * @param lowerDay the first day of the window
+     * @param upperDay the last day of the window
+     */
+    public DateRangeCursor(NavigableMap<Integer, IntArrayList> dateMap, int lowerDay, int upperDay) {
+        this(dateMap, lowerDay, upperDay, Integer.MIN_VALUE, -1);
+    }
+
+    /**
+     * Creates a cursor over the rows released between two epoch days (inclusive) that come strictly
+     * after the position {@code (afterDay, afterRow)}.
+     *
+     * @param dateMap rows grouped by release epoch day, each bucket in ascending row order
+     * @param lowerDay the first day of the window
+     * @param upperDay the last day of the window
+     * @param afterDay the release day of the last row already returned
+     * @param afterRow the last row already returned
+     */
+    public DateRangeCursor(NavigableMap<Integer, IntArrayList> dateMap, int lowerDay, int upperDay,
+                           int afterDay, int afterRow) {
+        postings = null;
+        int fromDay = Math.max(lowerDay, afterDay);
+        buckets = fromDay > upperDay
+                ? Collections.emptyIterator()
+                : dateMap.subMap(fromDay, true, upperDay, true).entrySet().iterator();
+        advanceBucket();
+
+        // Skip the rows of the resume day that were already returned
+        if (bucket != null && bucketDay == afterDay) {
+            index = firstIndexAfter(bucket, afterRow);
+            if (index == bucket.size()) {
+                advanceBucket();
+            }
+        }
+    }
+
+    /**
+     * Creates a cursor over the compact postings released between two epoch days (inclusive).
+     *
+     * @param postings rows grouped by release epoch day
+     * @param lowerDay the first day of the window
+     * @param upperDay the last day of the window
+     */
+    public DateRangeCursor(CompactDateIndex postings, int lowerDay, int upperDay) {
+        this(postings, lowerDay, upperDay, Integer.MIN_VALUE, -1);
+    }
+
+    /**
+     * Creates a cursor over the compact postings released between two epoch days (inclusive) that
+     * come strictly after the position {@code (afterDay, afterRow)}.
+     *
+     * @param postings rows grouped by release epoch day
+     * @param lowerDay the first day of the window
+     * @param upperDay the last day of the window
+     * @param afterDay the release day of the last row already returned
+     * @param afterRow the last row already returned
+     */
+    public DateRangeCursor(CompactDateIndex postings, int lowerDay, int upperDay, int afterDay, int afterRow) {
+        this.postings = postings;
+        buckets = null;
+        int fromDay = Math.max(lowerDay, afterDay);
+        dayIndex = postings.firstDayAtOrAfter(fromDay);
+        position = postings.getStart(dayIndex);
+
+        // Skip the rows of the resume day that were already returned
+        if (dayIndex < postings.dayCount() && postings.getDay(dayIndex) == afterDay) {
+            position = postings.firstPositionAfter(dayIndex, afterRow);
+        }
+        end = fromDay > upperDay ? position : postings.getStart(postings.firstDayAtOrAfter(upperDay + 1L));
+    }
+
+    @Override
+    public boolean hasNext() {
+        return postings != null ? position < end : bucket != null;
+    }
+
+    @Override
+    public int nextInt() {
+        if (postings != null) {
+            if (position >= end) {
+                throw new NoSuchElementException();
+            }
+            while (postings.getStart(dayIndex + 1) <= position) {
+                dayIndex++;
+            }
+            lastDay = postings.getDay(dayIndex);
+            return postings.getRow(position++);
+        }
+        if (bucket == null) {
+            throw new NoSuchElementException();
+        }
+        int row = bucket.get(index++);
+        lastDay = bucketDay;
+        if (index == bucket.size()) {
+            advanceBucket();
+        }
+        return row;
+    }
+
+    /**
+     * Returns the release day of the row last returned by {@link #nextInt()}.
+     *
+     * @return the epoch day
+     */
+    public int getLastDay() {
+        return lastDay;
+    }
+
+    private void advanceBucket() {
+        bucket = null;
+        index = 0;
+        while (buckets.hasNext()) {
+            Map.Entry<Integer, IntArrayList> entry = buckets.next();
+            if (!entry.getValue().isEmpty()) {
+                bucket = entry.getValue();
+                bucketDay = entry.getKey();
+                return;
+            }
+        }
+    }
+
+    /** Returns the index of the first row in a sorted bucket that is greater than {@code row}. */
+    private static int firstIndexAfter(IntArrayList rows, int row) {
+        int low = 0;
+        int high = rows.size();
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (rows.get(mid) <= row) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+}
@@ -0,0 +1,78 @@
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.Date;
+
+/**
+ * Conversions between {@link Date} values and the epoch-day integers stored in {@link GameTable}.
+ *
+ * <p>Release dates are parsed at local midnight, so all conversions use the system default time zone.
+ */
+public final class EpochDays {
+
+    private EpochDays() {
+    }
+
+    /**
+     * Returns the epoch day containing the given instant (rounding down).
+     *
+     * @param date the date to convert
+     * @return the epoch day of {@code date}
+     */
+    public static int floor(Date date) {
+        return (int) Instant.ofEpochMilli(date.getTime()).atZone(ZoneId.systemDefault()).toLocalDate().toEpochDay();
+    }
+
+    /**
+     * Returns the first epoch day whose midnight is at or after the given instant (rounding up).
+     *
+     * @param date the date to convert
+     * @return the smallest epoch day not before {@code date}
+     */
+    public static int ceil(Date date) {
+        int day = floor(date);
+        return toDate(day).getTime() == date.getTime() ? day : day + 1;
+    }
+
+    /**
+     * Returns local midnight of the given epoch day.
+     *
+     * @param epochDay the epoch day
+     * @return the corresponding {@link Date}
+     */
+    public static Date toDate(int epochDay) {
+        return Date.from(LocalDate.ofEpochDay(epochDay).atStartOfDay(ZoneId.systemDefault()).toInstant());
+    }
+
+    /**
+     * Returns the calendar year of the given epoch day.
+     *
+     * @param epochDay the epoch day
+     * @return the year
+     */
+    public static int yearOf(int epochDay) {
+        return LocalDate.ofEpochDay(epochDay).getYear();
+    }
+
+    /**
+     * Returns the calendar month of the given epoch day, counted from January of year 0, so that
+     * consecutive months have consecutive numbers.
+     *
+     * @param epochDay the epoch day
+     * @return {@code year * 12 + month - 1}
+     */
+    public static int monthOf(int epochDay) {
+        LocalDate date = LocalDate.ofEpochDay(epochDay);
+        return date.getYear() * 12 + date.getMonthValue() - 1;
+    }
+
+    /**
+     * Returns the epoch day of January 1 of the given year.
+     *
+     * @param year the year
+     * @return the first epoch day of the year
+     */
+    public static int startOfYear(int year) {
+        return (int) LocalDate.of(year, 1, 1).toEpochDay();
+    }
+}
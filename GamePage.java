@@ -0,0 +1,94 @@
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * One page of game names from a paginated query, plus the token that resumes the query after the
+ * last game on the page.
+ *
+ * <p>Tokens are keyset positions (the release day and row id of the last returned game), not
+ * offsets, so fetching page {@code p} costs the same as fetching page 1 and needs no server-side
+ * state. They are only meaningful for the query and dataset that produced them.
+ */
+public final class GamePage {
+
+    /** A page with no games and no next page. */
+    public static final GamePage EMPTY = new GamePage(Collections.emptyList(), null);
+
+    private final List<String> names;
+    private final String nextPageToken;
+
+    /**
+     * Creates a page.
+     *
+     * @param names the game names on this page
+     * @param nextPageToken the token of the next page, or null if this is the last page
+     */
+    public GamePage(List<String> names, String nextPageToken) {
+        this.names = Collections.unmodifiableList(names);
+        this.nextPageToken = nextPageToken;
+    }
+
+    /**
+     * Returns the game names on this page.
+     *
+     * @return an unmodifiable list of names
+     */
+    public List<String> getNames() {
+        return names;
+    }
+
+    /**
+     * Returns the token to pass back to fetch the next page.
+     *
+     * @return the next page token, or null if there are no more games
+     */
+    public String getNextPageToken() {
+        return nextPageToken;
+    }
+
+    /**
+     * Returns whether more games follow this page.
+     *
+     * @return {@code true} if {@link #getNextPageToken()} is not null
+     */
+    public boolean hasNextPage() {
+        return nextPageToken != null;
+    }
+
+    /**
+     * Encodes the position of a game as a page token.
+     *
+     * @param releaseDay the release epoch day of the last returned game
+     * @param row the row id of the last returned game
+     * @return the token
+     */
+    static String encodeToken(int releaseDay, int row) {
+        return releaseDay + ":" + row;
+    }
+
+    /**
+     * Decodes a page token into its release day (high 32 bits) and row id (low 32 bits).
+     *
+     * @param token the token
+     * @return the packed position
+     * @throws IllegalArgumentException if the token is malformed
+     */
+    static long decodeToken(String token) {
+        int colon = token.indexOf(':');
+        try {
+            int releaseDay = Integer.parseInt(token.substring(0, colon));
+            int row = Integer.parseInt(token.substring(colon + 1));
+            if (row < 0) {
+                throw new IllegalArgumentException("Invalid page token: " + token);
+            }
+            return ((long) releaseDay << 32) | (row & 0xFFFFFFFFL);
+        } catch (NumberFormatException | StringIndexOutOfBoundsException e) {
+            throw new IllegalArgumentException("Invalid page token: " + token, e);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "GamePage [names=" + names + ", nextPageToken=" + nextPageToken + "]";
+    }
+}
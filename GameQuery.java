@@ -0,0 +1,378 @@
+import java.util.Date;
+import java.util.Locale;
+import java.util.Objects;
+
+/**
+ * A composite query over the dataset: any combination of a tag expression, a release date window,
+ * a price range, minimum review percentage and count, and a name prefix, with an optional sort
+ * attribute and a result limit. Run it with {@link SteamGamesDatasetQuery#findGames(GameQuery)}.
+ *
+ * <pre>
+ *   GameQuery query = GameQuery.builder()
+ *           .tags("indie AND NOT early access")
+ *           .releasedBetween(lower, upper)
+ *           .priceBetween(0, 20)
+ *           .minReviewPercent(90)
+ *           .sortBy("all_reviews")
+ *           .limit(10)
+ *           .build();
+ * </pre>
+ *
+ * <p>Every criterion is optional and all of them must hold. Without a sort attribute the games
+ * come in load order. Queries are immutable and compare equal when they select the same games in
+ * the same order, so they can be used as cache keys.
+ */
+public final class GameQuery {
+
+    private final String tagExpression;
+    private final TagExpression tags;
+    private final int lowerDay;
+    private final int upperDay;
+    private final double minPrice;
+    private final double maxPrice;
+    private final int minReviewPercent;
+    private final int minReviewCount;
+    private final String namePrefix;
+    private final String sortBy;
+    private final int limit;
+
+    private GameQuery(Builder builder) {
+        tagExpression = builder.tagExpression;
+        tags = tagExpression == null ? null : TagExpression.parse(tagExpression);
+        lowerDay = builder.lowerDay;
+        upperDay = builder.upperDay;
+        minPrice = builder.minPrice;
+        maxPrice = builder.maxPrice;
+        minReviewPercent = builder.minReviewPercent;
+        minReviewCount = builder.minReviewCount;
+        namePrefix = builder.namePrefix;
+        sortBy = builder.sortBy;
+        limit = builder.limit;
+    }
+
+    /**
+     * Starts building a query that matches every game.
+     *
+     * @return a new builder
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Returns the tag expression.
+     *
+     * @return the expression text, or null for any tags
+     */
+    public String getTagExpression() {
+        return tagExpression;
+    }
+
+    /**
+     * Returns the parsed tag expression.
+     *
+     * @return the expression, or null for any tags
+     */
+    TagExpression getTags() {
+        return tags;
+    }
+
+    /**
+     * Returns the first release day of the window.
+     *
+     * @return the epoch day, or {@link Integer#MIN_VALUE} for no lower bound
+     */
+    public int getLowerDay() {
+        return lowerDay;
+    }
+
+    /**
+     * Returns the last release day of the window.
+     *
+     * @return the epoch day, or {@link Integer#MAX_VALUE} for no upper bound
+     */
+    public int getUpperDay() {
+        return upperDay;
+    }
+
+    /**
+     * Returns whether the release date is restricted.
+     *
+     * @return true if either date bound is set
+     */
+    public boolean hasDateRange() {
+        return lowerDay != Integer.MIN_VALUE || upperDay != Integer.MAX_VALUE;
+    }
+
+    /**
+     * Returns the minimum price (inclusive).
+     *
+     * @return the price, or negative infinity for no minimum
+     */
+    public double getMinPrice() {
+        return minPrice;
+    }
+
+    /**
+     * Returns the maximum price (inclusive).
+     *
+     * @return the price, or positive infinity for no maximum
+     */
+    public double getMaxPrice() {
+        return maxPrice;
+    }
+
+    /**
+     * Returns whether the price is restricted.
+     *
+     * @return true if either price bound is set
+     */
+    public boolean hasPriceRange() {
+        return minPrice != Double.NEGATIVE_INFINITY || maxPrice != Double.POSITIVE_INFINITY;
+    }
+
+    /**
+     * Returns the minimum positive review percentage.
+     *
+     * @return the percentage, 0 for no minimum
+     */
+    public int getMinReviewPercent() {
+        return minReviewPercent;
+    }
+
+    /**
+     * Returns the minimum number of reviews.
+     *
+     * @return the review count, 0 for no minimum
+     */
+    public int getMinReviewCount() {
+        return minReviewCount;
+    }
+
+    /**
+     * Returns the name prefix (case-insensitive).
+     *
+     * @return the prefix, or null for any name
+     */
+    public String getNamePrefix() {
+        return namePrefix;
+    }
+
+    /**
+     * Returns the attribute the games are sorted by.
+     *
+     * @return one of {@link TopKIndex#ATTRIBUTES}, or null for load order
+     */
+    public String getSortBy() {
+        return sortBy;
+    }
+
+    /**
+     * Returns the maximum number of games.
+     *
+     * @return the limit, {@link Integer#MAX_VALUE} for no limit
+     */
+    public int getLimit() {
+        return limit;
+    }
+
+    /**
+     * Returns whether the bounds are contradictory, so no game can match.
+     *
+     * @return true if the query matches nothing
+     */
+    public boolean matchesNothing() {
+        return lowerDay > upperDay || minPrice > maxPrice || minReviewPercent > 100;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof GameQuery other)) {
+            return false;
+        }
+        return lowerDay == other.lowerDay && upperDay == other.upperDay
+                && Double.compare(minPrice, other.minPrice) == 0 && Double.compare(maxPrice, other.maxPrice) == 0
+                && minReviewPercent == other.minReviewPercent && minReviewCount == other.minReviewCount
+                && limit == other.limit && Objects.equals(normalizedTags(), other.normalizedTags())
+                && Objects.equals(namePrefix, other.namePrefix) && Objects.equals(sortBy, other.sortBy);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(normalizedTags(), lowerDay, upperDay, minPrice, maxPrice, minReviewPercent,
+                minReviewCount, namePrefix, sortBy, limit);
+    }
+
+    /** Returns the tag expression with case and spacing normalized, since tags match case-insensitively. */
+    private String normalizedTags() {
+        return tags == null ? null : tags.toString().toLowerCase(Locale.ROOT);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("GameQuery[");
+        if (tags != null) {
+            sb.append("tags=").append(tags).append(", ");
+        }
+        if (hasDateRange()) {
+            sb.append("days=").append(lowerDay).append("..").append(upperDay).append(", ");
+        }
+        if (hasPriceRange()) {
+            sb.append("price=").append(minPrice).append("..").append(maxPrice).append(", ");
+        }
+        if (minReviewPercent > 0) {
+            sb.append("minReviewPercent=").append(minReviewPercent).append(", ");
+        }
+        if (minReviewCount > 0) {
+            sb.append("minReviewCount=").append(minReviewCount).append(", ");
+        }
+        if (namePrefix != null) {
+            sb.append("namePrefix=").append(namePrefix).append(", ");
+        }
+        if (sortBy != null) {
+            sb.append("sortBy=").append(sortBy).append(", ");
+        }
+        if (limit != Integer.MAX_VALUE) {
+            sb.append("limit=").append(limit).append(", ");
+        }
+        if (sb.charAt(sb.length() - 1) == ' ') {
+            sb.setLength(sb.length() - 2);
+        }
+        return sb.append(']').toString();
+    }
+
+    /** Builds a {@link GameQuery}; every criterion left unset matches every game. */
+    public static final class Builder {
+
+        private String tagExpression;
+        private int lowerDay = Integer.MIN_VALUE;
+        private int upperDay = Integer.MAX_VALUE;
+        private double minPrice = Double.NEGATIVE_INFINITY;
+        private double maxPrice = Double.POSITIVE_INFINITY;
+        private int minReviewPercent;
+        private int minReviewCount;
+        private String namePrefix;
+        private String sortBy;
+        private int limit = Integer.MAX_VALUE;
+
+        private Builder() {
+        }
+
+        /**
+         * Keeps the games whose tags satisfy a boolean tag expression, such as a single tag or
+         * {@code indie AND (strategy OR puzzle) AND NOT early access}.
+         *
+         * @param expression the tag expression, or null or blank for any tags
+         * @return this builder
+         */
+        public Builder tags(String expression) {
+            tagExpression = expression == null || expression.isBlank() ? null : expression.trim();
+            return this;
+        }
+
+        /**
+         * Keeps the games released between two dates (inclusive).
+         *
+         * @param lowerBound the start date, or null for no lower bound
+         * @param upperBound the end date, or null for no upper bound
+         * @return this builder
+         */
+        public Builder releasedBetween(Date lowerBound, Date upperBound) {
+            lowerDay = lowerBound == null ? Integer.MIN_VALUE : EpochDays.ceil(lowerBound);
+            upperDay = upperBound == null ? Integer.MAX_VALUE : EpochDays.floor(upperBound);
+            return this;
+        }
+
+        /**
+         * Keeps the games whose original price is between two values (inclusive).
+         *
+         * @param min the minimum price, or negative infinity for no minimum
+         * @param max the maximum price, or positive infinity for no maximum
+         * @return this builder
+         */
+        public Builder priceBetween(double min, double max) {
+            minPrice = min;
+            maxPrice = max;
+            return this;
+        }
+
+        /**
+         * Keeps the games with at least a positive review percentage.
+         *
+         * @param percent the minimum percentage, 0 for no minimum
+         * @return this builder
+         */
+        public Builder minReviewPercent(int percent) {
+            minReviewPercent = Math.max(0, percent);
+            return this;
+        }
+
+        /**
+         * Keeps the games with at least a number of reviews.
+         *
+         * @param count the minimum review count, 0 for no minimum
+         * @return this builder
+         */
+        public Builder minReviewCount(int count) {
+            minReviewCount = Math.max(0, count);
+            return this;
+        }
+
+        /**
+         * Keeps the games whose name starts with a prefix (case-insensitive).
+         *
+         * @param prefix the name prefix, or null or empty for any name
+         * @return this builder
+         */
+        public Builder namePrefix(String prefix) {
+            namePrefix = prefix == null || prefix.isEmpty() ? null : prefix;
+            return this;
+        }
+
+        /**
+         * Sorts the games by an attribute, best first, as in
+         * {@link SteamGamesDatasetQuery#findTopGamesByAttribute(String, int)}.
+         *
+         * @param attribute one of {@link TopKIndex#ATTRIBUTES} (case-insensitive), or null for load order
+         * @return this builder
+         */
+        public Builder sortBy(String attribute) {
+            sortBy = attribute == null ? null : attribute.toLowerCase(Locale.ROOT);
+            return this;
+        }
+
+        /**
+         * Limits the number of games returned.
+         *
+         * @param limit the maximum number of games
+         * @return this builder
+         */
+        public Builder limit(int limit) {
+            this.limit = limit;
+            return this;
+        }
+
+        /**
+         * Builds the query.
+         *
+         * @return the query
+         * @throws IllegalArgumentException if the tag expression is malformed, the sort attribute
+         *                                  is unsupported, a price bound is NaN or the limit is not positive
+         */
+        public GameQuery build() {
+            if (sortBy != null && !TopKIndex.ATTRIBUTES.contains(sortBy)) {
+                throw new IllegalArgumentException("Unsupported sort attribute: " + sortBy);
+            }
+            if (Double.isNaN(minPrice) || Double.isNaN(maxPrice)) {
+                throw new IllegalArgumentException("Price bounds must be numbers.");
+            }
+            if (limit <= 0) {
+                throw new IllegalArgumentException("Limit must be positive: " + limit);
+            }
+            return new GameQuery(this);
+        }
+    }
+}
@@ -0,0 +1,669 @@
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Date;
+
+/**
+ * Column-oriented storage for the games in a dataset.
+ *
+ * <p>Each game is a row id in {@code [0, size())}. Instead of one {@link SteamGame} object per row,
+ * every attribute lives in its own primitive array: release dates as epoch days, prices as doubles,
+ * the parsed review percentage and review count as ints, names, review text and popular tags text as
+ * offsets into shared character pools, and tags as ranges of integer tag ids. {@link SteamGame}
+ * instances are only materialized when a query hands rows back to the caller.
+ */
+public final class GameTable {
+
+    private int size;
+
+    private int[] releaseDays;
+    private double[] prices;
+    private int[] reviewPercents;
+    private int[] reviewCounts;
+
+    /** Row {@code r}'s name is {@code nameChars[nameOffsets[r] .. nameOffsets[r + 1])}. */
+    private int[] nameOffsets;
+    private char[] nameChars;
+
+    /** Row {@code r}'s raw review text is {@code reviewChars[reviewOffsets[r] .. reviewOffsets[r + 1])}. */
+    private int[] reviewOffsets;
+    private char[] reviewChars;
+
+    /** Row {@code r}'s tags are {@code tagIds[tagOffsets[r] .. tagOffsets[r + 1])}. */
+    private int[] tagOffsets;
+    private int[] tagIds;
+
+    /**
+     * Row {@code r}'s raw popular tags text is
+     * {@code popularTagChars[popularTagOffsets[r] .. popularTagOffsets[r + 1])}.
+     */
+    private int[] popularTagOffsets;
+    private char[] popularTagChars;
+
+    private final TagDictionary tags;
+
+    /** Whether a fork shares this table's columns, in which case further forks copy them. */
+    private boolean forked;
+
+    /** Creates an empty table. */
+    public GameTable() {
+        this(16);
+    }
+
+    /**
+     * Creates an empty table sized for roughly {@code expectedRows} games.
+     *
+     * @param expectedRows the expected number of rows
+     */
+    public GameTable(int expectedRows) {
+        int capacity = Math.max(1, expectedRows);
+        tags = new TagDictionary();
+        releaseDays = new int[capacity];
+        prices = new double[capacity];
+        reviewPercents = new int[capacity];
+        reviewCounts = new int[capacity];
+        nameOffsets = new int[capacity + 1];
+        nameChars = new char[capacity * 16];
+        reviewOffsets = new int[capacity + 1];
+        reviewChars = new char[capacity * 32];
+        tagOffsets = new int[capacity + 1];
+        tagIds = new int[capacity * 8];
+        popularTagOffsets = new int[capacity + 1];
+        popularTagChars = new char[capacity * 48];
+    }
+
+    /**
+     * Creates a table holding the same rows as another, sharing its columns.
+     *
+     * @param base the table to share
+     */
+    private GameTable(GameTable base) {
+        size = base.size;
+        releaseDays = base.releaseDays;
+        prices = base.prices;
+        reviewPercents = base.reviewPercents;
+        reviewCounts = base.reviewCounts;
+        nameOffsets = base.nameOffsets;
+        nameChars = base.nameChars;
+        reviewOffsets = base.reviewOffsets;
+        reviewChars = base.reviewChars;
+        tagOffsets = base.tagOffsets;
+        tagIds = base.tagIds;
+        popularTagOffsets = base.popularTagOffsets;
+        popularTagChars = base.popularTagChars;
+        tags = new TagDictionary(base.tags);
+    }
+
+    /**
+     * Returns a table holding the same rows as this one, to which further rows can be appended
+     * without changing what readers of this table see. The columns are shared rather than copied:
+     * appends only write past this table's last row (or into grown copies of the arrays), and this
+     * table never reads there. Only the first fork shares the columns; later forks of the same
+     * table get copies, since their appends would otherwise overwrite each other.
+     *
+     * @return the forked table
+     */
+    public synchronized GameTable fork() {
+        if (forked) {
+            GameTable copy = new GameTable(size);
+            copy.appendRows(this);
+            return copy;
+        }
+        forked = true;
+        return new GameTable(this);
+    }
+
+    /**
+     * Appends a game to the table.
+     *
+     * @param name the name of the game
+     * @param releaseDay the release date as an epoch day
+     * @param allReviews the raw all reviews field
+     * @param originalPrice the original price
+     * @param popularTags comma-separated list of popular tags; a tag listed more than once is stored once
+     * @return the row id of the new game
+     */
+    public int addRow(String name, int releaseDay, String allReviews, double originalPrice, String popularTags) {
+        if (size == releaseDays.length) {
+            grow();
+        }
+        int row = size;
+
+        releaseDays[row] = releaseDay;
+        prices[row] = originalPrice;
+
+        // Parse the review summary once here instead of on every comparison
+        long review = parseReview(allReviews);
+        reviewPercents[row] = (int) (review >>> 32);
+        reviewCounts[row] = (int) review;
+
+        nameChars = append(nameChars, nameOffsets, row, name);
+        reviewChars = append(reviewChars, reviewOffsets, row, allReviews);
+        popularTagChars = append(popularTagChars, popularTagOffsets, row, popularTags);
+
+        int tagEnd = tagOffsets[row];
+        if (popularTags != null) {
+            for (String tag : popularTags.split(",")) {
+                String trimmed = tag.trim();
+                if (trimmed.isEmpty()) {
+                    continue;
+                }
+                int tagId = tags.intern(trimmed);
+                // A tag repeated in any case is stored once, so each index holds the row once per tag
+                if (containsTag(tagOffsets[row], tagEnd, tagId)) {
+                    continue;
+                }
+                if (tagEnd == tagIds.length) {
+                    tagIds = Arrays.copyOf(tagIds, Math.max(8, tagIds.length * 2));
+                }
+                tagIds[tagEnd++] = tagId;
+            }
+        }
+        tagOffsets[row + 1] = tagEnd;
+
+        size++;
+        return row;
+    }
+
+    /**
+     * Appends every row of another table, remapping its tag ids into this table's dictionary.
+     * Columns are copied in bulk; nothing is re-parsed.
+     *
+     * @param other the table whose rows to append
+     */
+    public void appendRows(GameTable other) {
+        int count = other.size;
+        if (count == 0) {
+            return;
+        }
+        ensureRowCapacity(size + count);
+
+        System.arraycopy(other.releaseDays, 0, releaseDays, size, count);
+        System.arraycopy(other.prices, 0, prices, size, count);
+        System.arraycopy(other.reviewPercents, 0, reviewPercents, size, count);
+        System.arraycopy(other.reviewCounts, 0, reviewCounts, size, count);
+        nameChars = appendPool(nameChars, nameOffsets, other.nameChars, other.nameOffsets, count);
+        reviewChars = appendPool(reviewChars, reviewOffsets, other.reviewChars, other.reviewOffsets, count);
+        popularTagChars = appendPool(popularTagChars, popularTagOffsets, other.popularTagChars,
+                other.popularTagOffsets, count);
+
+        int[] tagMapping = new int[other.tags.size()];
+        for (int tagId = 0; tagId < tagMapping.length; tagId++) {
+            tagMapping[tagId] = tags.intern(other.tags.getName(tagId));
+        }
+        int tagBase = tagOffsets[size];
+        int tagCount = other.tagOffsets[count];
+        if (tagBase + tagCount > tagIds.length) {
+            tagIds = Arrays.copyOf(tagIds, Math.max(tagIds.length * 2, tagBase + tagCount));
+        }
+        for (int i = 0; i < tagCount; i++) {
+            tagIds[tagBase + i] = tagMapping[other.tagIds[i]];
+        }
+        for (int row = 1; row <= count; row++) {
+            tagOffsets[size + row] = tagBase + other.tagOffsets[row];
+        }
+
+        size += count;
+    }
+
+    /**
+     * Appends the given rows of another table, in ascending row order, remapping their tag ids into
+     * this table's dictionary. Used to drop removed rows when copying a table.
+     *
+     * @param other the table whose rows to append
+     * @param rows the rows of {@code other} to append
+     */
+    public void appendRows(GameTable other, RowBitmap rows) {
+        ensureRowCapacity(size + rows.cardinality());
+        // Intern tags as the copied rows reach them, so tags used only by skipped rows get no id
+        int[] tagMapping = new int[other.tags.size()];
+        Arrays.fill(tagMapping, -1);
+
+        rows.forEach(source -> {
+            int row = size;
+            releaseDays[row] = other.releaseDays[source];
+            prices[row] = other.prices[source];
+            reviewPercents[row] = other.reviewPercents[source];
+            reviewCounts[row] = other.reviewCounts[source];
+            nameChars = appendRange(nameChars, nameOffsets, row, other.nameChars, other.nameOffsets, source);
+            reviewChars = appendRange(reviewChars, reviewOffsets, row, other.reviewChars, other.reviewOffsets,
+                    source);
+            popularTagChars = appendRange(popularTagChars, popularTagOffsets, row, other.popularTagChars,
+                    other.popularTagOffsets, source);
+
+            int tagStart = other.tagOffsets[source];
+            int tagCount = other.tagOffsets[source + 1] - tagStart;
+            int tagEnd = tagOffsets[row];
+            if (tagEnd + tagCount > tagIds.length) {
+                tagIds = Arrays.copyOf(tagIds, Math.max(tagIds.length * 2, tagEnd + tagCount));
+            }
+            for (int i = 0; i < tagCount; i++) {
+                int otherTagId = other.tagIds[tagStart + i];
+                if (tagMapping[otherTagId] < 0) {
+                    tagMapping[otherTagId] = tags.intern(other.tags.getName(otherTagId));
+                }
+                tagIds[tagEnd++] = tagMapping[otherTagId];
+            }
+            tagOffsets[row + 1] = tagEnd;
+            size++;
+        });
+    }
+
+    /**
+     * Returns the number of rows in the table.
+     *
+     * @return the row count
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the release date of a row as an epoch day.
+     *
+     * @param row the row id
+     * @return the epoch day
+     */
+    public int getReleaseDay(int row) {
+        return releaseDays[row];
+    }
+
+    /**
+     * Returns the original price of a row.
+     *
+     * @param row the row id
+     * @return the price
+     */
+    public double getPrice(int row) {
+        return prices[row];
+    }
+
+    /**
+     * Returns the positive review percentage parsed from a row's review text, or 0 if unavailable.
+     *
+     * @param row the row id
+     * @return the review percentage
+     */
+    public int getReviewPercent(int row) {
+        return reviewPercents[row];
+    }
+
+    /**
+     * Returns the number of reviews parsed from a row's review text, or 0 if unavailable.
+     *
+     * @param row the row id
+     * @return the review count
+     */
+    public int getReviewCount(int row) {
+        return reviewCounts[row];
+    }
+
+    /**
+     * Returns the combined review score of a row (percentage plus review count in thousands).
+     *
+     * @param row the row id
+     * @return the review score
+     */
+    public double getReviewScore(int row) {
+        return reviewPercents[row] + reviewCounts[row] / 1000.0;
+    }
+
+    /**
+     * Returns the name of a row.
+     *
+     * @param row the row id
+     * @return the name
+     */
+    public String getName(int row) {
+        return new String(nameChars, nameOffsets[row], nameOffsets[row + 1] - nameOffsets[row]);
+    }
+
+    /**
+     * Compares the names of two rows lexicographically without materializing them.
+     *
+     * @param a the first row id
+     * @param b the second row id
+     * @return a negative, zero or positive value as in {@link String#compareTo(String)}
+     */
+    public int compareNames(int a, int b) {
+        return Arrays.compare(nameChars, nameOffsets[a], nameOffsets[a + 1],
+                nameChars, nameOffsets[b], nameOffsets[b + 1]);
+    }
+
+    /**
+     * Returns the raw all reviews text of a row.
+     *
+     * @param row the row id
+     * @return the review text
+     */
+    public String getAllReviews(int row) {
+        return new String(reviewChars, reviewOffsets[row], reviewOffsets[row + 1] - reviewOffsets[row]);
+    }
+
+    /**
+     * Returns the index of a row's first tag in the tag id column.
+     *
+     * @param row the row id
+     * @return the inclusive start of the row's tag range
+     */
+    public int getTagStart(int row) {
+        return tagOffsets[row];
+    }
+
+    /**
+     * Returns the index just past a row's last tag in the tag id column.
+     *
+     * @param row the row id
+     * @return the exclusive end of the row's tag range
+     */
+    public int getTagEnd(int row) {
+        return tagOffsets[row + 1];
+    }
+
+    /**
+     * Returns the tag id stored at a position of the tag id column.
+     *
+     * @param position a position between {@link #getTagStart(int)} and {@link #getTagEnd(int)}
+     * @return the tag id
+     */
+    public int getTagId(int position) {
+        return tagIds[position];
+    }
+
+    /**
+     * Returns the dictionary of tag ids used by this table.
+     *
+     * @return the tag dictionary
+     */
+    public TagDictionary getTags() {
+        return tags;
+    }
+
+    /**
+     * Estimates the heap footprint of the table's columns, including unused capacity, and of its
+     * tag dictionary.
+     *
+     * @return the size in bytes
+     */
+    public long memoryBytes() {
+        return MemoryReport.objectBytes(13 * MemoryReport.REFERENCE_BYTES + 5)
+                + MemoryReport.arrayBytes(releaseDays.length, 4) + MemoryReport.arrayBytes(prices.length, 8)
+                + MemoryReport.arrayBytes(reviewPercents.length, 4) + MemoryReport.arrayBytes(reviewCounts.length, 4)
+                + MemoryReport.arrayBytes(nameOffsets.length, 4) + MemoryReport.arrayBytes(nameChars.length, 2)
+                + MemoryReport.arrayBytes(reviewOffsets.length, 4) + MemoryReport.arrayBytes(reviewChars.length, 2)
+                + MemoryReport.arrayBytes(tagOffsets.length, 4) + MemoryReport.arrayBytes(tagIds.length, 4)
+                + MemoryReport.arrayBytes(popularTagOffsets.length, 4)
+                + MemoryReport.arrayBytes(popularTagChars.length, 2)
+                + tags.memoryBytes();
+    }
+
+    /**
+     * Returns the raw popular tags text of a row, exactly as it was added.
+     *
+     * @param row the row id
+     * @return the popular tags string
+     */
+    public String getPopularTags(int row) {
+        return new String(popularTagChars, popularTagOffsets[row],
+                popularTagOffsets[row + 1] - popularTagOffsets[row]);
+    }
+
+    /**
+     * Materializes a row as a {@link SteamGame}.
+     *
+     * @param row the row id
+     * @return a new {@code SteamGame} holding the row's values
+     */
+    public SteamGame toSteamGame(int row) {
+        return new SteamGame(getName(row), EpochDays.toDate(releaseDays[row]), getAllReviews(row),
+                prices[row], getPopularTags(row));
+    }
+
+    /**
+     * Returns a reusable view of one row as a {@link SteamGame}, for comparing rows with a
+     * {@code SteamGame} comparator without materializing every row.
+     *
+     * @return a view positioned nowhere; call {@link RowView#moveTo(int)} first
+     */
+    public RowView newRowView() {
+        return new RowView(this);
+    }
+
+    /**
+     * Writes the table's columns and tag dictionary to a snapshot.
+     *
+     * @param out the snapshot output
+     * @throws IOException if the snapshot cannot be written
+     */
+    void writeTo(SnapshotFile.Output out) throws IOException {
+        out.writeInt(size);
+        out.writeInts(releaseDays, size);
+        out.writeDoubles(prices, size);
+        out.writeInts(reviewPercents, size);
+        out.writeInts(reviewCounts, size);
+        out.writeInts(nameOffsets, size + 1);
+        out.writeChars(nameChars, nameOffsets[size]);
+        out.writeInts(reviewOffsets, size + 1);
+        out.writeChars(reviewChars, reviewOffsets[size]);
+        out.writeInts(tagOffsets, size + 1);
+        out.writeInts(tagIds, tagOffsets[size]);
+        out.writeInts(popularTagOffsets, size + 1);
+        out.writeChars(popularTagChars, popularTagOffsets[size]);
+        out.writeInt(tags.size());
+        for (int tagId = 0; tagId < tags.size(); tagId++) {
+            out.writeString(tags.getName(tagId));
+        }
+    }
+
+    /**
+     * Reads a table written by {@link #writeTo(SnapshotFile.Output)}. Tags are re-interned in id order,
+     * so the stored tag ids stay valid.
+     *
+     * @param in the snapshot input
+     * @return the table
+     */
+    static GameTable readFrom(SnapshotFile.Input in) {
+        GameTable table = new GameTable(1);
+        table.size = in.readInt();
+        table.releaseDays = in.readInts();
+        table.prices = in.readDoubles();
+        table.reviewPercents = in.readInts();
+        table.reviewCounts = in.readInts();
+        table.nameOffsets = in.readInts();
+        table.nameChars = in.readChars();
+        table.reviewOffsets = in.readInts();
+        table.reviewChars = in.readChars();
+        table.tagOffsets = in.readInts();
+        table.tagIds = in.readInts();
+        table.popularTagOffsets = in.readInts();
+        table.popularTagChars = in.readChars();
+        int tagCount = in.readInt();
+        for (int tagId = 0; tagId < tagCount; tagId++) {
+            table.tags.intern(in.readString());
+        }
+        return table;
+    }
+
+    private char[] append(char[] pool, int[] offsets, int row, String value) {
+        int start = offsets[row];
+        int length = value == null ? 0 : value.length();
+        if (start + length > pool.length) {
+            pool = Arrays.copyOf(pool, Math.max(pool.length * 2, start + length));
+        }
+        if (length > 0) {
+            value.getChars(0, length, pool, start);
+        }
+        offsets[row + 1] = start + length;
+        return pool;
+    }
+
+    private boolean containsTag(int from, int to, int tagId) {
+        for (int i = from; i < to; i++) {
+            if (tagIds[i] == tagId) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /** Appends the first {@code count} strings of another pool after this pool's last row. */
+    private char[] appendPool(char[] pool, int[] offsets, char[] otherPool, int[] otherOffsets, int count) {
+        int base = offsets[size];
+        int length = otherOffsets[count];
+        if (base + length > pool.length) {
+            pool = Arrays.copyOf(pool, Math.max(pool.length * 2, base + length));
+        }
+        System.arraycopy(otherPool, 0, pool, base, length);
+        for (int row = 1; row <= count; row++) {
+            offsets[size + row] = base + otherOffsets[row];
+        }
+        return pool;
+    }
+
+    /** Appends one string of another pool as the value of {@code row}. */
+    private static char[] appendRange(char[] pool, int[] offsets, int row, char[] otherPool, int[] otherOffsets,
+                                      int source) {
+        int start = offsets[row];
+        int from = otherOffsets[source];
+        int length = otherOffsets[source + 1] - from;
+        if (start + length > pool.length) {
+            pool = Arrays.copyOf(pool, Math.max(pool.length * 2, start + length));
+        }
+        System.arraycopy(otherPool, from, pool, start, length);
+        offsets[row + 1] = start + length;
+        return pool;
+    }
+
+    private void grow() {
+        ensureRowCapacity(Math.max(16, releaseDays.length * 2));
+    }
+
+    private void ensureRowCapacity(int rows) {
+        if (rows <= releaseDays.length) {
+            return;
+        }
+        int capacity = Math.max(rows, releaseDays.length * 2);
+        releaseDays = Arrays.copyOf(releaseDays, capacity);
+        prices = Arrays.copyOf(prices, capacity);
+        reviewPercents = Arrays.copyOf(reviewPercents, capacity);
+        reviewCounts = Arrays.copyOf(reviewCounts, capacity);
+        nameOffsets = Arrays.copyOf(nameOffsets, capacity + 1);
+        reviewOffsets = Arrays.copyOf(reviewOffsets, capacity + 1);
+        tagOffsets = Arrays.copyOf(tagOffsets, capacity + 1);
+        popularTagOffsets = Arrays.copyOf(popularTagOffsets, capacity + 1);
+    }
+
+    /**
+     * Parses a review summary such as "Very Positive,(10,000),- 86% of the ..." into a percentage
+     * (high 32 bits) and review count (low 32 bits). Unparseable text yields zero for both.
+     */
+    private static long parseReview(String reviewField) {
+        try {
+            if (reviewField == null || reviewField.isEmpty()) {
+                return 0;
+            }
+
+            // Return 0 if the % symbol is missing
+            int percentIndex = reviewField.indexOf('%');
+            if (percentIndex == -1) {
+                return 0;
+            }
+
+            // Extract review percentage
+            int percentStart = reviewField.lastIndexOf(' ', percentIndex - 1) + 1;
+            long percent = Integer.parseInt(reviewField.substring(percentStart, percentIndex).trim());
+
+            // Extract review count (inside parentheses)
+            int open = reviewField.indexOf('(');
+            int close = reviewField.indexOf(')');
+            if (open == -1 || close == -1 || close <= open) {
+                return percent << 32; // If count missing, keep just the percent
+            }
+
+            int count = Integer.parseInt(reviewField.substring(open + 1, close).replace(",", "").trim());
+            return (percent << 32) | (count & 0xFFFFFFFFL);
+
+        } catch (Exception e) {
+            return 0;
+        }
+    }
+
+    /**
+     * A {@link SteamGame} backed by a row of a table. Each value is decoded on first access and
+     * kept until the view moves to another row, so a comparator pays only for the columns it reads.
+     * Views are mutable and not thread-safe; copy a row with {@link GameTable#toSteamGame(int)} to
+     * keep it.
+     */
+    public static final class RowView extends SteamGame {
+
+        private final GameTable table;
+        private int row = -1;
+        private String name;
+        private Date releaseDate;
+        private String allReviews;
+        private String popularTags;
+
+        private RowView(GameTable table) {
+            super(null, null, null, 0, null);
+            this.table = table;
+        }
+
+        /**
+         * Positions the view on a row.
+         *
+         * @param row the row id
+         * @return this view
+         */
+        public RowView moveTo(int row) {
+            if (row != this.row) {
+                this.row = row;
+                name = null;
+                releaseDate = null;
+                allReviews = null;
+                popularTags = null;
+            }
+            return this;
+        }
+
+        @Override
+        public String getName() {
+            if (name == null) {
+                name = table.getName(row);
+            }
+            return name;
+        }
+
+        @Override
+        public Date getReleaseDate() {
+            if (releaseDate == null) {
+                releaseDate = EpochDays.toDate(table.getReleaseDay(row));
+            }
+            return new Date(releaseDate.getTime());
+        }
+
+        @Override
+        public String getAllReviews() {
+            if (allReviews == null) {
+                allReviews = table.getAllReviews(row);
+            }
+            return allReviews;
+        }
+
+        @Override
+        public double getOriginalPrice() {
+            return table.getPrice(row);
+        }
+
+        @Override
+        public String getPopularTags() {
+            if (popularTags == null) {
+                popularTags = table.getPopularTags(row);
+            }
+            return popularTags;
+        }
+
+        @Override
+        public String toString() {
+            return table.toSteamGame(row).toString();
+        }
+    }
+}
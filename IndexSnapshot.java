@@ -0,0 +1,804 @@
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * One immutable version of the dataset: a {@link GameTable} together with every index built
+ * over it.
+ *
+ * <p>All structures are built in the constructor and never modified afterwards, so a snapshot
+ * can be read by any number of threads without locking. {@link SteamGamesImpl} publishes the
+ * current snapshot through an atomic reference; a reload builds a complete new snapshot off to
+ * the side and swaps it in, while queries that already hold the old one finish against it.
+ *
+ * <p>{@link #withChanges(GameTable, RowBitmap)} derives the next snapshot from this one when only a
+ * few games change. Removed games keep their rows in the table but disappear from every index, and
+ * added games are appended to a {@linkplain GameTable#fork() fork} of the table. Only the indexes
+ * of the tags, days and terms a change touches are copied; everything else is shared with this
+ * snapshot. Once removed rows make up {@value #MAX_REMOVED_FRACTION_PERCENT}% of the table,
+ * {@link #withoutRemovedRows()} rebuilds the snapshot over only the current games.
+ *
+ * <p>In compact mode the per-tag and all-games date indexes are {@link CompactDateIndex} postings
+ * (sorted row arrays with a release-day directory) instead of {@code TreeMap}s of per-day lists,
+ * and year queries slice those postings instead of keeping a separate (tag, year) index. Queries
+ * reach the date indexes through {@link #cursor(int, int, int)} and {@link #getYearRows(int, int)},
+ * so they work the same in both modes; {@link #memoryReport()} shows what each mode costs.
+ */
+public final class IndexSnapshot {
+
+    /** A snapshot with no games. */
+    static final IndexSnapshot EMPTY = new IndexSnapshot(new GameTable(), null);
+
+    /** The share of table rows, in percent, that may belong to removed games before an edit compacts. */
+    static final int MAX_REMOVED_FRACTION_PERCENT = 25;
+
+    private final GameTable table;
+
+    /** Map mode date indexes, null in compact mode. */
+    private final List<NavigableMap<Integer, IntArrayList>> dateMaps;
+    private final Map<Long, IntArrayList> tagYearIndex;
+    private final NavigableMap<Integer, IntArrayList> allDates;
+
+    /** Compact mode date indexes, null in map mode. */
+    private final List<CompactDateIndex> tagPostings;
+    private final CompactDateIndex allPostings;
+
+    private final List<RowBitmap> tagBitmaps;
+    private final RowBitmap allRows;
+    private final int gameCount;
+    private final List<PriceAggregateIndex> tagPriceIndexes;
+    private final PriceAggregateIndex priceIndex;
+    private final List<PriceSortedIndex> tagPriceSortedIndexes;
+    private final PriceSortedIndex priceSortedIndex;
+
+    /** Entries of tags changed by an edit are null until first used; see {@link #getTagPriceQuantileIndex}. */
+    private final AtomicReferenceArray<PriceQuantileIndex> tagPriceQuantileIndexes;
+
+    /** Built lazily after an edit, since it spans every game; see {@link #getPriceQuantileIndex()}. */
+    private volatile PriceQuantileIndex priceQuantileIndex;
+    private final PriceRollup priceRollup;
+    private final TopKIndex topKIndex;
+    private final TextIndex textIndex;
+    private final AutocompleteIndex autocompleteIndex;
+    private final TableStatistics statistics;
+
+    /**
+     * Builds every index over a table with map date indexes. The table must not be modified
+     * afterwards.
+     *
+     * @param table The games.
+     * @param orderings Presorted top-k orderings of the table, or null to sort them here.
+     */
+    public IndexSnapshot(GameTable table, TopKIndex orderings) {
+        this(table, orderings, false);
+    }
+
+    /**
+     * Builds every index over a table. The table must not be modified afterwards.
+     *
+     * @param table The games.
+     * @param orderings Presorted top-k orderings of the table, or null to sort them here.
+     * @param compact Whether to store the date indexes as compact postings instead of date maps.
+     */
+    public IndexSnapshot(GameTable table, TopKIndex orderings, boolean compact) {
+        this.table = table;
+
+        int tagCount = table.getTags().size();
+        List<IntArrayList> tagRows = new ArrayList<>(tagCount);
+        List<RowBitmap> tagBitmaps = new ArrayList<>(tagCount);
+        for (int tagId = 0; tagId < tagCount; tagId++) {
+            tagRows.add(new IntArrayList());
+            tagBitmaps.add(new RowBitmap());
+        }
+        allRows = RowBitmap.range(0, table.size());
+        gameCount = table.size();
+
+        IntArrayList everyRow = new IntArrayList(Math.max(1, table.size()));
+        for (int row = 0; row < table.size(); row++) {
+            everyRow.add(row);
+            for (int i = table.getTagStart(row); i < table.getTagEnd(row); i++) {
+                int tagId = table.getTagId(i);
+                tagRows.get(tagId).add(row);
+
+                // Bitmap: used for multi-tag boolean queries (rows arrive in ascending order)
+                tagBitmaps.get(tagId).add(row);
+            }
+        }
+        this.tagBitmaps = Collections.unmodifiableList(tagBitmaps);
+
+        List<PriceAggregateIndex> tagPriceIndexes = new ArrayList<>(tagCount);
+        if (compact) {
+            // Sorted row arrays with a day directory: used for range and year queries
+            List<CompactDateIndex> tagPostings = new ArrayList<>(tagCount);
+            for (int tagId = 0; tagId < tagCount; tagId++) {
+                CompactDateIndex postings = CompactDateIndex.of(table, tagRows.get(tagId));
+                tagPostings.add(postings);
+                tagPriceIndexes.add(new PriceAggregateIndex(postings, table));
+            }
+            this.tagPostings = Collections.unmodifiableList(tagPostings);
+            allPostings = CompactDateIndex.of(table, everyRow);
+            priceIndex = new PriceAggregateIndex(allPostings, table);
+            dateMaps = null;
+            tagYearIndex = null;
+            allDates = null;
+        } else {
+            // TreeMap: used for range queries
+            List<NavigableMap<Integer, IntArrayList>> dateMaps = new ArrayList<>(tagCount);
+            for (int tagId = 0; tagId < tagCount; tagId++) {
+                dateMaps.add(toDateMap(table, tagRows.get(tagId)));
+                tagPriceIndexes.add(new PriceAggregateIndex(dateMaps.get(tagId), table));
+            }
+            this.dateMaps = Collections.unmodifiableList(dateMaps);
+            allDates = toDateMap(table, everyRow);
+            priceIndex = new PriceAggregateIndex(allDates, table);
+
+            // (tag, year) index: used for exact year queries, filled in date order per tag
+            Map<Long, IntArrayList> tagYearIndex = new HashMap<>();
+            for (int tagId = 0; tagId < tagCount; tagId++) {
+                for (Map.Entry<Integer, IntArrayList> entry : dateMaps.get(tagId).entrySet()) {
+                    IntArrayList yearRows = tagYearIndex.computeIfAbsent(
+                            tagYearKey(tagId, EpochDays.yearOf(entry.getKey())), k -> new IntArrayList());
+                    IntArrayList rows = entry.getValue();
+                    for (int i = 0; i < rows.size(); i++) {
+                        yearRows.add(rows.get(i));
+                    }
+                }
+            }
+            this.tagYearIndex = Collections.unmodifiableMap(tagYearIndex);
+            tagPostings = null;
+            allPostings = null;
+        }
+        this.tagPriceIndexes = Collections.unmodifiableList(tagPriceIndexes);
+
+        // Price-sorted rows: used for price range queries. Walking the global price order and
+        // appending each row to its tags leaves every tag's rows in price order without sorting them
+        priceSortedIndex = PriceSortedIndex.of(table, everyRow);
+        List<IntArrayList> tagRowsByPrice = new ArrayList<>(tagCount);
+        for (int tagId = 0; tagId < tagCount; tagId++) {
+            tagRowsByPrice.add(new IntArrayList(Math.max(1, tagRows.get(tagId).size())));
+        }
+        for (int position = 0; position < priceSortedIndex.size(); position++) {
+            int row = priceSortedIndex.getRow(position);
+            for (int i = table.getTagStart(row); i < table.getTagEnd(row); i++) {
+                tagRowsByPrice.get(table.getTagId(i)).add(row);
+            }
+        }
+        List<PriceSortedIndex> tagPriceSortedIndexes = new ArrayList<>(tagCount);
+        for (IntArrayList rows : tagRowsByPrice) {
+            tagPriceSortedIndexes.add(PriceSortedIndex.ofSorted(rows));
+        }
+        this.tagPriceSortedIndexes = Collections.unmodifiableList(tagPriceSortedIndexes);
+
+        // Wavelet matrices over the date-ordered price ranks: used for percentiles and histograms
+        int[] scratch = new int[table.size()];
+        tagPriceQuantileIndexes = new AtomicReferenceArray<>(tagCount);
+        for (int tagId = 0; tagId < tagCount; tagId++) {
+            IntArrayList rowsByDate = compact ? rowsByDate(tagPostings.get(tagId)) : rowsByDate(dateMaps.get(tagId));
+            tagPriceQuantileIndexes.set(tagId,
+                    PriceQuantileIndex.of(table, rowsByDate, tagPriceSortedIndexes.get(tagId), scratch));
+        }
+        priceQuantileIndex = PriceQuantileIndex.of(table, compact ? rowsByDate(allPostings) : rowsByDate(allDates),
+                priceSortedIndex, scratch);
+
+        // Counts and price totals per (tag, month): used for group-by reports
+        priceRollup = PriceRollup.of(table);
+
+        // Presorted orderings: used for top-k queries
+        topKIndex = orderings != null ? orderings : new TopKIndex(table);
+
+        // Inverted index over names and review text: used for full-text search
+        textIndex = new TextIndex(table);
+
+        // Name-sorted rows with a review-score sparse table: used for prefix autocomplete
+        autocompleteIndex = new AutocompleteIndex(table);
+
+        // Review histograms: used by the query planner to estimate residual filters
+        statistics = TableStatistics.of(table);
+    }
+
+    /** Groups ascending rows by release day. */
+    private static NavigableMap<Integer, IntArrayList> toDateMap(GameTable table, IntArrayList rows) {
+        NavigableMap<Integer, IntArrayList> dateMap = new TreeMap<>();
+        for (int i = 0; i < rows.size(); i++) {
+            dateMap.computeIfAbsent(table.getReleaseDay(rows.get(i)), k -> new IntArrayList()).add(rows.get(i));
+        }
+        return dateMap;
+    }
+
+    /** Lists the rows of a date map in (release day, row) order. */
+    private static IntArrayList rowsByDate(NavigableMap<Integer, IntArrayList> dateMap) {
+        IntArrayList rows = new IntArrayList();
+        for (IntArrayList bucket : dateMap.values()) {
+            for (int i = 0; i < bucket.size(); i++) {
+                rows.add(bucket.get(i));
+            }
+        }
+        return rows;
+    }
+
+    /** Lists the rows of compact postings in (release day, row) order. */
+    private static IntArrayList rowsByDate(CompactDateIndex postings) {
+        IntArrayList rows = new IntArrayList(Math.max(1, postings.size()));
+        for (int position = 0; position < postings.size(); position++) {
+            rows.add(postings.getRow(position));
+        }
+        return rows;
+    }
+
+    private IndexSnapshot(GameTable table, List<NavigableMap<Integer, IntArrayList>> dateMaps,
+                          Map<Long, IntArrayList> tagYearIndex, NavigableMap<Integer, IntArrayList> allDates,
+                          List<CompactDateIndex> tagPostings, CompactDateIndex allPostings,
+                          List<RowBitmap> tagBitmaps, RowBitmap allRows, List<PriceAggregateIndex> tagPriceIndexes,
+                          PriceAggregateIndex priceIndex, List<PriceSortedIndex> tagPriceSortedIndexes,
+                          PriceSortedIndex priceSortedIndex, PriceQuantileIndex[] tagPriceQuantileIndexes,
+                          PriceQuantileIndex priceQuantileIndex, PriceRollup priceRollup, TopKIndex topKIndex,
+                          TextIndex textIndex, AutocompleteIndex autocompleteIndex, TableStatistics statistics) {
+        this.table = table;
+        this.dateMaps = dateMaps == null ? null : Collections.unmodifiableList(dateMaps);
+        this.tagYearIndex = tagYearIndex == null ? null : Collections.unmodifiableMap(tagYearIndex);
+        this.allDates = allDates;
+        this.tagPostings = tagPostings == null ? null : Collections.unmodifiableList(tagPostings);
+        this.allPostings = allPostings;
+        this.tagBitmaps = Collections.unmodifiableList(tagBitmaps);
+        this.allRows = allRows;
+        this.gameCount = allRows.cardinality();
+        this.tagPriceIndexes = Collections.unmodifiableList(tagPriceIndexes);
+        this.priceIndex = priceIndex;
+        this.tagPriceSortedIndexes = Collections.unmodifiableList(tagPriceSortedIndexes);
+        this.priceSortedIndex = priceSortedIndex;
+        this.tagPriceQuantileIndexes = new AtomicReferenceArray<>(tagPriceQuantileIndexes);
+        this.priceQuantileIndex = priceQuantileIndex;
+        this.priceRollup = priceRollup;
+        this.topKIndex = topKIndex;
+        this.textIndex = textIndex;
+        this.autocompleteIndex = autocompleteIndex;
+        this.statistics = statistics;
+    }
+
+    /**
+     * Returns the snapshot after removing some games and adding others, leaving this snapshot
+     * untouched. The cost depends on the tags, release days and terms of the changed games rather
+     * than on the size of the dataset, except for the top-k orderings and the autocomplete index,
+     * which are merged with the added games in one linear pass. In compact mode the postings and
+     * price trees of each changed tag are rebuilt by merging, which is linear in the tag's size.
+     * The price quantile indexes of the changed tags and the one over all games are left to be
+     * built on first use.
+     *
+     * <p>Removed rows stay in the table until they make up {@value #MAX_REMOVED_FRACTION_PERCENT}%
+     * of it; callers should then replace the result with {@link #withoutRemovedRows()}, as
+     * {@link DatasetEdit#apply()} does.
+     *
+     * @param added The games to add.
+     * @param removed The rows of games to remove; each must be a current game of this snapshot.
+     * @return The new snapshot.
+     */
+    public IndexSnapshot withChanges(GameTable added, RowBitmap removed) {
+        GameTable next = table.fork();
+        int firstAdded = next.size();
+        next.appendRows(added);
+        int tagCount = next.getTags().size();
+
+        // Changed rows per tag, removed rows first; all rows are ascending within each group
+        Map<Integer, IntArrayList> changedByTag = new TreeMap<>();
+        IntArrayList changed = new IntArrayList();
+        removed.forEach(changed::add);
+        for (int row = firstAdded; row < next.size(); row++) {
+            changed.add(row);
+        }
+        for (int i = 0; i < changed.size(); i++) {
+            int row = changed.get(i);
+            for (int j = next.getTagStart(row); j < next.getTagEnd(row); j++) {
+                changedByTag.computeIfAbsent(next.getTagId(j), k -> new IntArrayList()).add(row);
+            }
+        }
+
+        boolean compact = isCompact();
+        List<NavigableMap<Integer, IntArrayList>> nextDateMaps = compact ? null : new ArrayList<>(dateMaps);
+        Map<Long, IntArrayList> nextTagYearIndex = compact ? null : new HashMap<>(tagYearIndex);
+        List<CompactDateIndex> nextTagPostings = compact ? new ArrayList<>(tagPostings) : null;
+        List<RowBitmap> nextTagBitmaps = new ArrayList<>(tagBitmaps);
+        List<PriceAggregateIndex> nextTagPriceIndexes = new ArrayList<>(tagPriceIndexes);
+        List<PriceSortedIndex> nextTagPriceSortedIndexes = new ArrayList<>(tagPriceSortedIndexes);
+        PriceQuantileIndex[] nextTagPriceQuantileIndexes = new PriceQuantileIndex[tagCount];
+        for (int tagId = 0; tagId < tagPriceQuantileIndexes.length(); tagId++) {
+            nextTagPriceQuantileIndexes[tagId] = tagPriceQuantileIndexes.get(tagId);
+        }
+        // New tags start out empty; a tag that no kept row carries must still be queryable
+        while (nextTagBitmaps.size() < tagCount) {
+            if (compact) {
+                nextTagPostings.add(CompactDateIndex.EMPTY);
+                nextTagPriceIndexes.add(new PriceAggregateIndex(CompactDateIndex.EMPTY, next));
+            } else {
+                nextDateMaps.add(new TreeMap<>());
+                nextTagPriceIndexes.add(new PriceAggregateIndex(new TreeMap<>(), next));
+            }
+            nextTagBitmaps.add(new RowBitmap());
+            nextTagPriceSortedIndexes.add(PriceSortedIndex.EMPTY);
+            nextTagPriceQuantileIndexes[nextTagBitmaps.size() - 1] = PriceQuantileIndex.EMPTY;
+        }
+
+        for (Map.Entry<Integer, IntArrayList> entry : changedByTag.entrySet()) {
+            int tagId = entry.getKey();
+            IntArrayList rows = entry.getValue();
+
+            // Copy-on-write: only this tag's date index, bitmap and price indexes are replaced
+            nextTagBitmaps.set(tagId, nextTagBitmaps.get(tagId).withChanges(rows, firstAdded));
+            nextTagPriceQuantileIndexes[tagId] = null;
+            nextTagPriceSortedIndexes.set(tagId,
+                    nextTagPriceSortedIndexes.get(tagId).withChanges(next, rows, removed, firstAdded));
+
+            if (compact) {
+                CompactDateIndex postings = nextTagPostings.get(tagId).withChanges(next, rows, removed, firstAdded);
+                nextTagPostings.set(tagId, postings);
+                nextTagPriceIndexes.set(tagId, new PriceAggregateIndex(postings, next));
+                continue;
+            }
+
+            NavigableMap<Integer, IntArrayList> dateMap = new TreeMap<>(nextDateMaps.get(tagId));
+            int[] changedDays = applyChanges(dateMap, next, rows, removed, firstAdded);
+            nextDateMaps.set(tagId, dateMap);
+
+            nextTagPriceIndexes.set(tagId, tagId >= tagPriceIndexes.size()
+                    ? new PriceAggregateIndex(dateMap, next)
+                    : nextTagPriceIndexes.get(tagId).withChanges(dateMap, next, changedDays));
+
+            // Rebuild the (tag, year) buckets of the changed years from the tag's date map
+            TreeSet<Integer> years = new TreeSet<>();
+            for (int day : changedDays) {
+                years.add(EpochDays.yearOf(day));
+            }
+            for (int year : years) {
+                IntArrayList yearRows = new IntArrayList();
+                for (IntArrayList bucket : dateMap.subMap(EpochDays.startOfYear(year), true,
+                        EpochDays.startOfYear(year + 1), false).values()) {
+                    for (int i = 0; i < bucket.size(); i++) {
+                        yearRows.add(bucket.get(i));
+                    }
+                }
+                if (yearRows.isEmpty()) {
+                    nextTagYearIndex.remove(tagYearKey(tagId, year));
+                } else {
+                    nextTagYearIndex.put(tagYearKey(tagId, year), yearRows);
+                }
+            }
+        }
+
+        RowBitmap nextAllRows = allRows.withChanges(changed, firstAdded);
+        NavigableMap<Integer, IntArrayList> nextAllDates = null;
+        CompactDateIndex nextAllPostings = null;
+        PriceAggregateIndex nextPriceIndex;
+        if (compact) {
+            nextAllPostings = allPostings.withChanges(next, changed, removed, firstAdded);
+            nextPriceIndex = new PriceAggregateIndex(nextAllPostings, next);
+        } else {
+            nextAllDates = new TreeMap<>(allDates);
+            int[] changedDays = applyChanges(nextAllDates, next, changed, removed, firstAdded);
+            nextPriceIndex = priceIndex.withChanges(nextAllDates, next, changedDays);
+        }
+        PriceSortedIndex nextPriceSortedIndex = priceSortedIndex.withChanges(next, changed, removed, firstAdded);
+
+        return new IndexSnapshot(next, nextDateMaps, nextTagYearIndex, nextAllDates, nextTagPostings,
+                nextAllPostings, nextTagBitmaps, nextAllRows, nextTagPriceIndexes, nextPriceIndex,
+                nextTagPriceSortedIndexes, nextPriceSortedIndex, nextTagPriceQuantileIndexes, null,
+                priceRollup.withChanges(next, removed, firstAdded),
+                topKIndex.withChanges(next, removed, firstAdded),
+                textIndex.withChanges(next, removed, firstAdded),
+                autocompleteIndex.withChanges(next, removed, firstAdded),
+                statistics.withChanges(next, removed, firstAdded));
+    }
+
+    /**
+     * Replaces the buckets of the days on which rows changed with updated copies, so the buckets
+     * shared with the previous snapshot are never modified.
+     *
+     * @param dateMap The (already copied) date map to update.
+     * @param table The table after the change.
+     * @param rows The changed rows: removed rows, then added rows, each ascending.
+     * @param removed The removed rows.
+     * @param firstAdded The first added row.
+     * @return The changed days in ascending order.
+     */
+    private static int[] applyChanges(NavigableMap<Integer, IntArrayList> dateMap, GameTable table,
+                                      IntArrayList rows, RowBitmap removed, int firstAdded) {
+        TreeMap<Integer, IntArrayList> addedByDay = new TreeMap<>();
+        TreeSet<Integer> days = new TreeSet<>();
+        for (int i = 0; i < rows.size(); i++) {
+            int row = rows.get(i);
+            int day = table.getReleaseDay(row);
+            days.add(day);
+            if (row >= firstAdded) {
+                addedByDay.computeIfAbsent(day, k -> new IntArrayList()).add(row);
+            }
+        }
+
+        int[] changedDays = new int[days.size()];
+        int n = 0;
+        for (int day : days) {
+            changedDays[n++] = day;
+            IntArrayList bucket = new IntArrayList();
+            IntArrayList previous = dateMap.get(day);
+            for (int i = 0; previous != null && i < previous.size(); i++) {
+                if (!removed.contains(previous.get(i))) {
+                    bucket.add(previous.get(i));
+                }
+            }
+            // Added rows are larger than every existing row, so the bucket stays ascending
+            IntArrayList addedRows = addedByDay.get(day);
+            for (int i = 0; addedRows != null && i < addedRows.size(); i++) {
+                bucket.add(addedRows.get(i));
+            }
+            if (bucket.isEmpty()) {
+                dateMap.remove(day);
+            } else {
+                dateMap.put(day, bucket);
+            }
+        }
+        return changedDays;
+    }
+
+    /**
+     * Returns whether removed games hold more than {@value #MAX_REMOVED_FRACTION_PERCENT}% of the
+     * table's rows, so that {@link #withoutRemovedRows()} is worth its cost.
+     *
+     * @return True if the table should be compacted.
+     */
+    public boolean hasManyRemovedRows() {
+        return (long) (table.size() - gameCount) * 100 > (long) table.size() * MAX_REMOVED_FRACTION_PERCENT;
+    }
+
+    /**
+     * Returns a snapshot over a table that holds only the current games, with every index rebuilt
+     * and the rows of removed games dropped. Rebuilding takes as long as a load from memory, so
+     * edits only do it once removed rows pass a fixed share of the table.
+     *
+     * @return The compacted snapshot, or this snapshot if no game has been removed.
+     */
+    public IndexSnapshot withoutRemovedRows() {
+        if (gameCount == table.size()) {
+            return this;
+        }
+        GameTable kept = new GameTable(gameCount);
+        kept.appendRows(table, allRows);
+        return new IndexSnapshot(kept, null, isCompact());
+    }
+
+    /**
+     * Packs a tag id and a year into a single key for the (tag, year) index.
+     *
+     * @param tagId The tag id.
+     * @param year The release year.
+     * @return The combined key.
+     */
+    private static long tagYearKey(int tagId, int year) {
+        return ((long) tagId << 32) | (year & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Returns the games.
+     *
+     * @return The table.
+     */
+    public GameTable getTable() {
+        return table;
+    }
+
+    /**
+     * Returns the number of current games, which is less than the table size once games have been
+     * removed or updated.
+     *
+     * @return The game count.
+     */
+    public int getGameCount() {
+        return gameCount;
+    }
+
+    /**
+     * Finds the current games with exactly the given name, using the text index to narrow the
+     * candidates down to rows containing every term of the name.
+     *
+     * @param name The game name (case-sensitive).
+     * @return The matching row ids in ascending order.
+     */
+    public IntArrayList findRowsByName(String name) {
+        List<String> terms = new ArrayList<>();
+        TextIndex.tokenize(name, terms);
+        IntArrayList result = new IntArrayList();
+        if (terms.isEmpty()) {
+            // No letters or digits to look up, so scan the names
+            allRows.forEach(row -> {
+                if (table.getName(row).equals(name)) {
+                    result.add(row);
+                }
+            });
+            return result;
+        }
+        for (int row : textIndex.findAll(terms)) {
+            if (table.getName(row).equals(name)) {
+                result.add(row);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns whether the date indexes are compact postings rather than date maps.
+     *
+     * @return True in compact mode.
+     */
+    public boolean isCompact() {
+        return tagPostings != null;
+    }
+
+    /**
+     * Returns the rows of a tag released in a year, in release date order.
+     *
+     * @param tagId The tag id.
+     * @param year The release year.
+     * @return The row ids, or null if there are none.
+     */
+    public IntArrayList getYearRows(int tagId, int year) {
+        if (tagPostings == null) {
+            return tagYearIndex.get(tagYearKey(tagId, year));
+        }
+        IntArrayList rows = tagPostings.get(tagId).rowsBetween(EpochDays.startOfYear(year),
+                EpochDays.startOfYear(year + 1) - 1);
+        return rows.isEmpty() ? null : rows;
+    }
+
+    /**
+     * Returns a cursor over the rows of a tag released between two epoch days (inclusive), in
+     * (release day, row id) order.
+     *
+     * @param tagId The tag id.
+     * @param lowerDay The first day of the window.
+     * @param upperDay The last day of the window.
+     * @return The cursor.
+     */
+    public DateRangeCursor cursor(int tagId, int lowerDay, int upperDay) {
+        return tagPostings != null
+                ? new DateRangeCursor(tagPostings.get(tagId), lowerDay, upperDay)
+                : new DateRangeCursor(dateMaps.get(tagId), lowerDay, upperDay);
+    }
+
+    /**
+     * Returns a cursor over the rows of a tag released between two epoch days (inclusive) that
+     * come strictly after the position {@code (afterDay, afterRow)}.
+     *
+     * @param tagId The tag id.
+     * @param lowerDay The first day of the window.
+     * @param upperDay The last day of the window.
+     * @param afterDay The release day of the last row already returned.
+     * @param afterRow The last row already returned.
+     * @return The cursor.
+     */
+    public DateRangeCursor cursor(int tagId, int lowerDay, int upperDay, int afterDay, int afterRow) {
+        return tagPostings != null
+                ? new DateRangeCursor(tagPostings.get(tagId), lowerDay, upperDay, afterDay, afterRow)
+                : new DateRangeCursor(dateMaps.get(tagId), lowerDay, upperDay, afterDay, afterRow);
+    }
+
+    /**
+     * Returns a cursor over the rows of every current game released between two epoch days
+     * (inclusive), in (release day, row id) order.
+     *
+     * @param lowerDay The first day of the window.
+     * @param upperDay The last day of the window.
+     * @return The cursor.
+     */
+    public DateRangeCursor allGamesCursor(int lowerDay, int upperDay) {
+        return allPostings != null
+                ? new DateRangeCursor(allPostings, lowerDay, upperDay)
+                : new DateRangeCursor(allDates, lowerDay, upperDay);
+    }
+
+    /**
+     * Returns the row bitmap of a tag.
+     *
+     * @param tagId The tag id.
+     * @return The tag's rows.
+     */
+    public RowBitmap getTagBitmap(int tagId) {
+        return tagBitmaps.get(tagId);
+    }
+
+    /**
+     * Returns the row bitmap of a tag.
+     *
+     * @param tag The tag name (case-insensitive).
+     * @return The tag's rows, or an empty bitmap if no game has the tag.
+     */
+    public RowBitmap findTagBitmap(String tag) {
+        int tagId = table.getTags().find(tag);
+        return tagId < 0 ? new RowBitmap() : tagBitmaps.get(tagId);
+    }
+
+    /**
+     * Returns a bitmap of the rows of every current game.
+     *
+     * @return All current rows.
+     */
+    public RowBitmap getAllRows() {
+        return allRows;
+    }
+
+    /**
+     * Returns the price aggregates of a tag.
+     *
+     * @param tagId The tag id.
+     * @return The tag's price index over release days.
+     */
+    public PriceAggregateIndex getTagPriceIndex(int tagId) {
+        return tagPriceIndexes.get(tagId);
+    }
+
+    /**
+     * Returns the price aggregates over all games.
+     *
+     * @return The price index over release days.
+     */
+    public PriceAggregateIndex getPriceIndex() {
+        return priceIndex;
+    }
+
+    /**
+     * Returns the rows of a tag sorted by price.
+     *
+     * @param tagId The tag id.
+     * @return The tag's price-sorted index.
+     */
+    public PriceSortedIndex getTagPriceSortedIndex(int tagId) {
+        return tagPriceSortedIndexes.get(tagId);
+    }
+
+    /**
+     * Returns the rows of every current game sorted by price.
+     *
+     * @return The price-sorted index.
+     */
+    public PriceSortedIndex getPriceSortedIndex() {
+        return priceSortedIndex;
+    }
+
+    /**
+     * Returns the price order statistics of a tag. After an edit the index of each changed tag is
+     * built on the first call, in {@code O(m log m)} for a tag of {@code m} games; concurrent first
+     * calls may each build it, and one of the identical results is kept.
+     *
+     * @param tagId The tag id.
+     * @return The tag's price quantile index over release days.
+     */
+    public PriceQuantileIndex getTagPriceQuantileIndex(int tagId) {
+        PriceQuantileIndex quantiles = tagPriceQuantileIndexes.get(tagId);
+        if (quantiles == null) {
+            // Changed by an edit: build it from the tag's rows, without a table-sized scratch array
+            IntArrayList rowsByDate = isCompact() ? rowsByDate(tagPostings.get(tagId))
+                    : rowsByDate(dateMaps.get(tagId));
+            quantiles = PriceQuantileIndex.of(table, rowsByDate, tagPriceSortedIndexes.get(tagId));
+            tagPriceQuantileIndexes.set(tagId, quantiles);
+        }
+        return quantiles;
+    }
+
+    /**
+     * Returns the price order statistics over all games. After an edit the index is built on the
+     * first call, so that edits do not pay for rebuilding it over the whole table; concurrent first
+     * calls may each build it, and one of the identical results is kept.
+     *
+     * @return The price quantile index over release days.
+     */
+    public PriceQuantileIndex getPriceQuantileIndex() {
+        PriceQuantileIndex quantiles = priceQuantileIndex;
+        if (quantiles == null) {
+            quantiles = PriceQuantileIndex.of(table, isCompact() ? rowsByDate(allPostings) : rowsByDate(allDates),
+                    priceSortedIndex, new int[table.size()]);
+            priceQuantileIndex = quantiles;
+        }
+        return quantiles;
+    }
+
+    /**
+     * Returns the counts and price totals per tag and release month.
+     *
+     * @return The rollup cube.
+     */
+    public PriceRollup getPriceRollup() {
+        return priceRollup;
+    }
+
+    /**
+     * Returns the presorted top-k orderings.
+     *
+     * @return The top-k index.
+     */
+    public TopKIndex getTopKIndex() {
+        return topKIndex;
+    }
+
+    /**
+     * Returns the full-text index.
+     *
+     * @return The text index.
+     */
+    public TextIndex getTextIndex() {
+        return textIndex;
+    }
+
+    /**
+     * Returns the prefix autocomplete index.
+     *
+     * @return The autocomplete index.
+     */
+    public AutocompleteIndex getAutocompleteIndex() {
+        return autocompleteIndex;
+    }
+
+    /**
+     * Returns the value distributions the query planner estimates selectivities from.
+     *
+     * @return The table statistics.
+     */
+    public TableStatistics getStatistics() {
+        return statistics;
+    }
+
+    /**
+     * Estimates the heap bytes used by each structure of this snapshot. Map mode reports
+     * {@code tagYearIndex} separately; in compact mode year queries read {@code tagDateIndexes}.
+     *
+     * @return The memory report.
+     */
+    public MemoryReport memoryReport() {
+        Map<String, Long> structures = new LinkedHashMap<>();
+        structures.put("table", table.memoryBytes());
+        long dateBytes = 0;
+        if (tagPostings != null) {
+            for (CompactDateIndex postings : tagPostings) {
+                dateBytes += postings.memoryBytes();
+            }
+            structures.put("tagDateIndexes", MemoryReport.listBytes(dateBytes, tagPostings.size()));
+            structures.put("allDates", allPostings.memoryBytes());
+        } else {
+            for (NavigableMap<Integer, IntArrayList> dateMap : dateMaps) {
+                dateBytes += MemoryReport.dateMapBytes(dateMap);
+            }
+            structures.put("tagDateIndexes", MemoryReport.listBytes(dateBytes, dateMaps.size()));
+            structures.put("tagYearIndex", MemoryReport.tagYearIndexBytes(tagYearIndex));
+            structures.put("allDates", MemoryReport.dateMapBytes(allDates));
+        }
+        structures.put("tagBitmaps", MemoryReport.bitmapsBytes(tagBitmaps));
+        structures.put("allRows", allRows.memoryBytes());
+        long priceBytes = 0;
+        for (PriceAggregateIndex prices : tagPriceIndexes) {
+            priceBytes += prices.memoryBytes();
+        }
+        structures.put("tagPriceIndexes", MemoryReport.listBytes(priceBytes, tagPriceIndexes.size()));
+        structures.put("priceIndex", priceIndex.memoryBytes());
+        long priceSortedBytes = 0;
+        for (PriceSortedIndex prices : tagPriceSortedIndexes) {
+            priceSortedBytes += prices.memoryBytes();
+        }
+        structures.put("tagPriceSortedIndexes",
+                MemoryReport.listBytes(priceSortedBytes, tagPriceSortedIndexes.size()));
+        structures.put("priceSortedIndex", priceSortedIndex.memoryBytes());
+        long quantileBytes = 0;
+        for (int tagId = 0; tagId < tagPriceQuantileIndexes.length(); tagId++) {
+            quantileBytes += getTagPriceQuantileIndex(tagId).memoryBytes();
+        }
+        structures.put("tagPriceQuantileIndexes",
+                MemoryReport.listBytes(quantileBytes, tagPriceQuantileIndexes.length()));
+        structures.put("priceQuantileIndex", getPriceQuantileIndex().memoryBytes());
+        structures.put("priceRollup", priceRollup.memoryBytes());
+        structures.put("topKIndex", topKIndex.memoryBytes());
+        structures.put("textIndex", textIndex.memoryBytes());
+        structures.put("autocompleteIndex", autocompleteIndex.memoryBytes());
+        structures.put("statistics", statistics.memoryBytes());
+        return new MemoryReport(structures);
+    }
+}
@@ -0,0 +1,253 @@
+import java.io.IOException;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+import java.util.function.ToIntFunction;
+import java.util.stream.Stream;
+
+/**
+ * A {@link SteamGamesDatasetQuery} that records the latency, result size and outcome of every call
+ * to another one in a {@link QueryMetrics} registry, and commits a {@link QueryEvent} JFR event
+ * per call.
+ *
+ * <p>Each overload is its own operation, named after the method plus a suffix for the query shape
+ * ({@code findGamesByReleaseDate}, {@code findGamesByReleaseDate.upTo},
+ * {@code findGamesByReleaseDate.page}, ...), so the report shows which shapes dominate the tail.
+ * For streaming queries only the creation of the stream is timed.
+ */
+public final class InstrumentedSteamGamesQuery implements SteamGamesDatasetQuery {
+
+    private final SteamGamesDatasetQuery delegate;
+    private final QueryMetrics metrics;
+
+    /**
+     * Wraps a dataset with instrumentation.
+     *
+     * @param delegate The dataset to query.
+     * @param metrics The registry to record into, e.g. {@link SteamGamesImpl#getMetrics()} to keep
+     *                query and load metrics together.
+     */
+    public InstrumentedSteamGamesQuery(SteamGamesDatasetQuery delegate, QueryMetrics metrics) {
+        this.delegate = delegate;
+        this.metrics = metrics;
+    }
+
+    /**
+     * Returns the registry the calls are recorded in.
+     *
+     * @return The metrics registry.
+     */
+    public QueryMetrics getMetrics() {
+        return metrics;
+    }
+
+    @Override
+    public int loadDataset(String filePath) throws IOException {
+        OperationMetrics operation = metrics.operation("loadDataset");
+        QueryEvent event = begin();
+        long start = System.nanoTime();
+        try {
+            int count = delegate.loadDataset(filePath);
+            operation.record(System.nanoTime() - start, count);
+            commit(event, "loadDataset", count, false);
+            return count;
+        } catch (IOException | RuntimeException | Error e) {
+            operation.recordError(System.nanoTime() - start);
+            commit(event, "loadDataset", -1, true);
+            throw e;
+        }
+    }
+
+    @Override
+    public List<String> findGamesByExactQuery(Date year, String tag) {
+        return timed("findGamesByExactQuery", () -> delegate.findGamesByExactQuery(year, tag), List::size);
+    }
+
+    @Override
+    public List<String> findGamesByReleaseDate(String tag, Date lowerBound, Date upperBound) {
+        return timed("findGamesByReleaseDate", () -> delegate.findGamesByReleaseDate(tag, lowerBound, upperBound),
+                List::size);
+    }
+
+    @Override
+    public List<String> findGamesByReleaseDate(String tag, Date upperBound) {
+        return timed("findGamesByReleaseDate.upTo", () -> delegate.findGamesByReleaseDate(tag, upperBound),
+                List::size);
+    }
+
+    @Override
+    public List<String> findGamesByTagExpression(String expression) {
+        return timed("findGamesByTagExpression", () -> delegate.findGamesByTagExpression(expression), List::size);
+    }
+
+    @Override
+    public List<String> findGamesByTagExpression(String expression, Date lowerBound, Date upperBound) {
+        return timed("findGamesByTagExpression.range",
+                () -> delegate.findGamesByTagExpression(expression, lowerBound, upperBound), List::size);
+    }
+
+    @Override
+    public List<String> findGamesByPrice(String tag, double minPrice, double maxPrice, Date lowerBound,
+                                         Date upperBound) {
+        return timed("findGamesByPrice",
+                () -> delegate.findGamesByPrice(tag, minPrice, maxPrice, lowerBound, upperBound), List::size);
+    }
+
+    @Override
+    public Stream<String> streamGamesByReleaseDate(String tag, Date lowerBound, Date upperBound) {
+        return timed("streamGamesByReleaseDate",
+                () -> delegate.streamGamesByReleaseDate(tag, lowerBound, upperBound), stream -> -1);
+    }
+
+    @Override
+    public GamePage findGamesByReleaseDate(String tag, Date lowerBound, Date upperBound, int limit,
+                                           String pageToken) {
+        return timed("findGamesByReleaseDate.page",
+                () -> delegate.findGamesByReleaseDate(tag, lowerBound, upperBound, limit, pageToken),
+                page -> page.getNames().size());
+    }
+
+    @Override
+    public Stream<String> streamGamesByTagExpression(String expression, Date lowerBound, Date upperBound) {
+        return timed("streamGamesByTagExpression",
+                () -> delegate.streamGamesByTagExpression(expression, lowerBound, upperBound), stream -> -1);
+    }
+
+    @Override
+    public GamePage findGamesByTagExpression(String expression, Date lowerBound, Date upperBound, int limit,
+                                             String pageToken) {
+        return timed("findGamesByTagExpression.page",
+                () -> delegate.findGamesByTagExpression(expression, lowerBound, upperBound, limit, pageToken),
+                page -> page.getNames().size());
+    }
+
+    @Override
+    public List<String> searchGames(String query, String tagExpression, Date lowerBound, Date upperBound) {
+        return timed("searchGames", () -> delegate.searchGames(query, tagExpression, lowerBound, upperBound),
+                List::size);
+    }
+
+    @Override
+    public List<String> autocompleteGames(String prefix, int k) {
+        return timed("autocompleteGames", () -> delegate.autocompleteGames(prefix, k), List::size);
+    }
+
+    @Override
+    public List<String> calculateAverageGamePrice(Date startTime, Date endTime) {
+        return timed("calculateAverageGamePrice", () -> delegate.calculateAverageGamePrice(startTime, endTime),
+                List::size);
+    }
+
+    @Override
+    public List<String> calculateAverageGamePrice(Date startTime, Date endTime, String tag) {
+        return timed("calculateAverageGamePrice.tag",
+                () -> delegate.calculateAverageGamePrice(startTime, endTime, tag), List::size);
+    }
+
+    @Override
+    public PriceSummary calculatePriceSummary(Date startTime, Date endTime) {
+        return timed("calculatePriceSummary", () -> delegate.calculatePriceSummary(startTime, endTime),
+                PriceSummary::getCount);
+    }
+
+    @Override
+    public PriceSummary calculatePriceSummary(Date startTime, Date endTime, String tag) {
+        return timed("calculatePriceSummary.tag", () -> delegate.calculatePriceSummary(startTime, endTime, tag),
+                PriceSummary::getCount);
+    }
+
+    @Override
+    public PriceDistribution calculatePriceDistribution(Date startTime, Date endTime, double[] bucketBounds) {
+        return timed("calculatePriceDistribution",
+                () -> delegate.calculatePriceDistribution(startTime, endTime, bucketBounds),
+                PriceDistribution::getCount);
+    }
+
+    @Override
+    public PriceDistribution calculatePriceDistribution(Date startTime, Date endTime, String tag,
+                                                        double[] bucketBounds) {
+        return timed("calculatePriceDistribution.tag",
+                () -> delegate.calculatePriceDistribution(startTime, endTime, tag, bucketBounds),
+                PriceDistribution::getCount);
+    }
+
+    @Override
+    public Map<String, PriceDistribution> calculatePriceDistributions(Date startTime, Date endTime,
+                                                                      Collection<String> tags, double[] bucketBounds) {
+        return timed("calculatePriceDistributions",
+                () -> delegate.calculatePriceDistributions(startTime, endTime, tags, bucketBounds), Map::size);
+    }
+
+    @Override
+    public List<List<String>> executeBatch(List<BatchQuery> queries) {
+        return timed("executeBatch", () -> delegate.executeBatch(queries), List::size);
+    }
+
+    @Override
+    public List<SteamGame> findTopGamesByAttribute(String attribute, int k) {
+        return timed("findTopGamesByAttribute", () -> delegate.findTopGamesByAttribute(attribute, k), List::size);
+    }
+
+    @Override
+    public List<SteamGame> findTopGamesByAttribute(String attribute, int k, String tag, Date lowerBound,
+                                                   Date upperBound) {
+        return timed("findTopGamesByAttribute.filtered",
+                () -> delegate.findTopGamesByAttribute(attribute, k, tag, lowerBound, upperBound), List::size);
+    }
+
+    @Override
+    public List<SteamGame> findTopGames(Comparator<SteamGame> comparator, int k) {
+        return timed("findTopGames", () -> delegate.findTopGames(comparator, k), List::size);
+    }
+
+    @Override
+    public List<SteamGame> findGames(GameQuery query) {
+        return timed("findGames", () -> delegate.findGames(query), List::size);
+    }
+
+    /**
+     * Runs a call, recording its latency and result size, or its failure.
+     *
+     * @param name The operation name.
+     * @param call The call to the underlying dataset.
+     * @param size Counts the results of the call.
+     * @return The call's result.
+     */
+    private <T> T timed(String name, Supplier<T> call, ToIntFunction<T> size) {
+        OperationMetrics operation = metrics.operation(name);
+        QueryEvent event = begin();
+        long start = System.nanoTime();
+        T result;
+        try {
+            result = call.get();
+        } catch (RuntimeException | Error e) {
+            operation.recordError(System.nanoTime() - start);
+            commit(event, name, -1, true);
+            throw e;
+        }
+        long nanos = System.nanoTime() - start;
+        int resultSize = result == null ? -1 : size.applyAsInt(result);
+        operation.record(nanos, resultSize);
+        commit(event, name, resultSize, false);
+        return result;
+    }
+
+    private static QueryEvent begin() {
+        QueryEvent event = new QueryEvent();
+        event.begin();
+        return event;
+    }
+
+    private static void commit(QueryEvent event, String name, int resultSize, boolean failed) {
+        event.end();
+        if (event.shouldCommit()) {
+            event.operation = name;
+            event.resultSize = resultSize;
+            event.failed = failed;
+            event.commit();
+        }
+    }
+}
@@ -0,0 +1,86 @@
+import java.util.Arrays;
+
+/**
+ * A growable list of primitive {@code int} values, used for row-id postings so that
+ * indexes do not box every row id into an {@link Integer}.
+ */
+public final class IntArrayList {
+
+    private int[] values;
+    private int size;
+
+    /** Creates an empty list with a small default capacity. */
+    public IntArrayList() {
+        this(4);
+    }
+
+    /**
+     * Creates an empty list with the given initial capacity.
+     *
+     * @param capacity the initial capacity
+     */
+    public IntArrayList(int capacity) {
+        values = new int[Math.max(1, capacity)];
+    }
+
+    /**
+     * Appends a value to the end of the list.
+     *
+     * @param value the value to append
+     */
+    public void add(int value) {
+        if (size == values.length) {
+            values = Arrays.copyOf(values, size * 2);
+        }
+        values[size++] = value;
+    }
+
+    /**
+     * Returns the value at the given position.
+     *
+     * @param index the position
+     * @return the value
+     */
+    public int get(int index) {
+        if (index >= size) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for size " + size);
+        }
+        return values[index];
+    }
+
+    /**
+     * Returns the number of values in the list.
+     *
+     * @return the size
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns whether the list is empty.
+     *
+     * @return {@code true} if the list holds no values
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Returns a copy of the values as an exactly-sized array.
+     *
+     * @return the values
+     */
+    public int[] toArray() {
+        return Arrays.copyOf(values, size);
+    }
+
+    /**
+     * Estimates the heap footprint of the list, including unused capacity.
+     *
+     * @return the size in bytes
+     */
+    public long memoryBytes() {
+        return MemoryReport.objectBytes(MemoryReport.REFERENCE_BYTES + 4) + MemoryReport.arrayBytes(values.length, 4);
+    }
+}
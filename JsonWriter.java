@@ -0,0 +1,204 @@
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * A minimal streaming JSON writer: values go straight to the underlying {@link Writer}, so a large
+ * array is never held in memory as text. The caller is responsible for well-formed nesting; the
+ * writer only inserts the commas and colons between values.
+ */
+public final class JsonWriter {
+
+    private final Writer out;
+
+    /** Whether the current array or object already has a member, one bit per nesting level. */
+    private long hasMember;
+    private int depth;
+    private boolean afterName;
+
+    /**
+     * Creates a writer.
+     *
+     * @param out the destination
+     */
+    public JsonWriter(Writer out) {
+        this.out = out;
+    }
+
+    /**
+     * Starts an array.
+     *
+     * @return this writer
+     * @throws IOException if the destination fails
+     */
+    public JsonWriter beginArray() throws IOException {
+        open('[');
+        return this;
+    }
+
+    /**
+     * Ends the current array.
+     *
+     * @return this writer
+     * @throws IOException if the destination fails
+     */
+    public JsonWriter endArray() throws IOException {
+        close(']');
+        return this;
+    }
+
+    /**
+     * Starts an object.
+     *
+     * @return this writer
+     * @throws IOException if the destination fails
+     */
+    public JsonWriter beginObject() throws IOException {
+        open('{');
+        return this;
+    }
+
+    /**
+     * Ends the current object.
+     *
+     * @return this writer
+     * @throws IOException if the destination fails
+     */
+    public JsonWriter endObject() throws IOException {
+        close('}');
+        return this;
+    }
+
+    /**
+     * Writes the name of the next object member.
+     *
+     * @param name the member name
+     * @return this writer
+     * @throws IOException if the destination fails
+     */
+    public JsonWriter name(String name) throws IOException {
+        separate();
+        string(name);
+        out.write(':');
+        afterName = true;
+        return this;
+    }
+
+    /**
+     * Writes a string value, or {@code null}.
+     *
+     * @param value the value
+     * @return this writer
+     * @throws IOException if the destination fails
+     */
+    public JsonWriter value(String value) throws IOException {
+        separate();
+        if (value == null) {
+            out.write("null");
+        } else {
+            string(value);
+        }
+        return this;
+    }
+
+    /**
+     * Writes a number; NaN and infinities, which JSON cannot represent, are written as {@code null}.
+     *
+     * @param value the value
+     * @return this writer
+     * @throws IOException if the destination fails
+     */
+    public JsonWriter value(double value) throws IOException {
+        separate();
+        if (Double.isNaN(value) || Double.isInfinite(value)) {
+            out.write("null");
+        } else if (value == Math.rint(value) && Math.abs(value) < 1e15) {
+            out.write(Long.toString((long) value));
+        } else {
+            out.write(Double.toString(value));
+        }
+        return this;
+    }
+
+    /**
+     * Writes an integer.
+     *
+     * @param value the value
+     * @return this writer
+     * @throws IOException if the destination fails
+     */
+    public JsonWriter value(long value) throws IOException {
+        separate();
+        out.write(Long.toString(value));
+        return this;
+    }
+
+    /**
+     * Writes a boolean.
+     *
+     * @param value the value
+     * @return this writer
+     * @throws IOException if the destination fails
+     */
+    public JsonWriter value(boolean value) throws IOException {
+        separate();
+        out.write(value ? "true" : "false");
+        return this;
+    }
+
+    /**
+     * Flushes the destination, so a client reading a streamed response sees what was written.
+     *
+     * @throws IOException if the destination fails
+     */
+    public void flush() throws IOException {
+        out.flush();
+    }
+
+    private void open(char bracket) throws IOException {
+        separate();
+        out.write(bracket);
+        depth++;
+        hasMember &= ~(1L << depth);
+    }
+
+    private void close(char bracket) throws IOException {
+        out.write(bracket);
+        depth--;
+    }
+
+    /** Writes the comma before a value or member unless it is the first one or follows a name. */
+    private void separate() throws IOException {
+        if (afterName) {
+            afterName = false;
+            return;
+        }
+        if (depth > 0) {
+            if ((hasMember & 1L << depth) != 0) {
+                out.write(',');
+            }
+            hasMember |= 1L << depth;
+        }
+    }
+
+    private void string(String s) throws IOException {
+        out.write('"');
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            switch (c) {
+                case '"' -> out.write("\\\"");
+                case '\\' -> out.write("\\\\");
+                case '\n' -> out.write("\\n");
+                case '\r' -> out.write("\\r");
+                case '\t' -> out.write("\\t");
+                default -> {
+                    if (c < 0x20) {
+                        out.write(String.format("\\u%04x", (int) c));
+                    } else {
+                        out.write(c);
+                    }
+                }
+            }
+        }
+        out.write('"');
+    }
+}
@@ -0,0 +1,23 @@
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * JFR event committed for every phase of a dataset load: {@code read} (mapping the file and
+ * scanning for record boundaries), {@code parse} (tokenizing records into a table) and
+ * {@code index} (building the {@link IndexSnapshot}).
+ */
+@Name("steamgames.LoadPhase")
+@Label("Steam Games Load Phase")
+@Category("Steam Games")
+@Description("One phase of loading a Steam games dataset")
+public final class LoadPhaseEvent extends jdk.jfr.Event {
+
+    @Label("Phase")
+    String phase;
+
+    @Label("Rows")
+    @Description("Number of rows in the table after the phase, or -1 if not known yet")
+    int rows;
+}
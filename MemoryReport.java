@@ -0,0 +1,162 @@
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+
+/**
+ * Estimated heap bytes used by each structure of an {@link IndexSnapshot}, as returned by
+ * {@link IndexSnapshot#memoryReport()}.
+ *
+ * <p>Sizes are computed from the structures' shapes rather than measured, assuming a 64-bit JVM
+ * with compressed references: 12-byte object headers, 16-byte array headers, 4-byte references
+ * and 8-byte alignment. They ignore sharing between snapshots, so the bytes of structures that an
+ * incremental edit left untouched are counted in both versions.
+ */
+public final class MemoryReport {
+
+    /** Bytes of a reference field or array element. */
+    static final int REFERENCE_BYTES = 4;
+
+    private static final int OBJECT_HEADER_BYTES = 12;
+    private static final int ARRAY_HEADER_BYTES = 16;
+
+    /** A {@code TreeMap.Entry}: key, value, left, right and parent references plus a color flag. */
+    private static final long TREE_ENTRY_BYTES = objectBytes(5 * REFERENCE_BYTES + 1);
+    private static final long INTEGER_BYTES = objectBytes(4);
+    private static final long LONG_BYTES = objectBytes(8);
+
+    /** A {@code HashMap.Node}: hash plus key, value and next references. */
+    private static final long HASH_NODE_BYTES = objectBytes(4 + 3 * REFERENCE_BYTES);
+
+    private final Map<String, Long> structures;
+
+    /**
+     * Creates a report.
+     *
+     * @param structures the estimated bytes of each structure, in report order
+     */
+    MemoryReport(Map<String, Long> structures) {
+        this.structures = Collections.unmodifiableMap(new LinkedHashMap<>(structures));
+    }
+
+    /**
+     * Returns the estimated bytes of each structure.
+     *
+     * @return the sizes by structure name, in report order
+     */
+    public Map<String, Long> getStructures() {
+        return structures;
+    }
+
+    /**
+     * Returns the estimated bytes of one structure.
+     *
+     * @param structure the structure name, e.g. {@code table} or {@code tagDateIndexes}
+     * @return the size in bytes, or 0 if the snapshot has no such structure
+     */
+    public long getBytes(String structure) {
+        return structures.getOrDefault(structure, 0L);
+    }
+
+    /**
+     * Returns the estimated bytes of every structure together.
+     *
+     * @return the total size in bytes
+     */
+    public long getTotalBytes() {
+        long total = 0;
+        for (long bytes : structures.values()) {
+            total += bytes;
+        }
+        return total;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder report = new StringBuilder();
+        for (Map.Entry<String, Long> entry : structures.entrySet()) {
+            report.append(String.format("%-24s %,14d bytes%n", entry.getKey(), entry.getValue()));
+        }
+        return report.append(String.format("%-24s %,14d bytes%n", "total", getTotalBytes())).toString();
+    }
+
+    /**
+     * Returns the size of an object with the given bytes of fields.
+     *
+     * @param fieldBytes the total size of the fields
+     * @return the aligned object size
+     */
+    static long objectBytes(long fieldBytes) {
+        return align(OBJECT_HEADER_BYTES + fieldBytes);
+    }
+
+    /**
+     * Returns the size of an array.
+     *
+     * @param length the number of elements
+     * @param elementBytes the size of one element
+     * @return the aligned array size
+     */
+    static long arrayBytes(long length, int elementBytes) {
+        return align(ARRAY_HEADER_BYTES + length * elementBytes);
+    }
+
+    /**
+     * Estimates a date map: tree entries, boxed day keys and the per-day lists.
+     *
+     * @param dateMap the date map
+     * @return the size in bytes
+     */
+    static long dateMapBytes(NavigableMap<Integer, IntArrayList> dateMap) {
+        long bytes = objectBytes(4 * REFERENCE_BYTES + 8);
+        for (Map.Entry<Integer, IntArrayList> entry : dateMap.entrySet()) {
+            bytes += TREE_ENTRY_BYTES + INTEGER_BYTES + entry.getValue().memoryBytes();
+        }
+        return bytes;
+    }
+
+    /**
+     * Estimates the (tag, year) hash index: nodes, boxed keys, the bucket table and the lists.
+     *
+     * @param tagYearIndex the index
+     * @return the size in bytes
+     */
+    static long tagYearIndexBytes(Map<Long, IntArrayList> tagYearIndex) {
+        long bytes = objectBytes(6 * REFERENCE_BYTES + 16)
+                + arrayBytes(Integer.highestOneBit(Math.max(1, tagYearIndex.size() * 4 / 3)) * 2L, REFERENCE_BYTES);
+        for (IntArrayList rows : tagYearIndex.values()) {
+            bytes += HASH_NODE_BYTES + LONG_BYTES + rows.memoryBytes();
+        }
+        return bytes;
+    }
+
+    /**
+     * Estimates a list of per-tag structures, including the list's reference array.
+     *
+     * @param elementBytes the summed sizes of the elements
+     * @param count the number of elements
+     * @return the size in bytes
+     */
+    static long listBytes(long elementBytes, int count) {
+        return objectBytes(2 * REFERENCE_BYTES + 8) + arrayBytes(count, REFERENCE_BYTES) + elementBytes;
+    }
+
+    /**
+     * Sums the estimated sizes of a list of bitmaps.
+     *
+     * @param bitmaps the bitmaps
+     * @return the size in bytes
+     */
+    static long bitmapsBytes(List<RowBitmap> bitmaps) {
+        long bytes = 0;
+        for (RowBitmap bitmap : bitmaps) {
+            bytes += bitmap.memoryBytes();
+        }
+        return listBytes(bytes, bitmaps.size());
+    }
+
+    private static long align(long bytes) {
+        return (bytes + 7) & ~7L;
+    }
+}
@@ -0,0 +1,127 @@
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Call count, latency histogram, result sizes and error count of one operation in a
+ * {@link QueryMetrics} registry. Safe to update from any number of threads.
+ */
+public final class OperationMetrics implements OperationMetricsMXBean {
+
+    private static final double NANOS_PER_MICRO = 1_000.0;
+
+    private final String name;
+    private final LogHistogram latencies = new LogHistogram();
+    private final LogHistogram resultSizes = new LogHistogram();
+    private final LongAdder errors = new LongAdder();
+
+    /**
+     * Creates the metrics of an operation.
+     *
+     * @param name the operation name
+     */
+    OperationMetrics(String name) {
+        this.name = name;
+    }
+
+    /**
+     * Records a successful call.
+     *
+     * @param nanos the latency in nanoseconds
+     * @param resultSize the number of results, or a negative value if the call has none
+     */
+    public void record(long nanos, int resultSize) {
+        latencies.record(nanos);
+        if (resultSize >= 0) {
+            resultSizes.record(resultSize);
+        }
+    }
+
+    /**
+     * Records a call that threw an exception.
+     *
+     * @param nanos the latency in nanoseconds
+     */
+    public void recordError(long nanos) {
+        latencies.record(nanos);
+        errors.increment();
+    }
+
+    /**
+     * Returns the latency histogram in nanoseconds.
+     *
+     * @return the histogram
+     */
+    public LogHistogram getLatencies() {
+        return latencies;
+    }
+
+    /**
+     * Returns the histogram of result sizes.
+     *
+     * @return the histogram
+     */
+    public LogHistogram getResultSizes() {
+        return resultSizes;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public long getCount() {
+        return latencies.getCount();
+    }
+
+    @Override
+    public long getErrorCount() {
+        return errors.sum();
+    }
+
+    @Override
+    public double getMeanLatencyMicros() {
+        return latencies.getMean() / NANOS_PER_MICRO;
+    }
+
+    @Override
+    public double getP50LatencyMicros() {
+        return latencies.getPercentile(0.50) / NANOS_PER_MICRO;
+    }
+
+    @Override
+    public double getP90LatencyMicros() {
+        return latencies.getPercentile(0.90) / NANOS_PER_MICRO;
+    }
+
+    @Override
+    public double getP99LatencyMicros() {
+        return latencies.getPercentile(0.99) / NANOS_PER_MICRO;
+    }
+
+    @Override
+    public double getP999LatencyMicros() {
+        return latencies.getPercentile(0.999) / NANOS_PER_MICRO;
+    }
+
+    @Override
+    public double getMaxLatencyMicros() {
+        return latencies.getMax() / NANOS_PER_MICRO;
+    }
+
+    @Override
+    public double getMeanResultSize() {
+        return resultSizes.getMean();
+    }
+
+    @Override
+    public long getMaxResultSize() {
+        return resultSizes.getMax();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%-40s %9d %7d %10.1f %10.1f %10.1f %10.1f %10.1f %9.1f", name, getCount(),
+                getErrorCount(), getP50LatencyMicros(), getP90LatencyMicros(), getP99LatencyMicros(),
+                getP999LatencyMicros(), getMaxLatencyMicros(), getMeanResultSize());
+    }
+}
@@ -0,0 +1,83 @@
+/**
+ * JMX view of the metrics of one operation, registered by {@link QueryMetrics#registerMBeans(String)}.
+ * Latencies are reported in microseconds.
+ */
+public interface OperationMetricsMXBean {
+
+    /**
+     * Returns the operation name, e.g. {@code findGamesByReleaseDate} or {@code load.parse}.
+     *
+     * @return the name
+     */
+    String getName();
+
+    /**
+     * Returns the number of calls, including failed ones.
+     *
+     * @return the call count
+     */
+    long getCount();
+
+    /**
+     * Returns the number of calls that threw an exception.
+     *
+     * @return the error count
+     */
+    long getErrorCount();
+
+    /**
+     * Returns the mean latency.
+     *
+     * @return the mean in microseconds
+     */
+    double getMeanLatencyMicros();
+
+    /**
+     * Returns the median latency.
+     *
+     * @return the 50th percentile in microseconds
+     */
+    double getP50LatencyMicros();
+
+    /**
+     * Returns the 90th percentile latency.
+     *
+     * @return the 90th percentile in microseconds
+     */
+    double getP90LatencyMicros();
+
+    /**
+     * Returns the 99th percentile latency.
+     *
+     * @return the 99th percentile in microseconds
+     */
+    double getP99LatencyMicros();
+
+    /**
+     * Returns the 99.9th percentile latency.
+     *
+     * @return the 99.9th percentile in microseconds
+     */
+    double getP999LatencyMicros();
+
+    /**
+     * Returns the slowest call's latency.
+     *
+     * @return the maximum in microseconds
+     */
+    double getMaxLatencyMicros();
+
+    /**
+     * Returns the mean number of results of successful calls.
+     *
+     * @return the mean result size
+     */
+    double getMeanResultSize();
+
+    /**
+     * Returns the largest number of results of a call.
+     *
+     * @return the maximum result size
+     */
+    long getMaxResultSize();
+}
@@ -0,0 +1,305 @@
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/**
+ * Loads the Steam games CSV into a {@link GameTable} using all available cores.
+ *
+ * <p>The file is memory-mapped and cut into fixed-size chunks. A first parallel pass scans each chunk
+ * once, counting quote characters and recording the first line break that would end a record under
+ * either assumption about whether the chunk starts inside a quoted field. A short sequential pass then
+ * resolves the real quote state at every chunk start, which yields safe record boundaries even when
+ * quoted fields contain line breaks. A second parallel pass tokenizes each slice of complete records in
+ * place with a {@link CsvTokenizer} into its own partial table on the fork-join pool, and the partial
+ * tables are appended in file order.
+ *
+ * <p>Expected columns (after a leading index column): {@code name, all_reviews, release_date,
+ * popular_tags, original_price}. The first record is a header and is skipped.
+ */
+public final class ParallelCsvLoader {
+
+    /** Default chunk size for the boundary scan and parse tasks. */
+    public static final int DEFAULT_CHUNK_SIZE = 8 << 20;
+
+    private final ForkJoinPool pool;
+    private final int chunkSize;
+    private final QueryMetrics metrics;
+
+    /** Creates a loader on the common fork-join pool with the default chunk size. */
+    public ParallelCsvLoader() {
+        this(new QueryMetrics());
+    }
+
+    /**
+     * Creates a loader on the common fork-join pool with the default chunk size that records the
+     * {@code load.read} and {@code load.parse} phases.
+     *
+     * @param metrics the registry to record the phase timings in
+     */
+    public ParallelCsvLoader(QueryMetrics metrics) {
+        this(ForkJoinPool.commonPool(), DEFAULT_CHUNK_SIZE, metrics);
+    }
+
+    /**
+     * Creates a loader.
+     *
+     * @param pool the pool to run chunk tasks on
+     * @param chunkSize the target chunk size in bytes
+     */
+    public ParallelCsvLoader(ForkJoinPool pool, int chunkSize) {
+        this(pool, chunkSize, new QueryMetrics());
+    }
+
+    /**
+     * Creates a loader that records the {@code load.read} and {@code load.parse} phases.
+     *
+     * @param pool the pool to run chunk tasks on
+     * @param chunkSize the target chunk size in bytes
+     * @param metrics the registry to record the phase timings in
+     */
+    public ParallelCsvLoader(ForkJoinPool pool, int chunkSize, QueryMetrics metrics) {
+        this.pool = pool;
+        this.chunkSize = Math.max(1, chunkSize);
+        this.metrics = metrics;
+    }
+
+    /**
+     * Loads every valid row of a CSV file.
+     *
+     * @param file the CSV file
+     * @return a new table holding the rows in file order
+     * @throws IOException if the file cannot be read
+     */
+    public GameTable load(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            QueryMetrics.Phase read = metrics.startPhase("read");
+            long fileSize = channel.size();
+            int chunkCount = (int) Math.max(1, (fileSize + chunkSize - 1) / chunkSize);
+
+            // Pass 1: per-chunk quote parity and candidate record boundaries
+            List<Callable<ChunkScan>> scans = new ArrayList<>(chunkCount);
+            for (int i = 0; i < chunkCount; i++) {
+                long start = (long) i * chunkSize;
+                long end = Math.min(fileSize, start + chunkSize);
+                scans.add(() -> scan(channel, start, end));
+            }
+            List<ChunkScan> scanned = invokeAll(scans);
+
+            // Resolve the true quote state at each chunk start and pick its first record boundary
+            List<Long> boundaries = new ArrayList<>();
+            boolean inQuotes = false;
+            for (ChunkScan scan : scanned) {
+                long boundary = inQuotes ? scan.firstBreakIfInQuotes : scan.firstBreakIfOutside;
+                if (boundary >= 0) {
+                    boundaries.add(boundary + 1);
+                }
+                inQuotes ^= scan.oddQuotes;
+            }
+
+            read.end(-1);
+
+            // The first record (up to the first boundary) is the header
+            if (boundaries.isEmpty() || boundaries.get(0) >= fileSize) {
+                return new GameTable();
+            }
+            QueryMetrics.Phase parse = metrics.startPhase("parse");
+            List<Callable<GameTable>> parses = new ArrayList<>();
+            for (int i = 0; i < boundaries.size(); i++) {
+                long start = boundaries.get(i);
+                long end = i + 1 < boundaries.size() ? boundaries.get(i + 1) : fileSize;
+                if (start < end) {
+                    parses.add(() -> parse(channel, start, end));
+                }
+            }
+
+            // Pass 2: parse complete records in parallel, then append partial tables in file order
+            GameTable result = new GameTable();
+            for (GameTable partial : invokeAll(parses)) {
+                result.appendRows(partial);
+            }
+            parse.end(result.size());
+            return result;
+        }
+    }
+
+    /**
+     * Parses a line from a CSV file, handling quoted fields. The whole string is one record: line
+     * feeds and carriage returns are kept in the field they appear in, unlike in the loader's
+     * {@link CsvTokenizer}, which ends a record at an unquoted line feed.
+     *
+     * @param line The line to parse.
+     * @return A list of parsed fields; an empty line gives one empty field.
+     */
+    public static List<String> parseLine(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        boolean inQuotes = false;
+
+        // Custom CSV parsing that supports quoted fields and escaped quotes
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+
+            if (c == '"') {
+                if (inQuotes && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    current.append('"'); // Escaped quote
+                    i++;
+                } else {
+                    inQuotes = !inQuotes; // Toggle quote state
+                }
+            } else if (c == ',' && !inQuotes) {
+                fields.add(current.toString());
+                current.setLength(0);
+            } else {
+                current.append(c);
+            }
+        }
+
+        fields.add(current.toString());
+        return fields;
+    }
+
+    /**
+     * Parses a price string and returns a numeric value.
+     *
+     * @param priceStr The string representing the price.
+     * @return The parsed price as a double.
+     */
+    static double parsePrice(String priceStr) {
+        // Normalize and convert string prices like "$29.99", "Free", or "NaN"
+        if (priceStr == null || priceStr.trim().isEmpty() || priceStr.toLowerCase().contains("free")
+                || priceStr.equalsIgnoreCase("NaN")) {
+            return 0.0;
+        }
+
+        try {
+            return Double.parseDouble(priceStr.replace("$", "").trim());
+        } catch (NumberFormatException e) {
+            System.out.println("Invalid price format: " + priceStr);
+            return 0.0;
+        }
+    }
+
+    /** Scans one chunk for quote parity and the first line break under both quote-state assumptions. */
+    private static ChunkScan scan(FileChannel channel, long start, long end) throws IOException {
+        MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, start, end - start);
+        boolean odd = false;
+        long breakIfOutside = -1;
+        long breakIfInQuotes = -1;
+        int limit = buffer.limit();
+        for (int i = 0; i < limit; i++) {
+            byte b = buffer.get(i);
+            if (b == '"') {
+                odd = !odd;
+            } else if (b == '\n') {
+                // A line break ends a record when the quote state at this point is "outside"
+                if (!odd && breakIfOutside < 0) {
+                    breakIfOutside = start + i;
+                } else if (odd && breakIfInQuotes < 0) {
+                    breakIfInQuotes = start + i;
+                }
+                if (breakIfOutside >= 0 && breakIfInQuotes >= 0) {
+                    odd ^= countQuotes(buffer, i + 1, limit);
+                    break;
+                }
+            }
+        }
+        return new ChunkScan(odd, breakIfOutside, breakIfInQuotes);
+    }
+
+    private static boolean countQuotes(MappedByteBuffer buffer, int from, int to) {
+        boolean odd = false;
+        for (int i = from; i < to; i++) {
+            if (buffer.get(i) == '"') {
+                odd = !odd;
+            }
+        }
+        return odd;
+    }
+
+    /** Parses the complete records in {@code [start, end)} into a partial table. */
+    private static GameTable parse(FileChannel channel, long start, long end) throws IOException {
+        MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, start, end - start);
+        CsvTokenizer tokenizer = new CsvTokenizer(buffer);
+
+        // Date parsers memoize per thread, so every task uses its own instance
+        ReleaseDateParser dates = new ReleaseDateParser();
+        GameTable table = new GameTable(Math.max(16, buffer.limit() / 256));
+
+        while (tokenizer.next()) {
+            addRecord(tokenizer, dates, table);
+        }
+        return table;
+    }
+
+    /**
+     * Converts the current record of a tokenizer into a table row, skipping invalid records.
+     * Only the kept columns are decoded; the price and release date are parsed straight from the buffer.
+     */
+    private static void addRecord(CsvTokenizer record, ReleaseDateParser dates, GameTable table) {
+        if (record.fieldCount() < 6) {
+            System.out.println("Skipping malformed row: " + record.toList());
+            return;
+        }
+
+        int releaseDay = ReleaseDateParser.INVALID;
+        if (!record.equalsIgnoreCase(3, "NaN")) {
+            releaseDay = record.parseReleaseDay(3, dates);
+            if (releaseDay == ReleaseDateParser.INVALID) {
+                System.out.println("Invalid date format for game '" + record.getString(1)
+                        + "': Unparseable date: \"" + record.getString(3) + "\"");
+            }
+        }
+
+        double originalPrice = record.parsePrice(5);
+
+        if (releaseDay != ReleaseDateParser.INVALID) {
+            // Only add valid entries to the table
+            table.addRow(record.getString(1), releaseDay, record.getString(2), originalPrice, record.getString(4));
+        }
+    }
+
+    private <T> List<T> invokeAll(List<Callable<T>> tasks) throws IOException {
+        List<T> results = new ArrayList<>(tasks.size());
+        try {
+            for (Future<T> future : pool.invokeAll(tasks)) {
+                results.add(future.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while loading dataset", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException io) {
+                throw io;
+            }
+            throw new IOException("Failed to load dataset", e.getCause());
+        }
+        return results;
+    }
+
+    /** Result of the boundary scan of one chunk. */
+    private static final class ChunkScan {
+
+        /** Whether the chunk contains an odd number of quote characters. */
+        final boolean oddQuotes;
+
+        /** File offset of the first record-ending line break if the chunk starts outside quotes, or -1. */
+        final long firstBreakIfOutside;
+
+        /** File offset of the first record-ending line break if the chunk starts inside quotes, or -1. */
+        final long firstBreakIfInQuotes;
+
+        ChunkScan(boolean oddQuotes, long firstBreakIfOutside, long firstBreakIfInQuotes) {
+            this.oddQuotes = oddQuotes;
+            this.firstBreakIfOutside = firstBreakIfOutside;
+            this.firstBreakIfInQuotes = firstBreakIfInQuotes;
+        }
+    }
+}
@@ -0,0 +1,218 @@
+import java.util.Arrays;
+import java.util.Map;
+import java.util.NavigableMap;
+
+/**
+ * Answers count/sum/min/max of prices over any release-date window in logarithmic time.
+ *
+ * <p>The distinct release days of a set of games are kept in a sorted array, and a segment tree over
+ * those days stores, for every node, the count, sum, minimum and maximum price of the games in its
+ * day range. A window query binary-searches the two bounds and combines O(log d) nodes, where
+ * {@code d} is the number of distinct days, instead of visiting every game in the window.
+ */
+public final class PriceAggregateIndex {
+
+    /** Distinct release days in ascending order; leaf {@code i} covers {@code days[i]}. */
+    private final int[] days;
+
+    /** Segment tree arrays: node {@code 1} is the root, leaves start at {@code days.length}. */
+    private final int[] counts;
+    private final double[] sums;
+    private final double[] mins;
+    private final double[] maxs;
+
+    /**
+     * Builds the index for the rows of a date map.
+     *
+     * @param dateMap rows grouped by release epoch day
+     * @param table the table holding the rows' prices
+     */
+    public PriceAggregateIndex(NavigableMap<Integer, IntArrayList> dateMap, GameTable table) {
+        this(dateMap.size());
+
+        int leaf = 0;
+        for (Map.Entry<Integer, IntArrayList> entry : dateMap.entrySet()) {
+            days[leaf] = entry.getKey();
+            setLeaf(leaf, entry.getValue(), table);
+            leaf++;
+        }
+
+        for (int node = days.length - 1; node > 0; node--) {
+            pull(node);
+        }
+    }
+
+    /**
+     * Builds the index for compact date postings.
+     *
+     * @param postings rows grouped by release epoch day
+     * @param table the table holding the rows' prices
+     */
+    public PriceAggregateIndex(CompactDateIndex postings, GameTable table) {
+        this(postings.dayCount());
+
+        for (int leaf = 0; leaf < days.length; leaf++) {
+            days[leaf] = postings.getDay(leaf);
+            double sum = 0.0;
+            double min = Double.POSITIVE_INFINITY;
+            double max = Double.NEGATIVE_INFINITY;
+            for (int i = postings.getStart(leaf); i < postings.getStart(leaf + 1); i++) {
+                double price = table.getPrice(postings.getRow(i));
+                sum += price;
+                min = Math.min(min, price);
+                max = Math.max(max, price);
+            }
+            setLeaf(leaf, postings.getStart(leaf + 1) - postings.getStart(leaf), sum, min, max);
+        }
+
+        for (int node = days.length - 1; node > 0; node--) {
+            pull(node);
+        }
+    }
+
+    /** Allocates an index with {@code n} leaves. */
+    private PriceAggregateIndex(int n) {
+        days = new int[n];
+        counts = new int[2 * n];
+        sums = new double[2 * n];
+        mins = new double[2 * n];
+        maxs = new double[2 * n];
+    }
+
+    /** Creates a copy of another index whose nodes can be updated without affecting it. */
+    private PriceAggregateIndex(PriceAggregateIndex base) {
+        days = base.days;
+        counts = base.counts.clone();
+        sums = base.sums.clone();
+        mins = base.mins.clone();
+        maxs = base.maxs.clone();
+    }
+
+    /**
+     * Returns the index of a date map after some of its days changed, leaving this index untouched.
+     * If every changed day already has a leaf, the node arrays are copied and only those leaves and
+     * their ancestors are recomputed (a day left without games keeps an empty leaf); a day new to the
+     * map changes the leaf layout, so the index is rebuilt.
+     *
+     * @param dateMap the changed date map
+     * @param table the table holding the rows' prices
+     * @param changedDays the days whose rows were added or removed
+     * @return the index for {@code dateMap}
+     */
+    public PriceAggregateIndex withChanges(NavigableMap<Integer, IntArrayList> dateMap, GameTable table,
+                                           int[] changedDays) {
+        int[] leaves = new int[changedDays.length];
+        for (int i = 0; i < changedDays.length; i++) {
+            leaves[i] = Arrays.binarySearch(days, changedDays[i]);
+            if (leaves[i] < 0) {
+                return new PriceAggregateIndex(dateMap, table);
+            }
+        }
+
+        PriceAggregateIndex result = new PriceAggregateIndex(this);
+        for (int i = 0; i < leaves.length; i++) {
+            result.setLeaf(leaves[i], dateMap.get(changedDays[i]), table);
+            for (int node = (days.length + leaves[i]) / 2; node > 0; node /= 2) {
+                result.pull(node);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Summarizes the prices of games released between two epoch days (inclusive).
+     *
+     * @param lowerDay the first day of the window
+     * @param upperDay the last day of the window
+     * @return the price summary, {@link PriceSummary#EMPTY} if no game falls in the window
+     */
+    public PriceSummary summarize(int lowerDay, int upperDay) {
+        int left = firstIndexAfter(lowerDay - 1L) + days.length;
+        int right = firstIndexAfter(upperDay) + days.length;
+
+        int count = 0;
+        double sum = 0.0;
+        double min = Double.POSITIVE_INFINITY;
+        double max = Double.NEGATIVE_INFINITY;
+
+        // Standard bottom-up range walk over the half-open leaf interval [left, right)
+        while (left < right) {
+            if ((left & 1) == 1) {
+                count += counts[left];
+                sum += sums[left];
+                min = Math.min(min, mins[left]);
+                max = Math.max(max, maxs[left]);
+                left++;
+            }
+            if ((right & 1) == 1) {
+                right--;
+                count += counts[right];
+                sum += sums[right];
+                min = Math.min(min, mins[right]);
+                max = Math.max(max, maxs[right]);
+            }
+            left >>= 1;
+            right >>= 1;
+        }
+
+        return count == 0 ? PriceSummary.EMPTY : new PriceSummary(count, sum, min, max);
+    }
+
+    /**
+     * Estimates the heap footprint of the index.
+     *
+     * @return the size in bytes
+     */
+    public long memoryBytes() {
+        return MemoryReport.objectBytes(5 * MemoryReport.REFERENCE_BYTES) + MemoryReport.arrayBytes(days.length, 4)
+                + MemoryReport.arrayBytes(counts.length, 4) + 3 * MemoryReport.arrayBytes(sums.length, 8);
+    }
+
+    /** Computes a leaf from the rows released on its day (null if there are none). */
+    private void setLeaf(int leaf, IntArrayList rows, GameTable table) {
+        double sum = 0.0;
+        double min = Double.POSITIVE_INFINITY;
+        double max = Double.NEGATIVE_INFINITY;
+        int count = rows == null ? 0 : rows.size();
+        for (int i = 0; i < count; i++) {
+            double price = table.getPrice(rows.get(i));
+            sum += price;
+            min = Math.min(min, price);
+            max = Math.max(max, price);
+        }
+        setLeaf(leaf, count, sum, min, max);
+    }
+
+    private void setLeaf(int leaf, int count, double sum, double min, double max) {
+        int node = days.length + leaf;
+        counts[node] = count;
+        sums[node] = sum;
+        mins[node] = min;
+        maxs[node] = max;
+    }
+
+    /** Recomputes an internal node from its two children. */
+    private void pull(int node) {
+        int l = 2 * node;
+        int r = l + 1;
+        counts[node] = counts[l] + counts[r];
+        sums[node] = sums[l] + sums[r];
+        mins[node] = Math.min(mins[l], mins[r]);
+        maxs[node] = Math.max(maxs[l], maxs[r]);
+    }
+
+    /** Returns the index of the first day strictly after {@code day}. */
+    private int firstIndexAfter(long day) {
+        int low = 0;
+        int high = days.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (days[mid] <= day) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+}
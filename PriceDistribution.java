@@ -0,0 +1,153 @@
+import java.util.Arrays;
+
+/**
+ * The price distribution of a set of games: the {@link PriceSummary} aggregates, the median, 90th
+ * and 99th percentiles, and the number of games in each bucket of a fixed price histogram.
+ *
+ * <p>Percentiles use the nearest-rank definition: the {@code p}-th percentile of {@code n} prices is
+ * the {@code ceil(p / 100 * n)}-th cheapest, so it is always one of the prices. Histogram bucket
+ * {@code i} counts the prices in {@code [bounds[i], bounds[i + 1])}; prices outside
+ * {@code [bounds[0], bounds[length - 1])} fall in no bucket.
+ */
+public final class PriceDistribution {
+
+    private final PriceSummary summary;
+    private final double p50;
+    private final double p90;
+    private final double p99;
+    private final double[] bucketBounds;
+    private final int[] bucketCounts;
+
+    /**
+     * Constructs a distribution from its components.
+     *
+     * @param summary the count, sum, minimum and maximum
+     * @param p50 the median ({@code NaN} if there are no games)
+     * @param p90 the 90th percentile ({@code NaN} if there are no games)
+     * @param p99 the 99th percentile ({@code NaN} if there are no games)
+     * @param bucketBounds the ascending bucket bounds, empty for no histogram
+     * @param bucketCounts the number of games per bucket, one fewer than the bounds
+     */
+    public PriceDistribution(PriceSummary summary, double p50, double p90, double p99, double[] bucketBounds,
+                             int[] bucketCounts) {
+        this.summary = summary;
+        this.p50 = p50;
+        this.p90 = p90;
+        this.p99 = p99;
+        this.bucketBounds = bucketBounds.clone();
+        this.bucketCounts = bucketCounts.clone();
+    }
+
+    /**
+     * Returns the distribution of no games.
+     *
+     * @param bucketBounds the ascending bucket bounds, empty for no histogram
+     * @return a distribution with a zero count and empty buckets
+     */
+    static PriceDistribution empty(double[] bucketBounds) {
+        return new PriceDistribution(PriceSummary.EMPTY, Double.NaN, Double.NaN, Double.NaN, bucketBounds,
+                new int[Math.max(0, bucketBounds.length - 1)]);
+    }
+
+    /**
+     * Checks that histogram bounds are usable.
+     *
+     * @param bucketBounds the bounds, or null for no histogram
+     * @return the bounds, an empty array for null
+     * @throws IllegalArgumentException if there is a single bound, a NaN or a bound not above the previous one
+     */
+    static double[] checkBounds(double[] bucketBounds) {
+        if (bucketBounds == null || bucketBounds.length == 0) {
+            return new double[0];
+        }
+        if (bucketBounds.length == 1) {
+            throw new IllegalArgumentException("A histogram needs at least two bucket bounds.");
+        }
+        for (int i = 0; i < bucketBounds.length; i++) {
+            if (Double.isNaN(bucketBounds[i]) || i > 0 && !(bucketBounds[i] > bucketBounds[i - 1])) {
+                throw new IllegalArgumentException("Bucket bounds must be ascending numbers: "
+                        + Arrays.toString(bucketBounds));
+            }
+        }
+        return bucketBounds.clone();
+    }
+
+    /**
+     * Returns the count, sum, minimum, maximum and mean.
+     *
+     * @return the price summary
+     */
+    public PriceSummary getSummary() {
+        return summary;
+    }
+
+    /**
+     * Returns the number of games.
+     *
+     * @return the count
+     */
+    public int getCount() {
+        return summary.getCount();
+    }
+
+    /**
+     * Returns the median price, or {@code NaN} if there are no games.
+     *
+     * @return the 50th percentile
+     */
+    public double getP50() {
+        return p50;
+    }
+
+    /**
+     * Returns the 90th percentile price, or {@code NaN} if there are no games.
+     *
+     * @return the 90th percentile
+     */
+    public double getP90() {
+        return p90;
+    }
+
+    /**
+     * Returns the 99th percentile price, or {@code NaN} if there are no games.
+     *
+     * @return the 99th percentile
+     */
+    public double getP99() {
+        return p99;
+    }
+
+    /**
+     * Returns the histogram bucket bounds.
+     *
+     * @return a copy of the ascending bounds, empty if no histogram was requested
+     */
+    public double[] getBucketBounds() {
+        return bucketBounds.clone();
+    }
+
+    /**
+     * Returns the number of games in each histogram bucket.
+     *
+     * @return a copy of the counts, one fewer than the bounds
+     */
+    public int[] getBucketCounts() {
+        return bucketCounts.clone();
+    }
+
+    /**
+     * Returns a string representation of the distribution.
+     *
+     * @return a formatted string with the statistics and the histogram
+     */
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder(String.format(
+                "PriceDistribution [count=%d, mean=%.2f, min=%.2f, p50=%.2f, p90=%.2f, p99=%.2f, max=%.2f",
+                summary.getCount(), summary.getMean(), summary.getMin(), p50, p90, p99, summary.getMax()));
+        for (int i = 0; i < bucketCounts.length; i++) {
+            sb.append(String.format(", [%.2f, %.2f)=%d", bucketBounds[i], bucketBounds[i + 1], bucketCounts[i]));
+        }
+        return sb.append(']').toString();
+    }
+}
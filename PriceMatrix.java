@@ -0,0 +1,111 @@
+import java.util.List;
+
+/**
+ * Game counts and price totals grouped by tag and release period: one row per tag and one column
+ * per year or month, as returned by {@link SteamGamesImpl#groupPricesByTag}.
+ */
+public final class PriceMatrix {
+
+    /** The length of the columns of a matrix. */
+    public enum Period {
+        /** One column per calendar year, labelled {@code 2015}. */
+        YEAR,
+        /** One column per calendar month, labelled {@code 2015-03}. */
+        MONTH
+    }
+
+    private final List<String> tags;
+    private final List<String> periods;
+    private final int[][] counts;
+    private final double[][] sums;
+
+    /**
+     * Constructs a matrix from its cells.
+     *
+     * @param tags the row labels
+     * @param periods the column labels
+     * @param counts the number of games per row and column
+     * @param sums the total price of the games per row and column
+     */
+    PriceMatrix(List<String> tags, List<String> periods, int[][] counts, double[][] sums) {
+        this.tags = List.copyOf(tags);
+        this.periods = List.copyOf(periods);
+        this.counts = counts;
+        this.sums = sums;
+    }
+
+    /**
+     * Returns the row labels.
+     *
+     * @return the tags, in the requested order
+     */
+    public List<String> getTags() {
+        return tags;
+    }
+
+    /**
+     * Returns the column labels.
+     *
+     * @return the periods in chronological order
+     */
+    public List<String> getPeriods() {
+        return periods;
+    }
+
+    /**
+     * Returns the number of games of a tag released in a period.
+     *
+     * @param tagIndex the row, in {@code [0, getTags().size())}
+     * @param periodIndex the column, in {@code [0, getPeriods().size())}
+     * @return the count
+     */
+    public int getCount(int tagIndex, int periodIndex) {
+        return counts[tagIndex][periodIndex];
+    }
+
+    /**
+     * Returns the total price of the games of a tag released in a period.
+     *
+     * @param tagIndex the row
+     * @param periodIndex the column
+     * @return the sum
+     */
+    public double getSum(int tagIndex, int periodIndex) {
+        return sums[tagIndex][periodIndex];
+    }
+
+    /**
+     * Returns the average price of the games of a tag released in a period.
+     *
+     * @param tagIndex the row
+     * @param periodIndex the column
+     * @return the mean, or {@code NaN} if there are no such games
+     */
+    public double getAverage(int tagIndex, int periodIndex) {
+        int count = counts[tagIndex][periodIndex];
+        return count == 0 ? Double.NaN : sums[tagIndex][periodIndex] / count;
+    }
+
+    /**
+     * Returns the matrix as text, one line per tag with the count and average of each period.
+     *
+     * @return the formatted matrix
+     */
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("tag");
+        for (String period : periods) {
+            sb.append('\t').append(period);
+        }
+        for (int row = 0; row < tags.size(); row++) {
+            sb.append('\n').append(tags.get(row));
+            for (int column = 0; column < periods.size(); column++) {
+                sb.append('\t').append(counts[row][column]);
+                if (counts[row][column] > 0) {
+                    sb.append(String.format(" @ %.2f", getAverage(row, column)));
+                }
+            }
+        }
+        return sb.toString();
+    }
+}
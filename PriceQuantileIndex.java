@@ -0,0 +1,300 @@
+import java.util.Arrays;
+
+/**
+ * Answers order statistics of prices (k-th cheapest game, number of games under a price) over any
+ * release-date window in {@code O(log m)} time, where {@code m} is the number of indexed games.
+ *
+ * <p>The games are laid out in (release day, row) order, and each is replaced by its position in
+ * a {@link PriceSortedIndex} of the same games, its price rank. A date window is then a contiguous
+ * range of positions, found by binary search over a day directory. A wavelet matrix over the
+ * ranks answers both questions by descending one bit level at a time. Each level is a bitmap with
+ * a rank directory, so the index takes about {@code 1.5 * log2(m)} bits per game plus the day
+ * directory; the price-sorted index it resolves ranks through is shared with the snapshot.
+ */
+public final class PriceQuantileIndex {
+
+    /** An index of no games. */
+    public static final PriceQuantileIndex EMPTY = of(new GameTable(), new IntArrayList(), PriceSortedIndex.EMPTY,
+            new int[0]);
+
+    /** Distinct release days in ascending order; day {@code i} covers positions {@code offsets[i]} on. */
+    private final int[] days;
+    private final int[] offsets;
+
+    /** The price ranks resolved back to rows and prices. */
+    private final PriceSortedIndex prices;
+
+    /** One bitmap per level, most significant bit first, with the ones before each word. */
+    private final long[][] bits;
+    private final int[][] ranks;
+    private final int[] zeros;
+
+    private PriceQuantileIndex(int[] days, int[] offsets, PriceSortedIndex prices, long[][] bits, int[][] ranks,
+                               int[] zeros) {
+        this.days = days;
+        this.offsets = offsets;
+        this.prices = prices;
+        this.bits = bits;
+        this.ranks = ranks;
+        this.zeros = zeros;
+    }
+
+    /**
+     * Builds the index of a set of rows.
+     *
+     * @param table the table holding the rows' release days
+     * @param rowsByDate the rows in (release day, row) order
+     * @param prices the same rows sorted by price
+     * @param scratch an array of at least {@code table.size()} entries, overwritten
+     * @return the index
+     */
+    public static PriceQuantileIndex of(GameTable table, IntArrayList rowsByDate, PriceSortedIndex prices,
+                                        int[] scratch) {
+        int n = rowsByDate.size();
+        for (int position = 0; position < n; position++) {
+            scratch[prices.getRow(position)] = position;
+        }
+        int[] symbols = new int[n];
+        for (int i = 0; i < n; i++) {
+            symbols[i] = scratch[rowsByDate.get(i)];
+        }
+        return build(table, rowsByDate, prices, symbols);
+    }
+
+    /**
+     * Builds the index of a set of rows without a table-sized scratch array, finding each row's
+     * price rank by binary search instead. Takes {@code O(m log m)} time and {@code O(m)} space for
+     * {@code m} rows, so it suits building one small index over a large table.
+     *
+     * @param table the table holding the rows' release days
+     * @param rowsByDate the rows in (release day, row) order
+     * @param prices the same rows sorted by price
+     * @return the index
+     */
+    public static PriceQuantileIndex of(GameTable table, IntArrayList rowsByDate, PriceSortedIndex prices) {
+        int n = rowsByDate.size();
+        // (row, price rank) pairs sorted by row
+        long[] byRow = new long[n];
+        for (int position = 0; position < n; position++) {
+            byRow[position] = (long) prices.getRow(position) << 32 | position;
+        }
+        Arrays.sort(byRow);
+        int[] symbols = new int[n];
+        for (int i = 0; i < n; i++) {
+            int at = Arrays.binarySearch(byRow, (long) rowsByDate.get(i) << 32);
+            symbols[i] = (int) byRow[at < 0 ? -at - 1 : at];
+        }
+        return build(table, rowsByDate, prices, symbols);
+    }
+
+    /** Builds the day directory and the wavelet matrix over the price ranks in date order. */
+    private static PriceQuantileIndex build(GameTable table, IntArrayList rowsByDate, PriceSortedIndex prices,
+                                            int[] symbols) {
+        int n = rowsByDate.size();
+
+        // Day directory
+        IntArrayList dayList = new IntArrayList();
+        IntArrayList offsetList = new IntArrayList();
+        for (int i = 0; i < n; i++) {
+            int day = table.getReleaseDay(rowsByDate.get(i));
+            if (dayList.isEmpty() || dayList.get(dayList.size() - 1) != day) {
+                dayList.add(day);
+                offsetList.add(i);
+            }
+        }
+        offsetList.add(n);
+
+        // Wavelet matrix: each level stably moves the symbols with a 0 bit in front of those with a 1
+        int levels = Math.max(1, 32 - Integer.numberOfLeadingZeros(Math.max(0, n - 1)));
+        long[][] bits = new long[levels][];
+        int[][] ranks = new int[levels][];
+        int[] zeros = new int[levels];
+        int[] next = new int[n];
+        for (int level = 0; level < levels; level++) {
+            int shift = levels - 1 - level;
+            long[] words = new long[(n + 63) >>> 6];
+            int zeroCount = 0;
+            for (int i = 0; i < n; i++) {
+                if ((symbols[i] >>> shift & 1) != 0) {
+                    words[i >>> 6] |= 1L << i;
+                } else {
+                    zeroCount++;
+                }
+            }
+            int[] wordRanks = new int[words.length + 1];
+            for (int w = 0; w < words.length; w++) {
+                wordRanks[w + 1] = wordRanks[w] + Long.bitCount(words[w]);
+            }
+            int z = 0;
+            int o = zeroCount;
+            for (int i = 0; i < n; i++) {
+                if ((symbols[i] >>> shift & 1) != 0) {
+                    next[o++] = symbols[i];
+                } else {
+                    next[z++] = symbols[i];
+                }
+            }
+            int[] swap = symbols;
+            symbols = next;
+            next = swap;
+            bits[level] = words;
+            ranks[level] = wordRanks;
+            zeros[level] = zeroCount;
+        }
+        return new PriceQuantileIndex(dayList.toArray(), offsetList.toArray(), prices, bits, ranks, zeros);
+    }
+
+    /**
+     * Returns the position of the first game released on or after a day.
+     *
+     * @param lowerDay the first day of the window
+     * @return the start of the window's positions
+     */
+    public int startOf(int lowerDay) {
+        return offsets[firstIndexAfter(lowerDay - 1L)];
+    }
+
+    /**
+     * Returns the position after the last game released on or before a day.
+     *
+     * @param upperDay the last day of the window
+     * @return the end (exclusive) of the window's positions
+     */
+    public int endOf(int upperDay) {
+        return offsets[firstIndexAfter(upperDay)];
+    }
+
+    /**
+     * Returns the price of the k-th cheapest game among a range of positions.
+     *
+     * @param table the table holding the prices
+     * @param from the first position
+     * @param to the position after the last one
+     * @param k the zero-based rank within the range, in {@code [0, to - from)}
+     * @return the price
+     */
+    public double kthPrice(GameTable table, int from, int to, int k) {
+        int symbol = 0;
+        for (int level = 0; level < bits.length; level++) {
+            int onesFrom = rank(level, from);
+            int onesTo = rank(level, to);
+            int zeroCount = (to - from) - (onesTo - onesFrom);
+            if (k < zeroCount) {
+                from -= onesFrom;
+                to -= onesTo;
+            } else {
+                k -= zeroCount;
+                from = zeros[level] + onesFrom;
+                to = zeros[level] + onesTo;
+                symbol |= 1 << (bits.length - 1 - level);
+            }
+        }
+        return table.getPrice(prices.getRow(symbol));
+    }
+
+    /**
+     * Counts the games cheaper than a price among a range of positions.
+     *
+     * @param table the table holding the prices
+     * @param from the first position
+     * @param to the position after the last one
+     * @param price the price bound (exclusive)
+     * @return the number of games
+     */
+    public int countBelow(GameTable table, int from, int to, double price) {
+        // Games cheaper than the price are exactly those whose price rank is below this bound
+        int bound = prices.lowerBound(table, price);
+        if (bound >= prices.size()) {
+            return to - from;
+        }
+        int count = 0;
+        for (int level = 0; level < bits.length && from < to; level++) {
+            int onesFrom = rank(level, from);
+            int onesTo = rank(level, to);
+            if ((bound >>> (bits.length - 1 - level) & 1) != 0) {
+                count += (to - from) - (onesTo - onesFrom);
+                from = zeros[level] + onesFrom;
+                to = zeros[level] + onesTo;
+            } else {
+                from -= onesFrom;
+                to -= onesTo;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Describes the prices of the games released between two epoch days (inclusive): three
+     * percentile lookups and two counts per histogram bucket.
+     *
+     * @param table the table holding the prices
+     * @param summary the window's count, sum, minimum and maximum, from the matching price aggregates
+     * @param lowerDay the first day of the window
+     * @param upperDay the last day of the window
+     * @param bucketBounds the ascending histogram bounds, empty for no histogram
+     * @return the price distribution
+     */
+    public PriceDistribution distribution(GameTable table, PriceSummary summary, int lowerDay, int upperDay,
+                                          double[] bucketBounds) {
+        int from = startOf(lowerDay);
+        int to = endOf(upperDay);
+        if (from >= to) {
+            return PriceDistribution.empty(bucketBounds);
+        }
+
+        int[] bucketCounts = new int[Math.max(0, bucketBounds.length - 1)];
+        int below = bucketBounds.length == 0 ? 0 : countBelow(table, from, to, bucketBounds[0]);
+        for (int i = 0; i < bucketCounts.length; i++) {
+            int next = countBelow(table, from, to, bucketBounds[i + 1]);
+            bucketCounts[i] = next - below;
+            below = next;
+        }
+        return new PriceDistribution(summary, percentile(table, from, to, 50), percentile(table, from, to, 90),
+                percentile(table, from, to, 99), bucketBounds, bucketCounts);
+    }
+
+    /** Returns the nearest-rank percentile of a non-empty range of positions. */
+    private double percentile(GameTable table, int from, int to, int percent) {
+        long n = to - from;
+        return kthPrice(table, from, to, (int) Math.max(0, (percent * n + 99) / 100 - 1));
+    }
+
+    /**
+     * Estimates the heap footprint of the index.
+     *
+     * @return the size in bytes
+     */
+    public long memoryBytes() {
+        long bytes = MemoryReport.objectBytes(6 * MemoryReport.REFERENCE_BYTES)
+                + MemoryReport.arrayBytes(days.length, 4) + MemoryReport.arrayBytes(offsets.length, 4)
+                + MemoryReport.arrayBytes(zeros.length, 4)
+                + 2 * MemoryReport.arrayBytes(bits.length, MemoryReport.REFERENCE_BYTES);
+        for (int level = 0; level < bits.length; level++) {
+            bytes += MemoryReport.arrayBytes(bits[level].length, 8) + MemoryReport.arrayBytes(ranks[level].length, 4);
+        }
+        return bytes;
+    }
+
+    /** Returns the number of ones before a position of a level. */
+    private int rank(int level, int position) {
+        int word = position >>> 6;
+        int ones = ranks[level][word];
+        int bit = position & 63;
+        return bit == 0 ? ones : ones + Long.bitCount(bits[level][word] & (-1L >>> (64 - bit)));
+    }
+
+    /** Returns the index of the first day strictly after {@code day}. */
+    private int firstIndexAfter(long day) {
+        int low = 0;
+        int high = days.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (days[mid] <= day) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+}
@@ -0,0 +1,144 @@
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A rollup cube of game counts and price totals by tag and release month, materialized when a
+ * snapshot is built.
+ *
+ * <p>Cells are kept densely, one row per tag and one column per month
+ * between the earliest and latest release. A year is the sum of its twelve cells, so a whole
+ * tag × period {@link PriceMatrix} costs one addition per (tag, month) it covers, however many
+ * games it summarizes. Edits subtract the removed games and add the appended ones.
+ */
+public final class PriceRollup {
+
+    private final int tagCount;
+    private final int firstMonth;
+    private final int monthCount;
+
+    /** Row-major cells: row {@code tagId} holds the months of that tag. */
+    private final int[] counts;
+    private final double[] sums;
+
+    private PriceRollup(int tagCount, int firstMonth, int monthCount) {
+        this.tagCount = tagCount;
+        this.firstMonth = firstMonth;
+        this.monthCount = monthCount;
+        counts = new int[tagCount * monthCount];
+        sums = new double[counts.length];
+    }
+
+    /**
+     * Builds the cube of every row of a table.
+     *
+     * @param table the games
+     * @return the cube
+     */
+    public static PriceRollup of(GameTable table) {
+        int first = Integer.MAX_VALUE;
+        int last = Integer.MIN_VALUE;
+        for (int row = 0; row < table.size(); row++) {
+            int month = EpochDays.monthOf(table.getReleaseDay(row));
+            first = Math.min(first, month);
+            last = Math.max(last, month);
+        }
+        PriceRollup rollup = table.size() == 0 ? new PriceRollup(table.getTags().size(), 0, 0)
+                : new PriceRollup(table.getTags().size(), first, last - first + 1);
+        for (int row = 0; row < table.size(); row++) {
+            rollup.add(table, row, 1);
+        }
+        return rollup;
+    }
+
+    /**
+     * Returns the cube after rows were removed from the table and others appended to it, leaving
+     * this cube untouched. The cells are copied, widened if the change adds tags or months.
+     *
+     * @param table the table after the change
+     * @param removed the removed rows
+     * @param firstAdded the first appended row; rows from here to the end of the table are added
+     * @return the updated cube
+     */
+    public PriceRollup withChanges(GameTable table, RowBitmap removed, int firstAdded) {
+        int first = monthCount == 0 ? Integer.MAX_VALUE : firstMonth;
+        int last = monthCount == 0 ? Integer.MIN_VALUE : firstMonth + monthCount - 1;
+        for (int row = firstAdded; row < table.size(); row++) {
+            int month = EpochDays.monthOf(table.getReleaseDay(row));
+            first = Math.min(first, month);
+            last = Math.max(last, month);
+        }
+        PriceRollup rollup = first > last ? new PriceRollup(table.getTags().size(), 0, 0)
+                : new PriceRollup(table.getTags().size(), first, last - first + 1);
+        for (int tagId = 0; tagId < tagCount && monthCount > 0; tagId++) {
+            int offset = tagId * rollup.monthCount + (firstMonth - rollup.firstMonth);
+            System.arraycopy(counts, tagId * monthCount, rollup.counts, offset, monthCount);
+            System.arraycopy(sums, tagId * monthCount, rollup.sums, offset, monthCount);
+        }
+        removed.forEach(row -> rollup.add(table, row, -1));
+        for (int row = firstAdded; row < table.size(); row++) {
+            rollup.add(table, row, 1);
+        }
+        return rollup;
+    }
+
+    /** Adds a row to (or with {@code sign} -1, removes it from) the cells of its tags. */
+    private void add(GameTable table, int row, int sign) {
+        int column = EpochDays.monthOf(table.getReleaseDay(row)) - firstMonth;
+        double price = sign * table.getPrice(row);
+        for (int i = table.getTagStart(row); i < table.getTagEnd(row); i++) {
+            int cell = table.getTagId(i) * monthCount + column;
+            counts[cell] += sign;
+            sums[cell] += price;
+        }
+    }
+
+    /**
+     * Rolls the cube up into a tag × period matrix.
+     *
+     * @param tagIds the tag id of each row, or a negative value (an unknown tag) for an empty row
+     * @param tags the row labels, one per id
+     * @param fromYear the first year (inclusive)
+     * @param toYear the last year (inclusive)
+     * @param period the length of the columns
+     * @return the matrix
+     */
+    public PriceMatrix matrix(int[] tagIds, List<String> tags, int fromYear, int toYear, PriceMatrix.Period period) {
+        int lowMonth = fromYear * 12;
+        int columnMonths = period == PriceMatrix.Period.YEAR ? 12 : 1;
+        int columns = Math.max(0, (toYear - fromYear + 1) * 12 / columnMonths);
+        List<String> periods = new ArrayList<>(columns);
+        for (int column = 0; column < columns; column++) {
+            int month = lowMonth + column * columnMonths;
+            periods.add(period == PriceMatrix.Period.YEAR ? String.valueOf(month / 12)
+                    : String.format("%d-%02d", month / 12, month % 12 + 1));
+        }
+
+        int[][] matrixCounts = new int[tagIds.length][columns];
+        double[][] matrixSums = new double[tagIds.length][columns];
+        for (int r = 0; r < tagIds.length; r++) {
+            if (tagIds[r] < 0) {
+                continue;
+            }
+            int base = tagIds[r] * monthCount;
+            for (int column = 0; column < columns; column++) {
+                int from = Math.max(0, lowMonth + column * columnMonths - firstMonth);
+                int to = Math.min(monthCount, lowMonth + (column + 1) * columnMonths - firstMonth);
+                for (int month = from; month < to; month++) {
+                    matrixCounts[r][column] += counts[base + month];
+                    matrixSums[r][column] += sums[base + month];
+                }
+            }
+        }
+        return new PriceMatrix(tags, periods, matrixCounts, matrixSums);
+    }
+
+    /**
+     * Estimates the heap footprint of the cube.
+     *
+     * @return the size in bytes
+     */
+    public long memoryBytes() {
+        return MemoryReport.objectBytes(12 + 2 * MemoryReport.REFERENCE_BYTES)
+                + MemoryReport.arrayBytes(counts.length, 4) + MemoryReport.arrayBytes(sums.length, 8);
+    }
+}
@@ -0,0 +1,177 @@
+/**
+ * Row ids sorted by original price (cheapest first, ties in row order), so the games in a price
+ * range form one contiguous slice found with two binary searches.
+ *
+ * <p>Only row ids are stored; the binary searches read the prices from the {@link GameTable}, so
+ * the index costs 4 bytes per row. The snapshot keeps one over all games and one per tag, which
+ * answers "tag X under $10" without touching the tag's other games.
+ */
+public final class PriceSortedIndex {
+
+    /** An index with no rows. */
+    static final PriceSortedIndex EMPTY = new PriceSortedIndex(new int[0]);
+
+    private final int[] rows;
+
+    private PriceSortedIndex(int[] rows) {
+        this.rows = rows;
+    }
+
+    /**
+     * Builds the index of a set of rows.
+     *
+     * @param table the table holding the rows' prices
+     * @param rows the row ids, in any order and without duplicates
+     * @return the index
+     */
+    public static PriceSortedIndex of(GameTable table, IntArrayList rows) {
+        int[] sorted = rows.toArray();
+        sort(table, sorted);
+        return new PriceSortedIndex(sorted);
+    }
+
+    /**
+     * Wraps row ids that are already in price order.
+     *
+     * @param sortedRows the row ids sorted by price, then row id
+     * @return the index
+     */
+    static PriceSortedIndex ofSorted(IntArrayList sortedRows) {
+        return new PriceSortedIndex(sortedRows.toArray());
+    }
+
+    /**
+     * Sorts row ids by price, then row id.
+     *
+     * @param table the table holding the rows' prices
+     * @param rows the row ids to sort in place
+     */
+    public static void sort(GameTable table, int[] rows) {
+        TopKIndex.sort(rows, (a, b) -> compare(table, a, b));
+    }
+
+    private static int compare(GameTable table, int a, int b) {
+        int c = Double.compare(table.getPrice(a), table.getPrice(b));
+        return c != 0 ? c : Integer.compare(a, b);
+    }
+
+    /**
+     * Returns the index after rows were removed from the table and others appended to it, leaving
+     * this index untouched. The added rows are sorted and merged with the kept ones in one pass.
+     *
+     * @param table the table after the change
+     * @param changed the changed rows of this index: removed rows, then added rows
+     * @param removed every removed row
+     * @param firstAdded the first added row
+     * @return the updated index
+     */
+    public PriceSortedIndex withChanges(GameTable table, IntArrayList changed, RowBitmap removed, int firstAdded) {
+        IntArrayList addedRows = new IntArrayList();
+        for (int i = 0; i < changed.size(); i++) {
+            if (changed.get(i) >= firstAdded) {
+                addedRows.add(changed.get(i));
+            }
+        }
+        int[] added = addedRows.toArray();
+        sort(table, added);
+
+        int[] merged = new int[rows.length + added.length];
+        int n = 0;
+        int j = 0;
+        for (int row : rows) {
+            if (removed.contains(row)) {
+                continue;
+            }
+            while (j < added.length && compare(table, added[j], row) < 0) {
+                merged[n++] = added[j++];
+            }
+            merged[n++] = row;
+        }
+        while (j < added.length) {
+            merged[n++] = added[j++];
+        }
+        return new PriceSortedIndex(n == merged.length ? merged : java.util.Arrays.copyOf(merged, n));
+    }
+
+    /**
+     * Returns the number of rows.
+     *
+     * @return the row count
+     */
+    public int size() {
+        return rows.length;
+    }
+
+    /**
+     * Returns the row at a position.
+     *
+     * @param position the position, in {@code [0, size())}
+     * @return the row id
+     */
+    public int getRow(int position) {
+        return rows[position];
+    }
+
+    /**
+     * Returns the position of the first row costing at least a price.
+     *
+     * @param table the table holding the rows' prices
+     * @param minPrice the minimum price (inclusive)
+     * @return the position, {@code size()} if every row is cheaper
+     */
+    public int lowerBound(GameTable table, double minPrice) {
+        int low = 0;
+        int high = rows.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (Double.compare(table.getPrice(rows[mid]), minPrice) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Returns the position after the last row costing at most a price.
+     *
+     * @param table the table holding the rows' prices
+     * @param maxPrice the maximum price (inclusive)
+     * @return the position, 0 if every row is more expensive
+     */
+    public int upperBound(GameTable table, double maxPrice) {
+        int low = 0;
+        int high = rows.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (Double.compare(table.getPrice(rows[mid]), maxPrice) <= 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Counts the rows in a price range with two binary searches.
+     *
+     * @param table the table holding the rows' prices
+     * @param minPrice the minimum price (inclusive)
+     * @param maxPrice the maximum price (inclusive)
+     * @return the number of rows
+     */
+    public int count(GameTable table, double minPrice, double maxPrice) {
+        return Math.max(0, upperBound(table, maxPrice) - lowerBound(table, minPrice));
+    }
+
+    /**
+     * Estimates the heap footprint of the index.
+     *
+     * @return the size in bytes
+     */
+    public long memoryBytes() {
+        return MemoryReport.objectBytes(MemoryReport.REFERENCE_BYTES) + MemoryReport.arrayBytes(rows.length, 4);
+    }
+}
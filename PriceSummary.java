@@ -0,0 +1,93 @@
+/**
+ * Aggregate price statistics over a set of games: count, sum, minimum, maximum and mean.
+ */
+public final class PriceSummary {
+
+    /** The summary of no games. */
+    public static final PriceSummary EMPTY = new PriceSummary(0, 0.0, Double.NaN, Double.NaN);
+
+    private final int count;
+    private final double sum;
+    private final double min;
+    private final double max;
+
+    /**
+     * Constructs a summary from its components.
+     *
+     * @param count the number of games
+     * @param sum the total of their prices
+     * @param min the lowest price ({@code NaN} if {@code count} is 0)
+     * @param max the highest price ({@code NaN} if {@code count} is 0)
+     */
+    public PriceSummary(int count, double sum, double min, double max) {
+        this.count = count;
+        this.sum = sum;
+        this.min = min;
+        this.max = max;
+    }
+
+    /**
+     * Returns the number of games summarized.
+     *
+     * @return the count
+     */
+    public int getCount() {
+        return count;
+    }
+
+    /**
+     * Returns the total price of the games.
+     *
+     * @return the sum
+     */
+    public double getSum() {
+        return sum;
+    }
+
+    /**
+     * Returns the lowest price, or {@code NaN} if no games were summarized.
+     *
+     * @return the minimum
+     */
+    public double getMin() {
+        return min;
+    }
+
+    /**
+     * Returns the highest price, or {@code NaN} if no games were summarized.
+     *
+     * @return the maximum
+     */
+    public double getMax() {
+        return max;
+    }
+
+    /**
+     * Returns the average price, or {@code NaN} if no games were summarized.
+     *
+     * @return the mean
+     */
+    public double getMean() {
+        return count == 0 ? Double.NaN : sum / count;
+    }
+
+    /**
+     * Returns whether no games were summarized.
+     *
+     * @return {@code true} if the count is 0
+     */
+    public boolean isEmpty() {
+        return count == 0;
+    }
+
+    /**
+     * Returns a string representation of the summary.
+     *
+     * @return a formatted string with the statistics
+     */
+    @Override
+    public String toString() {
+        return String.format("PriceSummary [count=%d, sum=%.2f, min=%.2f, max=%.2f, mean=%.2f]",
+                count, sum, min, max, getMean());
+    }
+}
@@ -0,0 +1,26 @@
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * JFR event committed by {@link InstrumentedSteamGamesQuery} for every query call. The event
+ * duration is the call's latency; record with {@code -XX:StartFlightRecording} or enable
+ * {@code steamgames.Query} in a {@link jdk.jfr.Recording}.
+ */
+@Name("steamgames.Query")
+@Label("Steam Games Query")
+@Category("Steam Games")
+@Description("A call to a SteamGamesDatasetQuery method")
+public final class QueryEvent extends jdk.jfr.Event {
+
+    @Label("Operation")
+    String operation;
+
+    @Label("Result Size")
+    @Description("Number of results, or -1 if the call has none")
+    int resultSize;
+
+    @Label("Failed")
+    boolean failed;
+}
@@ -0,0 +1,164 @@
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * A registry of per-operation metrics: call counts, latency histograms, result sizes and error
+ * counts for every query method (recorded by {@link InstrumentedSteamGamesQuery}) and timings of
+ * the {@code load.read}, {@code load.parse} and {@code load.index} phases of dataset loads
+ * (recorded by {@link SteamGamesImpl} and {@link ParallelCsvLoader}).
+ *
+ * <p>Operations are created on first use. {@link #registerMBeans(String)} exposes each one,
+ * including those created later, as an {@link OperationMetricsMXBean} on the platform MBean
+ * server; {@link #report()} prints them all, slowest 99th percentile first. Load phases are also
+ * committed as {@link LoadPhaseEvent} JFR events.
+ */
+public final class QueryMetrics {
+
+    private final Map<String, OperationMetrics> operations = new ConcurrentHashMap<>();
+
+    /** The JMX domain operations are registered under, or null. Guarded by {@code this}. */
+    private String jmxDomain;
+
+    /**
+     * Returns the metrics of an operation, creating them on first use.
+     *
+     * @param name the operation name
+     * @return the operation's metrics
+     */
+    public OperationMetrics operation(String name) {
+        OperationMetrics metrics = operations.get(name);
+        return metrics != null ? metrics : create(name);
+    }
+
+    private synchronized OperationMetrics create(String name) {
+        OperationMetrics metrics = operations.get(name);
+        if (metrics == null) {
+            metrics = new OperationMetrics(name);
+            operations.put(name, metrics);
+            if (jmxDomain != null) {
+                register(metrics);
+            }
+        }
+        return metrics;
+    }
+
+    /**
+     * Starts timing a load phase.
+     *
+     * @param phase the phase name ({@code read}, {@code parse} or {@code index})
+     * @return the running phase; call {@link Phase#end(int)} when it completes
+     */
+    public Phase startPhase(String phase) {
+        return new Phase(operation("load." + phase), phase);
+    }
+
+    /**
+     * Returns every operation recorded so far, by name.
+     *
+     * @return a sorted copy of the operations
+     */
+    public Map<String, OperationMetrics> getOperations() {
+        return new TreeMap<>(operations);
+    }
+
+    /**
+     * Registers every operation, now and as it is created, as an MXBean named
+     * {@code <domain>:type=Operation,name=<operation>} on the platform MBean server.
+     *
+     * @param domain the JMX domain, e.g. {@code steamgames}
+     * @throws IllegalStateException if the registry is already registered or a bean cannot be registered
+     */
+    public synchronized void registerMBeans(String domain) {
+        if (jmxDomain != null) {
+            throw new IllegalStateException("Already registered under " + jmxDomain);
+        }
+        jmxDomain = domain;
+        for (OperationMetrics metrics : operations.values()) {
+            register(metrics);
+        }
+    }
+
+    /** Unregisters the MXBeans registered by {@link #registerMBeans(String)}. */
+    public synchronized void unregisterMBeans() {
+        if (jmxDomain == null) {
+            return;
+        }
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        for (OperationMetrics metrics : operations.values()) {
+            try {
+                ObjectName name = objectName(metrics);
+                if (server.isRegistered(name)) {
+                    server.unregisterMBean(name);
+                }
+            } catch (JMException e) {
+                System.out.println("Failed to unregister metrics of " + metrics.getName() + ": " + e);
+            }
+        }
+        jmxDomain = null;
+    }
+
+    /**
+     * Formats every operation as one line of a table, slowest 99th percentile first. Latencies
+     * are in microseconds.
+     *
+     * @return the report
+     */
+    public String report() {
+        List<OperationMetrics> sorted = new ArrayList<>(operations.values());
+        sorted.sort(Comparator.comparingDouble(OperationMetrics::getP99LatencyMicros).reversed());
+        StringBuilder report = new StringBuilder(String.format("%-40s %9s %7s %10s %10s %10s %10s %10s %9s%n",
+                "operation", "count", "errors", "p50", "p90", "p99", "p99.9", "max", "results"));
+        for (OperationMetrics metrics : sorted) {
+            report.append(metrics).append(System.lineSeparator());
+        }
+        return report.toString();
+    }
+
+    private void register(OperationMetrics metrics) {
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(metrics, objectName(metrics));
+        } catch (JMException e) {
+            throw new IllegalStateException("Failed to register metrics of " + metrics.getName(), e);
+        }
+    }
+
+    private ObjectName objectName(OperationMetrics metrics) throws JMException {
+        return new ObjectName(jmxDomain + ":type=Operation,name=" + ObjectName.quote(metrics.getName()));
+    }
+
+    /** A load phase being timed. */
+    public static final class Phase {
+
+        private final OperationMetrics metrics;
+        private final LoadPhaseEvent event = new LoadPhaseEvent();
+        private final long start = System.nanoTime();
+
+        private Phase(OperationMetrics metrics, String phase) {
+            this.metrics = metrics;
+            event.phase = phase;
+            event.begin();
+        }
+
+        /**
+         * Ends the phase, recording its duration and committing its JFR event.
+         *
+         * @param rows the number of rows in the table after the phase, or -1 if not known
+         */
+        public void end(int rows) {
+            metrics.record(System.nanoTime() - start, rows);
+            event.end();
+            if (event.shouldCommit()) {
+                event.rows = rows;
+                event.commit();
+            }
+        }
+    }
+}
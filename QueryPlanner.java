@@ -0,0 +1,341 @@
+import java.util.Arrays;
+import java.util.function.IntPredicate;
+
+/**
+ * Chooses how to run a {@link GameQuery} against an {@link IndexSnapshot} and runs it.
+ *
+ * <p>Every criterion that has an index can drive the query: the tag bitmaps, a tag's date or
+ * {@linkplain PriceSortedIndex price-sorted} index, the all-games date and price-sorted indexes or
+ * the name-sorted {@link AutocompleteIndex}. The planner counts the candidates each of them would
+ * produce, exactly where the index allows it in {@code O(log n)} (date windows from the price
+ * aggregates, price ranges and name prefixes by binary search) and otherwise from the tag
+ * cardinalities and the review histograms of the {@link TableStatistics}, and drives the query
+ * from the cheapest one. The other criteria are checked per candidate.
+ *
+ * <p>When the results are ordered (by a sort attribute, or by load order without one) and the
+ * limit is small compared to the expected matches, walking that order and stopping after
+ * {@code limit} matches can be cheaper still: about {@code limit * n / matches} rows are read.
+ */
+public final class QueryPlanner {
+
+    /** The index a query is driven from. */
+    public enum AccessPath {
+        /** The bounds are contradictory or a tag is unknown; nothing is read. */
+        NONE,
+        /** The date index of a single tag, restricted to the date window. */
+        TAG_DATE,
+        /** The price-sorted index of a single tag, restricted to the price range. */
+        TAG_PRICE,
+        /** The bitmaps of the tags in the tag expression. */
+        TAGS,
+        /** The date index over all games. */
+        RELEASE_DATE,
+        /** The price-sorted index over all games, restricted to the price range. */
+        PRICE,
+        /** The name-sorted rows sharing the name prefix. */
+        NAME_PREFIX,
+        /** The ordering of the sort attribute, stopping after {@code limit} matches. */
+        SORT_ORDER,
+        /** Every game in load order. */
+        SCAN
+    }
+
+    /** The chosen access path with the planner's estimates. */
+    public static final class Plan {
+
+        private final AccessPath accessPath;
+        private final long candidates;
+        private final double estimatedMatches;
+
+        private Plan(AccessPath accessPath, long candidates, double estimatedMatches) {
+            this.accessPath = accessPath;
+            this.candidates = candidates;
+            this.estimatedMatches = estimatedMatches;
+        }
+
+        /**
+         * Returns the index the query is driven from.
+         *
+         * @return the access path
+         */
+        public AccessPath getAccessPath() {
+            return accessPath;
+        }
+
+        /**
+         * Returns the estimated number of rows the access path reads.
+         *
+         * @return the candidate count
+         */
+        public long getCandidates() {
+            return candidates;
+        }
+
+        /**
+         * Returns the estimated number of games matching every criterion, before the limit.
+         *
+         * @return the estimated match count
+         */
+        public double getEstimatedMatches() {
+            return estimatedMatches;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s (candidates=%d, estimated matches=%.1f)", accessPath, candidates,
+                    estimatedMatches);
+        }
+    }
+
+    private QueryPlanner() {
+    }
+
+    /**
+     * Chooses the cheapest access path for a query.
+     *
+     * @param snapshot the snapshot to query
+     * @param query the query
+     * @return the plan
+     */
+    public static Plan plan(IndexSnapshot snapshot, GameQuery query) {
+        GameTable table = snapshot.getTable();
+        TableStatistics statistics = snapshot.getStatistics();
+        int n = snapshot.getGameCount();
+        if (n == 0 || query.matchesNothing()) {
+            return new Plan(AccessPath.NONE, 0, 0);
+        }
+
+        // Fraction of the games each criterion keeps, assumed independent of each other
+        double selectivity = 1.0;
+        AccessPath best = AccessPath.SCAN;
+        long bestCandidates = n;
+
+        TagExpression tags = query.getTags();
+        boolean dateCovered = false;
+        if (tags != null) {
+            String tag = tags.getSingleTag();
+            int tagId = tag == null ? -1 : table.getTags().find(tag);
+            if (tag != null && tagId < 0) {
+                return new Plan(AccessPath.NONE, 0, 0);
+            }
+            long count;
+            if (tagId >= 0 && query.hasDateRange()) {
+                // Exact count of the tag's games in the window from its price aggregates
+                count = snapshot.getTagPriceIndex(tagId)
+                        .summarize(query.getLowerDay(), query.getUpperDay()).getCount();
+                dateCovered = true;
+                if (count < bestCandidates) {
+                    best = AccessPath.TAG_DATE;
+                    bestCandidates = count;
+                }
+            } else {
+                count = tagId >= 0 ? snapshot.getTagBitmap(tagId).cardinality()
+                        : Math.round(tags.estimate(name -> snapshot.findTagBitmap(name).cardinality(), n));
+                if (count < bestCandidates) {
+                    best = AccessPath.TAGS;
+                    bestCandidates = count;
+                }
+            }
+            if (tagId >= 0 && query.hasPriceRange()) {
+                long priced = snapshot.getTagPriceSortedIndex(tagId)
+                        .count(table, query.getMinPrice(), query.getMaxPrice());
+                if (priced < bestCandidates) {
+                    best = AccessPath.TAG_PRICE;
+                    bestCandidates = priced;
+                }
+            }
+            selectivity *= (double) count / n;
+        }
+
+        if (query.hasDateRange()) {
+            long count = snapshot.getPriceIndex().summarize(query.getLowerDay(), query.getUpperDay()).getCount();
+            if (count < bestCandidates) {
+                best = AccessPath.RELEASE_DATE;
+                bestCandidates = count;
+            }
+            if (!dateCovered) {
+                selectivity *= (double) count / n;
+            }
+        }
+
+        if (query.hasPriceRange()) {
+            long count = snapshot.getPriceSortedIndex().count(table, query.getMinPrice(), query.getMaxPrice());
+            if (count < bestCandidates) {
+                best = AccessPath.PRICE;
+                bestCandidates = count;
+            }
+            selectivity *= (double) count / n;
+        }
+
+        if (query.getNamePrefix() != null) {
+            long count = snapshot.getAutocompleteIndex().countPrefix(query.getNamePrefix());
+            if (count < bestCandidates) {
+                best = AccessPath.NAME_PREFIX;
+                bestCandidates = count;
+            }
+            selectivity *= (double) count / n;
+        }
+
+        selectivity *= (double) statistics.countReviewPercentAtLeast(query.getMinReviewPercent()) / n;
+        selectivity *= statistics.estimateReviewCountAtLeast(query.getMinReviewCount()) / n;
+        double matches = n * selectivity;
+
+        // Walking the result order stops after about limit * n / matches rows
+        if (query.getLimit() < matches) {
+            long ordered = (long) Math.ceil(Math.min(n, query.getLimit() * (n / matches)));
+            if (ordered < bestCandidates) {
+                best = query.getSortBy() != null ? AccessPath.SORT_ORDER : AccessPath.SCAN;
+                bestCandidates = ordered;
+            }
+        }
+        return new Plan(best, bestCandidates, matches);
+    }
+
+    /**
+     * Runs a query along a plan.
+     *
+     * @param snapshot the snapshot to query
+     * @param query the query
+     * @param plan a plan returned by {@link #plan(IndexSnapshot, GameQuery)} for the same snapshot
+     * @return the matching row ids, in the query's order and at most {@code limit} of them
+     */
+    public static int[] execute(IndexSnapshot snapshot, GameQuery query, Plan plan) {
+        GameTable table = snapshot.getTable();
+        TopKIndex orderings = snapshot.getTopKIndex();
+        AccessPath path = plan.getAccessPath();
+        int limit = query.getLimit();
+        if (path == AccessPath.NONE) {
+            return new int[0];
+        }
+        IntPredicate filter = residualFilter(snapshot, query, path);
+
+        // Paths that produce rows in result order stop after limit matches
+        if (path == AccessPath.SORT_ORDER) {
+            return orderings.top(query.getSortBy(), limit, filter);
+        }
+        if (query.getSortBy() == null && (path == AccessPath.SCAN || path == AccessPath.TAGS)) {
+            RowBitmap rows = path == AccessPath.SCAN ? snapshot.getAllRows()
+                    : query.getTags().evaluate(snapshot::findTagBitmap, snapshot.getAllRows());
+            IntArrayList result = new IntArrayList(Math.max(1, Math.min(limit, 64)));
+            for (int row = rows.nextSetBit(0); row >= 0 && result.size() < limit; row = rows.nextSetBit(row + 1)) {
+                if (filter.test(row)) {
+                    result.add(row);
+                }
+            }
+            return result.toArray();
+        }
+
+        IntArrayList matches = new IntArrayList();
+        switch (path) {
+            case TAG_DATE -> {
+                int tagId = table.getTags().find(query.getTags().getSingleTag());
+                collect(snapshot.cursor(tagId, query.getLowerDay(), query.getUpperDay()), filter, matches);
+            }
+            case TAGS, SCAN -> {
+                RowBitmap rows = path == AccessPath.SCAN ? snapshot.getAllRows()
+                        : query.getTags().evaluate(snapshot::findTagBitmap, snapshot.getAllRows());
+                rows.forEach(row -> {
+                    if (filter.test(row)) {
+                        matches.add(row);
+                    }
+                });
+            }
+            case RELEASE_DATE -> collect(snapshot.allGamesCursor(query.getLowerDay(), query.getUpperDay()),
+                    filter, matches);
+            case TAG_PRICE, PRICE -> {
+                PriceSortedIndex prices = path == AccessPath.PRICE ? snapshot.getPriceSortedIndex()
+                        : snapshot.getTagPriceSortedIndex(table.getTags().find(query.getTags().getSingleTag()));
+                int to = prices.upperBound(table, query.getMaxPrice());
+                for (int position = prices.lowerBound(table, query.getMinPrice()); position < to; position++) {
+                    int row = prices.getRow(position);
+                    if (filter.test(row)) {
+                        matches.add(row);
+                    }
+                }
+            }
+            case NAME_PREFIX -> {
+                IntArrayList rows = snapshot.getAutocompleteIndex().findPrefix(query.getNamePrefix());
+                for (int i = 0; i < rows.size(); i++) {
+                    if (filter.test(rows.get(i))) {
+                        matches.add(rows.get(i));
+                    }
+                }
+            }
+            default -> throw new IllegalStateException("Unexpected access path: " + path);
+        }
+
+        if (query.getSortBy() != null) {
+            return orderings.select(query.getSortBy(), limit, matches);
+        }
+        int[] rows = matches.toArray();
+        Arrays.sort(rows);
+        return rows.length > limit ? Arrays.copyOf(rows, limit) : rows;
+    }
+
+    /** Appends the rows of a cursor that pass a filter. */
+    private static void collect(DateRangeCursor cursor, IntPredicate filter, IntArrayList result) {
+        while (cursor.hasNext()) {
+            int row = cursor.nextInt();
+            if (filter.test(row)) {
+                result.add(row);
+            }
+        }
+    }
+
+    /**
+     * Builds the per-row test of the criteria that the access path does not already guarantee.
+     *
+     * @param snapshot the snapshot to query
+     * @param query the query
+     * @param path the access path
+     * @return the filter
+     */
+    private static IntPredicate residualFilter(IndexSnapshot snapshot, GameQuery query, AccessPath path) {
+        GameTable table = snapshot.getTable();
+        IntPredicate filter = row -> true;
+
+        if (query.getTags() != null && path != AccessPath.TAGS && path != AccessPath.TAG_DATE
+                && path != AccessPath.TAG_PRICE) {
+            filter = filter.and(query.getTags().matcher(snapshot::findTagBitmap));
+        }
+        if (query.hasDateRange() && path != AccessPath.RELEASE_DATE && path != AccessPath.TAG_DATE) {
+            int lowerDay = query.getLowerDay();
+            int upperDay = query.getUpperDay();
+            filter = filter.and(row -> {
+                int releaseDay = table.getReleaseDay(row);
+                return releaseDay >= lowerDay && releaseDay <= upperDay;
+            });
+        }
+        if (query.hasPriceRange() && path != AccessPath.PRICE && path != AccessPath.TAG_PRICE) {
+            double minPrice = query.getMinPrice();
+            double maxPrice = query.getMaxPrice();
+            filter = filter.and(row -> table.getPrice(row) >= minPrice && table.getPrice(row) <= maxPrice);
+        }
+        if (query.getNamePrefix() != null && path != AccessPath.NAME_PREFIX) {
+            String prefix = query.getNamePrefix();
+            filter = filter.and(row -> startsWithIgnoreCase(table.getName(row), prefix));
+        }
+        if (query.getMinReviewPercent() > 0) {
+            int minPercent = query.getMinReviewPercent();
+            filter = filter.and(row -> table.getReviewPercent(row) >= minPercent);
+        }
+        if (query.getMinReviewCount() > 0) {
+            int minCount = query.getMinReviewCount();
+            filter = filter.and(row -> table.getReviewCount(row) >= minCount);
+        }
+        return filter;
+    }
+
+    /** Compares char by char like {@link AutocompleteIndex}, so both paths agree on every name. */
+    private static boolean startsWithIgnoreCase(String name, String prefix) {
+        if (name.length() < prefix.length()) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length(); i++) {
+            if (Character.toLowerCase(name.charAt(i)) != Character.toLowerCase(prefix.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,548 @@
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.StringWriter;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * A local HTTP/JSON endpoint over a {@link SteamGamesDatasetQuery}, built on the JDK's
+ * {@link HttpServer} with no other dependencies.
+ *
+ * <p>Every query method has a {@code GET} route; parameters go in the query string and dates are
+ * written {@code yyyy-MM-dd}:
+ * <pre>
+ *   /games/exact?year=2018&amp;tag=action
+ *   /games/release-date?tag=indie&amp;lower=2018-01-01&amp;upper=2018-12-31[&amp;limit=50&amp;pageToken=...]
+ *   /games/release-date/stream?tag=indie[&amp;lower=...][&amp;upper=...]
+ *   /games/tags?expr=indie AND NOT casual[&amp;lower=...&amp;upper=...][&amp;limit=...&amp;pageToken=...]
+ *   /games/tags/stream?expr=...[&amp;lower=...][&amp;upper=...]
+ *   /games/search?q=...[&amp;tags=...][&amp;lower=...][&amp;upper=...]
+ *   /games/autocomplete?prefix=...&amp;k=10
+ *   /games/top?attribute=all_reviews&amp;k=10[&amp;tag=...][&amp;lower=...][&amp;upper=...]
+ *   /games/price?min=0&amp;max=10[&amp;tag=...][&amp;lower=...][&amp;upper=...]
+ *   /games/query?[tags=...][&amp;lower=...][&amp;upper=...][&amp;minPrice=...][&amp;maxPrice=...]
+ *                [&amp;minReviewPercent=...][&amp;minReviewCount=...][&amp;prefix=...][&amp;sort=...][&amp;limit=...]
+ *   /prices/average?start=...&amp;end=...[&amp;tag=...]
+ *   /prices/summary?start=...&amp;end=...[&amp;tag=...]
+ *   /prices/distribution?start=...&amp;end=...[&amp;tag=...]*[&amp;buckets=0,10,20]
+ * </pre>
+ * {@code POST /batch} runs many {@code GET} routes in
+ * one round trip: the body holds one request target per line and the response is a JSON array of
+ * {@code {"status": ..., "body": ...}} or {@code {"status": ..., "error": ...}} objects in the same
+ * order. {@link SteamGamesDatasetQuery#findTopGames} takes a comparator, which has no wire form,
+ * so it has no route.
+ *
+ * <p>The streaming routes send a chunked response written as the stream is consumed, so names go
+ * out before the query finishes; other results are small and are sent in one piece with their
+ * length, which lets a kept-alive connection carry the next request at once. Handlers run on virtual threads
+ * when the runtime has them (Java 21 and later) and on a fixed pool of platform threads otherwise.
+ * Missing, blank or malformed parameters get a 400, unknown routes a 404, and any other failure
+ * inside the dataset a 500.
+ *
+ * <p>{@link #main} sets the JDK server's {@code sun.net.httpserver.nodelay} system property before
+ * starting. Without TCP_NODELAY the server's header and body writes meet the client's delayed
+ * ACK, adding about 40 ms to every kept-alive request. The property is JVM-wide and read once, when
+ * the first server starts, so embedders that call {@link #start} should set it themselves, on the
+ * command line or before any {@link HttpServer} runs.
+ */
+public final class QueryServer implements AutoCloseable {
+
+    /** The most request targets accepted by one batch. */
+    public static final int MAX_BATCH_SIZE = 1000;
+
+    private final SteamGamesDatasetQuery engine;
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final boolean virtualThreads;
+    private final Map<String, Function<Params, Object>> routes = new HashMap<>();
+
+    private QueryServer(SteamGamesDatasetQuery engine, InetSocketAddress address) throws IOException {
+        this.engine = engine;
+        ExecutorService virtual = newVirtualThreadExecutor();
+        virtualThreads = virtual != null;
+        executor = virtual != null ? virtual : newPlatformThreadExecutor();
+        registerRoutes();
+
+        server = HttpServer.create(address, 1024);
+        server.createContext("/", this::handle);
+        server.setExecutor(executor);
+        server.start();
+    }
+
+    /**
+     * Starts a server on a loopback port.
+     *
+     * @param engine the dataset to serve
+     * @param port the port, or 0 to pick a free one
+     * @return the running server
+     * @throws IOException if the port cannot be bound
+     */
+    public static QueryServer start(SteamGamesDatasetQuery engine, int port) throws IOException {
+        return start(engine, new InetSocketAddress(InetAddress.getLoopbackAddress(), port));
+    }
+
+    /**
+     * Starts a server on an address.
+     *
+     * @param engine the dataset to serve
+     * @param address the address to bind
+     * @return the running server
+     * @throws IOException if the address cannot be bound
+     */
+    public static QueryServer start(SteamGamesDatasetQuery engine, InetSocketAddress address) throws IOException {
+        return new QueryServer(engine, address);
+    }
+
+    /**
+     * Loads a CSV dataset and serves it until the process is stopped, with TCP_NODELAY enabled
+     * unless {@code sun.net.httpserver.nodelay} is already set.
+     *
+     * @param args the CSV path, then optionally the port (default 8080)
+     * @throws IOException if the dataset cannot be read or the port cannot be bound
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.out.println("Usage: QueryServer <dataset.csv> [port]");
+            return;
+        }
+        if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+            System.setProperty("sun.net.httpserver.nodelay", "true");
+        }
+        SteamGamesImpl engine = new SteamGamesImpl();
+        int games = engine.loadDataset(args[0]);
+        QueryServer server = start(engine, args.length > 1 ? Integer.parseInt(args[1]) : 8080);
+        System.out.println("Serving " + games + " games on http://localhost:" + server.getPort()
+                + (server.isVirtualThreads() ? " (virtual threads)" : ""));
+    }
+
+    /**
+     * Returns the bound port.
+     *
+     * @return the port
+     */
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * Returns whether handlers run on virtual threads.
+     *
+     * @return false if the runtime has no virtual threads and a platform thread pool is used
+     */
+    public boolean isVirtualThreads() {
+        return virtualThreads;
+    }
+
+    /**
+     * Stops accepting requests, waits up to a second for running ones, and releases the threads.
+     */
+    @Override
+    public void close() {
+        server.stop(1);
+        executor.shutdownNow();
+    }
+
+    /** Returns a virtual-thread-per-task executor, or null before Java 21. */
+    private static ExecutorService newVirtualThreadExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return null;
+        }
+    }
+
+    /** Returns a pool of daemon platform threads sized for blocking handlers. */
+    private static ExecutorService newPlatformThreadExecutor() {
+        AtomicInteger count = new AtomicInteger();
+        return Executors.newFixedThreadPool(Math.max(8, 8 * Runtime.getRuntime().availableProcessors()), task -> {
+            Thread thread = new Thread(task, "query-server-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    private void registerRoutes() {
+        routes.put("/games/exact", p -> engine.findGamesByExactQuery(
+                EpochDays.toDate(EpochDays.startOfYear(p.getInt("year"))), p.get("tag")));
+        routes.put("/games/release-date", p -> {
+            if (p.has("limit") || p.has("pageToken")) {
+                return engine.findGamesByReleaseDate(p.get("tag"), p.getDate("lower"), p.getDate("upper"),
+                        p.getInt("limit", 100), p.getOptional("pageToken"));
+            }
+            return p.has("lower") ? engine.findGamesByReleaseDate(p.get("tag"), p.getDate("lower"), p.getDate("upper"))
+                    : engine.findGamesByReleaseDate(p.get("tag"), p.getDate("upper"));
+        });
+        routes.put("/games/release-date/stream", p -> engine.streamGamesByReleaseDate(p.get("tag"),
+                p.getDate("lower"), p.getDate("upper")));
+        routes.put("/games/tags", p -> {
+            if (p.has("limit") || p.has("pageToken")) {
+                return engine.findGamesByTagExpression(p.get("expr"), p.getDate("lower"), p.getDate("upper"),
+                        p.getInt("limit", 100), p.getOptional("pageToken"));
+            }
+            return p.has("lower") || p.has("upper")
+                    ? engine.findGamesByTagExpression(p.get("expr"), p.getDate("lower"), p.getDate("upper"))
+                    : engine.findGamesByTagExpression(p.get("expr"));
+        });
+        routes.put("/games/tags/stream", p -> engine.streamGamesByTagExpression(p.get("expr"),
+                p.getDate("lower"), p.getDate("upper")));
+        routes.put("/games/search", p -> engine.searchGames(p.get("q"), p.getOptional("tags"),
+                p.getDate("lower"), p.getDate("upper")));
+        routes.put("/games/autocomplete", p -> engine.autocompleteGames(p.get("prefix"), p.getInt("k", 10)));
+        routes.put("/games/top", p -> p.has("tag") || p.has("lower") || p.has("upper")
+                ? engine.findTopGamesByAttribute(p.get("attribute"), p.getInt("k", 10), p.getOptional("tag"),
+                        p.getDate("lower"), p.getDate("upper"))
+                : engine.findTopGamesByAttribute(p.get("attribute"), p.getInt("k", 10)));
+        routes.put("/games/price", p -> engine.findGamesByPrice(p.getOptional("tag"),
+                p.getDouble("min", Double.NEGATIVE_INFINITY), p.getDouble("max", Double.POSITIVE_INFINITY),
+                p.getDate("lower"), p.getDate("upper")));
+        routes.put("/games/query", p -> engine.findGames(GameQuery.builder()
+                .tags(p.getOptional("tags"))
+                .releasedBetween(p.getDate("lower"), p.getDate("upper"))
+                .priceBetween(p.getDouble("minPrice", Double.NEGATIVE_INFINITY),
+                        p.getDouble("maxPrice", Double.POSITIVE_INFINITY))
+                .minReviewPercent(p.getInt("minReviewPercent", 0))
+                .minReviewCount(p.getInt("minReviewCount", 0))
+                .namePrefix(p.getOptional("prefix"))
+                .sortBy(p.getOptional("sort"))
+                .limit(p.getInt("limit", Integer.MAX_VALUE))
+                .build()));
+        routes.put("/prices/average", p -> p.has("tag")
+                ? engine.calculateAverageGamePrice(p.getRequiredDate("start"), p.getRequiredDate("end"), p.get("tag"))
+                : engine.calculateAverageGamePrice(p.getRequiredDate("start"), p.getRequiredDate("end")));
+        routes.put("/prices/summary", p -> p.has("tag")
+                ? engine.calculatePriceSummary(p.getRequiredDate("start"), p.getRequiredDate("end"), p.get("tag"))
+                : engine.calculatePriceSummary(p.getRequiredDate("start"), p.getRequiredDate("end")));
+        routes.put("/prices/distribution", p -> {
+            double[] buckets = p.getDoubles("buckets");
+            List<String> tags = p.getAll("tag");
+            if (tags.isEmpty()) {
+                return engine.calculatePriceDistribution(p.getRequiredDate("start"), p.getRequiredDate("end"),
+                        buckets);
+            }
+            return tags.size() == 1
+                    ? engine.calculatePriceDistribution(p.getRequiredDate("start"), p.getRequiredDate("end"),
+                            tags.get(0), buckets)
+                    : engine.calculatePriceDistributions(p.getRequiredDate("start"), p.getRequiredDate("end"), tags,
+                            buckets);
+        });
+    }
+
+    /** Dispatches one exchange and always closes it. */
+    private void handle(HttpExchange exchange) {
+        try (exchange) {
+            URI uri = exchange.getRequestURI();
+            String path = uri.getPath();
+            boolean post = path.equals("/batch");
+            if (!exchange.getRequestMethod().equals(post ? "POST" : "GET")) {
+                sendError(exchange, 405, "Use " + (post ? "POST" : "GET") + " for " + path);
+                return;
+            }
+            if (path.equals("/batch")) {
+                batch(exchange);
+                return;
+            }
+
+            Function<Params, Object> route = routes.get(path);
+            if (route == null) {
+                sendError(exchange, 404, "Unknown route: " + path);
+                return;
+            }
+            Object result;
+            try {
+                Params params = new Params(uri.getRawQuery());
+                result = route.apply(params);
+            } catch (IllegalArgumentException e) {
+                sendError(exchange, 400, String.valueOf(e.getMessage()));
+                return;
+            } catch (RuntimeException e) {
+                System.out.println("Query server error on " + uri + ": " + e);
+                sendError(exchange, 500, String.valueOf(e.getMessage()));
+                return;
+            }
+            send(exchange, 200, result);
+        } catch (IOException | RuntimeException e) {
+            // The client went away, or a stream failed after its response started; the body is truncated
+            System.out.println("Query server error: " + e);
+        }
+    }
+
+    /** Runs every request target of a batch body and answers with one array. */
+    private void batch(HttpExchange exchange) throws IOException {
+        String body;
+        try (InputStream in = exchange.getRequestBody()) {
+            body = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+        List<String> targets = new ArrayList<>();
+        for (String line : body.split("\n")) {
+            if (!line.isBlank()) {
+                targets.add(line.trim());
+            }
+        }
+        if (targets.size() > MAX_BATCH_SIZE) {
+            sendError(exchange, 400, "A batch holds at most " + MAX_BATCH_SIZE + " requests.");
+            return;
+        }
+
+        List<Object> responses = new ArrayList<>(targets.size());
+        for (String target : targets) {
+            Map<String, Object> response = new LinkedHashMap<>();
+            try {
+                URI uri = URI.create(target);
+                Function<Params, Object> route = routes.get(uri.getPath());
+                if (route == null) {
+                    response.put("status", 404);
+                    response.put("error", "Unknown route: " + uri.getPath());
+                } else {
+                    Object result = route.apply(new Params(uri.getRawQuery()));
+                    response.put("status", 200);
+                    response.put("body", result instanceof Stream<?> stream ? stream.toList() : result);
+                }
+            } catch (IllegalArgumentException e) {
+                response.clear();
+                response.put("status", 400);
+                response.put("error", String.valueOf(e.getMessage()));
+            } catch (RuntimeException e) {
+                System.out.println("Query server error on " + target + ": " + e);
+                response.clear();
+                response.put("status", 500);
+                response.put("error", String.valueOf(e.getMessage()));
+            }
+            responses.add(response);
+        }
+        send(exchange, 200, responses);
+    }
+
+    private static void sendError(HttpExchange exchange, int status, String message) throws IOException {
+        send(exchange, status, Map.of("error", message));
+    }
+
+    /** Sends a result as JSON: a stream chunked as it is consumed, anything else with its length. */
+    private static void send(HttpExchange exchange, int status, Object result) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        if (result instanceof Stream<?>) {
+            exchange.sendResponseHeaders(status, 0);
+            try (BufferedWriter out = new BufferedWriter(
+                    new OutputStreamWriter(exchange.getResponseBody(), StandardCharsets.UTF_8))) {
+                write(new JsonWriter(out), result);
+            }
+            return;
+        }
+        StringWriter text = new StringWriter();
+        write(new JsonWriter(text), result);
+        byte[] body = text.toString().getBytes(StandardCharsets.UTF_8);
+        exchange.sendResponseHeaders(status, body.length == 0 ? -1 : body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    /**
+     * Writes a query result as JSON.
+     *
+     * @param json the destination
+     * @param value a query result: null, a string, number or boolean, a collection, stream or map of
+     *              results, or one of the dataset's result types
+     * @throws IOException if the destination fails
+     */
+    static void write(JsonWriter json, Object value) throws IOException {
+        if (value == null) {
+            json.value((String) null);
+        } else if (value instanceof String s) {
+            json.value(s);
+        } else if (value instanceof Integer || value instanceof Long) {
+            json.value(((Number) value).longValue());
+        } else if (value instanceof Number n) {
+            json.value(n.doubleValue());
+        } else if (value instanceof Boolean b) {
+            json.value(b);
+        } else if (value instanceof Collection<?> collection) {
+            writeAll(json, collection.iterator());
+        } else if (value instanceof Stream<?> stream) {
+            try (stream) {
+                writeAll(json, stream.iterator());
+            }
+        } else if (value instanceof Map<?, ?> map) {
+            json.beginObject();
+            for (Map.Entry<?, ?> entry : map.entrySet()) {
+                json.name(String.valueOf(entry.getKey()));
+                write(json, entry.getValue());
+            }
+            json.endObject();
+        } else if (value instanceof SteamGame game) {
+            json.beginObject()
+                    .name("name").value(game.getName())
+                    .name("releaseDate").value(LocalDate.ofEpochDay(EpochDays.floor(game.getReleaseDate())).toString())
+                    .name("originalPrice").value(game.getOriginalPrice())
+                    .name("allReviews").value(game.getAllReviews())
+                    .name("popularTags");
+            writeAll(json, List.of(game.getPopularTags().split(",")).iterator());
+            json.endObject();
+        } else if (value instanceof GamePage page) {
+            json.beginObject().name("names");
+            writeAll(json, page.getNames().iterator());
+            json.name("nextPageToken").value(page.getNextPageToken()).endObject();
+        } else if (value instanceof PriceSummary summary) {
+            json.beginObject();
+            writeSummary(json, summary);
+            json.endObject();
+        } else if (value instanceof PriceDistribution distribution) {
+            json.beginObject();
+            writeSummary(json, distribution.getSummary());
+            json.name("p50").value(distribution.getP50())
+                    .name("p90").value(distribution.getP90())
+                    .name("p99").value(distribution.getP99())
+                    .name("buckets").beginArray();
+            double[] bounds = distribution.getBucketBounds();
+            int[] counts = distribution.getBucketCounts();
+            for (int i = 0; i < counts.length; i++) {
+                json.beginObject().name("from").value(bounds[i]).name("to").value(bounds[i + 1])
+                        .name("count").value(counts[i]).endObject();
+            }
+            json.endArray().endObject();
+        } else {
+            json.value(value.toString());
+        }
+    }
+
+    private static void writeAll(JsonWriter json, Iterator<?> values) throws IOException {
+        json.beginArray();
+        while (values.hasNext()) {
+            write(json, values.next());
+        }
+        json.endArray();
+    }
+
+    private static void writeSummary(JsonWriter json, PriceSummary summary) throws IOException {
+        json.name("count").value(summary.getCount())
+                .name("sum").value(summary.getSum())
+                .name("min").value(summary.getMin())
+                .name("max").value(summary.getMax())
+                .name("mean").value(summary.getMean());
+    }
+
+    /** The decoded query string parameters of one request. */
+    private static final class Params {
+
+        private final Map<String, List<String>> values = new HashMap<>();
+
+        Params(String rawQuery) {
+            if (rawQuery == null || rawQuery.isEmpty()) {
+                return;
+            }
+            for (String pair : rawQuery.split("&")) {
+                int eq = pair.indexOf('=');
+                String name = URLDecoder.decode(eq < 0 ? pair : pair.substring(0, eq), StandardCharsets.UTF_8);
+                String value = eq < 0 ? "" : URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8);
+                values.computeIfAbsent(name, k -> new ArrayList<>()).add(value);
+            }
+        }
+
+        boolean has(String name) {
+            return values.containsKey(name);
+        }
+
+        List<String> getAll(String name) {
+            return values.getOrDefault(name, List.of());
+        }
+
+        String getOptional(String name) {
+            List<String> all = values.get(name);
+            return all == null ? null : all.get(0);
+        }
+
+        /** Returns a required parameter, rejecting it if it is absent or blank. */
+        String get(String name) {
+            String value = getOptional(name);
+            if (value == null || value.isBlank()) {
+                throw new IllegalArgumentException("Missing parameter: " + name);
+            }
+            return value;
+        }
+
+        int getInt(String name) {
+            return getInt(name, null);
+        }
+
+        int getInt(String name, Integer defaultValue) {
+            String value = getOptional(name);
+            if (value == null && defaultValue != null) {
+                return defaultValue;
+            }
+            try {
+                return Integer.parseInt(get(name));
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Not an integer: " + name + "=" + value);
+            }
+        }
+
+        double getDouble(String name, double defaultValue) {
+            String value = getOptional(name);
+            try {
+                return value == null ? defaultValue : Double.parseDouble(value);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Not a number: " + name + "=" + value);
+            }
+        }
+
+        double[] getDoubles(String name) {
+            String value = getOptional(name);
+            if (value == null || value.isBlank()) {
+                return null;
+            }
+            String[] parts = value.split(",");
+            double[] result = new double[parts.length];
+            for (int i = 0; i < parts.length; i++) {
+                try {
+                    result[i] = Double.parseDouble(parts[i].trim());
+                } catch (NumberFormatException e) {
+                    throw new IllegalArgumentException("Not a number list: " + name + "=" + value);
+                }
+            }
+            return result;
+        }
+
+        /** Returns a {@code yyyy-MM-dd} date at local midnight, or null if the parameter is absent. */
+        Date getDate(String name) {
+            String value = getOptional(name);
+            if (value == null || value.isEmpty()) {
+                return null;
+            }
+            try {
+                return EpochDays.toDate((int) LocalDate.parse(value).toEpochDay());
+            } catch (java.time.format.DateTimeParseException e) {
+                throw new IllegalArgumentException("Not a yyyy-MM-dd date: " + name + "=" + value);
+            }
+        }
+
+        Date getRequiredDate(String name) {
+            Date date = getDate(name);
+            if (date == null) {
+                throw new IllegalArgumentException("Missing parameter: " + name);
+            }
+            return date;
+        }
+    }
+}
@@ -0,0 +1,243 @@
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.GregorianCalendar;
+import java.util.TimeZone;
+
+/**
+ * Parses release dates in the dataset's {@code "MMM dd, yyyy"} format (e.g. {@code "Aug 21, 2012"})
+ * straight into epoch days.
+ *
+ * <p>The parser is hand-rolled instead of going through {@link java.text.SimpleDateFormat}: it reads
+ * the bytes in place, allocates nothing for dates it has seen before, and every distinct date string is
+ * memoized in a small open-addressing table, since a catalog holds only a few thousand distinct release
+ * dates. Like the lenient {@code SimpleDateFormat} it replaces, it accepts short or full month names in
+ * any case, days of any length (rolling over past the end of a month) and ignores trailing text after
+ * the year, and it counts dates before the 1582 Gregorian cutover in the Julian calendar. Unlike it,
+ * it rejects days and years of more than nine digits and dates too far out for an {@code int} epoch
+ * day, which {@code SimpleDateFormat} silently wrapped around.
+ *
+ * <p>Instances are not thread-safe; use one per loading thread.
+ */
+public final class ReleaseDateParser {
+
+    /** Returned for text that is not a valid date. */
+    public static final int INVALID = Integer.MIN_VALUE;
+
+    private static final String[] MONTHS = {
+        "january", "february", "march", "april", "may", "june",
+        "july", "august", "september", "october", "november", "december"
+    };
+
+    /** Longest day or year accepted; longer numbers would overflow. */
+    private static final int MAX_DIGITS = 9;
+
+    /** Returned by {@link #parseNumber} when there is no number. */
+    private static final long NO_NUMBER = -1L;
+
+    /** The first day of the Gregorian calendar in {@link GregorianCalendar}, Oct 15, 1582. */
+    private static final long GREGORIAN_CUTOVER_DAY = LocalDate.of(1582, 10, 15).toEpochDay();
+
+    private static final TimeZone UTC = TimeZone.getTimeZone("UTC");
+
+    /** Maximum number of memoized date strings, to bound memory on unexpected input. */
+    private static final int MAX_ENTRIES = 1 << 15;
+
+    private byte[][] keys = new byte[1024][];
+    private int[] hashes = new int[1024];
+    private int[] values = new int[1024];
+    private int entries;
+
+    /**
+     * Parses a date string.
+     *
+     * @param text the date text
+     * @return the epoch day, or {@link #INVALID}
+     */
+    public int parse(String text) {
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        return parse(ByteBuffer.wrap(bytes), 0, bytes.length);
+    }
+
+    /**
+     * Parses the date stored in {@code [start, end)} of a buffer.
+     *
+     * @param buffer the buffer (absolute reads only)
+     * @param start the first byte of the date
+     * @param end the byte after the date
+     * @return the epoch day, or {@link #INVALID}
+     */
+    public int parse(ByteBuffer buffer, int start, int end) {
+        int hash = 1;
+        for (int i = start; i < end; i++) {
+            hash = 31 * hash + buffer.get(i);
+        }
+
+        int mask = keys.length - 1;
+        int slot = hash & mask;
+        while (keys[slot] != null) {
+            if (hashes[slot] == hash && matches(keys[slot], buffer, start, end)) {
+                return values[slot];
+            }
+            slot = (slot + 1) & mask;
+        }
+
+        int value = parseUncached(buffer, start, end);
+        if (entries < MAX_ENTRIES) {
+            byte[] key = new byte[end - start];
+            buffer.get(start, key, 0, key.length);
+            keys[slot] = key;
+            hashes[slot] = hash;
+            values[slot] = value;
+            if (++entries * 2 > keys.length) {
+                rehash();
+            }
+        }
+        return value;
+    }
+
+    private static boolean matches(byte[] key, ByteBuffer buffer, int start, int end) {
+        if (key.length != end - start) {
+            return false;
+        }
+        for (int i = 0; i < key.length; i++) {
+            if (key[i] != buffer.get(start + i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void rehash() {
+        byte[][] oldKeys = keys;
+        int[] oldHashes = hashes;
+        int[] oldValues = values;
+        keys = new byte[oldKeys.length * 2][];
+        hashes = new int[keys.length];
+        values = new int[keys.length];
+        int mask = keys.length - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != null) {
+                int slot = oldHashes[i] & mask;
+                while (keys[slot] != null) {
+                    slot = (slot + 1) & mask;
+                }
+                keys[slot] = oldKeys[i];
+                hashes[slot] = oldHashes[i];
+                values[slot] = oldValues[i];
+            }
+        }
+    }
+
+    /**
+     * Parses {@code MMM dd, yyyy} without consulting the memo table, accepting what the lenient
+     * {@code SimpleDateFormat} accepted: the month name must start the text and be followed by a
+     * single space, each number may be preceded by more whitespace and a minus sign, the comma
+     * must directly follow the day, and a single space must follow the comma.
+     */
+    private static int parseUncached(ByteBuffer buffer, int start, int end) {
+        // Month name: letters, matched against the full names by prefix (at least three letters)
+        int i = start;
+        while (i < end && isAsciiLetter(buffer.get(i))) {
+            i++;
+        }
+        int month = matchMonth(buffer, start, i);
+        if (month < 0 || i == end || buffer.get(i) != ' ') {
+            return INVALID;
+        }
+
+        // Day of month
+        long day = parseNumber(buffer, i + 1, end);
+        if (day == NO_NUMBER) {
+            return INVALID;
+        }
+        i = (int) (day >>> 32);
+        if (i == end || buffer.get(i) != ',' || i + 1 == end || buffer.get(i + 1) != ' ') {
+            return INVALID;
+        }
+
+        // Year; anything after it is ignored
+        long year = parseNumber(buffer, i + 2, end);
+        if (year == NO_NUMBER) {
+            return INVALID;
+        }
+
+        // Lenient day handling: "Feb 30" rolls over into March
+        long epochDay = LocalDate.of((int) year, month + 1, 1).toEpochDay() + (int) day - 1;
+        if (epochDay < GREGORIAN_CUTOVER_DAY) {
+            // SimpleDateFormat counts earlier dates in the Julian calendar
+            GregorianCalendar calendar = new GregorianCalendar(UTC);
+            calendar.clear();
+            calendar.set((int) year, month, (int) day);
+            epochDay = Math.floorDiv(calendar.getTimeInMillis(), 86_400_000L);
+        }
+        return epochDay < Integer.MIN_VALUE + 1 || epochDay > Integer.MAX_VALUE ? INVALID : (int) epochDay;
+    }
+
+    /**
+     * Parses an optionally negative number of at most {@value #MAX_DIGITS} digits after any
+     * whitespace.
+     *
+     * @return the index after the number in the high 32 bits and the value in the low 32 bits,
+     *         or {@link #NO_NUMBER}
+     */
+    private static long parseNumber(ByteBuffer buffer, int i, int end) {
+        while (i < end && isWhitespace(buffer.get(i))) {
+            i++;
+        }
+        boolean negative = i < end && buffer.get(i) == '-';
+        if (negative) {
+            i++;
+        }
+        int value = 0;
+        int digits = 0;
+        while (i < end && isDigit(buffer.get(i))) {
+            if (++digits > MAX_DIGITS) {
+                return NO_NUMBER;
+            }
+            value = value * 10 + (buffer.get(i) - '0');
+            i++;
+        }
+        if (digits == 0) {
+            return NO_NUMBER;
+        }
+        return (long) i << 32 | ((negative ? -value : value) & 0xFFFFFFFFL);
+    }
+
+    private static int matchMonth(ByteBuffer buffer, int start, int end) {
+        int length = end - start;
+        if (length < 3) {
+            return -1;
+        }
+        for (int month = 0; month < MONTHS.length; month++) {
+            String name = MONTHS[month];
+            if (length > name.length()) {
+                continue;
+            }
+            boolean match = true;
+            for (int i = 0; i < length && match; i++) {
+                match = (buffer.get(start + i) | 0x20) == name.charAt(i);
+            }
+            // Only the three-letter abbreviation or the full name are valid forms
+            if (match && (length == 3 || length == name.length())) {
+                return month;
+            }
+        }
+        return -1;
+    }
+
+    /** Tests for an ASCII letter; bytes of multi-byte UTF-8 characters are negative and never match. */
+    private static boolean isAsciiLetter(byte b) {
+        int lower = (b | 0x20) - 'a';
+        return lower >= 0 && lower < 26;
+    }
+
+    /** Tests for the ASCII characters {@link Character#isWhitespace(char)} accepts. */
+    private static boolean isWhitespace(byte b) {
+        return b == ' ' || (b >= 0x09 && b <= 0x0D) || (b >= 0x1C && b <= 0x1F);
+    }
+
+    private static boolean isDigit(byte b) {
+        return b >= '0' && b <= '9';
+    }
+}
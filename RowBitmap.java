@@ -0,0 +1,680 @@
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.function.IntConsumer;
+
+/**
+ * A compressed set of row ids in the style of a Roaring bitmap.
+ *
+ * <p>Row ids are partitioned by their high 16 bits into chunks of 65,536 ids. Each non-empty chunk is
+ * stored either as a sorted array of its low 16 bits (when it holds at most {@value #ARRAY_LIMIT} ids)
+ * or as a 65,536-bit bitmap. Sparse tags therefore cost two bytes per row and dense tags one bit per
+ * row, and set operations work chunk by chunk with word-level {@code AND}/{@code OR} on dense chunks.
+ *
+ * <p>{@link #add(int)} and {@link #remove(int)} mutate the bitmap in place; {@link #and}, {@link #or}
+ * and {@link #andNot} never modify their operands and always return a new bitmap.
+ */
+public final class RowBitmap {
+
+    /** Chunks with more ids than this are stored as bitmaps. */
+    private static final int ARRAY_LIMIT = 4096;
+
+    private char[] keys;
+    private Container[] containers;
+    private int containerCount;
+
+    /** Creates an empty bitmap. */
+    public RowBitmap() {
+        this(new char[4], new Container[4], 0);
+    }
+
+    private RowBitmap(char[] keys, Container[] containers, int containerCount) {
+        this.keys = keys;
+        this.containers = containers;
+        this.containerCount = containerCount;
+    }
+
+    /**
+     * Returns a bitmap holding every row id in {@code [from, to)}.
+     *
+     * @param from the first row id (inclusive)
+     * @param to the last row id (exclusive)
+     * @return the range bitmap
+     */
+    public static RowBitmap range(int from, int to) {
+        RowBitmap result = new RowBitmap();
+        for (int start = from; start < to; ) {
+            int high = start >>> 16;
+            int end = Math.min(to, (high + 1) << 16);
+            BitmapContainer chunk = new BitmapContainer();
+            chunk.setRange(start & 0xFFFF, end - (high << 16));
+            result.append((char) high, chunk.shrink());
+            start = end;
+        }
+        return result;
+    }
+
+    /**
+     * Adds a row id to the bitmap.
+     *
+     * @param row the row id (non-negative)
+     */
+    public void add(int row) {
+        char high = (char) (row >>> 16);
+        int index = Arrays.binarySearch(keys, 0, containerCount, high);
+        if (index >= 0) {
+            containers[index] = containers[index].add((char) row);
+            return;
+        }
+        int insertAt = -index - 1;
+        ensureCapacity(containerCount + 1);
+        System.arraycopy(keys, insertAt, keys, insertAt + 1, containerCount - insertAt);
+        System.arraycopy(containers, insertAt, containers, insertAt + 1, containerCount - insertAt);
+        keys[insertAt] = high;
+        containers[insertAt] = new ArrayContainer().add((char) row);
+        containerCount++;
+    }
+
+    /**
+     * Removes a row id from the bitmap.
+     *
+     * @param row the row id
+     */
+    public void remove(int row) {
+        int index = Arrays.binarySearch(keys, 0, containerCount, (char) (row >>> 16));
+        if (index < 0) {
+            return;
+        }
+        Container container = containers[index].remove((char) row);
+        if (container.cardinality() > 0) {
+            containers[index] = container;
+            return;
+        }
+        // Drop the emptied chunk so that every container stays non-empty
+        System.arraycopy(keys, index + 1, keys, index, containerCount - index - 1);
+        System.arraycopy(containers, index + 1, containers, index, containerCount - index - 1);
+        containers[--containerCount] = null;
+    }
+
+    /**
+     * Returns an independent copy of the bitmap, which can be modified without affecting this one.
+     *
+     * @return the copy
+     */
+    public RowBitmap copy() {
+        RowBitmap result = new RowBitmap(Arrays.copyOf(keys, Math.max(4, containerCount)),
+                new Container[Math.max(4, containerCount)], containerCount);
+        for (int i = 0; i < containerCount; i++) {
+            result.containers[i] = containers[i].copy();
+        }
+        return result;
+    }
+
+    /**
+     * Returns a copy of the bitmap with some row ids removed and others added, copying only the
+     * chunks those ids fall in. The other chunks are shared with this bitmap, so neither bitmap
+     * may be modified afterwards; use this to derive one immutable bitmap from another.
+     *
+     * @param rows the changed row ids: each id below {@code firstAdded} is removed, each other id added
+     * @param firstAdded the smallest added row id
+     * @return the changed bitmap
+     */
+    public RowBitmap withChanges(IntArrayList rows, int firstAdded) {
+        RowBitmap result = new RowBitmap(Arrays.copyOf(keys, Math.max(4, containerCount)),
+                Arrays.copyOf(containers, Math.max(4, containerCount)), containerCount);
+        BitSet copied = new BitSet();
+        for (int i = 0; i < rows.size(); i++) {
+            int row = rows.get(i);
+            int high = row >>> 16;
+            if (!copied.get(high)) {
+                // First change to this chunk: stop sharing it before it is modified
+                copied.set(high);
+                int index = Arrays.binarySearch(result.keys, 0, result.containerCount, (char) high);
+                if (index >= 0) {
+                    result.containers[index] = result.containers[index].copy();
+                }
+            }
+            if (row >= firstAdded) {
+                result.add(row);
+            } else {
+                result.remove(row);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns whether the bitmap contains a row id.
+     *
+     * @param row the row id
+     * @return {@code true} if {@code row} is in the set
+     */
+    public boolean contains(int row) {
+        int index = Arrays.binarySearch(keys, 0, containerCount, (char) (row >>> 16));
+        return index >= 0 && containers[index].contains((char) row);
+    }
+
+    /**
+     * Returns the number of row ids in the bitmap.
+     *
+     * @return the cardinality
+     */
+    public int cardinality() {
+        int total = 0;
+        for (int i = 0; i < containerCount; i++) {
+            total += containers[i].cardinality();
+        }
+        return total;
+    }
+
+    /**
+     * Returns whether the bitmap is empty.
+     *
+     * @return {@code true} if no row ids are set
+     */
+    public boolean isEmpty() {
+        return containerCount == 0;
+    }
+
+    /**
+     * Returns the intersection of this bitmap and another.
+     *
+     * @param other the other bitmap
+     * @return a new bitmap with the row ids present in both
+     */
+    public RowBitmap and(RowBitmap other) {
+        RowBitmap result = new RowBitmap();
+        int i = 0;
+        int j = 0;
+        while (i < containerCount && j < other.containerCount) {
+            if (keys[i] < other.keys[j]) {
+                i++;
+            } else if (keys[i] > other.keys[j]) {
+                j++;
+            } else {
+                result.append(keys[i], containers[i].and(other.containers[j]));
+                i++;
+                j++;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the union of this bitmap and another.
+     *
+     * @param other the other bitmap
+     * @return a new bitmap with the row ids present in either
+     */
+    public RowBitmap or(RowBitmap other) {
+        RowBitmap result = new RowBitmap();
+        int i = 0;
+        int j = 0;
+        while (i < containerCount || j < other.containerCount) {
+            if (j == other.containerCount || (i < containerCount && keys[i] < other.keys[j])) {
+                result.append(keys[i], containers[i].copy());
+                i++;
+            } else if (i == containerCount || keys[i] > other.keys[j]) {
+                result.append(other.keys[j], other.containers[j].copy());
+                j++;
+            } else {
+                result.append(keys[i], containers[i].or(other.containers[j]));
+                i++;
+                j++;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the row ids of this bitmap that are not in another.
+     *
+     * @param other the bitmap to subtract
+     * @return a new bitmap with the difference
+     */
+    public RowBitmap andNot(RowBitmap other) {
+        RowBitmap result = new RowBitmap();
+        int j = 0;
+        for (int i = 0; i < containerCount; i++) {
+            while (j < other.containerCount && other.keys[j] < keys[i]) {
+                j++;
+            }
+            if (j < other.containerCount && other.keys[j] == keys[i]) {
+                result.append(keys[i], containers[i].andNot(other.containers[j]));
+            } else {
+                result.append(keys[i], containers[i].copy());
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Calls {@code action} for every row id in ascending order.
+     *
+     * @param action the callback
+     */
+    public void forEach(IntConsumer action) {
+        for (int i = 0; i < containerCount; i++) {
+            containers[i].forEach(keys[i] << 16, action);
+        }
+    }
+
+    /**
+     * Returns the smallest row id in the bitmap that is at least {@code from}, so the set can be
+     * walked lazily or resumed after a known row.
+     *
+     * @param from the first row id to consider (non-negative)
+     * @return the next row id, or -1 if there is none
+     */
+    public int nextSetBit(int from) {
+        char high = (char) (from >>> 16);
+        int index = Arrays.binarySearch(keys, 0, containerCount, high);
+        if (index >= 0) {
+            int low = containers[index].nextValue(from & 0xFFFF);
+            if (low >= 0) {
+                return (high << 16) | low;
+            }
+            index++;
+        } else {
+            index = -index - 1;
+        }
+        // Every container is non-empty, so the next one starts with a set bit
+        return index < containerCount ? (keys[index] << 16) | containers[index].nextValue(0) : -1;
+    }
+
+    /**
+     * Returns the row ids in ascending order.
+     *
+     * @return a new array of row ids
+     */
+    public int[] toArray() {
+        int[] result = new int[cardinality()];
+        int[] position = new int[1];
+        forEach(row -> result[position[0]++] = row);
+        return result;
+    }
+
+    /**
+     * Estimates the heap footprint of the bitmap, including unused capacity.
+     *
+     * @return the size in bytes
+     */
+    public long memoryBytes() {
+        long bytes = MemoryReport.objectBytes(2 * MemoryReport.REFERENCE_BYTES + 4)
+                + MemoryReport.arrayBytes(keys.length, 2)
+                + MemoryReport.arrayBytes(containers.length, MemoryReport.REFERENCE_BYTES);
+        for (int i = 0; i < containerCount; i++) {
+            bytes += containers[i].memoryBytes();
+        }
+        return bytes;
+    }
+
+    /** Appends a container for a key larger than every existing key, skipping empty containers. */
+    private void append(char key, Container container) {
+        if (container == null || container.cardinality() == 0) {
+            return;
+        }
+        ensureCapacity(containerCount + 1);
+        keys[containerCount] = key;
+        containers[containerCount] = container;
+        containerCount++;
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity > keys.length) {
+            int newLength = Math.max(capacity, keys.length * 2);
+            keys = Arrays.copyOf(keys, newLength);
+            containers = Arrays.copyOf(containers, newLength);
+        }
+    }
+
+    /** The low 16 bits of the row ids in one chunk. */
+    private abstract static class Container {
+
+        abstract int cardinality();
+
+        abstract boolean contains(char low);
+
+        /** Adds a value, possibly converting to another container type. */
+        abstract Container add(char low);
+
+        /** Removes a value, possibly converting to another container type. */
+        abstract Container remove(char low);
+
+        abstract Container and(Container other);
+
+        abstract Container or(Container other);
+
+        abstract Container andNot(Container other);
+
+        abstract void forEach(int base, IntConsumer action);
+
+        /** Returns the smallest value that is at least {@code low}, or -1. */
+        abstract int nextValue(int low);
+
+        abstract Container copy();
+
+        abstract long memoryBytes();
+    }
+
+    /** A sorted array of low bits, used for sparse chunks. */
+    private static final class ArrayContainer extends Container {
+
+        private char[] values;
+        private int size;
+
+        ArrayContainer() {
+            this(new char[4], 0);
+        }
+
+        ArrayContainer(char[] values, int size) {
+            this.values = values;
+            this.size = size;
+        }
+
+        @Override
+        int cardinality() {
+            return size;
+        }
+
+        @Override
+        long memoryBytes() {
+            return MemoryReport.objectBytes(MemoryReport.REFERENCE_BYTES + 4)
+                    + MemoryReport.arrayBytes(values.length, 2);
+        }
+
+        @Override
+        boolean contains(char low) {
+            return Arrays.binarySearch(values, 0, size, low) >= 0;
+        }
+
+        @Override
+        Container add(char low) {
+            // Fast path for the common case of rows added in ascending order
+            int index = size > 0 && values[size - 1] < low ? -size - 1 : Arrays.binarySearch(values, 0, size, low);
+            if (index >= 0) {
+                return this;
+            }
+            if (size == ARRAY_LIMIT) {
+                return toBitmap().add(low);
+            }
+            int insertAt = -index - 1;
+            if (size == values.length) {
+                values = Arrays.copyOf(values, Math.min(ARRAY_LIMIT, size * 2));
+            }
+            System.arraycopy(values, insertAt, values, insertAt + 1, size - insertAt);
+            values[insertAt] = low;
+            size++;
+            return this;
+        }
+
+        @Override
+        Container remove(char low) {
+            int index = Arrays.binarySearch(values, 0, size, low);
+            if (index >= 0) {
+                System.arraycopy(values, index + 1, values, index, size - index - 1);
+                size--;
+            }
+            return this;
+        }
+
+        @Override
+        Container and(Container other) {
+            char[] out = new char[Math.min(size, other.cardinality())];
+            int n = 0;
+            if (other instanceof ArrayContainer array) {
+                int i = 0;
+                int j = 0;
+                while (i < size && j < array.size) {
+                    if (values[i] < array.values[j]) {
+                        i++;
+                    } else if (values[i] > array.values[j]) {
+                        j++;
+                    } else {
+                        out[n++] = values[i];
+                        i++;
+                        j++;
+                    }
+                }
+            } else {
+                for (int i = 0; i < size; i++) {
+                    if (other.contains(values[i])) {
+                        out[n++] = values[i];
+                    }
+                }
+            }
+            return new ArrayContainer(out, n);
+        }
+
+        @Override
+        Container or(Container other) {
+            if (!(other instanceof ArrayContainer array)) {
+                return other.or(this);
+            }
+            char[] out = new char[size + array.size];
+            int n = 0;
+            int i = 0;
+            int j = 0;
+            while (i < size || j < array.size) {
+                if (j == array.size || (i < size && values[i] < array.values[j])) {
+                    out[n++] = values[i++];
+                } else if (i == size || values[i] > array.values[j]) {
+                    out[n++] = array.values[j++];
+                } else {
+                    out[n++] = values[i];
+                    i++;
+                    j++;
+                }
+            }
+            ArrayContainer result = new ArrayContainer(out, n);
+            return n > ARRAY_LIMIT ? result.toBitmap() : result;
+        }
+
+        @Override
+        Container andNot(Container other) {
+            char[] out = new char[size];
+            int n = 0;
+            for (int i = 0; i < size; i++) {
+                if (!other.contains(values[i])) {
+                    out[n++] = values[i];
+                }
+            }
+            return new ArrayContainer(out, n);
+        }
+
+        @Override
+        void forEach(int base, IntConsumer action) {
+            for (int i = 0; i < size; i++) {
+                action.accept(base | values[i]);
+            }
+        }
+
+        @Override
+        int nextValue(int low) {
+            int index = Arrays.binarySearch(values, 0, size, (char) low);
+            if (index < 0) {
+                index = -index - 1;
+            }
+            return index < size ? values[index] : -1;
+        }
+
+        @Override
+        Container copy() {
+            return new ArrayContainer(Arrays.copyOf(values, size), size);
+        }
+
+        BitmapContainer toBitmap() {
+            BitmapContainer bitmap = new BitmapContainer();
+            for (int i = 0; i < size; i++) {
+                bitmap.set(values[i]);
+            }
+            return bitmap;
+        }
+    }
+
+    /** A fixed 65,536-bit bitmap, used for dense chunks. */
+    private static final class BitmapContainer extends Container {
+
+        private final long[] words;
+        private int cardinality;
+
+        BitmapContainer() {
+            this(new long[1024], 0);
+        }
+
+        BitmapContainer(long[] words, int cardinality) {
+            this.words = words;
+            this.cardinality = cardinality;
+        }
+
+        @Override
+        int cardinality() {
+            return cardinality;
+        }
+
+        @Override
+        long memoryBytes() {
+            return MemoryReport.objectBytes(MemoryReport.REFERENCE_BYTES + 4)
+                    + MemoryReport.arrayBytes(words.length, 8);
+        }
+
+        @Override
+        boolean contains(char low) {
+            return (words[low >>> 6] & (1L << low)) != 0;
+        }
+
+        @Override
+        Container add(char low) {
+            set(low);
+            return this;
+        }
+
+        @Override
+        Container remove(char low) {
+            long before = words[low >>> 6];
+            long after = before & ~(1L << low);
+            if (before != after) {
+                words[low >>> 6] = after;
+                cardinality--;
+            }
+            return shrink();
+        }
+
+        void set(char low) {
+            long before = words[low >>> 6];
+            long after = before | (1L << low);
+            if (before != after) {
+                words[low >>> 6] = after;
+                cardinality++;
+            }
+        }
+
+        /** Sets every bit in {@code [from, to)}. */
+        void setRange(int from, int to) {
+            for (int bit = from; bit < to; ) {
+                if ((bit & 63) == 0 && bit + 64 <= to) {
+                    words[bit >>> 6] = -1L;
+                    bit += 64;
+                } else {
+                    words[bit >>> 6] |= 1L << bit;
+                    bit++;
+                }
+            }
+            cardinality = countBits(words);
+        }
+
+        @Override
+        Container and(Container other) {
+            if (other instanceof ArrayContainer) {
+                return other.and(this);
+            }
+            long[] otherWords = ((BitmapContainer) other).words;
+            long[] out = new long[1024];
+            for (int i = 0; i < out.length; i++) {
+                out[i] = words[i] & otherWords[i];
+            }
+            return new BitmapContainer(out, countBits(out)).shrink();
+        }
+
+        @Override
+        Container or(Container other) {
+            long[] out = words.clone();
+            if (other instanceof ArrayContainer array) {
+                BitmapContainer result = new BitmapContainer(out, cardinality);
+                for (int i = 0; i < array.size; i++) {
+                    result.set(array.values[i]);
+                }
+                return result;
+            }
+            long[] otherWords = ((BitmapContainer) other).words;
+            for (int i = 0; i < out.length; i++) {
+                out[i] |= otherWords[i];
+            }
+            return new BitmapContainer(out, countBits(out));
+        }
+
+        @Override
+        Container andNot(Container other) {
+            long[] out = words.clone();
+            if (other instanceof ArrayContainer array) {
+                for (int i = 0; i < array.size; i++) {
+                    char low = array.values[i];
+                    out[low >>> 6] &= ~(1L << low);
+                }
+            } else {
+                long[] otherWords = ((BitmapContainer) other).words;
+                for (int i = 0; i < out.length; i++) {
+                    out[i] &= ~otherWords[i];
+                }
+            }
+            return new BitmapContainer(out, countBits(out)).shrink();
+        }
+
+        @Override
+        void forEach(int base, IntConsumer action) {
+            for (int i = 0; i < words.length; i++) {
+                long word = words[i];
+                while (word != 0) {
+                    action.accept(base | (i << 6) | Long.numberOfTrailingZeros(word));
+                    word &= word - 1;
+                }
+            }
+        }
+
+        @Override
+        int nextValue(int low) {
+            int i = low >>> 6;
+            long word = words[i] & (-1L << low);
+            while (word == 0) {
+                if (++i == words.length) {
+                    return -1;
+                }
+                word = words[i];
+            }
+            return (i << 6) | Long.numberOfTrailingZeros(word);
+        }
+
+        @Override
+        Container copy() {
+            return new BitmapContainer(words.clone(), cardinality);
+        }
+
+        /** Converts back to an array container when the chunk has become sparse. */
+        Container shrink() {
+            if (cardinality > ARRAY_LIMIT) {
+                return this;
+            }
+            char[] values = new char[cardinality];
+            int[] n = new int[1];
+            forEach(0, low -> values[n[0]++] = (char) low);
+            return new ArrayContainer(values, cardinality);
+        }
+
+        private static int countBits(long[] words) {
+            int count = 0;
+            for (long word : words) {
+                count += Long.bitCount(word);
+            }
+            return count;
+        }
+    }
+}
@@ -0,0 +1,261 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32C;
+
+/**
+ * Versioned binary snapshot of a loaded dataset, so a process can start without reparsing the CSV.
+ *
+ * <p>Layout (big-endian): magic, format version, a fingerprint of the source CSV (size, modification
+ * time, CRC32C), the {@link GameTable} columns and tag dictionary, and the presorted
+ * {@link TopKIndex} orderings, which are the most expensive structures to rebuild. The remaining
+ * indexes are rebuilt from the table on open.
+ *
+ * <p>Opening memory-maps the snapshot and bulk-copies each column into its array. A snapshot is only
+ * used if its source fingerprint still matches the CSV: equal size and modification time are trusted
+ * directly, and if only the modification time changed the CRC32C of the source decides.
+ */
+public final class SnapshotFile {
+
+    private static final int MAGIC = 0x53544753; // "STGS"
+    private static final int VERSION = 2;
+
+    private SnapshotFile() {
+    }
+
+    /** The contents of a snapshot. */
+    public static final class Contents {
+
+        private final GameTable table;
+        private final TopKIndex topKIndex;
+
+        Contents(GameTable table, TopKIndex topKIndex) {
+            this.table = table;
+            this.topKIndex = topKIndex;
+        }
+
+        /**
+         * Returns the stored table.
+         *
+         * @return the table
+         */
+        public GameTable getTable() {
+            return table;
+        }
+
+        /**
+         * Returns the stored top-k orderings.
+         *
+         * @return the top-k index
+         */
+        public TopKIndex getTopKIndex() {
+            return topKIndex;
+        }
+    }
+
+    /**
+     * Writes a snapshot. The file is written under a temporary name and then moved into place.
+     *
+     * @param snapshot the snapshot file to write
+     * @param source the CSV file the table was loaded from
+     * @param table the loaded table
+     * @param topKIndex the top-k orderings of the table
+     * @throws IOException if the snapshot cannot be written or the source cannot be read
+     */
+    public static void write(Path snapshot, Path source, GameTable table, TopKIndex topKIndex) throws IOException {
+        Path temp = snapshot.resolveSibling(snapshot.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            Output out = new Output(channel);
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(Files.size(source));
+            out.writeLong(Files.getLastModifiedTime(source).toMillis());
+            out.writeLong(checksum(source));
+            table.writeTo(out);
+            topKIndex.writeTo(out);
+            out.flush();
+        }
+        Files.move(temp, snapshot, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Opens a snapshot if it exists, has the current format version and matches its source CSV.
+     *
+     * @param snapshot the snapshot file
+     * @param source the CSV file the snapshot should have been built from
+     * @return the snapshot contents, or {@code null} if the snapshot is missing or stale
+     * @throws IOException if the files cannot be read
+     */
+    public static Contents open(Path snapshot, Path source) throws IOException {
+        try (FileChannel channel = FileChannel.open(snapshot, StandardOpenOption.READ)) {
+            if (channel.size() < 32) {
+                return null;
+            }
+            Input in = new Input(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                return null;
+            }
+
+            long size = in.readLong();
+            long modified = in.readLong();
+            long checksum = in.readLong();
+            if (size != Files.size(source)) {
+                return null;
+            }
+            if (modified != Files.getLastModifiedTime(source).toMillis() && checksum != checksum(source)) {
+                return null;
+            }
+
+            GameTable table = GameTable.readFrom(in);
+            TopKIndex topKIndex = TopKIndex.readFrom(in, table.size());
+            return new Contents(table, topKIndex);
+        } catch (NoSuchFileException e) {
+            return null;
+        }
+    }
+
+    /** CRC32C over the whole source file. */
+    private static long checksum(Path source) throws IOException {
+        CRC32C crc = new CRC32C();
+        try (FileChannel channel = FileChannel.open(source, StandardOpenOption.READ)) {
+            long size = channel.size();
+            for (long position = 0; position < size; position += Integer.MAX_VALUE) {
+                long length = Math.min(Integer.MAX_VALUE, size - position);
+                crc.update(channel.map(FileChannel.MapMode.READ_ONLY, position, length));
+            }
+        }
+        return crc.getValue();
+    }
+
+    /** Buffered writer of primitive values and arrays. */
+    static final class Output {
+
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(1 << 20);
+
+        Output(FileChannel channel) {
+            this.channel = channel;
+        }
+
+        void writeInt(int value) throws IOException {
+            ensure(Integer.BYTES);
+            buffer.putInt(value);
+        }
+
+        void writeLong(long value) throws IOException {
+            ensure(Long.BYTES);
+            buffer.putLong(value);
+        }
+
+        void writeInts(int[] values, int length) throws IOException {
+            writeInt(length);
+            for (int i = 0; i < length; ) {
+                ensure(Integer.BYTES);
+                int n = Math.min(length - i, buffer.remaining() / Integer.BYTES);
+                buffer.asIntBuffer().put(values, i, n);
+                buffer.position(buffer.position() + n * Integer.BYTES);
+                i += n;
+            }
+        }
+
+        void writeDoubles(double[] values, int length) throws IOException {
+            writeInt(length);
+            for (int i = 0; i < length; ) {
+                ensure(Double.BYTES);
+                int n = Math.min(length - i, buffer.remaining() / Double.BYTES);
+                buffer.asDoubleBuffer().put(values, i, n);
+                buffer.position(buffer.position() + n * Double.BYTES);
+                i += n;
+            }
+        }
+
+        void writeChars(char[] values, int length) throws IOException {
+            writeInt(length);
+            for (int i = 0; i < length; ) {
+                ensure(Character.BYTES);
+                int n = Math.min(length - i, buffer.remaining() / Character.BYTES);
+                buffer.asCharBuffer().put(values, i, n);
+                buffer.position(buffer.position() + n * Character.BYTES);
+                i += n;
+            }
+        }
+
+        void writeString(String value) throws IOException {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            writeInt(bytes.length);
+            for (int i = 0; i < bytes.length; ) {
+                ensure(1);
+                int n = Math.min(bytes.length - i, buffer.remaining());
+                buffer.put(bytes, i, n);
+                i += n;
+            }
+        }
+
+        void flush() throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            buffer.clear();
+        }
+
+        private void ensure(int bytes) throws IOException {
+            if (buffer.remaining() < bytes) {
+                flush();
+            }
+        }
+    }
+
+    /** Reader of primitive values and arrays from a mapped snapshot. */
+    static final class Input {
+
+        private final MappedByteBuffer buffer;
+
+        Input(MappedByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        int readInt() {
+            return buffer.getInt();
+        }
+
+        long readLong() {
+            return buffer.getLong();
+        }
+
+        int[] readInts() {
+            int[] values = new int[buffer.getInt()];
+            buffer.asIntBuffer().get(values);
+            buffer.position(buffer.position() + values.length * Integer.BYTES);
+            return values;
+        }
+
+        double[] readDoubles() {
+            double[] values = new double[buffer.getInt()];
+            buffer.asDoubleBuffer().get(values);
+            buffer.position(buffer.position() + values.length * Double.BYTES);
+            return values;
+        }
+
+        char[] readChars() {
+            char[] values = new char[buffer.getInt()];
+            buffer.asCharBuffer().get(values);
+            buffer.position(buffer.position() + values.length * Character.BYTES);
+            return values;
+        }
+
+        String readString() {
+            byte[] bytes = new byte[buffer.getInt()];
+            buffer.get(bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+    }
+}
@@ -34,7 +34,7 @@ public class SteamGame {
      */
     public SteamGame(String name, Date release_date, String all_reviews, double original_price, String popular_tags) {
         this.name = name;
-        this.releaseDate = release_date;
+        this.releaseDate = release_date == null ? null : new Date(release_date.getTime());
         this.allReviews = all_reviews;
         this.originalPrice = original_price;
         this.popularTags = popular_tags;
@@ -50,12 +50,13 @@ public class SteamGame {
     }
 
     /**
-     * Returns the release date of the game.
+     * Returns the release date of the game. {@link Date} is mutable, so each call returns a copy
+     * and games shared between callers, such as cached results, cannot be changed through it.
      *
-     * @return the release date
+     * @return a copy of the release date
      */
     public Date getReleaseDate() {
-        return releaseDate;
+        return releaseDate == null ? null : new Date(releaseDate.getTime());
     }
 
     /**
@@ -2,12 +2,19 @@
 import org.junit.Before;
 import org.junit.Test;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertThrows;
 import static org.junit.Assert.assertTrue;
 
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.text.SimpleDateFormat;
 import java.util.*;
 
@@ -106,6 +113,592 @@ public class SteamGamesDataQueryTest {
         }
     }
 
+    /**
+     * Tests loading a CSV file with quoted fields, embedded line breaks and invalid rows.
+     */
+    @Test
+    public void testLoadDataset_QuotedFieldsAndInvalidRows() throws Exception {
+        Path csv = Files.createTempFile("steam_games", ".csv");
+        try {
+            Files.writeString(csv, ",name,all_reviews,release_date,popular_tags,original_price\n"
+                    + "0,DOOM,\"Very Positive,(42,550),- 92% of the 42,550 user reviews for this game are positive.\","
+                    + "\"May 12, 2016\",\"FPS,Gore,Action\",$19.99\r\n"
+                    + "1,\"Game \"\"Quoted\"\",\nTwo Lines\",,\"Sep 13, 2017\",\"Indie,Action\",Free to Play\n"
+                    + "2,No Date,,NaN,Indie,$1.00\n"
+                    + "3,Short Row\n");
+
+            SteamGamesDatasetQuery engine = new SteamGamesImpl();
+            assertEquals(2, engine.loadDataset(csv.toString()));
+
+            List<String> action = engine.findGamesByReleaseDate("action", format.parse("Dec 31, 2017"));
+            assertEquals(Arrays.asList("DOOM", "Game \"Quoted\",\nTwo Lines"), action);
+            assertEquals("DOOM", engine.findTopGamesByAttribute("all_reviews", 1).get(0).getName());
+        } finally {
+            Files.delete(csv);
+        }
+    }
+
+    /**
+     * Tests that a saved snapshot answers queries like the CSV it was built from, and that a
+     * changed CSV is reloaded instead of using the stale snapshot.
+     */
+    @Test
+    public void testSnapshot_RoundTripAndStaleFallback() throws Exception {
+        Path csv = Files.createTempFile("steam_games", ".csv");
+        Path snapshot = Files.createTempFile("steam_games", ".snapshot");
+        try {
+            Files.writeString(csv, ",name,all_reviews,release_date,popular_tags,original_price\n"
+                    + "0,DOOM,\"Very Positive,(42,550),- 92% of the 42,550 user reviews for this game are positive.\","
+                    + "\"May 12, 2016\",\"FPS,Gore,Action\",$19.99\n"
+                    + "1,Portal 2,,\"Apr 18, 2011\",\"Puzzle, action\",$9.99\n");
+            SteamGamesImpl loaded = new SteamGamesImpl();
+            loaded.loadDataset(csv.toString());
+            loaded.saveSnapshot(snapshot.toString(), csv.toString());
+
+            SteamGamesDatasetQuery opened = new SteamGamesImpl(snapshot.toString(), csv.toString());
+            assertEquals(loaded.findGamesByReleaseDate("action", format.parse("Dec 31, 2017")),
+                    opened.findGamesByReleaseDate("action", format.parse("Dec 31, 2017")));
+            assertEquals("Portal 2", opened.findTopGamesByAttribute("name", 2).get(1).getName());
+            assertEquals("Puzzle, action", opened.findTopGamesByAttribute("name", 2).get(1).getPopularTags());
+            assertEquals("Portal 2", opened.findTopGamesByAttribute("all_reviews", 2).get(1).getName());
+            assertEquals(List.of("14.99"), opened.calculateAverageGamePrice(format.parse("Jan 01, 2010"),
+                    format.parse("Dec 31, 2017"), "Action"));
+
+            Files.writeString(csv, ",name,all_reviews,release_date,popular_tags,original_price\n"
+                    + "0,Celeste,,\"Jan 25, 2018\",Platformer,$19.99\n");
+            SteamGamesDatasetQuery reloaded = new SteamGamesImpl(snapshot.toString(), csv.toString());
+            assertEquals(Arrays.asList("Celeste"),
+                    reloaded.findGamesByReleaseDate("platformer", format.parse("Dec 31, 2018")));
+        } finally {
+            Files.delete(csv);
+            Files.delete(snapshot);
+        }
+    }
+
+    /**
+     * Tests that queries running during a background reload see either the old or the new
+     * dataset in full, and that a failed reload keeps the current dataset.
+     */
+    @Test
+    public void testReloadDataset_SwapsSnapshotWhileQueriesRun() throws Exception {
+        Path csv = Files.createTempFile("steam_games", ".csv");
+        try {
+            Files.writeString(csv, ",name,all_reviews,release_date,popular_tags,original_price\n"
+                    + "0,DOOM,,\"May 12, 2016\",\"FPS,Action\",$19.99\n"
+                    + "1,Portal 2,,\"Apr 18, 2011\",\"Puzzle,Action\",$9.99\n");
+            SteamGamesImpl engine = new SteamGamesImpl();
+            engine.loadDataset(csv.toString());
+            Date upper = format.parse("Dec 31, 2020");
+            List<String> before = engine.findGamesByReleaseDate("action", upper);
+            List<String> after = Arrays.asList("Celeste", "Hades");
+
+            List<List<String>> unexpected = Collections.synchronizedList(new ArrayList<>());
+            Thread reader = new Thread(() -> {
+                for (int i = 0; i < 20_000; i++) {
+                    List<String> result = engine.findGamesByReleaseDate("action", upper);
+                    if (!result.equals(before) && !result.equals(after)) {
+                        unexpected.add(result);
+                    }
+                }
+            });
+            reader.start();
+
+            Files.writeString(csv, ",name,all_reviews,release_date,popular_tags,original_price\n"
+                    + "0,Celeste,,\"Jan 25, 2018\",\"Platformer,Action\",$19.99\n"
+                    + "1,Hades,,\"Sep 17, 2020\",\"Roguelike,Action\",$24.99\n");
+            assertEquals(Integer.valueOf(2), engine.reloadDatasetAsync(csv.toString()).get());
+            reader.join();
+
+            assertTrue(unexpected.toString(), unexpected.isEmpty());
+            assertEquals(after, engine.findGamesByReleaseDate("action", upper));
+
+            assertThrows(java.io.IOException.class, () -> engine.reloadDataset(csv + ".missing"));
+            assertEquals(after, engine.findGamesByReleaseDate("action", upper));
+        } finally {
+            Files.delete(csv);
+        }
+    }
+
+    /**
+     * Tests a delta that adds a game on a new tag and drops that tag in the same batch: the tag
+     * must behave as unknown afterwards instead of breaking the price indexes.
+     */
+    @Test
+    public void testApplyDelta_TagDroppedInSameBatch() throws Exception {
+        Path delta = Files.createTempFile("steam_games_delta", ".csv");
+        try {
+            Files.writeString(delta, "change,name,all_reviews,release_date,popular_tags,original_price\n"
+                    + "add,Hades,\"Overwhelmingly Positive,(700),- 98% of the 700\",\"Sep 17, 2020\",\"Roguelike,Action\",$24.99\n"
+                    + "update,Hades,\"Overwhelmingly Positive,(700),- 98% of the 700\",\"Sep 17, 2020\",Action,$24.99\n");
+            Date lower = format.parse("Jan 1, 2010");
+            Date upper = format.parse("Dec 31, 2020");
+
+            for (boolean compact : new boolean[] {false, true}) {
+                SteamGamesImpl engine = new SteamGamesImpl(Arrays.asList(new SteamGame("DOOM",
+                        format.parse("May 12, 2016"), "Very Positive,(1000),- 92% of the 1000", 19.99, "FPS,Action")));
+                engine.setCompactIndexes(compact);
+                assertEquals(2, engine.applyDelta(delta.toString()));
+
+                assertTrue(engine.calculateAverageGamePrice(lower, upper, "Roguelike").isEmpty());
+                assertTrue(engine.findTopGamesByAttribute("name", 3, "Roguelike", lower, upper).isEmpty());
+                assertEquals(0, engine.calculatePriceDistribution(lower, upper, "Roguelike", null).getCount());
+                assertEquals(List.of("22.49"), engine.calculateAverageGamePrice(lower, upper, "Action"));
+                assertNotNull(engine.getMemoryReport().toString());
+            }
+        } finally {
+            Files.delete(delta);
+        }
+    }
+
+    /**
+     * Tests that a delete in a delta removes every game of that name the same delta added.
+     */
+    @Test
+    public void testApplyDelta_DeleteNameAddedSeveralTimes() throws Exception {
+        Path delta = Files.createTempFile("steam_games_delta", ".csv");
+        try {
+            Files.writeString(delta, "change,name,all_reviews,release_date,popular_tags,original_price\n"
+                    + "add,Dup,,\"Jan 01, 2017\",Indie,$1.00\n"
+                    + "add,Dup,,\"Jan 02, 2017\",Indie,$2.00\n"
+                    + "add,Dup,,\"Jan 03, 2017\",Indie,$3.00\n"
+                    + "delete,Dup\n");
+            SteamGamesImpl engine = new SteamGamesImpl(Arrays.asList(
+                    new SteamGame("Base", format.parse("Jan 01, 2016"), "", 5.00, "Indie")));
+            assertEquals(4, engine.applyDelta(delta.toString()));
+
+            assertEquals(Arrays.asList("Base"), engine.findGamesByReleaseDate("indie", format.parse("Dec 31, 2017")));
+            assertEquals(0, engine.removeGame("Dup"));
+        } finally {
+            Files.delete(delta);
+        }
+    }
+
+    /**
+     * Tests that adding, updating and removing games, one at a time and from a delta CSV, keeps
+     * every index in line with a dataset built from scratch.
+     */
+    @Test
+    public void testIncrementalChanges_MaintainIndexes() throws Exception {
+        SteamGamesImpl engine = new SteamGamesImpl(Arrays.asList(
+                new SteamGame("DOOM", format.parse("May 12, 2016"), "Very Positive,(1000),- 92% of the 1000", 19.99,
+                        "FPS,Action"),
+                new SteamGame("Portal 2", format.parse("Apr 18, 2011"), "Overwhelmingly Positive,(900),- 98% of the 900",
+                        9.99, "Puzzle,Action"),
+                new SteamGame("Limbo", format.parse("Aug 2, 2011"), "Very Positive,(500),- 93% of the 500", 9.99,
+                        "Puzzle,Indie")));
+
+        assertTrue(engine.addGame(new SteamGame("Celeste", format.parse("Jan 25, 2018"),
+                "Overwhelmingly Positive,(800),- 97% of the 800", 19.99, "Platformer,Indie")));
+        assertFalse(engine.addGame(new SteamGame("Undated", null, "", 1.0, "Indie")));
+        assertEquals(1, engine.updateGame(new SteamGame("Portal 2", format.parse("Apr 19, 2011"),
+                "Overwhelmingly Positive,(900),- 98% of the 900", 4.99, "Puzzle,Co-op")));
+        assertEquals(0, engine.updateGame(new SteamGame("Missing", format.parse("Apr 19, 2011"), "", 1.0, "Indie")));
+        assertEquals(1, engine.removeGame("DOOM"));
+        assertEquals(0, engine.removeGame("DOOM"));
+
+        Path delta = Files.createTempFile("steam_games_delta", ".csv");
+        try {
+            Files.writeString(delta, "change,name,all_reviews,release_date,popular_tags,original_price\n"
+                    + "add,Hades,\"Overwhelmingly Positive,(700),- 98% of the 700\",\"Sep 17, 2020\",\"Roguelike,Action\",$24.99\n"
+                    + "update,Limbo,\"Very Positive,(500),- 93% of the 500\",\"Aug 2, 2011\",\"Puzzle,Indie\",$4.99\n"
+                    + "delete,Celeste\n"
+                    + "rename,Limbo\n"
+                    + "delete,Missing\n"
+                    + "add,Braid,\"Very Positive\",\"Someday\",Puzzle,$9.99\n");
+            List<String> skipped = new ArrayList<>();
+            assertEquals(3, engine.applyDelta(delta.toString(), skipped));
+            assertEquals(Arrays.asList("Malformed row: [rename, Limbo]", "Unknown game 'Missing': [delete, Missing]",
+                    "Unparseable date \"Someday\": [add, Braid, Very Positive, Someday, Puzzle, $9.99]"), skipped);
+        } finally {
+            Files.delete(delta);
+        }
+
+        SteamGamesDatasetQuery rebuilt = new SteamGamesImpl(Arrays.asList(
+                new SteamGame("Portal 2", format.parse("Apr 19, 2011"), "Overwhelmingly Positive,(900),- 98% of the 900",
+                        4.99, "Puzzle,Co-op"),
+                new SteamGame("Hades", format.parse("Sep 17, 2020"), "Overwhelmingly Positive,(700),- 98% of the 700",
+                        24.99, "Roguelike,Action"),
+                new SteamGame("Limbo", format.parse("Aug 2, 2011"), "Very Positive,(500),- 93% of the 500", 4.99,
+                        "Puzzle,Indie")));
+        Date lower = format.parse("Jan 1, 2010");
+        Date upper = format.parse("Dec 31, 2020");
+        for (String tag : Arrays.asList("Action", "Puzzle", "Indie", "FPS", "Platformer", "Co-op")) {
+            assertEquals(tag, rebuilt.findGamesByReleaseDate(tag, lower, upper),
+                    engine.findGamesByReleaseDate(tag, lower, upper));
+            assertEquals(tag, rebuilt.findGamesByExactQuery(format.parse("Jan 1, 2011"), tag),
+                    engine.findGamesByExactQuery(format.parse("Jan 1, 2011"), tag));
+            assertEquals(tag, rebuilt.calculateAverageGamePrice(lower, upper, tag),
+                    engine.calculateAverageGamePrice(lower, upper, tag));
+        }
+        assertEquals(rebuilt.calculateAverageGamePrice(lower, upper), engine.calculateAverageGamePrice(lower, upper));
+        assertEquals(rebuilt.findGamesByTagExpression("NOT Action"), engine.findGamesByTagExpression("NOT Action"));
+        for (String attribute : TopKIndex.ATTRIBUTES) {
+            assertEquals(attribute, rebuilt.findTopGamesByAttribute(attribute, 3).stream().map(SteamGame::getName).toList(),
+                    engine.findTopGamesByAttribute(attribute, 3).stream().map(SteamGame::getName).toList());
+        }
+        assertEquals(Arrays.asList("Portal 2", "Limbo"), engine.searchGames("positive", "Puzzle", null, null));
+        assertEquals(rebuilt.searchGames("positive", null, null, null), engine.searchGames("positive", null, null, null));
+        assertEquals(List.of(), engine.autocompleteGames("Ce", 5));
+        assertEquals(Arrays.asList("Hades"), engine.autocompleteGames("ha", 5));
+    }
+
+    /**
+     * Tests that repeated updates compact the rows of replaced games away instead of growing the
+     * table, and that queries see only the latest version of each game.
+     */
+    @Test
+    public void testIncrementalChanges_CompactRemovedRows() throws Exception {
+        for (boolean compact : new boolean[] {false, true}) {
+            SteamGamesImpl engine = new SteamGamesImpl(testGames);
+            engine.setCompactIndexes(compact);
+            for (int i = 1; i <= 50; i++) {
+                assertEquals(1, engine.updateGame(new SteamGame("Unturned", format.parse("Jul 07, 2017"),
+                        "Very Positive,(325,675),- 90% of the 325,675", i, "Survival,Indie")));
+                IndexSnapshot snapshot = engine.getSnapshot();
+                assertEquals(testGames.size(), snapshot.getGameCount());
+                assertFalse(snapshot.hasManyRemovedRows());
+            }
+            assertTrue(engine.getSnapshot().getTable().size() < testGames.size() * 5 / 4 + 1);
+            assertEquals(Arrays.asList("Unturned"),
+                    engine.findGamesByReleaseDate("Survival", format.parse("Jul 01, 2017"), format.parse("Jul 31, 2017")));
+            assertEquals(50.0, engine.calculatePriceDistribution(format.parse("Jul 01, 2017"),
+                    format.parse("Jul 31, 2017"), "Survival", null).getP50(), 0.0);
+        }
+    }
+
+    /**
+     * Tests that the caching layer answers repeated queries from the cache, evicts the least
+     * recently used results beyond its weight bound and is invalidated by dataset changes.
+     */
+    @Test
+    public void testCachingQuery_HitsEvictionAndInvalidation() throws Exception {
+        SteamGamesImpl engine = new SteamGamesImpl(testGames);
+        CachingSteamGamesQuery cache = new CachingSteamGamesQuery(engine, 12);
+        Date lower = format.parse("Jan 01, 2010");
+        Date upper = format.parse("Dec 31, 2017");
+
+        List<String> indie = cache.findGamesByReleaseDate("Indie", lower, upper);
+        assertEquals(engine.findGamesByReleaseDate("Indie", lower, upper), indie);
+        assertEquals(indie, cache.findGamesByReleaseDate(" indie ", lower, new Date(upper.getTime() + 3_600_000)));
+        assertEquals(engine.calculateAverageGamePrice(lower, upper, "action"),
+                cache.calculateAverageGamePrice(lower, upper, "Action"));
+        CacheStats stats = cache.getStats();
+        assertEquals(1, stats.getHitCount());
+        assertEquals(2, stats.getMissCount());
+        assertEquals(2, stats.getEntryCount());
+        assertEquals(indie.size() + 1 + 2, stats.getWeight());
+
+        // Seven Multiplayer games push out the least recently used entry, the Indie range
+        cache.calculateAverageGamePrice(lower, upper, "Action");
+        cache.findGamesByReleaseDate("Multiplayer", upper);
+        assertEquals(1, cache.getStats().getEvictionCount());
+        assertTrue(cache.getStats().getWeight() <= 12);
+        assertEquals(2, cache.getStats().getEntryCount());
+        cache.findGamesByReleaseDate("Indie", lower, upper);
+        assertEquals(2, cache.getStats().getHitCount());
+        assertEquals(4, cache.getStats().getMissCount());
+        assertEquals(2, cache.getStats().getEvictionCount());
+
+        assertEquals(1, engine.removeGame("Unturned"));
+        assertEquals(engine.findGamesByReleaseDate("Indie", lower, upper),
+                cache.findGamesByReleaseDate("Indie", lower, upper));
+        assertFalse(cache.findGamesByReleaseDate("Indie", lower, upper).contains("Unturned"));
+        assertEquals(1, cache.getStats().getInvalidationCount());
+        assertThrows(UnsupportedOperationException.class,
+                () -> cache.findGamesByReleaseDate("Indie", lower, upper).add("Mutated"));
+
+        // Cached games are shared, so changing a returned date must not reach later callers
+        SteamGame first = cache.findTopGamesByAttribute("release_date", 1).get(0);
+        long released = first.getReleaseDate().getTime();
+        first.getReleaseDate().setTime(0);
+        assertEquals(released, first.getReleaseDate().getTime());
+        assertEquals(released, cache.findTopGamesByAttribute("release_date", 1).get(0).getReleaseDate().getTime());
+    }
+
+    /**
+     * Tests that query calls and load phases are recorded in the metrics registry, exposed over
+     * JMX and committed as JFR events.
+     */
+    @Test
+    public void testMetrics_RecordsQueriesLoadPhasesJmxAndJfr() throws Exception {
+        Path csv = Files.createTempFile("steam_games", ".csv");
+        Path recordingFile = Files.createTempFile("steam_games", ".jfr");
+        try (jdk.jfr.Recording recording = new jdk.jfr.Recording()) {
+            Files.writeString(csv, ",name,all_reviews,release_date,popular_tags,original_price\n"
+                    + "0,DOOM,,\"May 12, 2016\",\"FPS,Action\",$19.99\n"
+                    + "1,Portal 2,,\"Apr 18, 2011\",\"Puzzle,Action\",$9.99\n");
+            recording.enable("steamgames.Query").withoutThreshold();
+            recording.enable("steamgames.LoadPhase").withoutThreshold();
+            recording.start();
+
+            SteamGamesImpl engine = new SteamGamesImpl();
+            InstrumentedSteamGamesQuery instrumented = new InstrumentedSteamGamesQuery(engine, engine.getMetrics());
+            instrumented.getMetrics().registerMBeans("SteamGamesTest");
+            try {
+                assertEquals(2, instrumented.loadDataset(csv.toString()));
+                Date upper = format.parse("Dec 31, 2020");
+                for (int i = 0; i < 10; i++) {
+                    assertEquals(2, instrumented.findGamesByReleaseDate("Action", upper).size());
+                }
+                assertThrows(IllegalArgumentException.class, () -> instrumented.findGamesByTagExpression("AND"));
+
+                Map<String, OperationMetrics> operations = instrumented.getMetrics().getOperations();
+                assertTrue(operations.keySet().containsAll(
+                        Arrays.asList("load.read", "load.parse", "load.index", "loadDataset")));
+                OperationMetrics upTo = operations.get("findGamesByReleaseDate.upTo");
+                assertEquals(10, upTo.getCount());
+                assertEquals(0, upTo.getErrorCount());
+                assertEquals(2.0, upTo.getMeanResultSize(), 0.0);
+                assertTrue(upTo.getP50LatencyMicros() <= upTo.getP99LatencyMicros());
+                assertTrue(upTo.getP99LatencyMicros() <= upTo.getMaxLatencyMicros());
+                assertEquals(1, operations.get("findGamesByTagExpression").getErrorCount());
+                assertTrue(instrumented.getMetrics().report().contains("findGamesByReleaseDate.upTo"));
+
+                javax.management.ObjectName name = new javax.management.ObjectName(
+                        "SteamGamesTest:type=Operation,name=" + javax.management.ObjectName.quote("load.index"));
+                assertEquals(1L, java.lang.management.ManagementFactory.getPlatformMBeanServer()
+                        .getAttribute(name, "Count"));
+            } finally {
+                instrumented.getMetrics().unregisterMBeans();
+            }
+
+            recording.stop();
+            recording.dump(recordingFile);
+            Map<String, Integer> events = new HashMap<>();
+            for (jdk.jfr.consumer.RecordedEvent event : jdk.jfr.consumer.RecordingFile.readAllEvents(recordingFile)) {
+                String key = event.getEventType().getName().equals("steamgames.LoadPhase")
+                        ? "phase:" + event.getString("phase")
+                        : event.getString("operation");
+                events.merge(key, 1, Integer::sum);
+            }
+            assertEquals(Integer.valueOf(10), events.get("findGamesByReleaseDate.upTo"));
+            assertEquals(Integer.valueOf(1), events.get("phase:parse"));
+            assertEquals(Integer.valueOf(1), events.get("phase:index"));
+        } finally {
+            Files.delete(csv);
+            Files.delete(recordingFile);
+        }
+    }
+
+    /**
+     * Tests that compact date indexes answer every date query like the map indexes, before and
+     * after incremental edits, while the memory report shows them using less memory.
+     */
+    @Test
+    public void testCompactIndexes_MatchMapIndexesAndUseLessMemory() throws Exception {
+        SteamGamesImpl maps = new SteamGamesImpl(testGames);
+        SteamGamesImpl compact = new SteamGamesImpl(testGames);
+        compact.setCompactIndexes(true);
+        assertTrue(compact.getSnapshot().isCompact());
+        assertFalse(maps.getSnapshot().isCompact());
+
+        MemoryReport mapReport = maps.getMemoryReport();
+        MemoryReport compactReport = compact.getMemoryReport();
+        assertEquals(0, compactReport.getBytes("tagYearIndex"));
+        assertTrue(compactReport.getBytes("tagDateIndexes")
+                < mapReport.getBytes("tagDateIndexes") + mapReport.getBytes("tagYearIndex"));
+        assertTrue(compactReport.getTotalBytes() < mapReport.getTotalBytes());
+        assertEquals(mapReport.getBytes("textIndex"), compactReport.getBytes("textIndex"));
+
+        for (int round = 0; round < 2; round++) {
+            if (round == 1) {
+                for (SteamGamesImpl engine : Arrays.asList(maps, compact)) {
+                    assertEquals(1, engine.removeGame("Dota 2"));
+                    assertTrue(engine.addGame(new SteamGame("Dota Underlords", format.parse("Feb 25, 2020"),
+                            "Mixed,(100),- 60% of the 100", 0.0, "Strategy,Free to Play,Auto Battler")));
+                }
+            }
+            Date lower = format.parse("Jan 1, 2012");
+            Date upper = format.parse("Dec 31, 2017");
+            for (String tag : Arrays.asList("Action", "Free to Play", "Strategy", "Indie", "Auto Battler", "None")) {
+                assertEquals(tag, maps.findGamesByReleaseDate(tag, lower, upper),
+                        compact.findGamesByReleaseDate(tag, lower, upper));
+                assertEquals(tag, maps.findGamesByReleaseDate(tag, upper), compact.findGamesByReleaseDate(tag, upper));
+                assertEquals(tag, maps.findGamesByExactQuery(format.parse("Jan 1, 2017"), tag),
+                        compact.findGamesByExactQuery(format.parse("Jan 1, 2017"), tag));
+                assertEquals(tag, maps.calculatePriceSummary(lower, upper, tag).getCount(),
+                        compact.calculatePriceSummary(lower, upper, tag).getCount());
+                assertEquals(tag, maps.findTopGamesByAttribute("original_price", 2, tag, lower, null).stream()
+                                .map(SteamGame::getName).toList(),
+                        compact.findTopGamesByAttribute("original_price", 2, tag, lower, null).stream()
+                                .map(SteamGame::getName).toList());
+
+                List<String> paged = new ArrayList<>();
+                String token = null;
+                do {
+                    GamePage page = compact.findGamesByReleaseDate(tag, null, null, 2, token);
+                    paged.addAll(page.getNames());
+                    token = page.getNextPageToken();
+                } while (token != null);
+                assertEquals(tag, maps.streamGamesByReleaseDate(tag, null, null).toList(), paged);
+            }
+            assertEquals(maps.calculateAverageGamePrice(lower, upper), compact.calculateAverageGamePrice(lower, upper));
+        }
+
+        compact.setCompactIndexes(false);
+        assertFalse(compact.getSnapshot().isCompact());
+        assertEquals(maps.findGamesByReleaseDate("Strategy", null, null, 10, null).getNames(),
+                compact.findGamesByReleaseDate("Strategy", null, null, 10, null).getNames());
+    }
+
+    /**
+     * Tests that composite queries return the games matching every criterion whichever index the
+     * planner drives them from, and that the planner picks the most selective index.
+     */
+    @Test
+    public void testFindGames_PlannerPicksSelectiveIndexAndMatchesFilters() throws Exception {
+        SteamGamesImpl engine = new SteamGamesImpl(testGames);
+        Date lower = format.parse("Jan 1, 2012");
+        Date upper = format.parse("Dec 31, 2017");
+
+        GameQuery combined = GameQuery.builder().tags("Action AND NOT Free to Play").releasedBetween(lower, upper)
+                .priceBetween(0, 30).minReviewPercent(40).sortBy("all_reviews").build();
+        assertEquals(Arrays.asList("Counter-Strike: Global Offensive", "PLAYERUNKNOWN'S BATTLEGROUNDS",
+                "Grand Theft Auto V"), engine.findGames(combined).stream().map(SteamGame::getName).toList());
+
+        GameQuery prefix = GameQuery.builder().namePrefix("CRANKIES").minReviewCount(25).build();
+        assertEquals(QueryPlanner.AccessPath.NAME_PREFIX, engine.explain(prefix).getAccessPath());
+        assertEquals(Arrays.asList("Crankies Workshop: Bozzbot Assembly"),
+                engine.findGames(prefix).stream().map(SteamGame::getName).toList());
+
+        GameQuery expensive = GameQuery.builder().priceBetween(600, Double.POSITIVE_INFINITY).build();
+        assertEquals(QueryPlanner.AccessPath.PRICE, engine.explain(expensive).getAccessPath());
+        assertEquals(3, engine.explain(expensive).getCandidates());
+        assertEquals(3, engine.findGames(expensive).size());
+
+        GameQuery singleTag = GameQuery.builder().tags("puzzle").releasedBetween(lower, upper).build();
+        assertEquals(QueryPlanner.AccessPath.TAG_DATE, engine.explain(singleTag).getAccessPath());
+        assertEquals(QueryPlanner.AccessPath.NONE,
+                engine.explain(GameQuery.builder().tags("No Such Tag").build()).getAccessPath());
+        assertEquals(List.of(), engine.findGames(GameQuery.builder().minReviewPercent(101).build()));
+        assertEquals(Arrays.asList("Counter-Strike: Global Offensive", "Dota 2"), engine.findGames(
+                GameQuery.builder().tags("Multiplayer").limit(2).build()).stream().map(SteamGame::getName).toList());
+        assertThrows(IllegalArgumentException.class, () -> GameQuery.builder().sortBy("popularity").build());
+        assertEquals(combined, GameQuery.builder().tags("ACTION  AND NOT free to play").releasedBetween(lower, upper)
+                .priceBetween(0, 30).minReviewPercent(40).sortBy("All_Reviews").build());
+
+        // Every combination must agree with filtering the games directly
+        List<String> loadOrder = testGames.stream().map(SteamGame::getName).toList();
+        for (String tag : Arrays.asList(null, "Action", "Indie", "Casual")) {
+            for (double maxPrice : new double[] {Double.POSITIVE_INFINITY, 10, 0}) {
+                for (String sort : Arrays.asList(null, "original_price", "name")) {
+                    for (int limit : new int[] {1, 3, Integer.MAX_VALUE}) {
+                        GameQuery query = GameQuery.builder().tags(tag).releasedBetween(lower, null)
+                                .priceBetween(Double.NEGATIVE_INFINITY, maxPrice).sortBy(sort).limit(limit).build();
+                        List<String> order = sort == null ? loadOrder : engine.findTopGamesByAttribute(sort, 100)
+                                .stream().map(SteamGame::getName).toList();
+                        List<String> expected = order.stream()
+                                .map(name -> testGames.get(loadOrder.indexOf(name)))
+                                .filter(game -> tag == null || Arrays.asList(game.getPopularTags().split(",")).contains(tag))
+                                .filter(game -> !game.getReleaseDate().before(lower) && game.getOriginalPrice() <= maxPrice)
+                                .map(SteamGame::getName).limit(limit).toList();
+                        assertEquals(query + " via " + engine.explain(query), expected,
+                                engine.findGames(query).stream().map(SteamGame::getName).toList());
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Tests that a game listing the same tag twice is returned once by every access path, and
+     * that the repeat does not count against the limit.
+     */
+    @Test
+    public void testFindGames_RepeatedTagReturnsGameOnce() throws Exception {
+        SteamGamesImpl engine = new SteamGamesImpl(Arrays.asList(
+                new SteamGame("Twice", format.parse("Mar 01, 2017"), "", 5.00, "Indie,indie"),
+                new SteamGame("Once", format.parse("Mar 02, 2017"), "", 6.00, "Indie"),
+                new SteamGame("Late", format.parse("Mar 03, 2018"), "", 50.00, "INDIE,Action,indie "),
+                new SteamGame("Other", format.parse("Mar 04, 2017"), "", 7.00, "Action")));
+        Date lower = format.parse("Jan 01, 2017");
+        Date upper = format.parse("Dec 31, 2017");
+
+        Map<GameQuery.Builder, List<String>> queries = new LinkedHashMap<>();
+        queries.put(GameQuery.builder().tags("indie").releasedBetween(lower, upper), Arrays.asList("Twice", "Once"));
+        queries.put(GameQuery.builder().tags("indie").priceBetween(0, 10), Arrays.asList("Twice", "Once"));
+        queries.put(GameQuery.builder().tags("indie"), Arrays.asList("Twice", "Once", "Late"));
+        queries.put(GameQuery.builder().tags("indie OR puzzle"), Arrays.asList("Twice", "Once", "Late"));
+        Set<QueryPlanner.AccessPath> paths = EnumSet.noneOf(QueryPlanner.AccessPath.class);
+        for (Map.Entry<GameQuery.Builder, List<String>> entry : queries.entrySet()) {
+            for (int limit : new int[] {1, 2, Integer.MAX_VALUE}) {
+                GameQuery query = entry.getKey().limit(limit).build();
+                List<String> expected = entry.getValue().subList(0, Math.min(limit, entry.getValue().size()));
+                paths.add(engine.explain(query).getAccessPath());
+                assertEquals(query + " via " + engine.explain(query), expected,
+                        engine.findGames(query).stream().map(SteamGame::getName).toList());
+            }
+        }
+        assertEquals(EnumSet.of(QueryPlanner.AccessPath.TAG_DATE, QueryPlanner.AccessPath.TAG_PRICE,
+                QueryPlanner.AccessPath.TAGS, QueryPlanner.AccessPath.SCAN), paths);
+    }
+
+    /**
+     * Tests price range queries with tag and date filters against filtering the games directly,
+     * in both index modes and after incremental changes.
+     */
+    @Test
+    public void testFindGamesByPrice_TagDateAndPriceFilters() throws Exception {
+        SteamGamesImpl engine = new SteamGamesImpl(testGames);
+        Date lower = format.parse("Jan 1, 2012");
+        Date upper = format.parse("Dec 31, 2017");
+
+        assertEquals(Arrays.asList("Counter-Strike: Global Offensive", "Dota 2", "Team Fortress 2", "Unturned",
+                "Garry's Mod"), engine.findGamesByPrice("action", 0, 10, null, null));
+        assertEquals(Arrays.asList("Crankies Workshop: Bozzbot Assembly", "Crankies Workshop: Grizzbot Assembly",
+                "Strata Spaces VR – Professional Edition Upgrade"),
+                engine.findGamesByPrice(null, 600, Double.POSITIVE_INFINITY, lower, upper));
+        assertEquals(List.of(), engine.findGamesByPrice("No Such Tag", 0, 10, null, null));
+        assertEquals(List.of(), engine.findGamesByPrice(null, 10, 0, null, null));
+        assertEquals(List.of(), engine.findGamesByPrice(null, Double.NaN, 10, null, null));
+
+        SteamGamesDatasetQuery repeated = new SteamGamesImpl(Arrays.asList(
+                new SteamGame("A", format.parse("Mar 01, 2017"), "", 5.00, "Indie,indie"),
+                new SteamGame("B", format.parse("Mar 02, 2017"), "", 6.00, "Indie")));
+        assertEquals(Arrays.asList("A", "B"), repeated.findGamesByPrice("indie", 0, 10, null, null));
+
+        GameQuery cheapPuzzles = GameQuery.builder().tags("puzzle").priceBetween(0, 10).build();
+        assertEquals(QueryPlanner.AccessPath.TAG_PRICE, engine.explain(cheapPuzzles).getAccessPath());
+        assertEquals(0, engine.explain(cheapPuzzles).getCandidates());
+
+        for (boolean compact : new boolean[] {false, true}) {
+            engine = new SteamGamesImpl(testGames);
+            engine.setCompactIndexes(compact);
+            for (int round = 0; round < 2; round++) {
+                List<SteamGame> games = new ArrayList<>(testGames);
+                if (round == 1) {
+                    engine.addGame(new SteamGame("Celeste", format.parse("Jan 25, 2018"), "", 19.99, "Indie,Action"));
+                    engine.addGame(new SteamGame("Baba Is You", format.parse("Mar 13, 2019"), "", 9.99, "Puzzle,Indie"));
+                    engine.addGame(new SteamGame("Hades", format.parse("Sep 17, 2020"), "", 24.99,
+                            "Indie,Action,indie"));
+                    engine.removeGame("Dota 2");
+                    games.removeIf(game -> game.getName().equals("Dota 2"));
+                    games.add(new SteamGame("Celeste", format.parse("Jan 25, 2018"), "", 19.99, "Indie,Action"));
+                    games.add(new SteamGame("Baba Is You", format.parse("Mar 13, 2019"), "", 9.99, "Puzzle,Indie"));
+                    games.add(new SteamGame("Hades", format.parse("Sep 17, 2020"), "", 24.99,
+                            "Indie,Action,indie"));
+                }
+                for (String tag : Arrays.asList(null, "Action", "Indie", "Puzzle")) {
+                    for (double[] prices : new double[][] {{0, 0}, {0, 10}, {5, 30}, {0, Double.POSITIVE_INFINITY}}) {
+                        for (Date[] window : new Date[][] {{null, null}, {lower, upper}, {upper, null}}) {
+                            List<String> expected = games.stream()
+                                    .filter(game -> tag == null
+                                            || Arrays.asList(game.getPopularTags().split(",")).contains(tag))
+                                    .filter(game -> game.getOriginalPrice() >= prices[0]
+                                            && game.getOriginalPrice() <= prices[1])
+                                    .filter(game -> (window[0] == null || !game.getReleaseDate().before(window[0]))
+                                            && (window[1] == null || !game.getReleaseDate().after(window[1])))
+                                    .sorted(Comparator.comparingDouble(SteamGame::getOriginalPrice))
+                                    .map(SteamGame::getName).toList();
+                            assertEquals(tag + " " + Arrays.toString(prices) + " " + Arrays.toString(window),
+                                    expected, engine.findGamesByPrice(tag, prices[0], prices[1], window[0], window[1]));
+                        }
+                    }
+                }
+            }
+        }
+    }
+
     /**
      * Tests the {@code findTopGamesByAttribute} method for "all_reviews".
      */
@@ -142,6 +735,81 @@ public class SteamGamesDataQueryTest {
         assertEquals("PLAYERUNKNOWN'S BATTLEGROUNDS", topByDate.getName());
     }
 
+    /**
+     * Tests {@code findTopGamesByAttribute} restricted to a tag and release year.
+     */
+    @Test
+    public void testTopGamesByAttribute_WithTagAndDateFilter() throws Exception {
+        Date lower = format.parse("Jan 01, 2017");
+        Date upper = format.parse("Dec 31, 2017");
+
+        List<SteamGame> top = queryEngine.findTopGamesByAttribute("all_reviews", 2, "indie", lower, upper);
+        assertEquals(2, top.size());
+        assertEquals("Unturned", top.get(0).getName());
+        assertEquals("Crankies Workshop: Grizzbot Assembly", top.get(1).getName());
+
+        top = queryEngine.findTopGamesByAttribute("original_price", 5, null, lower, null);
+        assertEquals("Strata Spaces VR – Professional Edition Upgrade", top.get(0).getName());
+        assertEquals(5, top.size());
+    }
+
+    /**
+     * Tests that a game listing its tag twice is ranked once by both top-k strategies.
+     */
+    @Test
+    public void testTopGamesByAttribute_RepeatedTagRankedOnce() throws Exception {
+        SteamGamesImpl engine = new SteamGamesImpl(Arrays.asList(
+                new SteamGame("Twice", format.parse("Mar 01, 2017"), "", 5.00, "Indie,indie"),
+                new SteamGame("Once", format.parse("Mar 02, 2017"), "", 6.00, "Indie"),
+                new SteamGame("Other", format.parse("Mar 03, 2017"), "", 7.00, "Action"),
+                new SteamGame("Older", format.parse("Mar 04, 2016"), "", 8.00, "Indie")));
+        Date lower = format.parse("Jan 01, 2017");
+        Date upper = format.parse("Dec 31, 2017");
+
+        for (int k : new int[] {1, 2, 5}) {
+            assertEquals(Arrays.asList("Once", "Twice").subList(0, Math.min(k, 2)),
+                    engine.findTopGamesByAttribute("original_price", k, "indie", lower, upper).stream()
+                            .map(SteamGame::getName).toList());
+        }
+    }
+
+    /**
+     * Tests bounded-heap selection with an ad-hoc comparator.
+     */
+    @Test
+    public void testTopGames_CustomComparator() {
+        List<SteamGame> top = queryEngine.findTopGames(Comparator.comparing(SteamGame::getName).reversed(), 2);
+        assertEquals(2, top.size());
+        assertEquals("Unturned", top.get(0).getName());
+        assertEquals("Team Fortress 2", top.get(1).getName());
+
+        // Every column read through the comparator, and results that outlive the scan
+        Comparator<SteamGame> byEverything = Comparator.comparing(SteamGame::getReleaseDate)
+                .thenComparing(SteamGame::getOriginalPrice, Comparator.reverseOrder())
+                .thenComparing(SteamGame::getAllReviews)
+                .thenComparing(SteamGame::getPopularTags)
+                .thenComparing(SteamGame::getName);
+        List<String> expected = testGames.stream().sorted(byEverything).limit(4).map(SteamGame::toString).toList();
+        assertEquals(expected, queryEngine.findTopGames(byEverything, 4).stream().map(SteamGame::toString).toList());
+        assertEquals(testGames.size(), queryEngine.findTopGames(byEverything, Integer.MAX_VALUE).size());
+    }
+
+    /**
+     * Tests that returned games carry their popular tags text as given, not the spellings of
+     * earlier games sharing a tag.
+     */
+    @Test
+    public void testPopularTags_ReturnedAsGiven() throws Exception {
+        SteamGamesDatasetQuery engine = new SteamGamesImpl(Arrays.asList(
+                new SteamGame("A", format.parse("Jan 01, 2017"), "", 1.00, "INDIE,rpg"),
+                new SteamGame("B", format.parse("Jan 02, 2017"), "", 2.00, "indie, Strategy ,RPG")));
+
+        List<SteamGame> games = engine.findTopGamesByAttribute("name", 2);
+        assertEquals("INDIE,rpg", games.get(0).getPopularTags());
+        assertEquals("indie, Strategy ,RPG", games.get(1).getPopularTags());
+        assertEquals(Arrays.asList("A", "B"), engine.findGamesByReleaseDate("indie", format.parse("Dec 31, 2017")));
+    }
+
     /**
      * Tests finding games that exactly match the year and tag.
      */
@@ -212,6 +880,38 @@ public class SteamGamesDataQueryTest {
         assertFalse(results.contains("Test Game"));
     }
 
+    /**
+     * Tests that the (tag, year) index puts games released on Dec 31 and Jan 1 in the right year
+     * under every one of their tags, in both index modes and after an incremental add.
+     */
+    @Test
+    public void testExactMatch_YearBoundariesAndMultipleTags() throws Exception {
+        for (boolean compact : new boolean[] {false, true}) {
+            SteamGamesImpl engine = new SteamGamesImpl(Arrays.asList(
+                    new SteamGame("Last Day", format.parse("Dec 31, 2017"), "", 9.99, "Indie,Puzzle,Co-op"),
+                    new SteamGame("First Day", format.parse("Jan 01, 2018"), "", 4.99, "Puzzle,Indie"),
+                    new SteamGame("Mid Year", format.parse("Jun 15, 2017"), "", 1.99, "Co-op")));
+            engine.setCompactIndexes(compact);
+            engine.addGame(new SteamGame("New Year's Eve", format.parse("Dec 31, 2018"), "", 2.99, "Co-op,Indie"));
+
+            for (String tag : Arrays.asList("Indie", "puzzle", " Co-op ")) {
+                List<String> in2017 = engine.findGamesByExactQuery(format.parse("Dec 31, 2017"), tag);
+                List<String> in2018 = engine.findGamesByExactQuery(format.parse("Jan 01, 2018"), tag);
+                assertTrue(tag, in2017.contains("Last Day"));
+                assertFalse(tag, in2017.contains("First Day"));
+                assertFalse(tag, in2018.contains("Last Day"));
+            }
+            assertEquals(Arrays.asList("Last Day", "First Day"),
+                    engine.findGamesByReleaseDate("Puzzle", format.parse("Dec 31, 2017"), format.parse("Jan 01, 2018")));
+            assertEquals(Arrays.asList("First Day", "New Year's Eve"),
+                    engine.findGamesByExactQuery(format.parse("Jul 01, 2018"), "Indie"));
+            assertEquals(Arrays.asList("Mid Year", "Last Day"),
+                    engine.findGamesByExactQuery(format.parse("Jan 01, 2017"), "Co-op"));
+            assertEquals(Arrays.asList("New Year's Eve"), engine.findGamesByExactQuery(format.parse("Jan 01, 2018"), "co-op"));
+            assertTrue(engine.findGamesByExactQuery(format.parse("Jan 01, 2019"), "Indie").isEmpty());
+        }
+    }
+
     /**
      * Tests average price calculation for a valid date range.
      */
@@ -273,6 +973,204 @@ public class SteamGamesDataQueryTest {
         assertTrue(result.isEmpty());
     }
 
+    /**
+     * Tests that the all-tags price summary counts each game once.
+     */
+    @Test
+    public void testPriceSummary_CountsEachGameOnce() throws Exception {
+        Date start = format.parse("Jan 01, 2013");
+        Date end = format.parse("Jan 01, 2018");
+
+        PriceSummary summary = queryEngine.calculatePriceSummary(start, end);
+        assertEquals(7, summary.getCount());
+        assertEquals(2304.46, summary.getSum(), 1e-9);
+        assertEquals(0.0, summary.getMin(), 0.0);
+        assertEquals(995.0, summary.getMax(), 0.0);
+        assertEquals(List.of("329.21"), queryEngine.calculateAverageGamePrice(start, end));
+    }
+
+    /**
+     * Tests the per-tag price summary over a date window.
+     */
+    @Test
+    public void testPriceSummary_WithTag() throws Exception {
+        Date start = format.parse("Sep 12, 2017");
+        Date end = format.parse("Dec 21, 2017");
+
+        PriceSummary summary = queryEngine.calculatePriceSummary(start, end, "simulation");
+        assertEquals(3, summary.getCount());
+        assertEquals(29.99, summary.getMin(), 0.0);
+        assertEquals(624.74, summary.getMax(), 0.0);
+        assertTrue(queryEngine.calculatePriceSummary(end, start, "simulation").isEmpty());
+    }
+
+    /**
+     * Tests price percentiles and histograms against sorting the matching prices directly, in both
+     * index modes and after incremental changes.
+     */
+    @Test
+    public void testPriceDistribution_PercentilesAndHistogram() throws Exception {
+        Date start = format.parse("Jan 1, 2000");
+        Date end = format.parse("Dec 31, 2020");
+        double[] bounds = {0, 10, 100, 1000};
+
+        PriceDistribution action = queryEngine.calculatePriceDistribution(start, end, "ACTION", bounds);
+        assertEquals(9, action.getCount());
+        assertEquals(9.99, action.getP50(), 0.0);
+        assertEquals(624.74, action.getP90(), 0.0);
+        assertEquals(624.74, action.getP99(), 0.0);
+        assertArrayEquals(new int[] {5, 2, 2}, action.getBucketCounts());
+        assertEquals(0, queryEngine.calculatePriceDistribution(end, start, "Action", bounds).getCount());
+        assertTrue(Double.isNaN(queryEngine.calculatePriceDistribution(start, end, "No Such Tag", null).getP50()));
+        assertThrows(IllegalArgumentException.class,
+                () -> queryEngine.calculatePriceDistribution(start, end, new double[] {10, 0}));
+        assertEquals(Arrays.asList("Puzzle", "Indie"), new ArrayList<>(queryEngine.calculatePriceDistributions(
+                start, end, Arrays.asList("Puzzle", "Indie"), null).keySet()));
+        Map<String, PriceDistribution> withNull = queryEngine.calculatePriceDistributions(start, end,
+                Arrays.asList(null, " Action "), null);
+        assertEquals(0, withNull.get(null).getCount());
+        assertEquals(9, withNull.get(" Action ").getCount());
+
+        Date lower = format.parse("Jan 1, 2012");
+        Date upper = format.parse("Dec 31, 2017");
+        for (boolean compact : new boolean[] {false, true}) {
+            SteamGamesImpl engine = new SteamGamesImpl(testGames);
+            engine.setCompactIndexes(compact);
+            List<SteamGame> games = new ArrayList<>(testGames);
+            for (int round = 0; round < 2; round++) {
+                if (round == 1) {
+                    SteamGame celeste = new SteamGame("Celeste", format.parse("Jan 25, 2017"), "", 19.99, "Indie,Action");
+                    engine.addGame(celeste);
+                    engine.removeGame("Grand Theft Auto V");
+                    games.add(celeste);
+                    games.removeIf(game -> game.getName().equals("Grand Theft Auto V"));
+                }
+                for (String tag : Arrays.asList(null, "Action", "Indie", "Simulation", "Free to Play")) {
+                    for (Date[] window : new Date[][] {{start, end}, {lower, upper}, {upper, end}}) {
+                        double[] prices = games.stream()
+                                .filter(game -> tag == null
+                                        || Arrays.asList(game.getPopularTags().split(",")).contains(tag))
+                                .filter(game -> !game.getReleaseDate().before(window[0])
+                                        && !game.getReleaseDate().after(window[1]))
+                                .mapToDouble(SteamGame::getOriginalPrice).sorted().toArray();
+                        PriceDistribution distribution = tag == null
+                                ? engine.calculatePriceDistribution(window[0], window[1], bounds)
+                                : engine.calculatePriceDistribution(window[0], window[1], tag, bounds);
+                        String message = tag + " " + Arrays.toString(window) + " " + distribution;
+                        assertEquals(message, prices.length, distribution.getCount());
+                        if (prices.length > 0) {
+                            assertEquals(message, prices[(prices.length + 1) / 2 - 1], distribution.getP50(), 0.0);
+                            assertEquals(message, prices[(90 * prices.length + 99) / 100 - 1], distribution.getP90(),
+                                    0.0);
+                            assertEquals(message, prices[prices.length - 1], distribution.getP99(), 0.0);
+                        }
+                        int[] counts = new int[bounds.length - 1];
+                        for (double price : prices) {
+                            for (int i = 0; i < counts.length; i++) {
+                                if (price >= bounds[i] && price < bounds[i + 1]) {
+                                    counts[i]++;
+                                }
+                            }
+                        }
+                        assertArrayEquals(message, counts, distribution.getBucketCounts());
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Tests the tag × period price matrix against one price summary per tag and year, before and
+     * after incremental changes that add a tag and widen the month range.
+     */
+    @Test
+    public void testGroupPricesByTag_MatchesPerTagSummaries() throws Exception {
+        SteamGamesImpl engine = new SteamGamesImpl(testGames);
+        PriceMatrix strategy = engine.groupPricesByTag(Arrays.asList("Strategy", "No Such Tag"), 2017, 2017,
+                PriceMatrix.Period.MONTH);
+        assertEquals(12, strategy.getPeriods().size());
+        assertEquals("2017-09", strategy.getPeriods().get(8));
+        assertEquals(2, strategy.getCount(0, 8));
+        assertEquals(624.74, strategy.getAverage(0, 8), 1e-9);
+        assertEquals(1, strategy.getCount(0, 11));
+        assertEquals(0, strategy.getCount(1, 8));
+        assertTrue(Double.isNaN(strategy.getAverage(1, 8)));
+
+        for (int round = 0; round < 2; round++) {
+            if (round == 1) {
+                engine.addGame(new SteamGame("Celeste", format.parse("Jan 25, 2018"), "", 19.99, "Indie,Platformer"));
+                engine.addGame(new SteamGame("Old Game", format.parse("Mar 3, 1998"), "", 4.99, "Action"));
+                engine.removeGame("Garry's Mod");
+            }
+            PriceMatrix years = engine.groupPricesByTag(null, 1995, 2019, PriceMatrix.Period.YEAR);
+            PriceMatrix months = engine.groupPricesByTag(null, 1995, 2019, PriceMatrix.Period.MONTH);
+            assertEquals(25, years.getPeriods().size());
+            assertEquals(round == 1, years.getTags().contains("Platformer"));
+            for (int row = 0; row < years.getTags().size(); row++) {
+                for (int column = 0; column < years.getPeriods().size(); column++) {
+                    int year = 1995 + column;
+                    PriceSummary summary = engine.calculatePriceSummary(format.parse("Jan 1, " + year),
+                            format.parse("Dec 31, " + year), years.getTags().get(row));
+                    assertEquals(summary.getCount(), years.getCount(row, column));
+                    assertEquals(summary.getSum(), years.getSum(row, column), 1e-6);
+                    int monthly = 0;
+                    for (int month = 0; month < 12; month++) {
+                        monthly += months.getCount(row, column * 12 + month);
+                    }
+                    assertEquals(summary.getCount(), monthly);
+                }
+            }
+        }
+    }
+
+    /**
+     * Tests that a batch returns what the single calls return, in order, in both index modes.
+     */
+    @Test
+    public void testExecuteBatch_MatchesSingleCalls() throws Exception {
+        String[] tags = {"Indie", "action", "Shooter", "Strategy", "No Such Tag", " "};
+        String[] dates = {"Jan 01, 2010", "Jun 21, 2012", "Jul 09, 2013", "Dec 31, 2015", "Sep 12, 2017",
+                "Sep 13, 2017", "Dec 31, 2017"};
+
+        for (boolean compact : new boolean[] {false, true}) {
+            SteamGamesImpl engine = new SteamGamesImpl(testGames);
+            engine.setCompactIndexes(compact);
+
+            List<BatchQuery> batch = new ArrayList<>();
+            List<List<String>> expected = new ArrayList<>();
+            for (String tag : tags) {
+                for (String lowerText : dates) {
+                    for (String upperText : dates) {
+                        Date lower = format.parse(lowerText);
+                        Date upper = format.parse(upperText);
+                        batch.add(BatchQuery.releaseDate(tag, lower, upper));
+                        expected.add(engine.findGamesByReleaseDate(tag, lower, upper));
+                        batch.add(BatchQuery.averagePrice(lower, upper, tag));
+                        expected.add(engine.calculateAverageGamePrice(lower, upper, tag));
+                    }
+                    batch.add(BatchQuery.releaseDate(tag, format.parse(lowerText)));
+                    expected.add(engine.findGamesByReleaseDate(tag, format.parse(lowerText)));
+                }
+            }
+            batch.add(BatchQuery.averagePrice(format.parse("Jan 01, 2012"), format.parse("Dec 31, 2017")));
+            expected.add(engine.calculateAverageGamePrice(format.parse("Jan 01, 2012"), format.parse("Dec 31, 2017")));
+            batch.add(BatchQuery.releaseDate(null, format.parse("Dec 31, 2017")));
+            expected.add(List.of());
+
+            assertEquals(expected, engine.executeBatch(batch));
+            assertEquals(expected.subList(0, 3), engine.executeBatch(batch.subList(0, 3)));
+        }
+        Date lower = format.parse("Jan 01, 2010");
+        Date upper = format.parse("Dec 31, 2017");
+        BatchQuery padded = BatchQuery.releaseDate(" Indie ", lower, upper);
+        assertEquals(BatchQuery.releaseDate("indie", lower, upper), padded);
+        assertEquals(BatchQuery.releaseDate("indie", lower, upper).hashCode(), padded.hashCode());
+        assertEquals(queryEngine.findGamesByReleaseDate("indie", lower, upper),
+                queryEngine.executeBatch(List.of(padded)).get(0));
+        assertTrue(queryEngine.executeBatch(List.of()).isEmpty());
+        assertThrows(NullPointerException.class, () -> BatchQuery.averagePrice(null, new Date()));
+    }
+
     /**
      * Tests null date parameters.
      */
@@ -281,6 +1179,73 @@ public class SteamGamesDataQueryTest {
         queryEngine.calculateAverageGamePrice(null, null);
     }
 
+    /**
+     * Tests that the CSV tokenizer splits records at unquoted line feeds only: CRLF endings,
+     * line breaks and doubled quotes inside quotes, blank lines and a last record without a
+     * line ending.
+     */
+    @Test
+    public void testCsvTokenizer_RecordBoundaries() {
+        String csv = "a,b\r\n"
+                + "\"x\r\ny\",\"say \"\"hi\"\"\"\n"
+                + "\r\n"
+                + "\n"
+                + "\"\"\"\",last";
+        CsvTokenizer tokenizer = new CsvTokenizer(java.nio.ByteBuffer.wrap(
+                csv.getBytes(java.nio.charset.StandardCharsets.UTF_8)));
+        List<List<String>> records = new ArrayList<>();
+        while (tokenizer.next()) {
+            records.add(tokenizer.toList());
+        }
+        assertEquals(Arrays.asList(Arrays.asList("a", "b"), Arrays.asList("x\r\ny", "say \"hi\""),
+                Arrays.asList(""), Arrays.asList(""), Arrays.asList("\"", "last")), records);
+
+        tokenizer = new CsvTokenizer(java.nio.ByteBuffer.wrap("a\n".getBytes(java.nio.charset.StandardCharsets.UTF_8)));
+        assertTrue(tokenizer.next());
+        assertFalse(tokenizer.next());
+    }
+
+    /**
+     * Tests that parseLine treats its whole argument as one record, keeping line breaks and
+     * carriage returns, as it always has.
+     */
+    @Test
+    public void testParseLine_WholeStringIsOneRecord() {
+        assertEquals(Arrays.asList("a", "b\r"), ParallelCsvLoader.parseLine("a,b\r"));
+        assertEquals(Arrays.asList("a", "b\nc"), ParallelCsvLoader.parseLine("a,b\nc"));
+        assertEquals(Arrays.asList("x\ny", "say \"hi\""), ParallelCsvLoader.parseLine("\"x\ny\",\"say \"\"hi\"\"\""));
+        assertEquals(Arrays.asList("\r"), ParallelCsvLoader.parseLine("\r"));
+        assertEquals(Arrays.asList(""), ParallelCsvLoader.parseLine(""));
+    }
+
+    /**
+     * Tests that the release date parser gives the same epoch day as the lenient
+     * {@code SimpleDateFormat("MMM dd, yyyy")} it replaced, and rejects the same inputs.
+     */
+    @Test
+    public void testReleaseDateParser_MatchesSimpleDateFormat() {
+        ReleaseDateParser parser = new ReleaseDateParser();
+        for (String text : Arrays.asList("Aug 21, 2012", "Feb 30, 2018", "Feb 0, 2018", "Feb -3, 2018",
+                "Feb 123, 2018", "Feb 003, 2018", "February 3, 2018", "feb 3, 2018", "MAY 3, 2018", "Feb 3, 2018",
+                "Feb  3, 2018", "Feb 3,  2018", "Feb 3, \t2018", "Feb 03, 2018 trailing", "Feb 3, 2018x",
+                "Feb 3, 2018, 12", "Feb 3, 2018.5", "Dec 31, 2018", "Jan 1, 2019", "Feb 3, 18", "Oct 4, 1582",
+                "Oct 15, 1582", "Feb 3, -2018", "Feb 3, 20189", "Sept 3, 2018", "Febr 3, 2018", "Fe 3, 2018",
+                "Mayo 3, 2018", "F\u00e9vrier 3, 2018", "Feb\u00a03, 2018", " Feb 3, 2018", "Feb3, 2018",
+                "Feb\t3, 2018", "Feb 3 2018", "Feb 3 ,2018", "Feb 3,2018", "Feb 3,\t2018", "Feb 3.5, 2018",
+                "Feb +3, 2018", "Feb, 2018", "2018", "")) {
+            Integer expected;
+            try {
+                expected = EpochDays.floor(format.parse(text));
+            } catch (java.text.ParseException e) {
+                expected = null;
+            }
+            int actual = parser.parse(text);
+            assertEquals(text, expected, actual == ReleaseDateParser.INVALID ? null : actual);
+            // The memoized answer is the same
+            assertEquals(text, actual, parser.parse(text));
+        }
+    }
+
     /**
      * Tests reversed date range returns empty or is handled gracefully.
      */
@@ -387,6 +1352,203 @@ public class SteamGamesDataQueryTest {
             assertTrue(queryEngine.findGamesByReleaseDate("Action", null).isEmpty());
             assertTrue(queryEngine.findGamesByReleaseDate("   ", new Date()).isEmpty());
         }
-    
 
+    /**
+     * Tests that following page tokens and consuming a stream both yield the full list result
+     * in the same order.
+     */
+    @Test
+    public void testPaginatedAndStreamedResults_MatchFullList() throws Exception {
+        Date lower = format.parse("Jan 01, 2007");
+        Date upper = format.parse("Dec 31, 2017");
+        List<String> expected = queryEngine.findGamesByReleaseDate("action", lower, upper);
+
+        List<String> paged = new ArrayList<>();
+        String token = null;
+        do {
+            GamePage page = queryEngine.findGamesByReleaseDate("action", lower, upper, 3, token);
+            assertTrue(page.getNames().size() <= 3);
+            paged.addAll(page.getNames());
+            token = page.getNextPageToken();
+        } while (token != null);
+        assertEquals(expected, paged);
+        assertEquals(expected, queryEngine.streamGamesByReleaseDate("action", lower, upper)
+                .collect(java.util.stream.Collectors.toList()));
+        assertEquals(expected.subList(2, 4), queryEngine.streamGamesByReleaseDate("action", lower, upper)
+                .skip(2).limit(2).collect(java.util.stream.Collectors.toList()));
+
+        List<String> expressionExpected = queryEngine.findGamesByTagExpression("shooter OR casual", lower, upper);
+        GamePage first = queryEngine.findGamesByTagExpression("shooter OR casual", lower, upper, 4, null);
+        GamePage second = queryEngine.findGamesByTagExpression("shooter OR casual", lower, upper, 4,
+                first.getNextPageToken());
+        List<String> expressionPaged = new ArrayList<>(first.getNames());
+        expressionPaged.addAll(second.getNames());
+        assertEquals(expressionExpected, expressionPaged);
+        assertFalse(second.hasNextPage());
+        assertThrows(IllegalArgumentException.class,
+                () -> queryEngine.findGamesByReleaseDate("action", lower, upper, 3, "not-a-token"));
+
+        // Pages agree with the stream when a game lists its tag twice
+        SteamGamesDatasetQuery repeated = new SteamGamesImpl(Arrays.asList(
+                new SteamGame("Twice", format.parse("Mar 01, 2017"), "", 5.00, "Indie,INDIE"),
+                new SteamGame("Once", format.parse("Mar 01, 2017"), "", 6.00, "Indie"),
+                new SteamGame("Later", format.parse("Mar 02, 2017"), "", 7.00, "indie,Action,Indie")));
+        List<String> streamed = repeated.streamGamesByReleaseDate("indie", lower, upper)
+                .collect(java.util.stream.Collectors.toList());
+        assertEquals(Arrays.asList("Twice", "Once", "Later"), streamed);
+        for (int limit = 1; limit <= 3; limit++) {
+            List<String> pagedRepeated = new ArrayList<>();
+            token = null;
+            do {
+                GamePage page = repeated.findGamesByReleaseDate("indie", lower, upper, limit, token);
+                pagedRepeated.addAll(page.getNames());
+                token = page.getNextPageToken();
+            } while (token != null);
+            assertEquals(streamed, pagedRepeated);
+        }
+    }
+
+    /**
+     * Tests full-text search over names and reviews, phrases, and the tag and date filters.
+     */
+    @Test
+    public void testSearchGames_TermsPhrasesAndFilters() throws Exception {
+        assertEquals(Arrays.asList("Crankies Workshop: Bozzbot Assembly", "Crankies Workshop: Grizzbot Assembly"),
+                queryEngine.searchGames("CRANKIES assembly", null, null, null));
+        assertEquals(Arrays.asList("Team Fortress 2"), queryEngine.searchGames("\"team fortress\"", null, null, null));
+        assertTrue(queryEngine.searchGames("\"fortress team\"", null, null, null).isEmpty());
+
+        // Review text is indexed too: "mixed" appears only in review summaries
+        assertEquals(3, queryEngine.searchGames("mixed", null, null, null).size());
+        assertEquals(Arrays.asList("PLAYERUNKNOWN'S BATTLEGROUNDS"),
+                queryEngine.searchGames("mixed", "shooter", null, null));
+        assertEquals(Arrays.asList("Crankies Workshop: Grizzbot Assembly"),
+                queryEngine.searchGames("mixed", "casual", null, format.parse("Sep 12, 2017")));
+        assertTrue(queryEngine.searchGames("   ", null, null, null).isEmpty());
+    }
+
+    /**
+     * Tests prefix autocomplete ranking by review score, case-insensitivity and limits.
+     */
+    @Test
+    public void testAutocompleteGames_RankedByReviewScore() {
+        assertEquals(Arrays.asList("Crankies Workshop: Grizzbot Assembly", "Crankies Workshop: Bozzbot Assembly"),
+                queryEngine.autocompleteGames("crankies", 5));
+        assertEquals(Arrays.asList("Team Fortress 2"), queryEngine.autocompleteGames("TEAM f", 5));
+        assertEquals(Arrays.asList("Counter-Strike: Global Offensive", "Dota 2", "PLAYERUNKNOWN'S BATTLEGROUNDS"),
+                queryEngine.autocompleteGames("", 3));
+        assertTrue(queryEngine.autocompleteGames("zzz", 5).isEmpty());
+        assertTrue(queryEngine.autocompleteGames("c", 0).isEmpty());
+    }
+
+    /**
+     * Tests intersecting several tags with an AND expression.
+     */
+    @Test
+    public void testTagExpression_AndOfThreeTags() {
+        List<String> results = queryEngine.findGamesByTagExpression("indie AND strategy AND casual");
+        assertEquals(2, results.size());
+        assertTrue(results.containsAll(Arrays.asList(
+                "Crankies Workshop: Bozzbot Assembly", "Crankies Workshop: Grizzbot Assembly")));
+    }
+
+    /**
+     * Tests excluding a multi-word tag with NOT.
+     */
+    @Test
+    public void testTagExpression_AndNotMultiWordTag() {
+        List<String> results = queryEngine.findGamesByTagExpression("Survival AND NOT early access");
+        assertTrue(results.isEmpty());
+
+        results = queryEngine.findGamesByTagExpression("Shooter AND NOT Free to Play");
+        assertEquals(4, results.size());
+        assertTrue(results.containsAll(Arrays.asList("Counter-Strike: Global Offensive",
+                "PLAYERUNKNOWN'S BATTLEGROUNDS", "Grand Theft Auto V", "Garry's Mod")));
+    }
+
+    /**
+     * Tests OR, parentheses and a bare NOT.
+     */
+    @Test
+    public void testTagExpression_OrParenthesesAndNot() {
+        List<String> results = queryEngine.findGamesByTagExpression("(MOBA OR Battle Royale) AND pvp");
+        assertEquals(2, results.size());
+        assertTrue(results.containsAll(Arrays.asList("Dota 2", "PLAYERUNKNOWN'S BATTLEGROUNDS")));
+
+        assertEquals(9, queryEngine.findGamesByTagExpression("NOT Design & Illustration").size());
+    }
+
+    /**
+     * Tests combining a tag expression with a release date window.
+     */
+    @Test
+    public void testTagExpression_WithDateRange() throws Exception {
+        Date lower = format.parse("Jan 01, 2017");
+        Date upper = format.parse("Dec 31, 2017");
+
+        List<String> results = queryEngine.findGamesByTagExpression("Indie OR Survival", lower, upper);
+        assertEquals(4, results.size());
+        assertFalse(results.contains("Garry's Mod"));
+    }
+
+    /**
+     * Tests that malformed expressions are rejected.
+     */
+    @Test
+    public void testTagExpression_Malformed() {
+        assertThrows(IllegalArgumentException.class, () -> queryEngine.findGamesByTagExpression("indie AND"));
+        assertThrows(IllegalArgumentException.class, () -> queryEngine.findGamesByTagExpression("(indie"));
+        assertTrue(queryEngine.findGamesByTagExpression("  ").isEmpty());
+    }
+
+    /**
+     * Tests the HTTP endpoint on localhost: plain, streamed and batched routes and error statuses.
+     */
+    @Test
+    public void testQueryServer_ServesJsonOnLocalhost() throws Exception {
+        try (QueryServer server = QueryServer.start(queryEngine, 0)) {
+            HttpClient client = HttpClient.newHttpClient();
+            String base = "http://localhost:" + server.getPort();
+
+            HttpResponse<String> response = client.send(HttpRequest.newBuilder(
+                    URI.create(base + "/games/autocomplete?prefix=crankies&k=5")).build(),
+                    HttpResponse.BodyHandlers.ofString());
+            assertEquals(200, response.statusCode());
+            assertEquals("[\"Crankies Workshop: Grizzbot Assembly\",\"Crankies Workshop: Bozzbot Assembly\"]",
+                    response.body());
+
+            response = client.send(HttpRequest.newBuilder(URI.create(
+                    base + "/games/release-date/stream?tag=indie&lower=2017-09-12&upper=2017-09-13")).build(),
+                    HttpResponse.BodyHandlers.ofString());
+            assertEquals("[\"Crankies Workshop: Grizzbot Assembly\",\"Crankies Workshop: Bozzbot Assembly\"]",
+                    response.body());
+
+            response = client.send(HttpRequest.newBuilder(URI.create(base + "/batch"))
+                    .POST(HttpRequest.BodyPublishers.ofString(
+                            "/prices/summary?start=2017-09-12&end=2017-09-13&tag=indie\n"
+                                    + "/games/tags?expr=indie%20AND\n"
+                                    + "/nowhere\n")).build(),
+                    HttpResponse.BodyHandlers.ofString());
+            assertEquals(200, response.statusCode());
+            assertEquals("[{\"status\":200,\"body\":{\"count\":2,\"sum\":1249.48,\"min\":624.74,\"max\":624.74,"
+                    + "\"mean\":624.74}},{\"status\":400,\"error\":\"Tag expression ends unexpectedly.\"},"
+                    + "{\"status\":404,\"error\":\"Unknown route: /nowhere\"}]", response.body());
+
+            response = client.send(HttpRequest.newBuilder(
+                    URI.create(base + "/prices/average?start=2017-01-01")).build(),
+                    HttpResponse.BodyHandlers.ofString());
+            assertEquals(400, response.statusCode());
+            assertEquals("{\"error\":\"Missing parameter: end\"}", response.body());
+
+            response = client.send(HttpRequest.newBuilder(
+                    URI.create(base + "/games/autocomplete?prefix=%20&k=5")).build(),
+                    HttpResponse.BodyHandlers.ofString());
+            assertEquals(400, response.statusCode());
+            assertEquals("{\"error\":\"Missing parameter: prefix\"}", response.body());
+
+            response = client.send(HttpRequest.newBuilder(URI.create(base + "/load?path=/etc/passwd"))
+                    .POST(HttpRequest.BodyPublishers.noBody()).build(), HttpResponse.BodyHandlers.ofString());
+            assertEquals(405, response.statusCode());
+        }
+    }
 }
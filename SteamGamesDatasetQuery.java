@@ -1,6 +1,10 @@
 import java.io.IOException;
+import java.util.Collection;
+import java.util.Comparator;
 import java.util.Date;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
 
 /**
  * Interface for querying a dataset of Steam games.
@@ -49,6 +53,122 @@ public interface SteamGamesDatasetQuery {
      */
     List<String> findGamesByReleaseDate(String tag, Date upperBound);
 
+    /**
+     * Returns all games whose tags satisfy a boolean tag expression.
+     *
+     * <p>Expressions combine tag names (case-insensitive, may contain spaces) with the upper-case
+     * operators {@code AND}, {@code OR}, {@code NOT} and parentheses, e.g.
+     * {@code "indie AND strategy AND NOT early access"}.
+     *
+     * @param expression the tag expression
+     * @return a list of game names that satisfy the expression
+     * @throws IllegalArgumentException if the expression is malformed
+     */
+    List<String> findGamesByTagExpression(String expression);
+
+    /**
+     * Returns all games whose tags satisfy a boolean tag expression and that have a release date
+     * between the given lower and upper bounds (inclusive).
+     *
+     * @param expression the tag expression
+     * @param lowerBound the start of the release date range (inclusive)
+     * @param upperBound the end of the release date range (inclusive)
+     * @return a list of game names that satisfy the expression and fall within the date range
+     * @throws IllegalArgumentException if the expression is malformed
+     */
+    List<String> findGamesByTagExpression(String expression, Date lowerBound, Date upperBound);
+
+    /**
+     * Returns the games whose original price is between two values (inclusive), optionally
+     * restricted to a tag and a release date window, cheapest first.
+     *
+     * @param tag the tag to match, or null for any tag
+     * @param minPrice the minimum price (inclusive)
+     * @param maxPrice the maximum price (inclusive)
+     * @param lowerBound the start of the release date range (inclusive), or null for no lower bound
+     * @param upperBound the end of the release date range (inclusive), or null for no upper bound
+     * @return a list of game names sorted by price, ties in load order
+     */
+    List<String> findGamesByPrice(String tag, double minPrice, double maxPrice, Date lowerBound, Date upperBound);
+
+    /**
+     * Streams the games that match the specified tag and have a release date between the given
+     * bounds (inclusive), in release date order. Names are produced lazily as the stream is consumed,
+     * so {@code skip} and {@code limit} give offset pagination without building the full result.
+     *
+     * @param tag the tag to match
+     * @param lowerBound the start of the release date range (inclusive), or null for no lower bound
+     * @param upperBound the end of the release date range (inclusive), or null for no upper bound
+     * @return a lazy stream of game names
+     */
+    Stream<String> streamGamesByReleaseDate(String tag, Date lowerBound, Date upperBound);
+
+    /**
+     * Returns one page of the games that match the specified tag and have a release date between
+     * the given bounds (inclusive), in release date order.
+     *
+     * @param tag the tag to match
+     * @param lowerBound the start of the release date range (inclusive), or null for no lower bound
+     * @param upperBound the end of the release date range (inclusive), or null for no upper bound
+     * @param limit the maximum number of games on the page
+     * @param pageToken the token of the previous page, or null for the first page
+     * @return the page of game names and the token of the next page
+     * @throws IllegalArgumentException if the page token is malformed
+     */
+    GamePage findGamesByReleaseDate(String tag, Date lowerBound, Date upperBound, int limit, String pageToken);
+
+    /**
+     * Streams the games whose tags satisfy a boolean tag expression and that have a release date
+     * between the given bounds (inclusive), in load order. Names are produced lazily.
+     *
+     * @param expression the tag expression
+     * @param lowerBound the start of the release date range (inclusive), or null for no lower bound
+     * @param upperBound the end of the release date range (inclusive), or null for no upper bound
+     * @return a lazy stream of game names
+     * @throws IllegalArgumentException if the expression is malformed
+     */
+    Stream<String> streamGamesByTagExpression(String expression, Date lowerBound, Date upperBound);
+
+    /**
+     * Returns one page of the games whose tags satisfy a boolean tag expression and that have a
+     * release date between the given bounds (inclusive), in load order.
+     *
+     * @param expression the tag expression
+     * @param lowerBound the start of the release date range (inclusive), or null for no lower bound
+     * @param upperBound the end of the release date range (inclusive), or null for no upper bound
+     * @param limit the maximum number of games on the page
+     * @param pageToken the token of the previous page, or null for the first page
+     * @return the page of game names and the token of the next page
+     * @throws IllegalArgumentException if the expression or the page token is malformed
+     */
+    GamePage findGamesByTagExpression(String expression, Date lowerBound, Date upperBound, int limit,
+                                      String pageToken);
+
+    /**
+     * Returns all games whose name or review text matches a full-text query. Every unquoted word must
+     * occur in the game's name or review text (case-insensitive), and text in double quotes must occur
+     * as a phrase, e.g. {@code "\"team fortress\" free"}. Results can be narrowed by a tag expression
+     * and a release date range.
+     *
+     * @param query the search query
+     * @param tagExpression a tag expression the games must satisfy, or null for any tags
+     * @param lowerBound the start of the release date range (inclusive), or null for no lower bound
+     * @param upperBound the end of the release date range (inclusive), or null for no upper bound
+     * @return a list of matching game names, in load order
+     * @throws IllegalArgumentException if the tag expression is malformed
+     */
+    List<String> searchGames(String query, String tagExpression, Date lowerBound, Date upperBound);
+
+    /**
+     * Returns up to {@code k} games whose name starts with the given prefix (case-insensitive),
+     * ranked by review score, best first. Ties are ordered by name.
+     *
+     * @param prefix the name prefix
+     * @param k the maximum number of games to return
+     * @return a list of matching game names
+     */
+    List<String> autocompleteGames(String prefix, int k);
+
     /**
      * Calculates the average price of all games released between the specified start and end dates.
      *
@@ -69,6 +189,78 @@ public interface SteamGamesDatasetQuery {
      */
     List<String> calculateAverageGamePrice(Date startTime, Date endTime, String tag);
 
+    /**
+     * Summarizes the prices of all games released between the specified start and end dates.
+     * Each game is counted once regardless of how many tags it has.
+     *
+     * @param startTime the start date of the range (inclusive)
+     * @param endTime the end date of the range (inclusive)
+     * @return the count, sum, minimum, maximum and mean price of the games in the range
+     */
+    PriceSummary calculatePriceSummary(Date startTime, Date endTime);
+
+    /**
+     * Summarizes the prices of games that match the specified tag and were released
+     * between the given start and end dates.
+     *
+     * @param startTime the start date of the range (inclusive)
+     * @param endTime the end date of the range (inclusive)
+     * @param tag the tag to filter games by
+     * @return the count, sum, minimum, maximum and mean price of the matching games
+     */
+    PriceSummary calculatePriceSummary(Date startTime, Date endTime, String tag);
+
+    /**
+     * Describes the price distribution of all games released between the given start and end
+     * dates: the summary statistics, the median, 90th and 99th percentiles and a fixed-bucket
+     * histogram.
+     *
+     * @param startTime the start date of the range (inclusive)
+     * @param endTime the end date of the range (inclusive)
+     * @param bucketBounds the ascending histogram bucket bounds, or null for no histogram
+     * @return the price distribution of the games in the range
+     * @throws IllegalArgumentException if the bucket bounds are not ascending numbers
+     */
+    PriceDistribution calculatePriceDistribution(Date startTime, Date endTime, double[] bucketBounds);
+
+    /**
+     * Describes the price distribution of the games that match the specified tag and were released
+     * between the given start and end dates.
+     *
+     * @param startTime the start date of the range (inclusive)
+     * @param endTime the end date of the range (inclusive)
+     * @param tag the tag to filter games by
+     * @param bucketBounds the ascending histogram bucket bounds, or null for no histogram
+     * @return the price distribution of the matching games
+     * @throws IllegalArgumentException if the bucket bounds are not ascending numbers
+     */
+    PriceDistribution calculatePriceDistribution(Date startTime, Date endTime, String tag, double[] bucketBounds);
+
+    /**
+     * Describes the price distributions of many tags over the same release date range, all
+     * computed against the same version of the dataset.
+     *
+     * @param startTime the start date of the range (inclusive)
+     * @param endTime the end date of the range (inclusive)
+     * @param tags the tags to describe; an unknown or null tag gets an empty distribution
+     * @param bucketBounds the ascending histogram bucket bounds, or null for no histogram
+     * @return the price distribution of each tag, in the order of {@code tags}
+     * @throws IllegalArgumentException if the bucket bounds are not ascending numbers
+     */
+    Map<String, PriceDistribution> calculatePriceDistributions(Date startTime, Date endTime, Collection<String> tags,
+                                                               double[] bucketBounds);
+
+    /**
+     * Runs many release date and average price queries against the same version of the dataset.
+     * Queries on the same tag share one walk of its date index, so a burst of queries that differ
+     * only in tag or window costs less than the same calls made one by one.
+     *
+     * @param queries the queries to run
+     * @return the result of each query, in the order of {@code queries}, each equal to what the
+     *         matching single call returns
+     */
+    List<List<String>> executeBatch(List<BatchQuery> queries);
+
     /**
      * Returns the top {@code k} games sorted by the specified attribute.
      *
@@ -85,4 +277,35 @@ public interface SteamGamesDatasetQuery {
      * @return a list of {@link SteamGame} objects representing the top {@code k} games
      */
     List<SteamGame> findTopGamesByAttribute(String attribute, int k);
-}
\ No newline at end of file
+
+    /**
+     * Returns the top {@code k} games sorted by the specified attribute among the games that match
+     * an optional tag and release date window.
+     *
+     * @param attribute the attribute to sort by (see {@link #findTopGamesByAttribute(String, int)})
+     * @param k the number of top games to return
+     * @param tag the tag to filter by, or {@code null} for any tag
+     * @param lowerBound the start of the release date range (inclusive), or {@code null} for no lower bound
+     * @param upperBound the end of the release date range (inclusive), or {@code null} for no upper bound
+     * @return a list of {@link SteamGame} objects representing the top {@code k} matching games
+     */
+    List<SteamGame> findTopGamesByAttribute(String attribute, int k, String tag, Date lowerBound, Date upperBound);
+
+    /**
+     * Returns the top {@code k} games according to an arbitrary comparator.
+     *
+     * @param comparator the ordering; games that compare lowest are returned first
+     * @param k the number of top games to return
+     * @return a list of {@link SteamGame} objects representing the top {@code k} games
+     */
+    List<SteamGame> findTopGames(Comparator<SteamGame> comparator, int k);
+
+    /**
+     * Returns the games matching every criterion of a composite query, such as a tag expression
+     * combined with date, price and review bounds and a name prefix.
+     *
+     * @param query the query
+     * @return the matching games, in the query's sort order (load order if none) and at most its limit
+     */
+    List<SteamGame> findGames(GameQuery query);
+}
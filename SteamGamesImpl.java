@@ -1,26 +1,46 @@
-import java.io.BufferedReader;
-import java.io.FileReader;
 import java.io.IOException;
-import java.text.ParseException;
-import java.text.SimpleDateFormat;
+import java.nio.file.Path;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * Implementation of the SteamGamesDatasetQuery interface that loads and processes
  * Steam game data from a CSV file. The class supports querying games by release date,
  * tags, price, and other attributes.
+ *
+ * <p>Games are stored column-wise in a {@link GameTable}; the lookup maps are indexed by
+ * interned tag id and hold row ids keyed by release epoch day (or by tag and release year)
+ * rather than references to {@link SteamGame} objects. Each tag also keeps a compressed
+ * {@link RowBitmap} of its rows for multi-tag boolean queries, and price aggregates over
+ * date windows are served from {@link PriceAggregateIndex} segment trees.
+ *
+ * <p>The table and its indexes form an immutable {@link IndexSnapshot} published through an
+ * {@link AtomicReference}. Each query reads the reference once and runs entirely against that
+ * snapshot, so queries are thread-safe and lock-free; loads and reloads build the next snapshot
+ * off to the side and swap it in.
  */
 public class SteamGamesImpl implements SteamGamesDatasetQuery {
 
-    private Map<String, NavigableMap<Date, List<SteamGame>>> gamesTreeMap = new HashMap<>();
-    private Map<String, HashMap<Date, List<SteamGame>>> gamesHashMap = new HashMap<>();
-    private List<SteamGame> gamesArrayList = new ArrayList<>();
+    /** Batches with fewer queries than this run on the calling thread. */
+    private static final int PARALLEL_BATCH_SIZE = 64;
+
+    private final AtomicReference<IndexSnapshot> current = new AtomicReference<>(IndexSnapshot.EMPTY);
+
+    /** Serializes loads and reloads; queries never take it. */
+    private final Object reloadLock = new Object();
+
+    /** Records the read, parse and index phases of every load. */
+    private final QueryMetrics metrics = new QueryMetrics();
+
+    /** Whether snapshots are built with compact date indexes. */
+    private volatile boolean compactIndexes;
 
     /** Default constructor initializing internal data structures. */
     public SteamGamesImpl() {
-        gamesTreeMap = new HashMap<>();
-        gamesHashMap = new HashMap<>();
-        gamesArrayList = new ArrayList<>();
     }
 
     /**
@@ -29,155 +49,314 @@ public class SteamGamesImpl implements SteamGamesDatasetQuery {
      * @param data The list of SteamGame instances to populate the dataset.
      */
     public SteamGamesImpl(List<SteamGame> data) {
-        gamesTreeMap = new HashMap<>();
-        gamesHashMap = new HashMap<>();
-        gamesArrayList = data;
+        GameTable table = new GameTable(data.size());
 
         for (SteamGame game : data) {
-            String[] tags = game.getPopularTags().split(",");
-            Date releaseDate = game.getReleaseDate();
-
-            for (String tag : tags) {
-                tag = tag.trim().toLowerCase();
-
-                // TreeMap population
-                gamesTreeMap
-                        .computeIfAbsent(tag, k -> new TreeMap<>())
-                        .computeIfAbsent(releaseDate, k -> new ArrayList<>())
-                        .add(game);
-
-                // HashMap population
-                gamesHashMap
-                        .computeIfAbsent(tag, k -> new HashMap<>())
-                        .computeIfAbsent(releaseDate, k -> new ArrayList<>())
-                        .add(game);
+            // Games without a release date cannot be placed in the date indexes
+            if (game.getReleaseDate() == null) {
+                continue;
             }
+            table.addRow(game.getName(), EpochDays.floor(game.getReleaseDate()), game.getAllReviews(),
+                    game.getOriginalPrice(), game.getPopularTags());
         }
+        current.set(new IndexSnapshot(table, null, compactIndexes));
     }
 
     /**
-     * Loads and parses a CSV dataset from the provided file path.
+     * Opens a dataset from a binary snapshot written by {@link #saveSnapshot(String, String)}, so that
+     * queries can be served without reparsing the CSV. If the snapshot is missing, unreadable or was
+     * built from a different version of the CSV (size, modification time and checksum are compared),
+     * the CSV is loaded instead.
      *
-     * @param csvFile The path to the CSV file.
-     * @return The number of valid SteamGame entries loaded.
+     * @param snapshotFile The path to the snapshot file.
+     * @param csvFile The path to the CSV file the snapshot was built from.
      */
-    @Override
-    public int loadDataset(String csvFile) {
-        String line;
-        try (BufferedReader br = new BufferedReader(new FileReader(csvFile))) {
-            br.readLine(); // Skip header
+    public SteamGamesImpl(String snapshotFile, String csvFile) {
+        SnapshotFile.Contents contents = null;
+        try {
+            contents = SnapshotFile.open(Path.of(snapshotFile), Path.of(csvFile));
+        } catch (IOException | RuntimeException e) {
+            System.out.println("Ignoring unreadable snapshot " + snapshotFile + ": " + e);
+        }
 
-            SimpleDateFormat format = new SimpleDateFormat("MMM dd, yyyy", Locale.ENGLISH);
+        if (contents == null) {
+            loadDataset(csvFile);
+        } else {
+            current.set(new IndexSnapshot(contents.getTable(), contents.getTopKIndex(), compactIndexes));
+        }
+    }
 
-            while ((line = br.readLine()) != null) {
-                List<String> values = parseLine(line);
+    /**
+     * Writes the loaded table and its presorted orderings to a versioned binary snapshot that
+     * {@link #SteamGamesImpl(String, String)} can open later.
+     *
+     * @param snapshotFile The path of the snapshot file to write.
+     * @param csvFile The path to the CSV file the dataset was loaded from.
+     * @throws IOException If the snapshot cannot be written or the CSV cannot be read.
+     */
+    public void saveSnapshot(String snapshotFile, String csvFile) throws IOException {
+        IndexSnapshot snapshot;
+        synchronized (reloadLock) {
+            // Drop the rows of removed games, both from the file and from the served snapshot;
+            // the orderings must cover exactly the stored rows
+            snapshot = current.get().withoutRemovedRows();
+            current.set(snapshot);
+        }
+        SnapshotFile.write(Path.of(snapshotFile), Path.of(csvFile), snapshot.getTable(), snapshot.getTopKIndex());
+    }
 
-                if (values.size() < 6) {
-                    System.out.println("Skipping malformed row: " + values);
-                    continue;
-                }
+    /**
+     * Returns the registry the load phases ({@code load.read}, {@code load.parse} and
+     * {@code load.index}) are recorded in. Pass it to an {@link InstrumentedSteamGamesQuery} to
+     * record query metrics alongside them.
+     *
+     * @return The metrics registry.
+     */
+    public QueryMetrics getMetrics() {
+        return metrics;
+    }
 
-                Date releaseDate = null;
-                if (!values.get(3).equalsIgnoreCase("NaN")) {
-                    try {
-                        releaseDate = format.parse(values.get(3));
-                    } catch (ParseException e) {
-                        System.out.println("Invalid date format for game '" + values.get(1) + "': " + e.getMessage());
-                    }
-                }
+    /**
+     * Chooses how the date indexes are stored: as {@link CompactDateIndex} postings (sorted row
+     * arrays with a release-day directory) or as maps of per-day lists. Compact indexes take a
+     * fraction of the memory and scan date windows sequentially, while map indexes update a
+     * changed tag in place of rebuilding it, so incremental edits to large tags are cheaper.
+     * The current dataset is reindexed in the new mode, and later loads keep using it.
+     *
+     * @param compact Whether to use compact date indexes.
+     */
+    public void setCompactIndexes(boolean compact) {
+        synchronized (reloadLock) {
+            compactIndexes = compact;
+            IndexSnapshot snapshot = current.get();
+            if (snapshot.isCompact() == compact) {
+                return;
+            }
+            GameTable table = snapshot.getTable();
+            TopKIndex orderings = snapshot.getTopKIndex();
+            if (snapshot.getGameCount() < table.size()) {
+                // Leave out the rows of removed games; the orderings must cover exactly the indexed rows
+                table = new GameTable(snapshot.getGameCount());
+                table.appendRows(snapshot.getTable(), snapshot.getAllRows());
+                orderings = null;
+            }
+            current.set(new IndexSnapshot(table, orderings, compact));
+        }
+    }
+
+    /**
+     * Returns whether the date indexes are stored as compact postings.
+     *
+     * @return True if compact indexes are used.
+     */
+    public boolean isCompactIndexes() {
+        return compactIndexes;
+    }
 
-                double originalPrice = parsePrice(values.get(5));
+    /**
+     * Estimates the heap bytes used by each structure of the current snapshot.
+     *
+     * @return The memory report.
+     */
+    public MemoryReport getMemoryReport() {
+        return current.get().memoryReport();
+    }
 
-                if (releaseDate != null) {
-                    // Only add valid entries to the main list
-                    SteamGame tmp = new SteamGame(values.get(1), releaseDate, values.get(2), originalPrice, values.get(4));
-                    gamesArrayList.add(tmp);
-                }
-            }
+    /**
+     * Returns the snapshot that queries currently run against. It stays valid and unchanged
+     * after later loads, which publish a new snapshot instead.
+     *
+     * @return The current snapshot.
+     */
+    public IndexSnapshot getSnapshot() {
+        return current.get();
+    }
 
+    /**
+     * Loads and parses a CSV dataset from the provided file path and adds its games to the
+     * dataset. The file is memory-mapped and parsed in parallel by a {@link ParallelCsvLoader}.
+     *
+     * <p>The indexes are rebuilt into a new {@link IndexSnapshot} that replaces the current one
+     * atomically once complete, so concurrent queries keep running against the previous
+     * version of the dataset until then.
+     *
+     * @param csvFile The path to the CSV file.
+     * @return The number of valid SteamGame entries loaded.
+     */
+    @Override
+    public int loadDataset(String csvFile) {
+        GameTable loaded;
+        try {
+            loaded = new ParallelCsvLoader(metrics).load(Path.of(csvFile));
         } catch (IOException e) {
             // Silently ignore for now
+            loaded = new GameTable();
         }
 
-        // Populate lookup maps after loading all data
-        for (SteamGame game : gamesArrayList) {
-            String[] tags = game.getPopularTags().split(",");
-            Date releaseDate = game.getReleaseDate();
-
-            for (String tag : tags) {
-                String normalizedTag = tag.trim().toLowerCase();
-
-                // TreeMap: used for range queries
-                gamesTreeMap
-                        .computeIfAbsent(normalizedTag, k -> new TreeMap<>())
-                        .computeIfAbsent(releaseDate, k -> new ArrayList<>())
-                        .add(game);
-
-                // HashMap: used for exact year queries
-                gamesHashMap
-                        .computeIfAbsent(normalizedTag, k -> new HashMap<>())
-                        .computeIfAbsent(releaseDate, k -> new ArrayList<>())
-                        .add(game);
+        synchronized (reloadLock) {
+            IndexSnapshot previous = current.get();
+            GameTable table = loaded;
+            if (previous.getGameCount() > 0) {
+                table = new GameTable(previous.getGameCount() + loaded.size());
+                if (previous.getGameCount() == previous.getTable().size()) {
+                    table.appendRows(previous.getTable());
+                } else {
+                    // Leave out the rows of removed games
+                    table.appendRows(previous.getTable(), previous.getAllRows());
+                }
+                table.appendRows(loaded);
             }
+            QueryMetrics.Phase index = metrics.startPhase("index");
+            current.set(new IndexSnapshot(table, null, compactIndexes));
+            index.end(table.size());
+            return table.size();
         }
-        return gamesArrayList.size();
     }
 
     /**
-     * Parses a line from a CSV file, handling quoted fields.
+     * Replaces the dataset with the games of a CSV file. Queries keep running against the
+     * previous snapshot while the new one is built, and see the new one as soon as it is
+     * swapped in. If the file cannot be read, the current dataset is kept.
      *
-     * @param line The line to parse.
-     * @return A list of parsed fields.
+     * @param csvFile The path to the CSV file.
+     * @return The number of valid SteamGame entries loaded.
+     * @throws IOException If the file cannot be read.
      */
-    public List<String> parseLine(String line) {
-        List<String> fields = new ArrayList<>();
-        StringBuilder current = new StringBuilder();
-        boolean inQuotes = false;
-
-        // Custom CSV parsing that supports quoted fields and escaped quotes
-        for (int i = 0; i < line.length(); i++) {
-            char c = line.charAt(i);
-
-            if (c == '"') {
-                if (inQuotes && i + 1 < line.length() && line.charAt(i + 1) == '"') {
-                    current.append('"'); // Escaped quote
-                    i++;
-                } else {
-                    inQuotes = !inQuotes; // Toggle quote state
-                }
-            } else if (c == ',' && !inQuotes) {
-                fields.add(current.toString());
-                current.setLength(0);
-            } else {
-                current.append(c);
+    public int reloadDataset(String csvFile) throws IOException {
+        GameTable table = new ParallelCsvLoader(metrics).load(Path.of(csvFile));
+        QueryMetrics.Phase index = metrics.startPhase("index");
+        IndexSnapshot next = new IndexSnapshot(table, null, compactIndexes);
+        index.end(table.size());
+        synchronized (reloadLock) {
+            current.set(next);
+        }
+        return table.size();
+    }
+
+    /**
+     * Replaces the dataset with the games of a CSV file on a background thread, like
+     * {@link #reloadDataset(String)}.
+     *
+     * @param csvFile The path to the CSV file.
+     * @return A future completed with the number of games loaded once the new snapshot is
+     *         published, or completed exceptionally if the file cannot be read.
+     */
+    public CompletableFuture<Integer> reloadDatasetAsync(String csvFile) {
+        CompletableFuture<Integer> result = new CompletableFuture<>();
+        Thread reloader = new Thread(() -> {
+            try {
+                result.complete(reloadDataset(csvFile));
+            } catch (IOException | RuntimeException | Error e) {
+                result.completeExceptionally(e);
             }
+        }, "steam-games-reload");
+        reloader.setDaemon(true);
+        reloader.start();
+        return result;
+    }
+
+    /**
+     * Adds a game to the dataset. Only the indexes of the game's tags, release day and terms are
+     * updated, and the new snapshot is swapped in like a reload.
+     *
+     * @param game The game to add.
+     * @return True if the game was added; false if it has no release date.
+     */
+    public boolean addGame(SteamGame game) {
+        if (game.getReleaseDate() == null) {
+            System.out.println("Skipping game '" + game.getName() + "' without a release date");
+            return false;
+        }
+        synchronized (reloadLock) {
+            DatasetEdit edit = new DatasetEdit(current.get());
+            edit.add(game.getName(), EpochDays.floor(game.getReleaseDate()), game.getAllReviews(),
+                    game.getOriginalPrice(), game.getPopularTags());
+            current.set(edit.apply());
         }
+        return true;
+    }
 
-        fields.add(current.toString());
-        return fields;
+    /**
+     * Replaces every game with the same name as the given game by it.
+     *
+     * @param game The new version of the game.
+     * @return The number of games replaced (0 if no game has the name or the game has no release date).
+     */
+    public int updateGame(SteamGame game) {
+        if (game.getReleaseDate() == null) {
+            System.out.println("Skipping game '" + game.getName() + "' without a release date");
+            return 0;
+        }
+        synchronized (reloadLock) {
+            DatasetEdit edit = new DatasetEdit(current.get());
+            int count = edit.update(game.getName(), EpochDays.floor(game.getReleaseDate()), game.getAllReviews(),
+                    game.getOriginalPrice(), game.getPopularTags());
+            current.set(edit.apply());
+            return count;
+        }
     }
 
     /**
-     * Parses a price string and returns a numeric value.
+     * Removes every game with the given name.
      *
-     * @param priceStr The string representing the price.
-     * @return The parsed price as a double.
+     * @param name The exact name of the game.
+     * @return The number of games removed.
      */
-    private double parsePrice(String priceStr) {
-        // Normalize and convert string prices like "$29.99", "Free", or "NaN"
-        if (priceStr == null || priceStr.trim().isEmpty() || priceStr.toLowerCase().contains("free")
-                || priceStr.equalsIgnoreCase("NaN")) {
-            return 0.0;
+    public int removeGame(String name) {
+        synchronized (reloadLock) {
+            DatasetEdit edit = new DatasetEdit(current.get());
+            int count = edit.remove(name);
+            current.set(edit.apply());
+            return count;
         }
+    }
 
-        try {
-            return Double.parseDouble(priceStr.replace("$", "").trim());
-        } catch (NumberFormatException e) {
-            System.out.println("Invalid price format: " + priceStr);
-            return 0.0;
+    /**
+     * Applies a delta CSV of added, updated and deleted games as one new snapshot. The file has the
+     * dataset's columns, with the first column holding {@code add}, {@code update} or
+     * {@code delete} instead of a row number. If the file cannot be read, the dataset is unchanged.
+     * Rows that cannot be applied are skipped; see {@link #applyDelta(String, List)} to list them.
+     *
+     * @param csvFile The path to the delta CSV file.
+     * @return The number of changes applied.
+     * @throws IOException If the file cannot be read.
+     */
+    public int applyDelta(String csvFile) throws IOException {
+        return applyDelta(csvFile, null);
+    }
+
+    /**
+     * Applies a delta CSV like {@link #applyDelta(String)}, and lists the rows it skipped:
+     * malformed rows, rows with an unparseable release date, and updates or deletes of games
+     * that do not exist.
+     *
+     * @param csvFile The path to the delta CSV file.
+     * @param skippedRows A list each skipped row is added to, with the reason it was skipped, or null.
+     * @return The number of changes applied.
+     * @throws IOException If the file cannot be read.
+     */
+    public int applyDelta(String csvFile, List<String> skippedRows) throws IOException {
+        synchronized (reloadLock) {
+            DatasetEdit edit = new DatasetEdit(current.get());
+            int count = edit.applyCsv(Path.of(csvFile));
+            current.set(edit.apply());
+            if (skippedRows != null) {
+                skippedRows.addAll(edit.getSkippedRows());
+            }
+            return count;
         }
     }
 
+    /**
+     * Parses a line from a CSV file, handling quoted fields.
+     *
+     * @param line The line to parse.
+     * @return A list of parsed fields.
+     */
+    public List<String> parseLine(String line) {
+        return ParallelCsvLoader.parseLine(line);
+    }
+
     /**
      * Finds games that exactly match the year and tag provided.
      *
@@ -187,38 +366,29 @@ public class SteamGamesImpl implements SteamGamesDatasetQuery {
      */
     @Override
     public List<String> findGamesByExactQuery(Date yearParam, String tag) {
+        IndexSnapshot snapshot = current.get();
+        GameTable table = snapshot.getTable();
+
         if (yearParam == null || tag == null || tag.trim().isEmpty()) {
             return Collections.emptyList();
         }
 
         // Extract the year component from the date
-        String normalizedTag = tag.toLowerCase().trim();
-        Calendar cal = Calendar.getInstance();
-        cal.setTime(yearParam);
-        int targetYear = cal.get(Calendar.YEAR);
+        int tagId = table.getTags().find(tag);
+        int targetYear = EpochDays.yearOf(EpochDays.floor(yearParam));
 
-        HashMap<Date, List<SteamGame>> tagMap = gamesHashMap.get(normalizedTag);
-        if (tagMap == null) {
+        if (tagId < 0) {
             return Collections.emptyList();
         }
 
-        List<String> result = new ArrayList<>();
-
-        for (Map.Entry<Date, List<SteamGame>> entry : tagMap.entrySet()) {
-            Date releaseDate = entry.getKey();
-            if (releaseDate == null) {
-                continue;
-            }
-
-            cal.setTime(releaseDate);
-            int gameYear = cal.get(Calendar.YEAR);
-            if (gameYear == targetYear) {
-                for (SteamGame game : entry.getValue()) {
-                    result.add(game.getName());
-                }
-            }
+        // Direct lookup of the (tag, year) bucket
+        IntArrayList rows = snapshot.getYearRows(tagId, targetYear);
+        if (rows == null) {
+            return Collections.emptyList();
         }
 
+        List<String> result = new ArrayList<>(rows.size());
+        addNames(table, rows, result);
         return result;
     }
 
@@ -232,28 +402,29 @@ public class SteamGamesImpl implements SteamGamesDatasetQuery {
      */
     @Override
     public List<String> findGamesByReleaseDate(String tag, Date lowerBound, Date upperBound) {
+        IndexSnapshot snapshot = current.get();
+        GameTable table = snapshot.getTable();
+
         if (tag == null || tag.isBlank() || lowerBound == null || upperBound == null) {
             return Collections.emptyList();
         }
 
-        if (lowerBound.after(upperBound)) {
+        int lowerDay = EpochDays.ceil(lowerBound);
+        int upperDay = EpochDays.floor(upperBound);
+        if (lowerDay > upperDay) {
             return Collections.emptyList();
         }
 
-        String normalizedTag = tag.trim().toLowerCase();
-        NavigableMap<Date, List<SteamGame>> dateMap = gamesTreeMap.get(normalizedTag);
-        if (dateMap == null) {
+        int tagId = table.getTags().find(tag);
+        if (tagId < 0) {
             return Collections.emptyList();
         }
 
-        // Use subMap for efficient date range filtering
-        SortedMap<Date, List<SteamGame>> sub = dateMap.subMap(lowerBound, true, upperBound, true);
-
+        // Walk only the tag's rows inside the date window
         List<String> result = new ArrayList<>();
-        for (List<SteamGame> bucket : sub.values()) {
-            for (SteamGame g : bucket) {
-                result.add(g.getName());
-            }
+        DateRangeCursor cursor = snapshot.cursor(tagId, lowerDay, upperDay);
+        while (cursor.hasNext()) {
+            result.add(table.getName(cursor.nextInt()));
         }
         return result;
     }
@@ -267,28 +438,401 @@ public class SteamGamesImpl implements SteamGamesDatasetQuery {
      */
     @Override
     public List<String> findGamesByReleaseDate(String tag, Date upperBound) {
+        IndexSnapshot snapshot = current.get();
+        GameTable table = snapshot.getTable();
+
         if (tag == null || tag.isBlank() || upperBound == null) {
             return Collections.emptyList();
         }
 
-        String normalizedTag = tag.trim().toLowerCase();
-        NavigableMap<Date, List<SteamGame>> dateMap = gamesTreeMap.get(normalizedTag);
-        if (dateMap == null) {
+        int tagId = table.getTags().find(tag);
+        if (tagId < 0) {
+            return Collections.emptyList();
+        }
+
+        // Walk the tag's rows released before or on the upper bound
+        List<String> result = new ArrayList<>();
+        DateRangeCursor cursor = snapshot.cursor(tagId, Integer.MIN_VALUE, EpochDays.floor(upperBound));
+        while (cursor.hasNext()) {
+            result.add(table.getName(cursor.nextInt()));
+        }
+        return result;
+    }
+
+    /**
+     * Finds games whose tags satisfy a boolean tag expression.
+     *
+     * @param expression The tag expression, e.g. "indie AND strategy AND NOT early access".
+     * @return A list of matching game names.
+     */
+    @Override
+    public List<String> findGamesByTagExpression(String expression) {
+        IndexSnapshot snapshot = current.get();
+        GameTable table = snapshot.getTable();
+
+        if (expression == null || expression.isBlank()) {
+            return Collections.emptyList();
+        }
+
+        RowBitmap rows = TagExpression.parse(expression).evaluate(snapshot::findTagBitmap, snapshot.getAllRows());
+
+        List<String> result = new ArrayList<>(rows.cardinality());
+        rows.forEach(row -> result.add(table.getName(row)));
+        return result;
+    }
+
+    /**
+     * Finds games whose tags satisfy a boolean tag expression and that were released
+     * between two dates (inclusive).
+     *
+     * @param expression The tag expression.
+     * @param lowerBound The start date (inclusive).
+     * @param upperBound The end date (inclusive).
+     * @return A list of matching game names.
+     */
+    @Override
+    public List<String> findGamesByTagExpression(String expression, Date lowerBound, Date upperBound) {
+        IndexSnapshot snapshot = current.get();
+        GameTable table = snapshot.getTable();
+
+        if (expression == null || expression.isBlank() || lowerBound == null || upperBound == null) {
+            return Collections.emptyList();
+        }
+
+        int lowerDay = EpochDays.ceil(lowerBound);
+        int upperDay = EpochDays.floor(upperBound);
+        if (lowerDay > upperDay) {
             return Collections.emptyList();
         }
 
-        // Use headMap to get all games released before or on the upper bound
-        SortedMap<Date, List<SteamGame>> sub = dateMap.headMap(upperBound, true);
+        RowBitmap rows = TagExpression.parse(expression).evaluate(snapshot::findTagBitmap, snapshot.getAllRows());
 
         List<String> result = new ArrayList<>();
-        for (List<SteamGame> bucket : sub.values()) {
-            for (SteamGame g : bucket) {
-                result.add(g.getName());
+        rows.forEach(row -> {
+            int releaseDay = table.getReleaseDay(row);
+            if (releaseDay >= lowerDay && releaseDay <= upperDay) {
+                result.add(table.getName(row));
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Finds games in a price range, optionally with a tag and a release date window, cheapest
+     * first. The price range is two binary searches over the tag's (or all games') price-sorted
+     * index; when the date window holds fewer of the tag's games than the price range, the window
+     * is walked instead and its matches are sorted by price.
+     *
+     * @param tag The tag to search, or null for any tag.
+     * @param minPrice The minimum price (inclusive).
+     * @param maxPrice The maximum price (inclusive).
+     * @param lowerBound The start date (inclusive), or null for no lower bound.
+     * @param upperBound The end date (inclusive), or null for no upper bound.
+     * @return A list of matching game names sorted by price.
+     */
+    @Override
+    public List<String> findGamesByPrice(String tag, double minPrice, double maxPrice, Date lowerBound,
+                                         Date upperBound) {
+        IndexSnapshot snapshot = current.get();
+        GameTable table = snapshot.getTable();
+
+        if (!(minPrice <= maxPrice)) {
+            return Collections.emptyList();
+        }
+
+        int lowerDay = lowerBound == null ? Integer.MIN_VALUE : EpochDays.ceil(lowerBound);
+        int upperDay = upperBound == null ? Integer.MAX_VALUE : EpochDays.floor(upperBound);
+        if (lowerDay > upperDay) {
+            return Collections.emptyList();
+        }
+
+        boolean anyTag = tag == null || tag.isBlank();
+        int tagId = anyTag ? -1 : table.getTags().find(tag);
+        if (!anyTag && tagId < 0) {
+            return Collections.emptyList();
+        }
+
+        PriceSortedIndex prices = anyTag ? snapshot.getPriceSortedIndex() : snapshot.getTagPriceSortedIndex(tagId);
+        int from = prices.lowerBound(table, minPrice);
+        int to = prices.upperBound(table, maxPrice);
+        boolean windowed = lowerBound != null || upperBound != null;
+
+        if (windowed) {
+            PriceAggregateIndex counts = anyTag ? snapshot.getPriceIndex() : snapshot.getTagPriceIndex(tagId);
+            if (counts.summarize(lowerDay, upperDay).getCount() < to - from) {
+                // The date window is narrower: walk it, keep the price range and sort by price
+                DateRangeCursor cursor = anyTag ? snapshot.allGamesCursor(lowerDay, upperDay)
+                        : snapshot.cursor(tagId, lowerDay, upperDay);
+                IntArrayList matches = new IntArrayList();
+                while (cursor.hasNext()) {
+                    int row = cursor.nextInt();
+                    if (table.getPrice(row) >= minPrice && table.getPrice(row) <= maxPrice) {
+                        matches.add(row);
+                    }
+                }
+                int[] rows = matches.toArray();
+                PriceSortedIndex.sort(table, rows);
+                List<String> result = new ArrayList<>(rows.length);
+                for (int row : rows) {
+                    result.add(table.getName(row));
+                }
+                return result;
+            }
+        }
+
+        // The price range is narrower: walk its slice in price order and keep the date window
+        List<String> result = new ArrayList<>(Math.max(0, to - from));
+        for (int position = from; position < to; position++) {
+            int row = prices.getRow(position);
+            int releaseDay = table.getReleaseDay(row);
+            if (releaseDay >= lowerDay && releaseDay <= upperDay) {
+                result.add(table.getName(row));
             }
         }
         return result;
     }
 
+    /**
+     * Streams games with the given tag released between two dates (inclusive) by walking the
+     * tag's date index lazily.
+     *
+     * @param tag The tag to search.
+     * @param lowerBound The start date (inclusive), or null for no lower bound.
+     * @param upperBound The end date (inclusive), or null for no upper bound.
+     * @return A lazy stream of matching game names.
+     */
+    @Override
+    public Stream<String> streamGamesByReleaseDate(String tag, Date lowerBound, Date upperBound) {
+        IndexSnapshot snapshot = current.get();
+        GameTable table = snapshot.getTable();
+
+        if (tag == null || tag.isBlank()) {
+            return Stream.empty();
+        }
+
+        int tagId = table.getTags().find(tag);
+        if (tagId < 0) {
+            return Stream.empty();
+        }
+
+        DateRangeCursor cursor = snapshot.cursor(tagId, lowerDay(lowerBound), upperDay(upperBound));
+        return StreamSupport.intStream(Spliterators.spliteratorUnknownSize(cursor,
+                Spliterator.ORDERED | Spliterator.DISTINCT | Spliterator.NONNULL), false)
+                .mapToObj(table::getName);
+    }
+
+    /**
+     * Returns one page of games with the given tag released between two dates (inclusive).
+     * The page token holds the release day and row id of the last game returned, so the next
+     * page resumes with a single index lookup instead of skipping earlier pages.
+     *
+     * @param tag The tag to search.
+     * @param lowerBound The start date (inclusive), or null for no lower bound.
+     * @param upperBound The end date (inclusive), or null for no upper bound.
+     * @param limit The maximum number of games on the page.
+     * @param pageToken The token of the previous page, or null for the first page.
+     * @return The page of matching game names.
+     */
+    @Override
+    public GamePage findGamesByReleaseDate(String tag, Date lowerBound, Date upperBound, int limit,
+                                           String pageToken) {
+        IndexSnapshot snapshot = current.get();
+        GameTable table = snapshot.getTable();
+
+        if (tag == null || tag.isBlank() || limit <= 0) {
+            return GamePage.EMPTY;
+        }
+
+        int tagId = table.getTags().find(tag);
+        if (tagId < 0) {
+            return GamePage.EMPTY;
+        }
+
+        DateRangeCursor cursor;
+        if (pageToken == null) {
+            cursor = snapshot.cursor(tagId, lowerDay(lowerBound), upperDay(upperBound));
+        } else {
+            long position = GamePage.decodeToken(pageToken);
+            cursor = snapshot.cursor(tagId, lowerDay(lowerBound), upperDay(upperBound),
+                    (int) (position >> 32), (int) position);
+        }
+
+        List<String> names = new ArrayList<>(Math.min(limit, 64));
+        int lastRow = -1;
+        while (names.size() < limit && cursor.hasNext()) {
+            lastRow = cursor.nextInt();
+            names.add(table.getName(lastRow));
+        }
+        return new GamePage(names, cursor.hasNext() ? GamePage.encodeToken(cursor.getLastDay(), lastRow) : null);
+    }
+
+    /**
+     * Streams games whose tags satisfy a boolean tag expression and that were released between
+     * two dates (inclusive). The expression is evaluated up front; names are produced lazily.
+     *
+     * @param expression The tag expression.
+     * @param lowerBound The start date (inclusive), or null for no lower bound.
+     * @param upperBound The end date (inclusive), or null for no upper bound.
+     * @return A lazy stream of matching game names.
+     */
+    @Override
+    public Stream<String> streamGamesByTagExpression(String expression, Date lowerBound, Date upperBound) {
+        IndexSnapshot snapshot = current.get();
+        GameTable table = snapshot.getTable();
+
+        if (expression == null || expression.isBlank()) {
+            return Stream.empty();
+        }
+
+        int lowerDay = lowerDay(lowerBound);
+        int upperDay = upperDay(upperBound);
+        RowBitmap rows = TagExpression.parse(expression).evaluate(snapshot::findTagBitmap, snapshot.getAllRows());
+
+        return IntStream.iterate(rows.nextSetBit(0), row -> row >= 0, row -> rows.nextSetBit(row + 1))
+                .filter(row -> table.getReleaseDay(row) >= lowerDay && table.getReleaseDay(row) <= upperDay)
+                .mapToObj(table::getName);
+    }
+
+    /**
+     * Returns one page of games whose tags satisfy a boolean tag expression and that were released
+     * between two dates (inclusive). The page token resumes the bitmap walk after the last row.
+     *
+     * @param expression The tag expression.
+     * @param lowerBound The start date (inclusive), or null for no lower bound.
+     * @param upperBound The end date (inclusive), or null for no upper bound.
+     * @param limit The maximum number of games on the page.
+     * @param pageToken The token of the previous page, or null for the first page.
+     * @return The page of matching game names.
+     */
+    @Override
+    public GamePage findGamesByTagExpression(String expression, Date lowerBound, Date upperBound, int limit,
+                                             String pageToken) {
+        IndexSnapshot snapshot = current.get();
+        GameTable table = snapshot.getTable();
+
+        if (expression == null || expression.isBlank() || limit <= 0) {
+            return GamePage.EMPTY;
+        }
+
+        int lowerDay = lowerDay(lowerBound);
+        int upperDay = upperDay(upperBound);
+        int from = pageToken == null ? 0 : (int) GamePage.decodeToken(pageToken) + 1;
+        RowBitmap rows = TagExpression.parse(expression).evaluate(snapshot::findTagBitmap, snapshot.getAllRows());
+
+        List<String> names = new ArrayList<>(Math.min(limit, 64));
+        int lastRow = -1;
+        for (int row = rows.nextSetBit(from); row >= 0; row = rows.nextSetBit(row + 1)) {
+            int releaseDay = table.getReleaseDay(row);
+            if (releaseDay < lowerDay || releaseDay > upperDay) {
+                continue;
+            }
+            if (names.size() == limit) {
+                // A further match exists, so there is a next page
+                return new GamePage(names, GamePage.encodeToken(table.getReleaseDay(lastRow), lastRow));
+            }
+            names.add(table.getName(row));
+            lastRow = row;
+        }
+        return new GamePage(names, null);
+    }
+
+    /**
+     * Finds games whose name or review text matches a full-text query, optionally restricted to
+     * games satisfying a tag expression and released within a date window.
+     *
+     * @param query The search query; quoted text is matched as a phrase.
+     * @param tagExpression The tag expression to filter by, or null for any tags.
+     * @param lowerBound The start date (inclusive), or null for no lower bound.
+     * @param upperBound The end date (inclusive), or null for no upper bound.
+     * @return A list of matching game names.
+     */
+    @Override
+    public List<String> searchGames(String query, String tagExpression, Date lowerBound, Date upperBound) {
+        IndexSnapshot snapshot = current.get();
+        GameTable table = snapshot.getTable();
+
+        if (query == null || query.isBlank()) {
+            return Collections.emptyList();
+        }
+
+        int lowerDay = lowerDay(lowerBound);
+        int upperDay = upperDay(upperBound);
+        if (lowerDay > upperDay) {
+            return Collections.emptyList();
+        }
+
+        int[] rows = snapshot.getTextIndex().search(query);
+        RowBitmap tagRows = tagExpression == null || tagExpression.isBlank()
+                ? null
+                : TagExpression.parse(tagExpression).evaluate(snapshot::findTagBitmap, snapshot.getAllRows());
+
+        List<String> result = new ArrayList<>();
+        for (int row : rows) {
+            int releaseDay = table.getReleaseDay(row);
+            if (releaseDay >= lowerDay && releaseDay <= upperDay && (tagRows == null || tagRows.contains(row))) {
+                result.add(table.getName(row));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Suggests games whose name starts with a prefix, best reviewed first.
+     *
+     * @param prefix The name prefix (case-insensitive).
+     * @param k The maximum number of suggestions.
+     * @return A list of matching game names.
+     */
+    @Override
+    public List<String> autocompleteGames(String prefix, int k) {
+        IndexSnapshot snapshot = current.get();
+        GameTable table = snapshot.getTable();
+
+        if (prefix == null || k <= 0) {
+            return Collections.emptyList();
+        }
+
+        int[] rows = snapshot.getAutocompleteIndex().complete(prefix, k);
+        List<String> result = new ArrayList<>(rows.length);
+        for (int row : rows) {
+            result.add(table.getName(row));
+        }
+        return result;
+    }
+
+    /**
+     * Converts an optional inclusive lower date bound to an epoch day.
+     *
+     * @param lowerBound The start date, or null for no lower bound.
+     * @return The first epoch day of the window.
+     */
+    private static int lowerDay(Date lowerBound) {
+        return lowerBound == null ? Integer.MIN_VALUE : EpochDays.ceil(lowerBound);
+    }
+
+    /**
+     * Converts an optional inclusive upper date bound to an epoch day.
+     *
+     * @param upperBound The end date, or null for no upper bound.
+     * @return The last epoch day of the window.
+     */
+    private static int upperDay(Date upperBound) {
+        return upperBound == null ? Integer.MAX_VALUE : EpochDays.floor(upperBound);
+    }
+
+    /**
+     * Appends the names of the given rows to a result list.
+     *
+     * @param table The games.
+     * @param rows The row ids.
+     * @param result The list to append to.
+     */
+    private static void addNames(GameTable table, IntArrayList rows, List<String> result) {
+        for (int i = 0; i < rows.size(); i++) {
+            result.add(table.getName(rows.get(i)));
+        }
+    }
+
     /**
      * Finds the top-k games sorted by the specified attribute.
      *
@@ -298,73 +842,172 @@ public class SteamGamesImpl implements SteamGamesDatasetQuery {
      */
     @Override
     public List<SteamGame> findTopGamesByAttribute(String attribute, int k) {
-        Comparator<SteamGame> comparator;
-
-        // Dynamically choose a comparator based on attribute
-        switch (attribute.toLowerCase()) {
-            case "original_price" ->
-                comparator = Comparator.comparingDouble(SteamGame::getOriginalPrice).reversed();
-            case "release_date" ->
-                comparator = Comparator.comparing(SteamGame::getReleaseDate).reversed();
-            case "name" ->
-                comparator = Comparator.comparing(SteamGame::getName);
-            case "all_reviews" ->
-                comparator = Comparator.comparingDouble(this::extractReviewScore).reversed();
-            default -> {
-                System.out.println("Unsupported attribute: " + attribute);
-                return List.of();
-            }
+        IndexSnapshot snapshot = current.get();
+        GameTable table = snapshot.getTable();
+
+        String normalizedAttribute = attribute.toLowerCase();
+        if (!snapshot.getTopKIndex().supports(normalizedAttribute)) {
+            System.out.println("Unsupported attribute: " + attribute);
+            return List.of();
         }
 
-        // Use stream to get top-k elements based on selected comparator
-        return gamesArrayList.stream()
-                .sorted(comparator)
-                .limit(k)
-                .toList();
+        // The ordering is presorted at load time, so the top-k is a prefix of it
+        return toSteamGames(table, snapshot.getTopKIndex().top(normalizedAttribute, k));
     }
 
     /**
-     * Parses the 'all_reviews' field to extract a numerical score.
+     * Finds the top-k games sorted by the specified attribute among games with a tag
+     * and/or release date window.
      *
-     * @param game The SteamGame object.
-     * @return The extracted score as a double.
+     * @param attribute The attribute to sort by ("original_price", "release_date", "name", "all_reviews").
+     * @param k The number of top games to return.
+     * @param tag The tag to filter by, or null for any tag.
+     * @param lowerBound The start date (inclusive), or null for no lower bound.
+     * @param upperBound The end date (inclusive), or null for no upper bound.
+     * @return A list of top SteamGame objects.
      */
-    private double extractReviewScore(SteamGame game) {
-        try {
-            String reviewField = game.getAllReviews();
-            if (reviewField == null || reviewField.isEmpty()) {
-                return 0;
-            }
-    
-            // Return 0 if the % symbol is missing
-            int percentIndex = reviewField.indexOf('%');
-            if (percentIndex == -1) {
-                return 0;
+    @Override
+    public List<SteamGame> findTopGamesByAttribute(String attribute, int k, String tag, Date lowerBound,
+                                                   Date upperBound) {
+        IndexSnapshot snapshot = current.get();
+        GameTable table = snapshot.getTable();
+
+        String normalizedAttribute = attribute.toLowerCase();
+        if (!snapshot.getTopKIndex().supports(normalizedAttribute)) {
+            System.out.println("Unsupported attribute: " + attribute);
+            return List.of();
+        }
+
+        int lowerDay = lowerBound == null ? Integer.MIN_VALUE : EpochDays.ceil(lowerBound);
+        int upperDay = upperBound == null ? Integer.MAX_VALUE : EpochDays.floor(upperBound);
+        if (lowerDay > upperDay || k <= 0) {
+            return List.of();
+        }
+
+        boolean hasTag = tag != null && !tag.isBlank();
+        int tagId = hasTag ? table.getTags().find(tag) : -1;
+        if (hasTag && tagId < 0) {
+            return List.of();
+        }
+
+        // Count the candidates in O(log d) to choose between the two strategies
+        PriceAggregateIndex counter = hasTag ? snapshot.getTagPriceIndex(tagId) : snapshot.getPriceIndex();
+        long candidates = counter.summarize(lowerDay, upperDay).getCount();
+        if (candidates == 0) {
+            return List.of();
+        }
+
+        int[] rows;
+        if (!hasTag || (long) k * snapshot.getGameCount() <= candidates * candidates) {
+            // Dense filter: walking the presorted order finds k matches after about k * n / candidates rows
+            RowBitmap tagRows = hasTag ? snapshot.getTagBitmap(tagId) : null;
+            rows = snapshot.getTopKIndex().top(normalizedAttribute, k, row -> {
+                int releaseDay = table.getReleaseDay(row);
+                return releaseDay >= lowerDay && releaseDay <= upperDay
+                        && (tagRows == null || tagRows.contains(row));
+            });
+        } else {
+            // Selective filter: bounded heap over the candidates from the tag's date range, which hold
+            // each game once since GameTable stores a repeated tag once
+            IntArrayList candidateRows = new IntArrayList((int) candidates);
+            DateRangeCursor cursor = snapshot.cursor(tagId, lowerDay, upperDay);
+            while (cursor.hasNext()) {
+                candidateRows.add(cursor.nextInt());
             }
-    
-            // Extract review percentage
-            int percentStart = reviewField.lastIndexOf(' ', percentIndex - 1) + 1;
-            String percentStr = reviewField.substring(percentStart, percentIndex).trim();
-            int percent = Integer.parseInt(percentStr);
-    
-            // Extract review count (inside parentheses)    
-            int open = reviewField.indexOf('(');
-            int close = reviewField.indexOf(')');
-            if (open == -1 || close == -1 || close <= open) {
-                return percent; // If count missing, return just the percent
+            rows = snapshot.getTopKIndex().select(normalizedAttribute, k, candidateRows);
+        }
+        return toSteamGames(table, rows);
+    }
+
+    /**
+     * Finds the top-k games according to an arbitrary comparator using a bounded heap of row ids.
+     * Rows are compared through two reusable {@link GameTable.RowView}s that decode only the
+     * columns the comparator reads, and only the k results are materialized as SteamGame objects.
+     *
+     * @param comparator The ordering; the smallest games come first.
+     * @param k The number of top games to return.
+     * @return A list of top SteamGame objects.
+     */
+    @Override
+    public List<SteamGame> findTopGames(Comparator<SteamGame> comparator, int k) {
+        IndexSnapshot snapshot = current.get();
+        GameTable table = snapshot.getTable();
+
+        if (comparator == null || k <= 0) {
+            return List.of();
+        }
+
+        GameTable.RowView left = table.newRowView();
+        GameTable.RowView right = table.newRowView();
+        Comparator<Integer> rowComparator = (a, b) -> comparator.compare(left.moveTo(a), right.moveTo(b));
+
+        // Max-heap of the k best rows seen so far; the root is the worst of them
+        PriorityQueue<Integer> heap = new PriorityQueue<>(Math.min(k, Math.max(1, snapshot.getGameCount())),
+                rowComparator.reversed());
+        snapshot.getAllRows().forEach(row -> {
+            if (heap.size() < k) {
+                heap.add(row);
+            } else if (comparator.compare(left.moveTo(row), right.moveTo(heap.peek())) < 0) {
+                heap.poll();
+                heap.add(row);
             }
-    
-            String countStr = reviewField.substring(open + 1, close).replace(",", "").trim();
-            int count = Integer.parseInt(countStr);
-    
-            // Combine both metrics into a score
-            return percent + count / 1000.0;
-    
-        } catch (Exception e) {
-            return 0;
+        });
+
+        List<Integer> rows = new ArrayList<>(heap);
+        rows.sort(rowComparator);
+        List<SteamGame> result = new ArrayList<>(rows.size());
+        for (int row : rows) {
+            result.add(table.toSteamGame(row));
+        }
+        return result;
+    }
+
+    /**
+     * Finds the games matching a composite query. The {@link QueryPlanner} counts the candidates
+     * of every index the query can use and drives it from the most selective one, checking the
+     * other criteria per candidate.
+     *
+     * @param query The query.
+     * @return A list of matching SteamGame objects.
+     */
+    @Override
+    public List<SteamGame> findGames(GameQuery query) {
+        IndexSnapshot snapshot = current.get();
+
+        if (query == null) {
+            return List.of();
+        }
+
+        QueryPlanner.Plan plan = QueryPlanner.plan(snapshot, query);
+        return toSteamGames(snapshot.getTable(), QueryPlanner.execute(snapshot, query, plan));
+    }
+
+    /**
+     * Returns the plan {@link #findGames(GameQuery)} would use for a query against the current
+     * dataset, without running it.
+     *
+     * @param query The query.
+     * @return The chosen access path and the planner's estimates.
+     */
+    public QueryPlanner.Plan explain(GameQuery query) {
+        return QueryPlanner.plan(current.get(), query);
+    }
+
+    /**
+     * Materializes rows as SteamGame objects.
+     *
+     * @param table The games.
+     * @param rows The row ids.
+     * @return The games, in the order of {@code rows}.
+     */
+    private static List<SteamGame> toSteamGames(GameTable table, int[] rows) {
+        List<SteamGame> result = new ArrayList<>(rows.length);
+        for (int row : rows) {
+            result.add(table.toSteamGame(row));
         }
+        return result;
     }
-    
+
     /**
      * Calculates the average price of games within a tag and date range.
      *
@@ -375,82 +1018,322 @@ public class SteamGamesImpl implements SteamGamesDatasetQuery {
      */
     @Override
     public List<String> calculateAverageGamePrice(Date startTime, Date endTime, String tag) {
+        return formatAverage(calculatePriceSummary(startTime, endTime, tag));
+    }
+
+    /**
+     * Calculates the average price of all games released within a date range.
+     *
+     * @param startTime The start date.
+     * @param endTime The end date.
+     * @return A list containing one string with the formatted average price.
+     */
+    @Override
+    public List<String> calculateAverageGamePrice(Date startTime, Date endTime) {
+        return formatAverage(calculatePriceSummary(startTime, endTime));
+    }
+
+    /**
+     * Summarizes the prices of games within a tag and date range.
+     *
+     * @param startTime The start date.
+     * @param endTime The end date.
+     * @param tag The tag to filter by.
+     * @return The count, sum, min, max and mean price of the matching games.
+     */
+    @Override
+    public PriceSummary calculatePriceSummary(Date startTime, Date endTime, String tag) {
+        IndexSnapshot snapshot = current.get();
+        GameTable table = snapshot.getTable();
+
         tag = tag.toLowerCase();
         if (startTime == null || endTime == null || tag == null) {
             throw new NullPointerException("Start time, end time, or tag is null.");
         }
 
         if (startTime.after(endTime)) {
-            return Collections.emptyList();
+            return PriceSummary.EMPTY;
         }
 
-        if (!gamesTreeMap.containsKey(tag)) {
-            return Collections.emptyList();
+        int tagId = table.getTags().find(tag);
+        if (tagId < 0) {
+            return PriceSummary.EMPTY;
         }
 
-        NavigableMap<Date, List<SteamGame>> dateMap = gamesTreeMap.get(tag);
-        SortedMap<Date, List<SteamGame>> gamesInRange = dateMap.subMap(startTime, true, endTime, true);
+        // Segment tree over the tag's release days: O(log d) regardless of window size
+        return snapshot.getTagPriceIndex(tagId).summarize(EpochDays.ceil(startTime), EpochDays.floor(endTime));
+    }
+
+    /**
+     * Summarizes the prices of all games released within a date range. Each game is
+     * counted once, no matter how many tags it has.
+     *
+     * @param startTime The start date.
+     * @param endTime The end date.
+     * @return The count, sum, min, max and mean price of the matching games.
+     */
+    @Override
+    public PriceSummary calculatePriceSummary(Date startTime, Date endTime) {
+        IndexSnapshot snapshot = current.get();
 
-        double totalPrice = 0.0;
-        int count = 0;
+        if (startTime == null || endTime == null) {
+            throw new NullPointerException("Start time or end time is null.");
+        }
 
-        // Aggregate price and count to compute average
-        for (List<SteamGame> gameList : gamesInRange.values()) {
-            for (SteamGame game : gameList) {
-                totalPrice += game.getOriginalPrice();
-                count++;
-            }
+        if (startTime.after(endTime)) {
+            return PriceSummary.EMPTY;
         }
 
-        if (count == 0) {
-            return Collections.emptyList();
+        return snapshot.getPriceIndex().summarize(EpochDays.ceil(startTime), EpochDays.floor(endTime));
+    }
+
+    /**
+     * Groups game counts and prices by tag and release period in one call, instead of one
+     * {@link #calculateAverageGamePrice(Date, Date, String)} per tag and period. The cells come from
+     * the (tag, month) rollup cube materialized with each snapshot, so the cost depends on the number
+     * of tags and months covered, not on the number of games.
+     *
+     * @param tags The tags of the rows (case-insensitive), or null for every tag.
+     * @param fromYear The first release year (inclusive).
+     * @param toYear The last release year (inclusive).
+     * @param period Whether the columns are years or months.
+     * @return The count, price total and average of every (tag, period) pair.
+     */
+    public PriceMatrix groupPricesByTag(Collection<String> tags, int fromYear, int toYear, PriceMatrix.Period period) {
+        IndexSnapshot snapshot = current.get();
+        TagDictionary dictionary = snapshot.getTable().getTags();
+
+        if (period == null) {
+            throw new NullPointerException("Period is null.");
         }
 
-        double average = totalPrice / count;
-        return List.of(String.format("%.2f", average));
+        List<String> labels = new ArrayList<>();
+        if (tags == null) {
+            for (int tagId = 0; tagId < dictionary.size(); tagId++) {
+                labels.add(dictionary.getName(tagId));
+            }
+        } else {
+            labels.addAll(tags);
+        }
+        int[] tagIds = new int[labels.size()];
+        for (int i = 0; i < tagIds.length; i++) {
+            tagIds[i] = dictionary.find(labels.get(i));
+        }
+        return snapshot.getPriceRollup().matrix(tagIds, labels, fromYear, toYear, period);
     }
 
     /**
-     * Calculates the average price of all games released within a date range.
+     * Describes the prices of all games released within a date range. The summary comes from the
+     * price segment tree; percentiles and histogram counts are rank queries on the all-games
+     * quantile index, so no game in the window is visited.
      *
      * @param startTime The start date.
      * @param endTime The end date.
-     * @return A list containing one string with the formatted average price.
+     * @param bucketBounds The ascending histogram bounds, or null for no histogram.
+     * @return The price distribution of the matching games.
      */
     @Override
-    public List<String> calculateAverageGamePrice(Date startTime, Date endTime) {
+    public PriceDistribution calculatePriceDistribution(Date startTime, Date endTime, double[] bucketBounds) {
+        IndexSnapshot snapshot = current.get();
+        double[] bounds = PriceDistribution.checkBounds(bucketBounds);
+
         if (startTime == null || endTime == null) {
             throw new NullPointerException("Start time or end time is null.");
         }
 
         if (startTime.after(endTime)) {
-            return Collections.emptyList();
+            return PriceDistribution.empty(bounds);
         }
 
-        if (gamesTreeMap == null || gamesTreeMap.isEmpty()) {
-            return Collections.emptyList();
+        return distribution(snapshot, -1, EpochDays.ceil(startTime), EpochDays.floor(endTime), bounds);
+    }
+
+    /**
+     * Describes the prices of games within a tag and date range.
+     *
+     * @param startTime The start date.
+     * @param endTime The end date.
+     * @param tag The tag to filter by.
+     * @param bucketBounds The ascending histogram bounds, or null for no histogram.
+     * @return The price distribution of the matching games.
+     */
+    @Override
+    public PriceDistribution calculatePriceDistribution(Date startTime, Date endTime, String tag,
+                                                        double[] bucketBounds) {
+        return calculatePriceDistributions(startTime, endTime, List.of(tag), bucketBounds).get(tag);
+    }
+
+    /**
+     * Describes the prices of many tags within a date range against one snapshot. Each tag costs
+     * a few logarithmic lookups, whatever the number of games it has in the window.
+     *
+     * @param startTime The start date.
+     * @param endTime The end date.
+     * @param tags The tags to describe; a null tag is treated as unknown.
+     * @param bucketBounds The ascending histogram bounds, or null for no histogram.
+     * @return The price distribution of each tag, in the order of {@code tags}.
+     */
+    @Override
+    public Map<String, PriceDistribution> calculatePriceDistributions(Date startTime, Date endTime,
+                                                                      Collection<String> tags, double[] bucketBounds) {
+        IndexSnapshot snapshot = current.get();
+        GameTable table = snapshot.getTable();
+        double[] bounds = PriceDistribution.checkBounds(bucketBounds);
+
+        if (startTime == null || endTime == null || tags == null) {
+            throw new NullPointerException("Start time, end time, or tags is null.");
+        }
+
+        int lowerDay = EpochDays.ceil(startTime);
+        int upperDay = EpochDays.floor(endTime);
+        Map<String, PriceDistribution> result = new LinkedHashMap<>();
+        for (String tag : tags) {
+            int tagId = tag == null ? -1 : table.getTags().find(tag);
+            result.put(tag, tagId < 0 || startTime.after(endTime) ? PriceDistribution.empty(bounds)
+                    : distribution(snapshot, tagId, lowerDay, upperDay, bounds));
         }
+        return result;
+    }
 
-        double totalPrice = 0.0;
-        int count = 0;
+    /**
+     * Runs a batch of release date and average price queries against one snapshot. The queries
+     * are grouped by tag. Averages are segment tree lookups; release date windows are sorted, and
+     * each run of overlapping windows is answered from a single walk of the tag's date index.
+     * Large batches run their groups in parallel on the common fork-join pool.
+     *
+     * @param queries The queries to run.
+     * @return The result of each query, in the order of {@code queries}.
+     */
+    @Override
+    public List<List<String>> executeBatch(List<BatchQuery> queries) {
+        IndexSnapshot snapshot = current.get();
+        GameTable table = snapshot.getTable();
 
-        // Iterate through all tags to include all games in date range
-        for (NavigableMap<Date, List<SteamGame>> dateMap : gamesTreeMap.values()) {
-            SortedMap<Date, List<SteamGame>> gamesInRange = dateMap.subMap(startTime, true, endTime, true);
+        if (queries == null) {
+            throw new NullPointerException("Queries is null.");
+        }
 
-            for (List<SteamGame> gameList : gamesInRange.values()) {
-                for (SteamGame game : gameList) {
-                    totalPrice += game.getOriginalPrice();
-                    count++;
-                }
+        // Group the positions of the queries by tag id; -1 stands for all games
+        List<List<String>> results = new ArrayList<>(Collections.nCopies(queries.size(), null));
+        Map<Integer, IntArrayList> groups = new HashMap<>();
+        for (int i = 0; i < queries.size(); i++) {
+            BatchQuery query = queries.get(i);
+            int tagId = query.getTag() == null ? -1 : table.getTags().find(query.getTag());
+            if (query.matchesNothing() || (tagId < 0 && query.getTag() != null)) {
+                results.set(i, Collections.emptyList());
+            } else {
+                groups.computeIfAbsent(tagId, k -> new IntArrayList()).add(i);
             }
         }
 
-        if (count == 0) {
-            return Collections.emptyList();
+        // Each group writes only its own positions, so the groups are independent
+        Stream<Map.Entry<Integer, IntArrayList>> work = groups.entrySet().stream();
+        if (groups.size() > 1 && queries.size() >= PARALLEL_BATCH_SIZE) {
+            work = work.parallel();
+        }
+        work.forEach(group -> executeBatchGroup(snapshot, group.getKey(), queries, group.getValue(), results));
+        return results;
+    }
+
+    /**
+     * Answers the batch queries of one tag, or of all games.
+     *
+     * @param snapshot The snapshot to query.
+     * @param tagId The tag id, or -1 for all games (average price queries only).
+     * @param queries The whole batch.
+     * @param positions The positions in the batch of this group's queries.
+     * @param results The results of the batch, filled in at {@code positions}.
+     */
+    private static void executeBatchGroup(IndexSnapshot snapshot, int tagId, List<BatchQuery> queries,
+                                          IntArrayList positions, List<List<String>> results) {
+        GameTable table = snapshot.getTable();
+        PriceAggregateIndex aggregates = tagId < 0 ? snapshot.getPriceIndex() : snapshot.getTagPriceIndex(tagId);
+
+        // Sort the release date windows by start day; the key keeps the position in its low bits
+        long[] windows = new long[positions.size()];
+        int windowCount = 0;
+        for (int i = 0; i < positions.size(); i++) {
+            BatchQuery query = queries.get(positions.get(i));
+            if (query.getKind() == BatchQuery.Kind.AVERAGE_PRICE) {
+                results.set(positions.get(i),
+                        formatAverage(aggregates.summarize(query.getLowerDay(), query.getUpperDay())));
+            } else {
+                windows[windowCount++] = (long) query.getLowerDay() << 32 | positions.get(i);
+            }
+        }
+        Arrays.sort(windows, 0, windowCount);
+
+        int next = 0;
+        while (next < windowCount) {
+            // Extend the run while the next window starts inside it, then walk the run once
+            int first = next;
+            int runLower = (int) (windows[next] >> 32);
+            int runUpper = queries.get((int) windows[next]).getUpperDay();
+            for (next++; next < windowCount && (int) (windows[next] >> 32) <= runUpper; next++) {
+                runUpper = Math.max(runUpper, queries.get((int) windows[next]).getUpperDay());
+            }
+
+            List<String> names = new ArrayList<>();
+            IntArrayList days = new IntArrayList();
+            DateRangeCursor cursor = snapshot.cursor(tagId, runLower, runUpper);
+            while (cursor.hasNext()) {
+                names.add(table.getName(cursor.nextInt()));
+                days.add(cursor.getLastDay());
+            }
+
+            for (int i = first; i < next; i++) {
+                BatchQuery query = queries.get((int) windows[i]);
+                int from = firstIndexOfDay(days, query.getLowerDay());
+                int to = firstIndexOfDay(days, query.getUpperDay() + 1);
+                results.set((int) windows[i], new ArrayList<>(names.subList(from, to)));
+            }
+        }
+    }
+
+    /** Returns the first index of ascending {@code days} holding a day at or after {@code day}. */
+    private static int firstIndexOfDay(IntArrayList days, int day) {
+        int low = 0;
+        int high = days.size();
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (days.get(mid) < day) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
         }
+        return low;
+    }
+
+    /**
+     * Describes the prices of a tag's games, or of all games, within a window of epoch days.
+     *
+     * @param snapshot The snapshot to query.
+     * @param tagId The tag id, or -1 for all games.
+     * @param lowerDay The first day of the window.
+     * @param upperDay The last day of the window.
+     * @param bounds The checked histogram bounds.
+     * @return The price distribution.
+     */
+    private static PriceDistribution distribution(IndexSnapshot snapshot, int tagId, int lowerDay, int upperDay,
+                                                  double[] bounds) {
+        PriceAggregateIndex aggregates = tagId < 0 ? snapshot.getPriceIndex() : snapshot.getTagPriceIndex(tagId);
+        PriceQuantileIndex quantiles = tagId < 0 ? snapshot.getPriceQuantileIndex()
+                : snapshot.getTagPriceQuantileIndex(tagId);
+        return quantiles.distribution(snapshot.getTable(), aggregates.summarize(lowerDay, upperDay), lowerDay,
+                upperDay, bounds);
+    }
 
-        double average = totalPrice / count;
-        return List.of(String.format("%.2f", average));
+    /**
+     * Formats the mean of a price summary the way the average price queries report it.
+     *
+     * @param summary The price summary.
+     * @return A list containing one string with the formatted average price, or an empty list.
+     */
+    private static List<String> formatAverage(PriceSummary summary) {
+        if (summary.isEmpty()) {
+            return Collections.emptyList();
+        }
+        return List.of(String.format("%.2f", summary.getMean()));
     }
 }
\ No newline at end of file
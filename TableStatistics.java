@@ -0,0 +1,127 @@
+/**
+ * Value distributions of the columns that have no index of their own, collected when a snapshot
+ * is built so the {@link QueryPlanner} can estimate how many games a review threshold keeps.
+ *
+ * <p>Review percentages (0 to 100) are counted exactly, one bucket per value. Review counts are
+ * heavy-tailed, so they go into power-of-two buckets ({@code 0}, {@code 1}, {@code 2-3},
+ * {@code 4-7}, ...) and a threshold inside a bucket is estimated by assuming its counts are spread
+ * evenly. Both histograms together take a few hundred bytes whatever the size of the dataset.
+ */
+public final class TableStatistics {
+
+    private static final int PERCENT_BUCKETS = 101;
+    private static final int COUNT_BUCKETS = 33;
+
+    private final int rowCount;
+    private final int[] reviewPercents;
+    private final int[] reviewCounts;
+
+    private TableStatistics(int rowCount, int[] reviewPercents, int[] reviewCounts) {
+        this.rowCount = rowCount;
+        this.reviewPercents = reviewPercents;
+        this.reviewCounts = reviewCounts;
+    }
+
+    /**
+     * Collects the statistics of every row of a table.
+     *
+     * @param table the games
+     * @return the statistics
+     */
+    public static TableStatistics of(GameTable table) {
+        TableStatistics statistics = new TableStatistics(table.size(), new int[PERCENT_BUCKETS],
+                new int[COUNT_BUCKETS]);
+        for (int row = 0; row < table.size(); row++) {
+            statistics.count(table, row, 1);
+        }
+        return statistics;
+    }
+
+    /**
+     * Returns the statistics after rows were removed from the table and others appended to it,
+     * leaving these statistics untouched.
+     *
+     * @param table the table after the change
+     * @param removed the removed rows
+     * @param firstAdded the first appended row; rows from here to the end of the table are added
+     * @return the updated statistics
+     */
+    public TableStatistics withChanges(GameTable table, RowBitmap removed, int firstAdded) {
+        TableStatistics statistics = new TableStatistics(
+                rowCount - removed.cardinality() + table.size() - firstAdded,
+                reviewPercents.clone(), reviewCounts.clone());
+        removed.forEach(row -> statistics.count(table, row, -1));
+        for (int row = firstAdded; row < table.size(); row++) {
+            statistics.count(table, row, 1);
+        }
+        return statistics;
+    }
+
+    private void count(GameTable table, int row, int delta) {
+        reviewPercents[Math.max(0, Math.min(100, table.getReviewPercent(row)))] += delta;
+        reviewCounts[countBucket(table.getReviewCount(row))] += delta;
+    }
+
+    /** Returns the power-of-two bucket of a review count: 0 for 0, 1 for 1, 2 for 2-3, ... */
+    private static int countBucket(int count) {
+        return 32 - Integer.numberOfLeadingZeros(Math.max(0, count));
+    }
+
+    /**
+     * Returns the number of current games.
+     *
+     * @return the row count
+     */
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    /**
+     * Returns the number of games with at least a review percentage.
+     *
+     * @param percent the minimum positive review percentage
+     * @return the exact number of games
+     */
+    public int countReviewPercentAtLeast(int percent) {
+        if (percent <= 0) {
+            return rowCount;
+        }
+        int total = 0;
+        for (int p = percent; p < PERCENT_BUCKETS; p++) {
+            total += reviewPercents[p];
+        }
+        return total;
+    }
+
+    /**
+     * Estimates the number of games with at least a review count.
+     *
+     * @param count the minimum number of reviews
+     * @return the estimated number of games
+     */
+    public double estimateReviewCountAtLeast(int count) {
+        if (count <= 0) {
+            return rowCount;
+        }
+        int bucket = countBucket(count);
+        double total = 0;
+        for (int b = bucket + 1; b < COUNT_BUCKETS; b++) {
+            total += reviewCounts[b];
+        }
+
+        // The bucket of the threshold holds the counts [2^(b-1), 2^b - 1]
+        long low = 1L << (bucket - 1);
+        long high = (1L << bucket) - 1;
+        return total + reviewCounts[bucket] * (double) (high - count + 1) / (high - low + 1);
+    }
+
+    /**
+     * Estimates the heap footprint of the histograms.
+     *
+     * @return the size in bytes
+     */
+    public long memoryBytes() {
+        return MemoryReport.objectBytes(4 + 2 * MemoryReport.REFERENCE_BYTES)
+                + MemoryReport.arrayBytes(reviewPercents.length, 4) + MemoryReport.arrayBytes(reviewCounts.length, 4);
+    }
+}
@@ -0,0 +1,111 @@
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Interns tag names into dense integer ids.
+ *
+ * <p>Lookups are case-insensitive and ignore surrounding whitespace. The display name kept for each
+ * id is the spelling under which the tag was first seen.
+ */
+public final class TagDictionary {
+
+    private final Map<String, Integer> idsByName = new HashMap<>();
+    private final List<String> names = new ArrayList<>();
+
+    /** Creates an empty dictionary. */
+    public TagDictionary() {
+    }
+
+    /**
+     * Creates a copy of another dictionary with the same ids, which can intern further tags
+     * without affecting the original.
+     *
+     * @param other the dictionary to copy
+     */
+    public TagDictionary(TagDictionary other) {
+        idsByName.putAll(other.idsByName);
+        names.addAll(other.names);
+    }
+
+    /**
+     * Returns the key a tag is looked up by: the name trimmed and lower-cased. Anything that
+     * compares tags the way this dictionary does, such as cache or batch keys, should use it.
+     *
+     * @param tag the tag name
+     * @return the normalized name
+     */
+    public static String normalize(String tag) {
+        return tag.trim().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Returns the id of a tag, assigning the next free id if the tag is new.
+     *
+     * @param tag the tag name (already trimmed)
+     * @return the tag id
+     */
+    public int intern(String tag) {
+        String normalized = normalize(tag);
+        Integer id = idsByName.get(normalized);
+        if (id == null) {
+            id = names.size();
+            idsByName.put(normalized, id);
+            names.add(tag);
+        }
+        return id;
+    }
+
+    /**
+     * Looks up a tag id by name (case-insensitive, surrounding whitespace ignored).
+     *
+     * @param tag the tag name
+     * @return the tag id, or -1 if the tag is unknown
+     */
+    public int find(String tag) {
+        Integer id = idsByName.get(normalize(tag));
+        return id == null ? -1 : id;
+    }
+
+    /**
+     * Returns the display name of a tag id.
+     *
+     * @param tagId the tag id
+     * @return the tag name
+     */
+    public String getName(int tagId) {
+        return names.get(tagId);
+    }
+
+    /**
+     * Returns the number of interned tags.
+     *
+     * @return the tag count
+     */
+    public int size() {
+        return names.size();
+    }
+
+    /**
+     * Estimates the heap footprint of the dictionary: each tag's name is held once, as a
+     * lower-cased key and a display name, plus a hash node and a boxed id.
+     *
+     * @return the size in bytes
+     */
+    public long memoryBytes() {
+        long bytes = MemoryReport.objectBytes(2 * MemoryReport.REFERENCE_BYTES)
+                + MemoryReport.arrayBytes(Integer.highestOneBit(Math.max(1, names.size() * 4 / 3)) * 2L,
+                        MemoryReport.REFERENCE_BYTES)
+                + MemoryReport.arrayBytes(names.size(), MemoryReport.REFERENCE_BYTES);
+        for (String name : names) {
+            // A compact (Latin-1) String: hash, value reference and two flags, plus its byte array
+            long string = MemoryReport.objectBytes(4 + MemoryReport.REFERENCE_BYTES + 2)
+                    + MemoryReport.arrayBytes(name.length(), 1);
+            bytes += 2 * string + MemoryReport.objectBytes(4 + 3 * MemoryReport.REFERENCE_BYTES)
+                    + MemoryReport.objectBytes(4);
+        }
+        return bytes;
+    }
+}
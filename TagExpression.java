@@ -0,0 +1,369 @@
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.IntPredicate;
+import java.util.function.ToIntFunction;
+
+/**
+ * A parsed boolean expression over tags, such as {@code indie AND strategy AND NOT early access}.
+ *
+ * <p>Grammar (keywords are upper case; tag names are matched case-insensitively and may contain spaces):
+ * <pre>
+ *   expression := term ("OR" term)*
+ *   term       := factor ("AND" factor)*
+ *   factor     := "NOT" factor | "(" expression ")" | tag name
+ * </pre>
+ *
+ * <p>Expressions are evaluated against per-tag {@link RowBitmap}s. Within an {@code AND} chain the
+ * positive operands are intersected smallest-first and negated operands are subtracted, so a
+ * {@code NOT} only materializes the complement when it is not combined with a positive tag.
+ */
+public abstract class TagExpression {
+
+    private TagExpression() {
+    }
+
+    /**
+     * Parses a tag expression.
+     *
+     * @param expression the expression text
+     * @return the parsed expression
+     * @throws IllegalArgumentException if the expression is empty or malformed
+     */
+    public static TagExpression parse(String expression) {
+        if (expression == null || expression.isBlank()) {
+            throw new IllegalArgumentException("Tag expression is empty.");
+        }
+        Parser parser = new Parser(tokenize(expression));
+        TagExpression result = parser.parseOr();
+        if (parser.position < parser.tokens.size()) {
+            throw new IllegalArgumentException("Unexpected '" + parser.tokens.get(parser.position)
+                    + "' in tag expression: " + expression);
+        }
+        return result;
+    }
+
+    /**
+     * Evaluates the expression.
+     *
+     * @param tagRows returns the rows carrying a tag, or an empty bitmap for unknown tags
+     * @param allRows every row of the dataset, used to complement a bare {@code NOT}
+     * @return the matching rows
+     */
+    public abstract RowBitmap evaluate(Function<String, RowBitmap> tagRows, RowBitmap allRows);
+
+    /**
+     * Returns a per-row test of the expression, for checking a few candidate rows without
+     * combining whole bitmaps.
+     *
+     * @param tagRows returns the rows carrying a tag, or an empty bitmap for unknown tags
+     * @return a predicate accepting the matching rows among the current rows of the dataset
+     */
+    public abstract IntPredicate matcher(Function<String, RowBitmap> tagRows);
+
+    /**
+     * Estimates the number of matching rows from the tag cardinalities, assuming tags occur
+     * independently of each other.
+     *
+     * @param tagCount returns the number of rows carrying a tag
+     * @param total the number of rows in the dataset
+     * @return the estimated number of matching rows
+     */
+    public abstract double estimate(ToIntFunction<String> tagCount, int total);
+
+    /**
+     * Returns the tag name if the expression is a single tag.
+     *
+     * @return the tag name, or null for compound expressions
+     */
+    public String getSingleTag() {
+        return null;
+    }
+
+    private static List<String> tokenize(String expression) {
+        List<String> tokens = new ArrayList<>();
+        StringBuilder tag = new StringBuilder();
+        int i = 0;
+        while (i < expression.length()) {
+            char c = expression.charAt(i);
+            if (c == '(' || c == ')') {
+                flushTag(tag, tokens);
+                tokens.add(String.valueOf(c));
+                i++;
+            } else if (Character.isWhitespace(c)) {
+                i++;
+            } else {
+                int end = i;
+                while (end < expression.length() && !Character.isWhitespace(expression.charAt(end))
+                        && expression.charAt(end) != '(' && expression.charAt(end) != ')') {
+                    end++;
+                }
+                String word = expression.substring(i, end);
+                if (word.equals("AND") || word.equals("OR") || word.equals("NOT")) {
+                    flushTag(tag, tokens);
+                    tokens.add(word);
+                } else {
+                    // Consecutive non-keyword words form one multi-word tag name
+                    if (tag.length() > 0) {
+                        tag.append(' ');
+                    }
+                    tag.append(word);
+                }
+                i = end;
+            }
+        }
+        flushTag(tag, tokens);
+        return tokens;
+    }
+
+    private static void flushTag(StringBuilder tag, List<String> tokens) {
+        if (tag.length() > 0) {
+            tokens.add(tag.toString());
+            tag.setLength(0);
+        }
+    }
+
+    private static boolean isOperator(String token) {
+        return token.equals("AND") || token.equals("OR") || token.equals("NOT")
+                || token.equals("(") || token.equals(")");
+    }
+
+    /** Recursive-descent parser over the token list. */
+    private static final class Parser {
+
+        private final List<String> tokens;
+        private int position;
+
+        Parser(List<String> tokens) {
+            this.tokens = tokens;
+        }
+
+        TagExpression parseOr() {
+            List<TagExpression> operands = new ArrayList<>();
+            operands.add(parseAnd());
+            while (accept("OR")) {
+                operands.add(parseAnd());
+            }
+            return operands.size() == 1 ? operands.get(0) : new Or(operands);
+        }
+
+        TagExpression parseAnd() {
+            List<TagExpression> operands = new ArrayList<>();
+            operands.add(parseFactor());
+            while (accept("AND")) {
+                operands.add(parseFactor());
+            }
+            return operands.size() == 1 ? operands.get(0) : new And(operands);
+        }
+
+        TagExpression parseFactor() {
+            if (position == tokens.size()) {
+                throw new IllegalArgumentException("Tag expression ends unexpectedly.");
+            }
+            if (accept("NOT")) {
+                return new Not(parseFactor());
+            }
+            if (accept("(")) {
+                TagExpression inner = parseOr();
+                if (!accept(")")) {
+                    throw new IllegalArgumentException("Missing ')' in tag expression.");
+                }
+                return inner;
+            }
+            String token = tokens.get(position);
+            if (isOperator(token)) {
+                throw new IllegalArgumentException("Expected a tag but found '" + token + "'.");
+            }
+            position++;
+            return new Tag(token);
+        }
+
+        private boolean accept(String token) {
+            if (position < tokens.size() && tokens.get(position).equals(token)) {
+                position++;
+                return true;
+            }
+            return false;
+        }
+    }
+
+    /** A single tag. */
+    private static final class Tag extends TagExpression {
+
+        private final String name;
+
+        Tag(String name) {
+            this.name = name;
+        }
+
+        @Override
+        public RowBitmap evaluate(Function<String, RowBitmap> tagRows, RowBitmap allRows) {
+            return tagRows.apply(name);
+        }
+
+        @Override
+        public IntPredicate matcher(Function<String, RowBitmap> tagRows) {
+            return tagRows.apply(name)::contains;
+        }
+
+        @Override
+        public double estimate(ToIntFunction<String> tagCount, int total) {
+            return tagCount.applyAsInt(name);
+        }
+
+        @Override
+        public String getSingleTag() {
+            return name;
+        }
+
+        @Override
+        public String toString() {
+            return name;
+        }
+    }
+
+    /** Complement of an operand. */
+    private static final class Not extends TagExpression {
+
+        private final TagExpression operand;
+
+        Not(TagExpression operand) {
+            this.operand = operand;
+        }
+
+        @Override
+        public RowBitmap evaluate(Function<String, RowBitmap> tagRows, RowBitmap allRows) {
+            return allRows.andNot(operand.evaluate(tagRows, allRows));
+        }
+
+        @Override
+        public IntPredicate matcher(Function<String, RowBitmap> tagRows) {
+            return operand.matcher(tagRows).negate();
+        }
+
+        @Override
+        public double estimate(ToIntFunction<String> tagCount, int total) {
+            return total - operand.estimate(tagCount, total);
+        }
+
+        @Override
+        public String toString() {
+            return "NOT " + operand;
+        }
+    }
+
+    /** Intersection of two or more operands. */
+    private static final class And extends TagExpression {
+
+        private final List<TagExpression> operands;
+
+        And(List<TagExpression> operands) {
+            this.operands = operands;
+        }
+
+        @Override
+        public RowBitmap evaluate(Function<String, RowBitmap> tagRows, RowBitmap allRows) {
+            List<RowBitmap> positive = new ArrayList<>();
+            List<RowBitmap> negative = new ArrayList<>();
+            for (TagExpression operand : operands) {
+                if (operand instanceof Not not) {
+                    negative.add(not.operand.evaluate(tagRows, allRows));
+                } else {
+                    positive.add(operand.evaluate(tagRows, allRows));
+                }
+            }
+
+            // Intersect the most selective operands first so intermediate results stay small
+            positive.sort(Comparator.comparingInt(RowBitmap::cardinality));
+            RowBitmap result = positive.isEmpty() ? allRows : positive.get(0);
+            for (int i = 1; i < positive.size() && !result.isEmpty(); i++) {
+                result = result.and(positive.get(i));
+            }
+            for (RowBitmap excluded : negative) {
+                if (result.isEmpty()) {
+                    break;
+                }
+                result = result.andNot(excluded);
+            }
+            return result;
+        }
+
+        @Override
+        public IntPredicate matcher(Function<String, RowBitmap> tagRows) {
+            IntPredicate result = operands.get(0).matcher(tagRows);
+            for (int i = 1; i < operands.size(); i++) {
+                result = result.and(operands.get(i).matcher(tagRows));
+            }
+            return result;
+        }
+
+        @Override
+        public double estimate(ToIntFunction<String> tagCount, int total) {
+            double result = total;
+            for (TagExpression operand : operands) {
+                result *= total == 0 ? 0.0 : operand.estimate(tagCount, total) / total;
+            }
+            return result;
+        }
+
+        @Override
+        public String toString() {
+            return join(operands, " AND ");
+        }
+    }
+
+    /** Union of two or more operands. */
+    private static final class Or extends TagExpression {
+
+        private final List<TagExpression> operands;
+
+        Or(List<TagExpression> operands) {
+            this.operands = operands;
+        }
+
+        @Override
+        public RowBitmap evaluate(Function<String, RowBitmap> tagRows, RowBitmap allRows) {
+            RowBitmap result = operands.get(0).evaluate(tagRows, allRows);
+            for (int i = 1; i < operands.size(); i++) {
+                result = result.or(operands.get(i).evaluate(tagRows, allRows));
+            }
+            return result;
+        }
+
+        @Override
+        public IntPredicate matcher(Function<String, RowBitmap> tagRows) {
+            IntPredicate result = operands.get(0).matcher(tagRows);
+            for (int i = 1; i < operands.size(); i++) {
+                result = result.or(operands.get(i).matcher(tagRows));
+            }
+            return result;
+        }
+
+        @Override
+        public double estimate(ToIntFunction<String> tagCount, int total) {
+            // Complement of every operand missing the row
+            double missing = total;
+            for (TagExpression operand : operands) {
+                missing *= total == 0 ? 0.0 : 1.0 - operand.estimate(tagCount, total) / total;
+            }
+            return total - missing;
+        }
+
+        @Override
+        public String toString() {
+            return "(" + join(operands, " OR ") + ")";
+        }
+    }
+
+    private static String join(List<TagExpression> operands, String separator) {
+        StringBuilder sb = new StringBuilder();
+        for (TagExpression operand : operands) {
+            if (sb.length() > 0) {
+                sb.append(separator);
+            }
+            sb.append(operand);
+        }
+        return sb.toString();
+    }
+}
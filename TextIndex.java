@@ -0,0 +1,294 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Inverted index from terms to the rows whose name or review text contains them.
+ *
+ * <p>Text is split into terms at every character that is not a letter or digit and lower-cased, so
+ * {@code "Counter-Strike: Global Offensive"} yields {@code counter, strike, global, offensive}. Each
+ * term maps to a sorted, duplicate-free posting list of row ids. A multi-term query intersects the
+ * posting lists smallest-first; a phrase query does the same and then verifies the surviving rows by
+ * re-tokenizing their text, so positions do not need to be stored.
+ */
+public final class TextIndex {
+
+    private static final int[] NO_ROWS = new int[0];
+
+    private final GameTable table;
+    private final Map<String, int[]> postings;
+
+    /**
+     * Builds the index over the names and review text of every row of a table.
+     *
+     * @param table the table to index
+     */
+    public TextIndex(GameTable table) {
+        this.table = table;
+
+        Map<String, IntArrayList> lists = new HashMap<>();
+        List<String> terms = new ArrayList<>();
+        for (int row = 0; row < table.size(); row++) {
+            terms.clear();
+            tokenize(table.getName(row), terms);
+            tokenize(table.getAllReviews(row), terms);
+            for (String term : terms) {
+                IntArrayList rows = lists.computeIfAbsent(term, k -> new IntArrayList());
+                // Rows arrive in ascending order, so a repeated term only needs comparing to the last row
+                if (rows.isEmpty() || rows.get(rows.size() - 1) != row) {
+                    rows.add(row);
+                }
+            }
+        }
+
+        postings = new HashMap<>(lists.size() * 2);
+        for (Map.Entry<String, IntArrayList> entry : lists.entrySet()) {
+            postings.put(entry.getKey(), entry.getValue().toArray());
+        }
+    }
+
+    private TextIndex(GameTable table, Map<String, int[]> postings) {
+        this.table = table;
+        this.postings = postings;
+    }
+
+    /**
+     * Returns the index after rows were removed from the table and others appended to it, leaving
+     * this index untouched. Only the posting lists of terms occurring in a changed row are copied.
+     *
+     * @param table the table after the change
+     * @param removed the rows to drop from the index
+     * @param firstAdded the first appended row; rows from here to the end of the table are added
+     * @return the updated index
+     */
+    public TextIndex withChanges(GameTable table, RowBitmap removed, int firstAdded) {
+        Map<String, IntArrayList> removedByTerm = new HashMap<>();
+        removed.forEach(row -> collectTerms(table, row, removedByTerm));
+        Map<String, IntArrayList> addedByTerm = new HashMap<>();
+        for (int row = firstAdded; row < table.size(); row++) {
+            collectTerms(table, row, addedByTerm);
+        }
+
+        Map<String, int[]> updated = new HashMap<>(postings);
+        for (Map.Entry<String, IntArrayList> entry : removedByTerm.entrySet()) {
+            int[] rows = updated.get(entry.getKey());
+            if (rows == null) {
+                continue;
+            }
+            // Both lists are ascending, so one merge pass drops the removed rows
+            IntArrayList drop = entry.getValue();
+            int[] kept = new int[rows.length];
+            int n = 0;
+            int j = 0;
+            for (int row : rows) {
+                while (j < drop.size() && drop.get(j) < row) {
+                    j++;
+                }
+                if (j == drop.size() || drop.get(j) != row) {
+                    kept[n++] = row;
+                }
+            }
+            if (n == 0) {
+                updated.remove(entry.getKey());
+            } else {
+                updated.put(entry.getKey(), Arrays.copyOf(kept, n));
+            }
+        }
+        for (Map.Entry<String, IntArrayList> entry : addedByTerm.entrySet()) {
+            // Appended rows are larger than every existing row, so they go at the end
+            int[] rows = updated.getOrDefault(entry.getKey(), NO_ROWS);
+            IntArrayList add = entry.getValue();
+            int[] merged = Arrays.copyOf(rows, rows.length + add.size());
+            for (int i = 0; i < add.size(); i++) {
+                merged[rows.length + i] = add.get(i);
+            }
+            updated.put(entry.getKey(), merged);
+        }
+        return new TextIndex(table, updated);
+    }
+
+    /** Adds a row to the list of every distinct term in its name and review text. */
+    private static void collectTerms(GameTable table, int row, Map<String, IntArrayList> rowsByTerm) {
+        List<String> terms = new ArrayList<>();
+        tokenize(table.getName(row), terms);
+        tokenize(table.getAllReviews(row), terms);
+        for (String term : terms) {
+            IntArrayList rows = rowsByTerm.computeIfAbsent(term, k -> new IntArrayList());
+            // Rows arrive in ascending order, so a repeated term only needs comparing to the last row
+            if (rows.isEmpty() || rows.get(rows.size() - 1) != row) {
+                rows.add(row);
+            }
+        }
+    }
+
+    /**
+     * Returns the rows matching a search query. Unquoted words must all occur somewhere in the row's
+     * name or review text; text in double quotes must occur as a phrase within one of the two fields.
+     *
+     * @param query the search query, e.g. {@code "\"team fortress\" free"}
+     * @return the matching row ids in ascending order (empty if the query has no terms)
+     */
+    public int[] search(String query) {
+        List<String> terms = new ArrayList<>();
+        List<List<String>> phrases = new ArrayList<>();
+        String[] parts = query.split("\"", -1);
+        for (int i = 0; i < parts.length; i++) {
+            // Odd parts were between quotes; an unterminated quote still opens a phrase
+            if (i % 2 == 0) {
+                tokenize(parts[i], terms);
+            } else {
+                List<String> phrase = new ArrayList<>();
+                tokenize(parts[i], phrase);
+                terms.addAll(phrase);
+                if (phrase.size() > 1) {
+                    phrases.add(phrase);
+                }
+            }
+        }
+
+        int[] rows = findAll(terms);
+        if (phrases.isEmpty()) {
+            return rows;
+        }
+        int n = 0;
+        for (int row : rows) {
+            boolean match = true;
+            for (int i = 0; i < phrases.size() && match; i++) {
+                match = containsPhrase(row, phrases.get(i));
+            }
+            if (match) {
+                rows[n++] = row;
+            }
+        }
+        return Arrays.copyOf(rows, n);
+    }
+
+    /**
+     * Returns the rows that contain every term of a query.
+     *
+     * @param terms the query terms (already tokenized)
+     * @return the matching row ids in ascending order
+     */
+    public int[] findAll(List<String> terms) {
+        if (terms.isEmpty()) {
+            return NO_ROWS;
+        }
+        int[][] lists = new int[terms.size()][];
+        for (int i = 0; i < lists.length; i++) {
+            lists[i] = postings.getOrDefault(terms.get(i), NO_ROWS);
+        }
+
+        // Intersect smallest-first so the running result only shrinks
+        Arrays.sort(lists, (a, b) -> Integer.compare(a.length, b.length));
+        // Never hand out a posting list itself
+        int[] result = lists.length == 1 ? lists[0].clone() : lists[0];
+        for (int i = 1; i < lists.length && result.length > 0; i++) {
+            result = intersect(result, lists[i]);
+        }
+        return result;
+    }
+
+    /**
+     * Returns whether a row's name or review text contains a phrase as consecutive terms.
+     *
+     * @param row the row id
+     * @param phrase the phrase terms (already tokenized)
+     * @return {@code true} if either field contains the phrase
+     */
+    public boolean containsPhrase(int row, List<String> phrase) {
+        List<String> terms = new ArrayList<>();
+        tokenize(table.getName(row), terms);
+        if (Collections.indexOfSubList(terms, phrase) >= 0) {
+            return true;
+        }
+        terms.clear();
+        tokenize(table.getAllReviews(row), terms);
+        return Collections.indexOfSubList(terms, phrase) >= 0;
+    }
+
+    /**
+     * Returns the number of distinct terms in the index.
+     *
+     * @return the term count
+     */
+    public int termCount() {
+        return postings.size();
+    }
+
+    /**
+     * Estimates the heap footprint of the posting lists, their terms and the hash table.
+     *
+     * @return the size in bytes
+     */
+    public long memoryBytes() {
+        long bytes = MemoryReport.objectBytes(2 * MemoryReport.REFERENCE_BYTES)
+                + MemoryReport.arrayBytes(Integer.highestOneBit(Math.max(1, postings.size() * 4 / 3)) * 2L,
+                        MemoryReport.REFERENCE_BYTES);
+        for (Map.Entry<String, int[]> entry : postings.entrySet()) {
+            bytes += MemoryReport.objectBytes(4 + 3 * MemoryReport.REFERENCE_BYTES)
+                    + MemoryReport.objectBytes(4 + MemoryReport.REFERENCE_BYTES + 2)
+                    + MemoryReport.arrayBytes(entry.getKey().length(), 1)
+                    + MemoryReport.arrayBytes(entry.getValue().length, 4);
+        }
+        return bytes;
+    }
+
+    /**
+     * Splits text into lower-case terms at every character that is not a letter or digit.
+     *
+     * @param text the text (may be null)
+     * @param terms the list to append the terms to
+     */
+    public static void tokenize(String text, List<String> terms) {
+        if (text == null) {
+            return;
+        }
+        int start = -1;
+        for (int i = 0; i <= text.length(); i++) {
+            boolean wordChar = i < text.length() && Character.isLetterOrDigit(text.charAt(i));
+            if (wordChar && start < 0) {
+                start = i;
+            } else if (!wordChar && start >= 0) {
+                terms.add(text.substring(start, i).toLowerCase());
+                start = -1;
+            }
+        }
+    }
+
+    /** Intersects a sorted row list with a sorted row list that is at least as long. */
+    private static int[] intersect(int[] a, int[] b) {
+        int[] result = new int[a.length];
+        int n = 0;
+        if (b.length > 16 * a.length) {
+            // Much longer second list: binary-search it instead of merging
+            int from = 0;
+            for (int row : a) {
+                int index = Arrays.binarySearch(b, from, b.length, row);
+                if (index >= 0) {
+                    result[n++] = row;
+                    from = index + 1;
+                } else {
+                    from = -index - 1;
+                }
+            }
+            return Arrays.copyOf(result, n);
+        }
+        int i = 0;
+        int j = 0;
+        while (i < a.length && j < b.length) {
+            if (a[i] < b[j]) {
+                i++;
+            } else if (a[i] > b[j]) {
+                j++;
+            } else {
+                result[n++] = a[i];
+                i++;
+                j++;
+            }
+        }
+        return Arrays.copyOf(result, n);
+    }
+}
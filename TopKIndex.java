@@ -0,0 +1,299 @@
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntBinaryOperator;
+import java.util.function.IntPredicate;
+
+/**
+ * Presorted row orderings for the attributes supported by
+ * {@link SteamGamesDatasetQuery#findTopGamesByAttribute(String, int)}.
+ *
+ * <p>For every attribute the index keeps the row ids in result order ({@code order}) and the inverse
+ * permutation ({@code rank}), both built once at load time. An unfiltered top-k is then the first
+ * {@code k} entries of the order, and a filtered top-k either walks the order until {@code k} rows pass
+ * the filter or keeps the {@code k} best-ranked candidates in a bounded heap, whichever is cheaper.
+ * Ties are broken by row id, which matches the stable sort over load order used previously.
+ */
+public final class TopKIndex {
+
+    /** The attributes with a presorted ordering. */
+    public static final List<String> ATTRIBUTES = List.of("original_price", "release_date", "name", "all_reviews");
+
+    private final Map<String, int[]> orders = new HashMap<>();
+    private final Map<String, int[]> ranks = new HashMap<>();
+
+    /**
+     * Builds the orderings for every row of a table.
+     *
+     * @param table the table to index
+     */
+    public TopKIndex(GameTable table) {
+        for (String attribute : ATTRIBUTES) {
+            int[] order = new int[table.size()];
+            for (int row = 0; row < order.length; row++) {
+                order[row] = row;
+            }
+            sort(order, comparator(table, attribute));
+            put(attribute, order, table.size());
+        }
+    }
+
+    private TopKIndex() {
+    }
+
+    /**
+     * Returns the orderings after rows were removed from the table and others appended to it, leaving
+     * this index untouched. Only the appended rows are sorted; each ordering is then filtered and
+     * merged with them in one linear pass instead of being re-sorted.
+     *
+     * @param table the table after the change
+     * @param removed the rows to drop from the orderings
+     * @param firstAdded the first appended row; rows from here to the end of the table are added
+     * @return the updated index
+     */
+    public TopKIndex withChanges(GameTable table, RowBitmap removed, int firstAdded) {
+        TopKIndex index = new TopKIndex();
+        int[] added = new int[table.size() - firstAdded];
+        for (int i = 0; i < added.length; i++) {
+            added[i] = firstAdded + i;
+        }
+        for (String attribute : ATTRIBUTES) {
+            IntBinaryOperator comparator = comparator(table, attribute);
+            int[] sortedAdded = added.clone();
+            sort(sortedAdded, comparator);
+
+            int[] previous = orders.get(attribute);
+            int[] order = new int[previous.length + sortedAdded.length];
+            int n = 0;
+            int j = 0;
+            for (int row : previous) {
+                if (removed.contains(row)) {
+                    continue;
+                }
+                while (j < sortedAdded.length && comparator.applyAsInt(sortedAdded[j], row) < 0) {
+                    order[n++] = sortedAdded[j++];
+                }
+                order[n++] = row;
+            }
+            while (j < sortedAdded.length) {
+                order[n++] = sortedAdded[j++];
+            }
+            index.put(attribute, Arrays.copyOf(order, n), table.size());
+        }
+        return index;
+    }
+
+    /**
+     * Writes the orderings to a snapshot. Ranks are not stored; they are the inverse permutations.
+     *
+     * @param out the snapshot output
+     * @throws IOException if the snapshot cannot be written
+     */
+    void writeTo(SnapshotFile.Output out) throws IOException {
+        for (String attribute : ATTRIBUTES) {
+            int[] order = orders.get(attribute);
+            out.writeInts(order, order.length);
+        }
+    }
+
+    /**
+     * Reads orderings written by {@link #writeTo(SnapshotFile.Output)}.
+     *
+     * @param in the snapshot input
+     * @param rows the number of rows of the indexed table
+     * @return the index
+     * @throws IllegalStateException if an ordering does not cover exactly {@code rows} rows
+     */
+    static TopKIndex readFrom(SnapshotFile.Input in, int rows) {
+        TopKIndex index = new TopKIndex();
+        for (String attribute : ATTRIBUTES) {
+            int[] order = in.readInts();
+            if (order.length != rows) {
+                throw new IllegalStateException("Corrupt snapshot: " + attribute + " ordering has "
+                        + order.length + " rows, expected " + rows);
+            }
+            index.put(attribute, order, rows);
+        }
+        return index;
+    }
+
+    /**
+     * Returns whether an attribute has a presorted ordering.
+     *
+     * @param attribute the attribute name (lower case)
+     * @return {@code true} if the attribute is supported
+     */
+    public boolean supports(String attribute) {
+        return orders.containsKey(attribute);
+    }
+
+    /**
+     * Returns the position of a row in an attribute's ordering (0 is the best).
+     *
+     * @param attribute the attribute name (lower case)
+     * @param row the row id
+     * @return the rank of the row
+     */
+    public int getRank(String attribute, int row) {
+        return ranks.get(attribute)[row];
+    }
+
+    /**
+     * Returns the first {@code k} rows of an attribute's ordering.
+     *
+     * @param attribute the attribute name (lower case)
+     * @param k the number of rows
+     * @return the top rows, best first
+     */
+    public int[] top(String attribute, int k) {
+        int[] order = orders.get(attribute);
+        return Arrays.copyOf(order, Math.max(0, Math.min(k, order.length)));
+    }
+
+    /**
+     * Walks an attribute's ordering and returns the first {@code k} rows accepted by a filter.
+     * Cheap when the filter accepts a large fraction of rows.
+     *
+     * @param attribute the attribute name (lower case)
+     * @param k the number of rows
+     * @param filter the row filter
+     * @return the top matching rows, best first
+     */
+    public int[] top(String attribute, int k, IntPredicate filter) {
+        int[] order = orders.get(attribute);
+        IntArrayList result = new IntArrayList(Math.max(1, Math.min(k, 64)));
+        for (int i = 0; i < order.length && result.size() < k; i++) {
+            if (filter.test(order[i])) {
+                result.add(order[i]);
+            }
+        }
+        return result.toArray();
+    }
+
+    /**
+     * Selects the {@code k} best-ranked rows among a candidate list with a bounded max-heap of
+     * ranks. Cheap when the candidate list is small.
+     *
+     * @param attribute the attribute name (lower case)
+     * @param k the number of rows
+     * @param candidates the candidate row ids
+     * @return the top candidate rows, best first
+     */
+    public int[] select(String attribute, int k, IntArrayList candidates) {
+        int[] rank = ranks.get(attribute);
+        int[] order = orders.get(attribute);
+        int[] heap = new int[Math.max(0, Math.min(k, candidates.size()))];
+        int size = 0;
+        if (heap.length == 0) {
+            return heap;
+        }
+
+        for (int i = 0; i < candidates.size(); i++) {
+            int r = rank[candidates.get(i)];
+            if (size < heap.length) {
+                // Sift up
+                int child = size++;
+                while (child > 0 && heap[(child - 1) / 2] < r) {
+                    heap[child] = heap[(child - 1) / 2];
+                    child = (child - 1) / 2;
+                }
+                heap[child] = r;
+            } else if (r < heap[0]) {
+                // Replace the worst kept rank and sift down
+                int parent = 0;
+                while (true) {
+                    int child = 2 * parent + 1;
+                    if (child >= size) {
+                        break;
+                    }
+                    if (child + 1 < size && heap[child + 1] > heap[child]) {
+                        child++;
+                    }
+                    if (heap[child] <= r) {
+                        break;
+                    }
+                    heap[parent] = heap[child];
+                    parent = child;
+                }
+                heap[parent] = r;
+            }
+        }
+
+        Arrays.sort(heap, 0, size);
+        int[] result = new int[size];
+        for (int i = 0; i < size; i++) {
+            result[i] = order[heap[i]];
+        }
+        return result;
+    }
+
+    /**
+     * Estimates the heap footprint of the orderings and their rank arrays.
+     *
+     * @return the size in bytes
+     */
+    public long memoryBytes() {
+        long bytes = MemoryReport.objectBytes(2 * MemoryReport.REFERENCE_BYTES);
+        for (String attribute : ATTRIBUTES) {
+            bytes += MemoryReport.arrayBytes(orders.get(attribute).length, 4)
+                    + MemoryReport.arrayBytes(ranks.get(attribute).length, 4);
+        }
+        return bytes;
+    }
+
+    /** Stores an ordering together with its inverse permutation over a table of {@code rows} rows. */
+    private void put(String attribute, int[] order, int rows) {
+        int[] rank = new int[rows];
+        for (int position = 0; position < order.length; position++) {
+            rank[order[position]] = position;
+        }
+        orders.put(attribute, order);
+        ranks.put(attribute, rank);
+    }
+
+    /** Returns the result-order comparator of an attribute, breaking ties by row id. */
+    private static IntBinaryOperator comparator(GameTable table, String attribute) {
+        IntBinaryOperator primary = switch (attribute) {
+            case "original_price" -> (a, b) -> Double.compare(table.getPrice(b), table.getPrice(a));
+            case "release_date" -> (a, b) -> Integer.compare(table.getReleaseDay(b), table.getReleaseDay(a));
+            case "name" -> table::compareNames;
+            case "all_reviews" -> (a, b) -> Double.compare(table.getReviewScore(b), table.getReviewScore(a));
+            default -> throw new IllegalArgumentException("Unsupported attribute: " + attribute);
+        };
+        return (a, b) -> {
+            int c = primary.applyAsInt(a, b);
+            return c != 0 ? c : Integer.compare(a, b);
+        };
+    }
+
+    /**
+     * Stable merge sort of row ids by a comparator.
+     *
+     * @param rows the row ids to sort in place
+     * @param comparator the row comparator
+     */
+    static void sort(int[] rows, IntBinaryOperator comparator) {
+        int[] buffer = new int[rows.length];
+        for (int width = 1; width < rows.length; width *= 2) {
+            for (int from = 0; from < rows.length - width; from += 2 * width) {
+                int mid = from + width;
+                int to = Math.min(from + 2 * width, rows.length);
+                int i = from;
+                int j = mid;
+                int k = from;
+                while (i < mid && j < to) {
+                    buffer[k++] = comparator.applyAsInt(rows[i], rows[j]) <= 0 ? rows[i++] : rows[j++];
+                }
+                while (i < mid) {
+                    buffer[k++] = rows[i++];
+                }
+                while (j < to) {
+                    buffer[k++] = rows[j++];
+                }
+                System.arraycopy(buffer, from, rows, from, to - from);
+            }
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package steamgames.bench;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * Cached synthetic datasets for the benchmarks, produced by {@link CatalogGenerator}.
+ *
+ * <p>Files are generated once per size with a fixed seed and cached in the temporary directory, so
+ * repeated runs measure identical data.
+ */
+public final class BenchmarkDatasets {
+
+    /** The most frequent tag (Zipf rank 0), on most games. */
+    public static final String COMMON_TAG = "Indie";
+
+    /** The least frequent tag (last Zipf rank), on a fraction of a percent of games. */
+    public static final String RARE_TAG = "Tag 399";
+
+    private static final long SEED = 42;
+
+    private BenchmarkDatasets() {
+    }
+
+    /**
+     * Returns a CSV file with the given number of rows, generating it on first use.
+     *
+     * @param rows the number of rows
+     * @return the path of the CSV file
+     */
+    public static synchronized Path csv(int rows) {
+        Path file = Path.of(System.getProperty("java.io.tmpdir"), "steam-games-bench-" + rows + "-v2.csv");
+        if (Files.exists(file)) {
+            return file;
+        }
+        try {
+            Path temp = Files.createTempFile(file.getParent(), "steam-games-bench-", ".tmp");
+            new CatalogGenerator(SEED).write(temp, rows);
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            return file;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
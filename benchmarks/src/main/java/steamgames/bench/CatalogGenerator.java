@@ -0,0 +1,264 @@
+package steamgames.bench;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Random;
+import java.util.SplittableRandom;
+
+/**
+ * Generates synthetic Steam catalogs in the CSV layout {@code loadDataset} expects, at any size.
+ *
+ * <p>The distributions follow the shape of the Kaggle dataset rather than being uniform:
+ * <ul>
+ *   <li>Tags are drawn from a Zipf distribution over {@link #TAG_COUNT} tags, so a few tags
+ *       ("Indie", "Action", ...) are on most games and the long tail is on very few. Each game has
+ *       3&ndash;20 distinct tags.</li>
+ *   <li>Release dates are skewed towards recent years (volume grows ~30% per year from 1997 to 2024),
+ *       and a small fraction of rows has the {@code NaN} date the loader skips.</li>
+ *   <li>Review counts are heavy-tailed, a quarter of games have no review summary, and about one in
+ *       eight games is free to play.</li>
+ * </ul>
+ *
+ * <p>Output depends only on the seed, so a catalog can be regenerated exactly. Run from the command
+ * line with {@code CatalogGenerator <rows> <output.csv> [seed]}.
+ */
+public final class CatalogGenerator {
+
+    /** Number of distinct tags. */
+    public static final int TAG_COUNT = 400;
+
+    /** Zipf exponent of the tag distribution. */
+    public static final double TAG_SKEW = 1.0;
+
+    /** The most frequent tags, in rank order; the rest are named {@code "Tag <rank>"}. */
+    private static final String[] TOP_TAGS = {
+        "Indie", "Action", "Adventure", "Casual", "Simulation", "Strategy", "RPG", "Singleplayer",
+        "Early Access", "Free to Play", "Puzzle", "2D", "Atmospheric", "Multiplayer", "Sports", "Racing",
+        "Story Rich", "Pixel Graphics", "Great Soundtrack", "Massively Multiplayer", "Open World",
+        "Sci-fi", "Fantasy", "Horror", "Shooter", "FPS", "Survival", "Co-op", "Platformer", "Difficult",
+        "Funny", "Sandbox", "Anime", "Arcade", "VR", "Retro", "Family Friendly", "Visual Novel",
+        "Exploration", "Turn-Based"
+    };
+
+    private static final String[] NAME_WORDS = {
+        "Dark", "Star", "Legend", "Quest", "Shadow", "Iron", "Lost", "Sky", "Dungeon", "Empire", "Tales",
+        "Neon", "Wild", "Crystal", "Galaxy", "Kingdom", "Rogue", "Tiny", "Super", "Last", "Dragon", "City"
+    };
+
+    private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("MMM dd, yyyy", Locale.ENGLISH);
+    private static final int FIRST_YEAR = 1997;
+    private static final int LAST_YEAR = 2024;
+    private static final double YEARLY_GROWTH = 1.3;
+    private static final double NAN_DATE_FRACTION = 0.005;
+
+    private final long seed;
+    private final double[] tagCdf = zipfCdf(TAG_COUNT, TAG_SKEW);
+    private final double[] yearCdf = yearCdf();
+
+    /**
+     * Creates a generator.
+     *
+     * @param seed the random seed
+     */
+    public CatalogGenerator(long seed) {
+        this.seed = seed;
+    }
+
+    /**
+     * Returns the name of the tag with the given frequency rank (0 is the most frequent).
+     *
+     * @param rank the tag rank
+     * @return the tag name
+     */
+    public static String tagName(int rank) {
+        return rank < TOP_TAGS.length ? TOP_TAGS[rank] : "Tag " + rank;
+    }
+
+    /**
+     * Draws a tag rank from the catalog's Zipf distribution, e.g. to pick query tags with the same
+     * skew as the data.
+     *
+     * @param uniform a uniform random value in {@code [0, 1)}
+     * @return the tag rank
+     */
+    public int sampleTagRank(double uniform) {
+        return sample(tagCdf, uniform);
+    }
+
+    /**
+     * Writes a catalog with the given number of rows (including rows with a {@code NaN} date).
+     *
+     * @param file the CSV file to write
+     * @param rows the number of rows
+     * @throws IOException if the file cannot be written
+     */
+    public void write(Path file, int rows) throws IOException {
+        try (BufferedWriter out = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            write(out, rows);
+        }
+    }
+
+    private void write(BufferedWriter out, int rows) throws IOException {
+        SplittableRandom random = new SplittableRandom(seed);
+        out.write(",name,all_reviews,release_date,popular_tags,original_price\n");
+
+        StringBuilder line = new StringBuilder(256);
+        boolean[] used = new boolean[TAG_COUNT];
+        int[] ranks = new int[20];
+        for (int row = 0; row < rows; row++) {
+            line.setLength(0);
+            line.append(row).append(',');
+            appendName(line, random, row);
+            line.append(',');
+            appendReviews(line, random);
+            line.append(',');
+            appendDate(line, random);
+            line.append(',');
+            appendTags(line, random, used, ranks);
+            line.append(',');
+            appendPrice(line, random);
+            line.append('\n');
+            out.append(line);
+        }
+    }
+
+    private static void appendName(StringBuilder line, SplittableRandom random, int row) {
+        line.append(NAME_WORDS[random.nextInt(NAME_WORDS.length)]).append(' ')
+                .append(NAME_WORDS[random.nextInt(NAME_WORDS.length)]).append(' ').append(row);
+    }
+
+    private static void appendReviews(StringBuilder line, SplittableRandom random) {
+        if (random.nextDouble() < 0.25) {
+            return; // No review summary
+        }
+        // Pareto-distributed review count: most games have a handful, a few have millions
+        int count = (int) Math.min(5_000_000, 10 / Math.pow(1 - random.nextDouble(), 1.2));
+        int percent = (int) Math.round(100 * Math.pow(random.nextDouble(), 0.4));
+        String formatted = String.format(Locale.US, "%,d", count);
+        line.append('"').append(reviewLabel(percent)).append(",(").append(formatted).append("),- ")
+                .append(percent).append("% of the ").append(formatted)
+                .append(" user reviews for this game are positive.\"");
+    }
+
+    private static String reviewLabel(int percent) {
+        if (percent >= 95) {
+            return "Overwhelmingly Positive";
+        } else if (percent >= 80) {
+            return "Very Positive";
+        } else if (percent >= 70) {
+            return "Mostly Positive";
+        } else if (percent >= 40) {
+            return "Mixed";
+        } else if (percent >= 20) {
+            return "Mostly Negative";
+        }
+        return "Overwhelmingly Negative";
+    }
+
+    private void appendDate(StringBuilder line, SplittableRandom random) {
+        if (random.nextDouble() < NAN_DATE_FRACTION) {
+            line.append("NaN");
+            return;
+        }
+        int year = FIRST_YEAR + sample(yearCdf, random.nextDouble());
+        LocalDate date = LocalDate.ofYearDay(year, 1 + random.nextInt(LocalDate.of(year, 1, 1).lengthOfYear()));
+        line.append('"').append(DATE_FORMAT.format(date)).append('"');
+    }
+
+    private void appendTags(StringBuilder line, SplittableRandom random, boolean[] used, int[] ranks) {
+        int count = 3 + random.nextInt(18);
+        int n = 0;
+        while (n < count) {
+            int rank = sample(tagCdf, random.nextDouble());
+            if (!used[rank]) {
+                used[rank] = true;
+                ranks[n++] = rank;
+            }
+        }
+        line.append('"');
+        for (int i = 0; i < n; i++) {
+            if (i > 0) {
+                line.append(',');
+            }
+            line.append(tagName(ranks[i]));
+            used[ranks[i]] = false;
+        }
+        line.append('"');
+    }
+
+    private static void appendPrice(StringBuilder line, SplittableRandom random) {
+        if (random.nextDouble() < 0.12) {
+            line.append("Free to Play");
+            return;
+        }
+        // Log-normal around $10, snapped to a .99 price point
+        double price = Math.exp(Math.log(10) + 0.9 * gaussian(random));
+        int dollars = (int) Math.min(999, Math.max(0, Math.floor(price)));
+        line.append('$').append(dollars).append(".99");
+    }
+
+    private static double gaussian(SplittableRandom random) {
+        double u = 1 - random.nextDouble();
+        double v = random.nextDouble();
+        return Math.sqrt(-2 * Math.log(u)) * Math.cos(2 * Math.PI * v);
+    }
+
+    private static double[] zipfCdf(int n, double skew) {
+        double[] cdf = new double[n];
+        double total = 0;
+        for (int rank = 0; rank < n; rank++) {
+            total += 1 / Math.pow(rank + 1, skew);
+            cdf[rank] = total;
+        }
+        for (int rank = 0; rank < n; rank++) {
+            cdf[rank] /= total;
+        }
+        return cdf;
+    }
+
+    private static double[] yearCdf() {
+        double[] cdf = new double[LAST_YEAR - FIRST_YEAR + 1];
+        double total = 0;
+        for (int i = 0; i < cdf.length; i++) {
+            total += Math.pow(YEARLY_GROWTH, i);
+            cdf[i] = total;
+        }
+        for (int i = 0; i < cdf.length; i++) {
+            cdf[i] /= total;
+        }
+        return cdf;
+    }
+
+    /** Returns the first index whose cumulative probability exceeds {@code uniform}. */
+    private static int sample(double[] cdf, double uniform) {
+        int index = Arrays.binarySearch(cdf, uniform);
+        index = index < 0 ? -index - 1 : index + 1;
+        return Math.min(index, cdf.length - 1);
+    }
+
+    /**
+     * Writes a catalog from the command line.
+     *
+     * @param args {@code <rows> <output.csv> [seed]}
+     * @throws IOException if the file cannot be written
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.out.println("Usage: CatalogGenerator <rows> <output.csv> [seed]");
+            return;
+        }
+        int rows = Integer.parseInt(args[0]);
+        long seed = args.length > 2 ? Long.parseLong(args[2]) : new Random().nextLong();
+        long start = System.nanoTime();
+        new CatalogGenerator(seed).write(Path.of(args[1]), rows);
+        System.out.printf("Wrote %,d rows to %s in %.1f s (seed %d)%n", rows, args[1],
+                (System.nanoTime() - start) / 1e9, seed);
+    }
+}
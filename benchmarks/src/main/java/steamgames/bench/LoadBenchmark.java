@@ -0,0 +1,46 @@
+package steamgames.bench;
+
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures {@code loadDataset} end to end (parsing plus index construction) on synthetic CSVs
+ * from the size of the real catalog up to 10M rows.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xms12g", "-Xmx12g"})
+public class LoadBenchmark {
+
+    @Param({"40000", "1000000", "10000000"})
+    public int rows;
+
+    private String csv;
+
+    @Setup(Level.Trial)
+    public void generate() {
+        Path file = BenchmarkDatasets.csv(rows);
+        csv = file.toString();
+    }
+
+    @Benchmark
+    public int loadDataset() {
+        return QueryEngine.create().loadDataset(csv);
+    }
+}
@@ -0,0 +1,238 @@
+package steamgames.bench;
+
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.HdrHistogram.Histogram;
+
+/**
+ * Replays a weighted mix of queries against {@code SteamGamesImpl} from many threads and reports
+ * throughput and latency percentiles per query type.
+ *
+ * <p>Query tags are drawn with the same Zipf skew as {@link CatalogGenerator} uses for the data, so
+ * popular tags are queried more often, as they would be in production. Each thread records into its
+ * own HdrHistograms, which are merged after the run, so recording never contends.
+ *
+ * <pre>
+ * LoadTestDriver [--csv file | --rows n] [--threads t] [--warmup seconds] [--duration seconds]
+ *                [--mix range=30,upTo=10,exact=20,avg=10,avgTag=20,top=10]
+ * </pre>
+ */
+public final class LoadTestDriver {
+
+    /** Latencies above one minute are clamped. */
+    private static final long MAX_LATENCY_NANOS = TimeUnit.MINUTES.toNanos(1);
+
+    private static final String[] TOP_ATTRIBUTES = {"original_price", "release_date", "name", "all_reviews"};
+    private static final int FIRST_YEAR = 1997;
+    private static final int LAST_YEAR = 2024;
+
+    /** The query types and their names in {@code --mix}. */
+    private enum Query {
+        RANGE("range"), UP_TO("upTo"), EXACT("exact"), AVERAGE("avg"), AVERAGE_BY_TAG("avgTag"), TOP("top");
+
+        final String key;
+
+        Query(String key) {
+            this.key = key;
+        }
+    }
+
+    private final QueryEngine engine;
+    private final CatalogGenerator tags = new CatalogGenerator(0);
+    private final Query[] queries;
+    private final double[] cumulativeWeights;
+
+    private LoadTestDriver(QueryEngine engine, Map<Query, Integer> mix) {
+        this.engine = engine;
+        queries = mix.keySet().toArray(new Query[0]);
+        cumulativeWeights = new double[queries.length];
+        double total = 0;
+        for (int i = 0; i < queries.length; i++) {
+            total += mix.get(queries[i]);
+            cumulativeWeights[i] = total;
+        }
+        for (int i = 0; i < queries.length; i++) {
+            cumulativeWeights[i] /= total;
+        }
+    }
+
+    /**
+     * Runs the load test.
+     *
+     * @param args the command-line options (see the class description)
+     * @throws Exception if the dataset cannot be generated or a worker fails
+     */
+    public static void main(String[] args) throws Exception {
+        String csv = null;
+        int rows = 40_000;
+        int threads = Runtime.getRuntime().availableProcessors();
+        int warmupSeconds = 10;
+        int durationSeconds = 30;
+        String mix = "range=30,upTo=10,exact=20,avg=10,avgTag=20,top=10";
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            switch (args[i]) {
+                case "--csv" -> csv = args[i + 1];
+                case "--rows" -> rows = Integer.parseInt(args[i + 1]);
+                case "--threads" -> threads = Integer.parseInt(args[i + 1]);
+                case "--warmup" -> warmupSeconds = Integer.parseInt(args[i + 1]);
+                case "--duration" -> durationSeconds = Integer.parseInt(args[i + 1]);
+                case "--mix" -> mix = args[i + 1];
+                default -> throw new IllegalArgumentException("Unknown option: " + args[i]);
+            }
+        }
+        if (csv == null) {
+            csv = BenchmarkDatasets.csv(rows).toString();
+        }
+
+        QueryEngine engine = QueryEngine.create();
+        long loadStart = System.nanoTime();
+        int loaded = engine.loadDataset(Path.of(csv).toString());
+        System.out.printf("Loaded %,d games from %s in %.2f s%n", loaded, csv, (System.nanoTime() - loadStart) / 1e9);
+
+        LoadTestDriver driver = new LoadTestDriver(engine, parseMix(mix));
+        if (warmupSeconds > 0) {
+            System.out.printf("Warming up for %d s on %d threads...%n", warmupSeconds, threads);
+            driver.run(threads, warmupSeconds);
+        }
+        System.out.printf("Measuring for %d s on %d threads...%n", durationSeconds, threads);
+        driver.report(driver.run(threads, durationSeconds), durationSeconds);
+    }
+
+    /** Runs the mix on {@code threads} threads and returns the merged histogram of each query type. */
+    private Map<Query, Histogram> run(int threads, int seconds) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+        List<Map<Query, Histogram>> perThread = new ArrayList<>();
+        List<Throwable> failures = new ArrayList<>();
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> workers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            Map<Query, Histogram> histograms = newHistograms();
+            perThread.add(histograms);
+            Thread worker = new Thread(() -> {
+                try {
+                    start.await();
+                    while (System.nanoTime() < deadline) {
+                        Query query = pickQuery();
+                        long begin = System.nanoTime();
+                        execute(query);
+                        histograms.get(query).recordValue(Math.min(System.nanoTime() - begin, MAX_LATENCY_NANOS));
+                    }
+                } catch (Throwable e) {
+                    synchronized (failures) {
+                        failures.add(e);
+                    }
+                }
+            }, "load-" + t);
+            workers.add(worker);
+            worker.start();
+        }
+        start.countDown();
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        if (!failures.isEmpty()) {
+            throw new IllegalStateException("Worker failed", failures.get(0));
+        }
+
+        Map<Query, Histogram> merged = newHistograms();
+        for (Map<Query, Histogram> histograms : perThread) {
+            for (Query query : queries) {
+                merged.get(query).add(histograms.get(query));
+            }
+        }
+        return merged;
+    }
+
+    private void report(Map<Query, Histogram> histograms, int seconds) {
+        long total = 0;
+        System.out.printf("%-8s %12s %10s %10s %10s %10s %10s %10s%n",
+                "query", "count", "ops/s", "p50 us", "p90 us", "p99 us", "p99.9 us", "max us");
+        for (Query query : queries) {
+            Histogram h = histograms.get(query);
+            total += h.getTotalCount();
+            System.out.printf("%-8s %12d %10.0f %10.1f %10.1f %10.1f %10.1f %10.1f%n", query.key,
+                    h.getTotalCount(), (double) h.getTotalCount() / seconds,
+                    micros(h.getValueAtPercentile(50)), micros(h.getValueAtPercentile(90)),
+                    micros(h.getValueAtPercentile(99)), micros(h.getValueAtPercentile(99.9)),
+                    micros(h.getMaxValue()));
+        }
+        System.out.printf("Total: %,d queries, %.0f ops/s%n", total, (double) total / seconds);
+    }
+
+    private Query pickQuery() {
+        double u = ThreadLocalRandom.current().nextDouble();
+        for (int i = 0; i < queries.length; i++) {
+            if (u < cumulativeWeights[i]) {
+                return queries[i];
+            }
+        }
+        return queries[queries.length - 1];
+    }
+
+    private Object execute(Query query) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        String tag = CatalogGenerator.tagName(tags.sampleTagRank(random.nextDouble()));
+        LocalDate lower = LocalDate.of(FIRST_YEAR + random.nextInt(LAST_YEAR - FIRST_YEAR + 1), 1, 1)
+                .plusDays(random.nextInt(365));
+        LocalDate upper = lower.plusDays(random.nextInt(366));
+        return switch (query) {
+            case RANGE -> engine.findGamesByReleaseDate(tag, toDate(lower), toDate(upper));
+            case UP_TO -> engine.findGamesByReleaseDate(tag, toDate(upper));
+            case EXACT -> engine.findGamesByExactQuery(toDate(lower), tag);
+            case AVERAGE -> engine.calculateAverageGamePrice(toDate(lower), toDate(upper));
+            case AVERAGE_BY_TAG -> engine.calculateAverageGamePrice(toDate(lower), toDate(upper), tag);
+            case TOP -> engine.findTopGamesByAttribute(TOP_ATTRIBUTES[random.nextInt(TOP_ATTRIBUTES.length)],
+                    1 + random.nextInt(100));
+        };
+    }
+
+    private Map<Query, Histogram> newHistograms() {
+        Map<Query, Histogram> histograms = new LinkedHashMap<>();
+        for (Query query : queries) {
+            histograms.put(query, new Histogram(MAX_LATENCY_NANOS, 3));
+        }
+        return histograms;
+    }
+
+    private static Map<Query, Integer> parseMix(String mix) {
+        Map<Query, Integer> weights = new LinkedHashMap<>();
+        for (String entry : mix.split(",")) {
+            String[] parts = entry.trim().split("=");
+            Query query = null;
+            for (Query candidate : Query.values()) {
+                if (candidate.key.equalsIgnoreCase(parts[0].trim())) {
+                    query = candidate;
+                }
+            }
+            if (query == null || parts.length != 2) {
+                throw new IllegalArgumentException("Invalid mix entry: " + entry);
+            }
+            int weight = Integer.parseInt(parts[1].trim());
+            if (weight > 0) {
+                weights.put(query, weight);
+            }
+        }
+        if (weights.isEmpty()) {
+            throw new IllegalArgumentException("Empty query mix: " + mix);
+        }
+        return weights;
+    }
+
+    private static Date toDate(LocalDate date) {
+        return Date.from(date.atStartOfDay(ZoneId.systemDefault()).toInstant());
+    }
+
+    private static double micros(long nanos) {
+        return nanos / 1000.0;
+    }
+}
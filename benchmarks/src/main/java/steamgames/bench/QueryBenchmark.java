@@ -0,0 +1,113 @@
+package steamgames.bench;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures every {@code SteamGamesDatasetQuery} query against a dataset loaded once per trial.
+ *
+ * <p>{@code tag} switches between the most frequent tag of the Zipf-skewed catalog and the least
+ * frequent one, and {@code rows} scales the dataset, so each query is measured in the four corners
+ * that matter for its complexity. Queries return their results so JMH consumes them and nothing is dead-code
+ * eliminated.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms12g", "-Xmx12g"})
+public class QueryBenchmark {
+
+    @Param({"40000", "1000000", "10000000"})
+    public int rows;
+
+    @Param({BenchmarkDatasets.COMMON_TAG, BenchmarkDatasets.RARE_TAG})
+    public String tag;
+
+    @Param({"10"})
+    public int k;
+
+    private QueryEngine engine;
+
+    /** One year in the middle of the generated date range. */
+    private Date yearStart;
+    private Date yearEnd;
+
+    /** Upper bound covering roughly the first half of the generated date range. */
+    private Date upperBound;
+
+    @Setup(Level.Trial)
+    public void load() {
+        engine = QueryEngine.create();
+        engine.loadDataset(BenchmarkDatasets.csv(rows).toString());
+        yearStart = date(2015, 1, 1);
+        yearEnd = date(2015, 12, 31);
+        upperBound = date(2010, 12, 31);
+    }
+
+    @Benchmark
+    public List<String> findGamesByExactQuery() {
+        return engine.findGamesByExactQuery(yearStart, tag);
+    }
+
+    @Benchmark
+    public List<String> findGamesByReleaseDateRange() {
+        return engine.findGamesByReleaseDate(tag, yearStart, yearEnd);
+    }
+
+    @Benchmark
+    public List<String> findGamesByReleaseDateUpTo() {
+        return engine.findGamesByReleaseDate(tag, upperBound);
+    }
+
+    @Benchmark
+    public List<String> calculateAverageGamePrice() {
+        return engine.calculateAverageGamePrice(yearStart, yearEnd);
+    }
+
+    @Benchmark
+    public List<String> calculateAverageGamePriceByTag() {
+        return engine.calculateAverageGamePrice(yearStart, yearEnd, tag);
+    }
+
+    @Benchmark
+    public List<?> findTopGamesByPrice() {
+        return engine.findTopGamesByAttribute("original_price", k);
+    }
+
+    @Benchmark
+    public List<?> findTopGamesByReviews() {
+        return engine.findTopGamesByAttribute("all_reviews", k);
+    }
+
+    @Benchmark
+    public List<?> findTopGamesByReleaseDate() {
+        return engine.findTopGamesByAttribute("release_date", k);
+    }
+
+    @Benchmark
+    public List<?> findTopGamesByName() {
+        return engine.findTopGamesByAttribute("name", k);
+    }
+
+    private static Date date(int year, int month, int day) {
+        return Date.from(LocalDate.of(year, month, day).atStartOfDay(ZoneId.systemDefault()).toInstant());
+    }
+}
@@ -0,0 +1,155 @@
+package steamgames.bench;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Typed access to {@code SteamGamesImpl} from the benchmark package.
+ *
+ * <p>The project classes live in the default package, which named packages cannot import, and JMH
+ * refuses benchmark classes in the default package. Each query is therefore bound once to a
+ * {@code static final} {@link MethodHandle}, which the JIT inlines like a direct call, so the bridge
+ * adds no measurable cost to the benchmarks.
+ */
+public final class QueryEngine {
+
+    private static final MethodHandle NEW_ENGINE;
+    private static final MethodHandle LOAD_DATASET;
+    private static final MethodHandle FIND_BY_EXACT_QUERY;
+    private static final MethodHandle FIND_BY_RELEASE_DATE_RANGE;
+    private static final MethodHandle FIND_BY_RELEASE_DATE_UP_TO;
+    private static final MethodHandle AVERAGE_PRICE;
+    private static final MethodHandle AVERAGE_PRICE_BY_TAG;
+    private static final MethodHandle TOP_BY_ATTRIBUTE;
+
+    static {
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+            Class<?> impl = Class.forName("SteamGamesImpl");
+            NEW_ENGINE = lookup.findConstructor(impl, MethodType.methodType(void.class))
+                    .asType(MethodType.methodType(Object.class));
+            LOAD_DATASET = bind(lookup, impl, "loadDataset", int.class, String.class);
+            FIND_BY_EXACT_QUERY = bind(lookup, impl, "findGamesByExactQuery", List.class, Date.class, String.class);
+            FIND_BY_RELEASE_DATE_RANGE = bind(lookup, impl, "findGamesByReleaseDate", List.class,
+                    String.class, Date.class, Date.class);
+            FIND_BY_RELEASE_DATE_UP_TO = bind(lookup, impl, "findGamesByReleaseDate", List.class,
+                    String.class, Date.class);
+            AVERAGE_PRICE = bind(lookup, impl, "calculateAverageGamePrice", List.class, Date.class, Date.class);
+            AVERAGE_PRICE_BY_TAG = bind(lookup, impl, "calculateAverageGamePrice", List.class,
+                    Date.class, Date.class, String.class);
+            TOP_BY_ATTRIBUTE = bind(lookup, impl, "findTopGamesByAttribute", List.class, String.class, int.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private final Object engine;
+
+    private QueryEngine(Object engine) {
+        this.engine = engine;
+    }
+
+    /**
+     * Creates an engine with an empty dataset.
+     *
+     * @return the engine
+     */
+    public static QueryEngine create() {
+        try {
+            return new QueryEngine((Object) NEW_ENGINE.invokeExact());
+        } catch (Throwable t) {
+            throw propagate(t);
+        }
+    }
+
+    /** Calls {@code loadDataset}. */
+    public int loadDataset(String csvFile) {
+        try {
+            return (int) LOAD_DATASET.invokeExact(engine, csvFile);
+        } catch (Throwable t) {
+            throw propagate(t);
+        }
+    }
+
+    /** Calls {@code findGamesByExactQuery}. */
+    @SuppressWarnings("unchecked")
+    public List<String> findGamesByExactQuery(Date year, String tag) {
+        try {
+            return (List<String>) (List<?>) FIND_BY_EXACT_QUERY.invokeExact(engine, year, tag);
+        } catch (Throwable t) {
+            throw propagate(t);
+        }
+    }
+
+    /** Calls {@code findGamesByReleaseDate} with both bounds. */
+    @SuppressWarnings("unchecked")
+    public List<String> findGamesByReleaseDate(String tag, Date lowerBound, Date upperBound) {
+        try {
+            return (List<String>) (List<?>) FIND_BY_RELEASE_DATE_RANGE.invokeExact(engine, tag, lowerBound, upperBound);
+        } catch (Throwable t) {
+            throw propagate(t);
+        }
+    }
+
+    /** Calls {@code findGamesByReleaseDate} with an upper bound only. */
+    @SuppressWarnings("unchecked")
+    public List<String> findGamesByReleaseDate(String tag, Date upperBound) {
+        try {
+            return (List<String>) (List<?>) FIND_BY_RELEASE_DATE_UP_TO.invokeExact(engine, tag, upperBound);
+        } catch (Throwable t) {
+            throw propagate(t);
+        }
+    }
+
+    /** Calls {@code calculateAverageGamePrice} over all tags. */
+    @SuppressWarnings("unchecked")
+    public List<String> calculateAverageGamePrice(Date startTime, Date endTime) {
+        try {
+            return (List<String>) (List<?>) AVERAGE_PRICE.invokeExact(engine, startTime, endTime);
+        } catch (Throwable t) {
+            throw propagate(t);
+        }
+    }
+
+    /** Calls {@code calculateAverageGamePrice} for one tag. */
+    @SuppressWarnings("unchecked")
+    public List<String> calculateAverageGamePrice(Date startTime, Date endTime, String tag) {
+        try {
+            return (List<String>) (List<?>) AVERAGE_PRICE_BY_TAG.invokeExact(engine, startTime, endTime, tag);
+        } catch (Throwable t) {
+            throw propagate(t);
+        }
+    }
+
+    /**
+     * Returns the top-k games by an attribute. The games are returned as opaque objects, since
+     * {@code SteamGame} is not visible here either.
+     */
+    public List<?> findTopGamesByAttribute(String attribute, int k) {
+        try {
+            return (List<?>) TOP_BY_ATTRIBUTE.invokeExact(engine, attribute, k);
+        } catch (Throwable t) {
+            throw propagate(t);
+        }
+    }
+
+    /** Looks up a public method and adapts its receiver type to {@code Object}. */
+    private static MethodHandle bind(MethodHandles.Lookup lookup, Class<?> impl, String name, Class<?> returnType,
+                                     Class<?>... parameterTypes) throws ReflectiveOperationException {
+        MethodHandle handle = lookup.findVirtual(impl, name, MethodType.methodType(returnType, parameterTypes));
+        return handle.asType(handle.type().changeParameterType(0, Object.class));
+    }
+
+    private static RuntimeException propagate(Throwable t) {
+        if (t instanceof RuntimeException e) {
+            throw e;
+        }
+        if (t instanceof Error e) {
+            throw e;
+        }
+        return new IllegalStateException(t);
+    }
+}